@@ -0,0 +1,112 @@
+#!/bin/bash
+
+# Async upstream client benchmark
+# Starts a stub Genius/Musixmatch upstream that answers every call after a fixed delay, runs the
+# application against it, and fires concurrent requests at the blocking endpoints and at the
+# async combined endpoint. Reports latency percentiles and the JVM's live and peak thread counts
+# for each. Every request uses a distinct song so caches do not hide upstream calls.
+#
+# Usage: scripts/async-client-benchmark.sh [requests] [concurrency] [upstream delay ms]
+#   mvn package -DskipTests && scripts/async-client-benchmark.sh 2000 400 200
+
+set -e
+
+REQUESTS=${1:-1000}
+CONCURRENCY=${2:-200}
+DELAY_MS=${3:-200}
+APP_PORT=18081
+STUB_PORT=18091
+BASE_URL="http://localhost:$APP_PORT/api"
+JAR=$(ls target/*.jar | grep -v original | head -1)
+
+if [ ! -f "$JAR" ]; then
+    echo "Build the jar first: mvn package -DskipTests"
+    exit 1
+fi
+
+WORK=$(mktemp -d)
+cleanup() {
+    [ -n "$APP_PID" ] && kill "$APP_PID" 2> /dev/null
+    [ -n "$STUB_PID" ] && kill "$STUB_PID" 2> /dev/null
+    rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+cat > "$WORK/stub.py" <<PY
+import json, time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+class Stub(BaseHTTPRequestHandler):
+    def do_GET(self):
+        time.sleep($DELAY_MS / 1000)
+        if self.path.startswith("/songs/"):
+            song_id = self.path.split("/")[2]
+            body = {"response": {"song": {"id": int(song_id), "title": "Song " + song_id,
+                    "primary_artist": {"name": "Artist"}, "url": "", "song_art_image_url": ""}}}
+        elif "matcher.track.get" in self.path:
+            body = {"message": {"body": {"track": {"track_id": 1}}}}
+        else:
+            body = {"message": {"body": {"lyrics": {"lyrics_body": "la la la"}}}}
+        data = json.dumps(body).encode()
+        self.send_response(200)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(data)))
+        self.end_headers()
+        self.wfile.write(data)
+
+    def log_message(self, *args):
+        pass
+
+ThreadingHTTPServer.request_queue_size = 1024
+ThreadingHTTPServer(("127.0.0.1", $STUB_PORT), Stub).serve_forever()
+PY
+python3 "$WORK/stub.py" &
+STUB_PID=$!
+
+PORT=$APP_PORT java -jar "$JAR" \
+    --genius.api.url="http://127.0.0.1:$STUB_PORT" \
+    --lyrics.api.url="http://127.0.0.1:$STUB_PORT" \
+    --rate-limit.enabled=false \
+    --concurrency.limit.enabled=false \
+    --server.tomcat.threads.max=200 > "$WORK/app.log" 2>&1 &
+APP_PID=$!
+until curl -sf -o /dev/null "$BASE_URL/actuator/health"; do
+    kill -0 "$APP_PID" 2> /dev/null || { cat "$WORK/app.log"; exit 1; }
+    sleep 0.2
+done
+
+metric() {
+    curl -s "$BASE_URL/actuator/metrics/$1" | python3 -c 'import json,sys; print(int(json.load(sys.stdin)["measurements"][0]["value"]))'
+}
+
+# Runs one scenario; the path template's {} is replaced by a unique number per request
+run() {
+    local name=$1 template=$2 offset=$3
+    local results="$WORK/$name.txt"
+    local live_max sampler
+    (
+        while true; do
+            metric jvm.threads.live >> "$WORK/$name.threads"
+            sleep 0.2
+        done
+    ) &
+    sampler=$!
+    seq $((offset + 1)) $((offset + REQUESTS)) | xargs -P "$CONCURRENCY" -I{} \
+        curl -s -o /dev/null -w "%{http_code} %{time_total}\n" "$BASE_URL$template" > "$results"
+    kill "$sampler" 2> /dev/null
+    wait "$sampler" 2> /dev/null || true
+    live_max=$(sort -n "$WORK/$name.threads" | tail -1)
+    sort -k2 -g "$results" | awk -v name="$name" -v threads="$live_max" '
+        { n++; if ($1 != 200) errors++; t[n] = $2 * 1000 }
+        END {
+            printf "%-22s %5d requests  %4d errors  p50 %6.0f ms  p95 %6.0f ms  p99 %6.0f ms  live threads max %4d\n",
+                   name, n, errors, t[int(n * 0.5)], t[int(n * 0.95)], t[int(n * 0.99)], threads
+        }'
+}
+
+echo "Upstream delay ${DELAY_MS} ms, $REQUESTS requests per scenario at concurrency $CONCURRENCY"
+run "blocking genius" "/genius/songs/{}" 0
+run "blocking lyrics" "/lyrics/search?track=Song%20{}&artist=Artist" 0
+run "async concurrent" "/tracks/details?songId={}&track=T{}&artist=Artist" 100000
+run "async chained" "/tracks/details?songId={}" 200000
+echo "Peak JVM threads: $(metric jvm.threads.peak)"
@@ -0,0 +1,44 @@
+#!/bin/bash
+
+# Class data sharing (CDS) archive for the startup-optimized build
+# Unpacks the Spring Boot jar into a flat classpath (CDS only covers classes from the JDK's own
+# class loaders, not the nested-jar loader) and records the classes loaded during a training
+# run that stops right after the application context refreshes.
+#
+# Usage: scripts/build-cds.sh [jar] [output dir]
+#   mvn -Pstartup package -DskipTests && scripts/build-cds.sh
+#   java -XX:SharedArchiveFile=target/cds/app.jsa -Dspring.aot.enabled=true @target/cds/app.args
+
+set -e
+
+JAR=${1:-$(ls target/*.jar | grep -v original | head -1)}
+OUT=${2:-target/cds}
+MAIN_CLASS=com.soundvaultpro.api.SoundVaultProApplication
+
+if [ ! -f "$JAR" ]; then
+    echo "Usage: $0 [jar] [output dir]"
+    exit 1
+fi
+
+rm -rf "$OUT"
+mkdir -p "$OUT/app"
+JAR_PATH=$(realpath "$JAR")
+(cd "$OUT/app" && jar -xf "$JAR_PATH")
+
+# The archive is only used when the classpath matches the training run, so fix its order
+CLASSPATH="$OUT/app/BOOT-INF/classes"
+for lib in $(ls "$OUT/app/BOOT-INF/lib" | sort); do
+    CLASSPATH="$CLASSPATH:$OUT/app/BOOT-INF/lib/$lib"
+done
+printf -- '-cp %s\n%s\n' "$CLASSPATH" "$MAIN_CLASS" > "$OUT/app.args"
+
+AOT_FLAG=""
+# Jars built with -Pstartup contain the AOT-generated context initializer
+if [ -f "$OUT/app/BOOT-INF/classes/com/soundvaultpro/api/SoundVaultProApplication__ApplicationContextInitializer.class" ]; then
+    AOT_FLAG="-Dspring.aot.enabled=true"
+fi
+
+java -XX:ArchiveClassesAtExit="$OUT/app.jsa" -Dspring.context.exit=onRefresh $AOT_FLAG "@$OUT/app.args"
+
+echo "CDS archive: $OUT/app.jsa ($(du -h "$OUT/app.jsa" | cut -f1))"
+echo "Run with: java -XX:SharedArchiveFile=$OUT/app.jsa $AOT_FLAG @$OUT/app.args"
@@ -0,0 +1,43 @@
+#!/bin/bash
+
+# Concurrency limit load test
+# Sends a burst of concurrent requests at one route and tallies status codes and latency, so
+# the effect of the adaptive limiter can be seen while an upstream is slow. Watch the limit
+# adapt meanwhile with:
+#   curl localhost:8080/api/actuator/metrics/http.concurrency.limit?tag=group:lyrics
+#
+# Usage: scripts/concurrency-load-test.sh <path> [requests] [concurrency] [base url]
+#   e.g. scripts/concurrency-load-test.sh "/lyrics/search?track=Yesterday&artist=The%20Beatles" 2000 200
+
+set -e
+
+TARGET=$1
+REQUESTS=${2:-1000}
+CONCURRENCY=${3:-100}
+BASE_URL=${4:-http://localhost:8080/api}
+
+if [ -z "$TARGET" ]; then
+    echo "Usage: $0 <path> [requests] [concurrency] [base url]"
+    exit 1
+fi
+
+RESULTS=$(mktemp)
+trap 'rm -f "$RESULTS"' EXIT
+
+seq 1 "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} \
+    curl -s -o /dev/null -w "%{http_code} %{time_total}\n" "$BASE_URL$TARGET" >> "$RESULTS"
+
+echo "Status codes:"
+awk '{ print $1 }' "$RESULTS" | sort | uniq -c
+
+# Shed requests should come back fast; admitted ones show the real service latency
+for status in $(awk '{ print $1 }' "$RESULTS" | sort -u); do
+    awk -v s="$status" '$1 == s { print $2 * 1000 }' "$RESULTS" | sort -n | awk -v s="$status" '
+        { t[NR] = $1 }
+        END {
+            printf "%s latency: p50=%.1fms p95=%.1fms p99=%.1fms\n", s,
+                t[int(NR * 0.50) > 0 ? int(NR * 0.50) : 1],
+                t[int(NR * 0.95) > 0 ? int(NR * 0.95) : 1],
+                t[int(NR * 0.99) > 0 ? int(NR * 0.99) : 1]
+        }'
+done
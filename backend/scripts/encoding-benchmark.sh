@@ -0,0 +1,114 @@
+#!/bin/bash
+
+# Response encoding benchmark
+# Starts a stub Musixmatch upstream that returns lyrics of a fixed size, runs the application
+# against it and requests the same cached lyrics response in each combination of body format
+# (JSON, CBOR) and content coding (identity, gzip, br). Reports the bytes on the wire per
+# response and the application's CPU time per request, read from /proc before and after each
+# scenario. Linux only.
+#
+# Usage: scripts/encoding-benchmark.sh [requests] [lyrics bytes] [concurrency]
+#   mvn package -DskipTests && scripts/encoding-benchmark.sh 5000 20000 8
+
+set -e
+
+REQUESTS=${1:-5000}
+LYRICS_BYTES=${2:-20000}
+CONCURRENCY=${3:-8}
+APP_PORT=18082
+STUB_PORT=18092
+BASE_URL="http://localhost:$APP_PORT/api"
+URL="$BASE_URL/lyrics/search?track=Song&artist=Artist"
+JAR=$(ls target/*.jar | grep -v original | head -1)
+TICKS=$(getconf CLK_TCK)
+
+if [ ! -f "$JAR" ]; then
+    echo "Build the jar first: mvn package -DskipTests"
+    exit 1
+fi
+
+WORK=$(mktemp -d)
+cleanup() {
+    [ -n "$APP_PID" ] && kill "$APP_PID" 2> /dev/null
+    [ -n "$STUB_PID" ] && kill "$STUB_PID" 2> /dev/null
+    rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+cat > "$WORK/stub.py" <<PY
+import json, random
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+
+# Lyrics-like text: lines drawn from a small vocabulary, so it compresses like real lyrics
+random.seed(1)
+words = "love night heart baby time feel world never dream light fire away home dance know".split()
+lines = []
+while sum(len(l) + 1 for l in lines) < $LYRICS_BYTES:
+    lines.append(" ".join(random.choice(words) for _ in range(random.randint(4, 9))).capitalize())
+LYRICS = "\n".join(lines)
+
+class Stub(BaseHTTPRequestHandler):
+    def do_GET(self):
+        if "matcher.track.get" in self.path:
+            body = {"message": {"body": {"track": {"track_id": 1}}}}
+        else:
+            body = {"message": {"body": {"lyrics": {"lyrics_body": LYRICS}}}}
+        data = json.dumps(body).encode()
+        self.send_response(200)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(data)))
+        self.end_headers()
+        self.wfile.write(data)
+
+    def log_message(self, *args):
+        pass
+
+ThreadingHTTPServer(("127.0.0.1", $STUB_PORT), Stub).serve_forever()
+PY
+python3 "$WORK/stub.py" &
+STUB_PID=$!
+
+PORT=$APP_PORT java -jar "$JAR" \
+    --lyrics.api.url="http://127.0.0.1:$STUB_PORT" \
+    --rate-limit.enabled=false \
+    --concurrency.limit.enabled=false > "$WORK/app.log" 2>&1 &
+APP_PID=$!
+until curl -sf -o /dev/null "$BASE_URL/actuator/health"; do
+    kill -0 "$APP_PID" 2> /dev/null || { cat "$WORK/app.log"; exit 1; }
+    sleep 0.2
+done
+
+cpu_ticks() {
+    awk '{ print $14 + $15 }' "/proc/$APP_PID/stat"
+}
+
+fire() {
+    local accept=$1 encoding=$2 count=$3
+    seq 1 "$count" | xargs -P "$CONCURRENCY" -I{} \
+        curl -s -o /dev/null -w "%{http_code} %{size_download}\n" \
+        -H "Accept: $accept" -H "Accept-Encoding: $encoding" "$URL"
+}
+
+run() {
+    local name=$1 accept=$2 encoding=$3
+    local before after
+    # Warm up the JIT for this path; the first request also fills the lyrics cache
+    fire "$accept" "$encoding" 1000 > /dev/null
+    before=$(cpu_ticks)
+    fire "$accept" "$encoding" "$REQUESTS" > "$WORK/$name.txt"
+    after=$(cpu_ticks)
+    awk -v name="$name" -v ticks=$((after - before)) -v hz="$TICKS" '
+        { n++; if ($1 != 200) errors++; bytes += $2 }
+        END {
+            printf "%-14s %6d requests  %4d errors  %8.0f bytes/response  %7.3f ms CPU/request\n",
+                   name, n, errors, bytes / n, ticks * 1000 / hz / n
+        }' "$WORK/$name.txt"
+}
+
+echo "Lyrics of $LYRICS_BYTES bytes, $REQUESTS requests per scenario at concurrency $CONCURRENCY"
+run "json identity" "application/json" "identity"
+run "json gzip" "application/json" "gzip"
+run "json br" "application/json" "br"
+run "cbor identity" "application/cbor" "identity"
+run "cbor gzip" "application/cbor" "gzip"
+run "cbor br" "application/cbor" "br"
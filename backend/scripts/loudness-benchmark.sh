@@ -0,0 +1,92 @@
+#!/bin/bash
+
+# Loudness analysis throughput benchmark
+# Generates synthetic stereo FLAC tracks with ffmpeg, runs the application with only the
+# loudness ingest stage enabled, uploads every track at once and waits for all jobs to finish.
+# Reports tracks per minute overall and per core, where the cores used are the ingest workers
+# (capped at the machine's cores). Decoding the FLAC is included, as it is in a real ingest.
+#
+# Usage: scripts/loudness-benchmark.sh [tracks] [seconds per track] [workers]
+#   mvn package -DskipTests && scripts/loudness-benchmark.sh 32 180 4
+
+set -e
+
+TRACKS=${1:-16}
+DURATION=${2:-180}
+WORKERS=${3:-$(nproc)}
+APP_PORT=18082
+BASE_URL="http://localhost:$APP_PORT/api"
+USER_ID=benchmark-user
+JAR=$(ls target/*.jar | grep -v original | head -1)
+
+if [ ! -f "$JAR" ]; then
+    echo "Build the jar first: mvn package -DskipTests"
+    exit 1
+fi
+command -v ffmpeg > /dev/null || { echo "ffmpeg is required"; exit 1; }
+
+WORK=$(mktemp -d)
+cleanup() {
+    [ -n "$APP_PID" ] && kill "$APP_PID" 2> /dev/null
+    rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+echo "Generating $TRACKS tracks of ${DURATION}s"
+for i in $(seq 1 "$TRACKS"); do
+    # A different noise seed and tone per track, so no two uploads are deduplicated
+    ffmpeg -nostdin -loglevel error \
+        -f lavfi -i "anoisesrc=d=$DURATION:c=pink:a=0.2:seed=$i" \
+        -f lavfi -i "sine=f=$((220 + i * 5)):d=$DURATION" \
+        -filter_complex "[0][1]amix=inputs=2,volume=$((i % 12 - 6))dB" \
+        -ac 2 -ar 44100 "$WORK/track-$i.flac"
+done
+
+PORT=$APP_PORT java -jar "$JAR" \
+    --ingest.dir="$WORK/ingest" \
+    --ingest.stages=loudness \
+    --ingest.workers="$WORKERS" \
+    --ingest.loudness.update-tracks=false \
+    --rate-limit.enabled=false \
+    --concurrency.limit.enabled=false > "$WORK/app.log" 2>&1 &
+APP_PID=$!
+until curl -sf -o /dev/null "$BASE_URL/actuator/health"; do
+    kill -0 "$APP_PID" 2> /dev/null || { cat "$WORK/app.log"; exit 1; }
+    sleep 0.2
+done
+
+START=$(date +%s.%N)
+for i in $(seq 1 "$TRACKS"); do
+    curl -sf -o /dev/null -F "file=@$WORK/track-$i.flac" \
+        "$BASE_URL/tracks/bench-$i/ingest?supabaseId=$USER_ID"
+done
+
+state() {
+    curl -s "$BASE_URL/tracks/bench-$1/ingest?supabaseId=$USER_ID" \
+        | python3 -c 'import json,sys; print(json.load(sys.stdin)["data"]["state"])'
+}
+remaining=$TRACKS
+while [ "$remaining" -gt 0 ]; do
+    sleep 0.5
+    remaining=0
+    for i in $(seq 1 "$TRACKS"); do
+        case $(state "$i") in
+            DONE) ;;
+            FAILED) echo "Ingest of track $i failed"; grep -m1 "bench-$i" "$WORK/app.log"; exit 1 ;;
+            *) remaining=$((remaining + 1)) ;;
+        esac
+    done
+done
+END=$(date +%s.%N)
+
+CORES=$(( WORKERS < $(nproc) ? WORKERS : $(nproc) ))
+python3 - "$START" "$END" "$TRACKS" "$DURATION" "$CORES" <<'PY'
+import sys
+start, end, tracks, duration, cores = float(sys.argv[1]), float(sys.argv[2]), int(sys.argv[3]), int(sys.argv[4]), int(sys.argv[5])
+elapsed = end - start
+per_minute = tracks * 60 / elapsed
+print(f"{tracks} tracks of {duration}s in {elapsed:.1f}s on {cores} cores")
+print(f"  {per_minute:.1f} tracks/min, {per_minute / cores:.1f} tracks/min/core, {tracks * duration / elapsed:.0f}x real time")
+PY
+curl -s "$BASE_URL/tracks/bench-1/ingest?supabaseId=$USER_ID" \
+    | python3 -c 'import json,sys; print("  track 1:", json.load(sys.stdin)["data"]["results"]["loudness"])'
@@ -0,0 +1,46 @@
+#!/bin/bash
+
+# Read-path latency benchmark
+# Times profile and playlist reads against a running backend. Run it once per
+# configuration and compare the output:
+#   remote PostgREST   SUPABASE_REPLICA_ENABLED=false
+#   in-memory replica  SUPABASE_REPLICA_ENABLED=true
+#   JPA local store    SPRING_PROFILES_ACTIVE=localstore
+#
+# Usage: scripts/read-benchmark.sh <supabaseId> [requests] [base url]
+
+set -e
+
+SUPABASE_ID=$1
+REQUESTS=${2:-200}
+BASE_URL=${3:-http://localhost:8080/api}
+
+if [ -z "$SUPABASE_ID" ]; then
+    echo "Usage: $0 <supabaseId> [requests] [base url]"
+    exit 1
+fi
+
+# Print count, mean, p50, p95 and p99 in milliseconds of the curl timings for one URL
+bench() {
+    local name=$1
+    local url=$2
+
+    # Warm up connections, JIT and caches before measuring
+    for _ in $(seq 1 20); do
+        curl -s -o /dev/null "$url"
+    done
+
+    for _ in $(seq 1 "$REQUESTS"); do
+        curl -s -o /dev/null -w "%{time_total}\n" "$url"
+    done | sort -n | awk -v name="$name" '
+        { t[NR] = $1 * 1000; sum += t[NR] }
+        END {
+            printf "%-10s n=%d mean=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms\n", name, NR, sum / NR,
+                t[int(NR * 0.50) > 0 ? int(NR * 0.50) : 1],
+                t[int(NR * 0.95) > 0 ? int(NR * 0.95) : 1],
+                t[int(NR * 0.99) > 0 ? int(NR * 0.99) : 1]
+        }'
+}
+
+bench "profile" "$BASE_URL/users/$SUPABASE_ID"
+bench "playlists" "$BASE_URL/playlists?supabaseId=$SUPABASE_ID"
@@ -0,0 +1,79 @@
+#!/bin/bash
+
+# Startup benchmark
+# Starts the application repeatedly in each mode and reports the time until the health
+# endpoint answers and the resident memory (RSS) of the idle process once it does.
+#   plain    java -jar
+#   aot      java -Dspring.aot.enabled=true (needs a jar built with -Pstartup)
+#   aot+cds  the above plus the archive from scripts/build-cds.sh
+#
+# Usage: scripts/startup-benchmark.sh [runs] [port]
+#   mvn -Pstartup package -DskipTests && scripts/build-cds.sh && scripts/startup-benchmark.sh 5
+
+set -e
+
+RUNS=${1:-5}
+PORT=${2:-18080}
+JAR=$(ls target/*.jar | grep -v original | head -1)
+CDS_DIR=target/cds
+HEALTH_URL="http://localhost:$PORT/api/actuator/health"
+
+if [ ! -f "$JAR" ]; then
+    echo "Build the jar first: mvn -Pstartup package -DskipTests"
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+# Prints "<startup ms> <rss kB>" for one run of the given java arguments
+measure() {
+    local start pid elapsed rss
+    start=$(now_ms)
+    PORT=$PORT java "$@" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "$HEALTH_URL"; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "failed"
+            return
+        fi
+        sleep 0.02
+    done
+    elapsed=$(( $(now_ms) - start ))
+    sleep 2
+    rss=$(awk '/VmRSS/ { print $2 }' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+    echo "$elapsed $rss"
+}
+
+run_mode() {
+    local name=$1
+    shift
+    local results
+    results=$(mktemp)
+    for _ in $(seq 1 "$RUNS"); do
+        measure "$@" >> "$results"
+    done
+    if grep -q failed "$results"; then
+        printf "%-10s failed to start\n" "$name"
+    else
+        sort -n "$results" | awk -v name="$name" '
+            { ms[NR] = $1; rss += $2 }
+            END { printf "%-10s startup median %5d ms  min %5d ms  max %5d ms  idle RSS %4d MB\n",
+                         name, ms[int((NR + 1) / 2)], ms[1], ms[NR], rss / NR / 1024 }'
+    fi
+    rm -f "$results"
+}
+
+echo "Runs per mode: $RUNS"
+run_mode plain -jar "$JAR"
+if unzip -l "$JAR" | grep -q "__ApplicationContextInitializer"; then
+    run_mode aot -Dspring.aot.enabled=true -jar "$JAR"
+    if [ -f "$CDS_DIR/app.jsa" ]; then
+        run_mode aot+cds -XX:SharedArchiveFile="$CDS_DIR/app.jsa" -Dspring.aot.enabled=true "@$CDS_DIR/app.args"
+    fi
+else
+    echo "No AOT classes in $JAR; rebuild with -Pstartup to compare the aot modes"
+fi
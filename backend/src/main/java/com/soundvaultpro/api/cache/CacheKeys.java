@@ -0,0 +1,36 @@
+package com.soundvaultpro.api.cache;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+
+/**
+ * Keys for lookups made of several values, as strings that can travel on the invalidation bus.
+ *
+ * Each part is written as its length, ':' and its text, so ("a,b", "c") and ("a", "b,c") stay
+ * different keys; the string form of a SimpleKey joins them with commas and would not.
+ */
+public final class CacheKeys {
+
+    /**
+     * Key generator for @Cacheable and friends: a single argument is the key itself, as with
+     * Spring's default, and several arguments are combined with {@link #of}
+     */
+    public static final KeyGenerator GENERATOR = (target, method, params) ->
+            params.length == 1 && params[0] != null && !params[0].getClass().isArray() ? params[0] : of(params);
+
+    private CacheKeys() {
+    }
+
+    public static String of(Object... parts) {
+        StringBuilder key = new StringBuilder();
+        for (Object part : parts) {
+            if (part == null) {
+                // No length can start with '-', so a null differs from every string
+                key.append("-:");
+            } else {
+                String text = String.valueOf(part);
+                key.append(text.length()).append(':').append(text);
+            }
+        }
+        return key.toString();
+    }
+}
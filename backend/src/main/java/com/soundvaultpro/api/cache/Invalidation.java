@@ -0,0 +1,8 @@
+package com.soundvaultpro.api.cache;
+
+/**
+ * An entry (or with a null key, every entry) of a cache region that is no longer valid.
+ * {@code origin} identifies the sender, so a node can skip its own invalidations.
+ */
+public record Invalidation(String origin, String region, String key) {
+}
@@ -0,0 +1,13 @@
+package com.soundvaultpro.api.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts cache invalidations to every backend node, this one included
+ */
+public interface InvalidationBus {
+
+    void publish(Invalidation invalidation);
+
+    void subscribe(Consumer<Invalidation> listener);
+}
@@ -0,0 +1,180 @@
+package com.soundvaultpro.api.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import java.util.Objects;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * A cache region with a local tier in front of an optional shared tier.
+ *
+ * Reads are served from the local tier when possible, and local misses are filled from the
+ * shared tier. Every put, eviction and clear goes to both tiers. Evictions, clears and puts
+ * that replace a different local value are broadcast on the invalidation bus, so other nodes
+ * drop their local copy; filling a miss is not, since no node can hold a newer value than the
+ * one just loaded. Writers that change data evict, as every write path here does.
+ *
+ * Keys are stored by their string form, the only form an invalidation can carry between
+ * nodes; composite keys must be built with {@link CacheKeys} so that form is unambiguous.
+ * If the shared tier is unreachable the cache degrades to local only.
+ */
+@Slf4j
+public class NearCache implements Cache {
+
+    private final String name;
+    private final Cache local;
+    private final Cache shared;
+    private final InvalidationBus bus;
+    private final String origin;
+
+    public NearCache(String name, Cache local, Cache shared, InvalidationBus bus, String origin) {
+        this.name = name;
+        this.local = local;
+        this.shared = shared;
+        this.bus = bus;
+        this.origin = origin;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String k = keyOf(key);
+        ValueWrapper value = local.get(k);
+        if (value == null && shared != null) {
+            value = onShared(() -> shared.get(k));
+            if (value != null) {
+                local.put(k, value.get());
+            }
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        Object stored = value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, loaded);
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String k = keyOf(key);
+        ValueWrapper previous = local.get(k);
+        local.put(k, value);
+        if (shared != null) {
+            onShared(() -> {
+                shared.put(k, value);
+                return null;
+            });
+        }
+        if (previous != null && !Objects.equals(previous.get(), value)) {
+            broadcast(k);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        put(key, value);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        String k = keyOf(key);
+        local.evict(k);
+        if (shared != null) {
+            onShared(() -> {
+                shared.evict(k);
+                return null;
+            });
+        }
+        broadcast(k);
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        if (shared != null) {
+            onShared(() -> {
+                shared.clear();
+                return null;
+            });
+        }
+        broadcast(null);
+    }
+
+    /**
+     * Apply an invalidation from the bus to the local tier, unless this cache sent it
+     */
+    void onInvalidation(Invalidation invalidation) {
+        if (origin.equals(invalidation.origin())) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            local.clear();
+        } else {
+            local.evict(invalidation.key());
+        }
+    }
+
+    private <T> T onShared(Supplier<T> operation) {
+        try {
+            return operation.get();
+        } catch (RuntimeException e) {
+            log.warn("Shared cache unavailable for {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private void broadcast(String key) {
+        bus.publish(new Invalidation(origin, name, key));
+    }
+
+    private static String keyOf(Object key) {
+        if (key instanceof SimpleKey) {
+            throw new IllegalArgumentException("Build composite keys for " + key + " with CacheKeys");
+        }
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,55 @@
+package com.soundvaultpro.api.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager whose caches are {@link NearCache}s over a local and an optional shared
+ * cache manager, kept coherent across nodes through an {@link InvalidationBus}
+ */
+public class NearCacheManager implements CacheManager {
+
+    private final CacheManager local;
+    private final CacheManager shared;
+    private final InvalidationBus bus;
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<String, NearCache> caches = new ConcurrentHashMap<>();
+
+    public NearCacheManager(CacheManager local, CacheManager shared, InvalidationBus bus) {
+        this.local = local;
+        this.shared = shared;
+        this.bus = bus;
+        bus.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        NearCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache localCache = local.getCache(name);
+        if (localCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n ->
+                new NearCache(n, localCache, shared != null ? shared.getCache(n) : null, bus, origin));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return local.getCacheNames();
+    }
+
+    private void onInvalidation(Invalidation invalidation) {
+        NearCache cache = caches.get(invalidation.region());
+        if (cache != null) {
+            cache.onInvalidation(invalidation);
+        }
+    }
+}
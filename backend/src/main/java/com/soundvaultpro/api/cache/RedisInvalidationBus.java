@@ -0,0 +1,67 @@
+package com.soundvaultpro.api.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bus over Redis pub/sub. Messages are fire-and-forget: a node that is disconnected when an
+ * invalidation is sent keeps its local copy until the entry expires.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.distributed.mode", havingValue = "redis")
+@Slf4j
+public class RedisInvalidationBus implements InvalidationBus {
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+    private final List<Consumer<Invalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    public RedisInvalidationBus(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                                ObjectMapper objectMapper,
+                                @Value("${cache.distributed.channel:soundvault:cache-invalidations}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+        listenerContainer.addMessageListener((message, pattern) -> receive(message.getBody()), new ChannelTopic(channel));
+    }
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(invalidation));
+        } catch (Exception e) {
+            // Peers fall back to entry expiry; the local cache has already been invalidated
+            log.warn("Could not publish cache invalidation for {}: {}", invalidation.region(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Invalidation> listener) {
+        listeners.add(listener);
+    }
+
+    private void receive(byte[] body) {
+        Invalidation invalidation;
+        try {
+            invalidation = objectMapper.readValue(body, Invalidation.class);
+        } catch (IOException e) {
+            log.warn("Ignoring malformed cache invalidation: {}", e.getMessage());
+            return;
+        }
+        for (Consumer<Invalidation> listener : listeners) {
+            listener.accept(invalidation);
+        }
+    }
+}
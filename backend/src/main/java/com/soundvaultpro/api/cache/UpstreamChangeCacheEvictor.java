@@ -0,0 +1,43 @@
+package com.soundvaultpro.api.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.soundvaultpro.api.config.CacheConfig;
+import com.soundvaultpro.api.replica.ChangeEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts cached profiles and playlist lists when the Supabase change feed reports a change,
+ * which covers writes that did not go through this API. Only active with the read replica,
+ * which is what publishes the change events.
+ */
+@Component
+@RequiredArgsConstructor
+public class UpstreamChangeCacheEvictor {
+
+    private final CacheManager cacheManager;
+
+    @EventListener
+    public void onUpstreamChange(ChangeEvent event) {
+        JsonNode row = event.getType() == ChangeEvent.Type.DELETE ? event.getOldRecord() : event.getRecord();
+        if (row == null) {
+            return;
+        }
+        switch (event.getTable()) {
+            case "user_profiles" -> evict(CacheConfig.PRINCIPALS, row.path("id").asText(null));
+            case "playlists" -> evict(CacheConfig.PLAYLISTS, row.path("user_id").asText(null));
+            default -> {
+            }
+        }
+    }
+
+    private void evict(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && key != null) {
+            cache.evict(key);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.soundvaultpro.api.config;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.soundvaultpro.api.cache.CacheKeys;
+import com.soundvaultpro.api.cache.InvalidationBus;
+import com.soundvaultpro.api.cache.NearCacheManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Application caches: a Caffeine tier on every node, plus a shared Redis tier when
+ * cache.distributed.mode=redis, kept coherent by the invalidation bus
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig implements CachingConfigurer {
+
+    public static final String LYRICS = "lyrics";
+    public static final String GENIUS_SONGS = "genius-songs";
+    public static final String PRINCIPALS = "principals";
+    public static final String PLAYLISTS = "playlists";
+
+    private static final List<String> CACHE_NAMES = List.of(LYRICS, GENIUS_SONGS, PRINCIPALS, PLAYLISTS);
+
+    @Value("${cache.local.maximum-size:10000}")
+    private long localMaximumSize;
+
+    @Value("${cache.distributed.mode:local}")
+    private String mode;
+
+    @Bean
+    public CacheManager cacheManager(InvalidationBus invalidationBus, Environment environment,
+                                     ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                                     ObjectMapper objectMapper) {
+        CaffeineCacheManager local = new CaffeineCacheManager();
+        local.setAllowNullValues(false);
+        for (String name : CACHE_NAMES) {
+            local.registerCustomCache(name, Caffeine.newBuilder()
+                    .maximumSize(localMaximumSize)
+                    .expireAfterWrite(ttl(environment, name))
+                    .build());
+        }
+
+        CacheManager shared = null;
+        if ("redis".equals(mode)) {
+            shared = redisCacheManager(redisConnectionFactory.getObject(), environment, objectMapper);
+        }
+        return new NearCacheManager(local, shared, invalidationBus);
+    }
+
+    /**
+     * Keys of multi-argument methods must keep their parts apart once reduced to strings
+     */
+    @Override
+    public KeyGenerator keyGenerator() {
+        return CacheKeys.GENERATOR;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "cache.distributed.mode", havingValue = "redis")
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+
+    private static RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory, Environment environment,
+                                                       ObjectMapper objectMapper) {
+        // Type hints let cached DTOs, lists and maps come back as what was stored
+        ObjectMapper redisMapper = objectMapper.copy();
+        redisMapper.activateDefaultTyping(BasicPolymorphicTypeValidator.builder()
+                        .allowIfSubType("com.soundvaultpro.api.")
+                        .allowIfSubType("java.util.")
+                        .allowIfSubType("java.time.")
+                        .allowIfSubType("java.lang.")
+                        .build(),
+                ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        GenericJackson2JsonRedisSerializer.registerNullValueSerializer(redisMapper, null);
+
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith("soundvault:")
+                .disableCachingNullValues()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new GenericJackson2JsonRedisSerializer(redisMapper)));
+
+        Map<String, RedisCacheConfiguration> configurations = new HashMap<>();
+        for (String name : CACHE_NAMES) {
+            configurations.put(name, defaults.entryTtl(ttl(environment, name)));
+        }
+        RedisCacheManager cacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(configurations)
+                .build();
+        // Not a bean of its own, so the per-cache configurations have to be loaded here
+        cacheManager.afterPropertiesSet();
+        return cacheManager;
+    }
+
+    private static Duration ttl(Environment environment, String name) {
+        return environment.getProperty("cache.ttl." + name, Duration.class, Duration.ofHours(1));
+    }
+}
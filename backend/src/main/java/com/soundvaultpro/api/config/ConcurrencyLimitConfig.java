@@ -0,0 +1,41 @@
+package com.soundvaultpro.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.web.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "concurrency.limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    /**
+     * Registered just ahead of the Spring Security filter chain (order -100), so shed requests
+     * never reach authentication
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${concurrency.limit.bypass:/actuator,/auth,/events/stream}") List<String> bypassPrefixes,
+            @Value("${concurrency.limit.groups:events,genius,lyrics,player,playlists,storage,tracks,users}") List<String> groups,
+            @Value("${concurrency.limit.initial:20}") int initialLimit,
+            @Value("${concurrency.limit.min:4}") int minLimit,
+            @Value("${concurrency.limit.max:100}") int maxLimit,
+            @Value("${concurrency.limit.smoothing:0.2}") double smoothing,
+            @Value("${concurrency.limit.short-window:10}") int shortWindow,
+            @Value("${concurrency.limit.long-window:600}") int longWindow,
+            @Value("${concurrency.limit.retry-after-seconds:1}") int retryAfterSeconds) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(objectMapper, meterRegistry, bypassPrefixes, groups,
+                new ConcurrencyLimitFilter.Settings(initialLimit, minLimit, maxLimit, smoothing,
+                        shortWindow, longWindow, retryAfterSeconds));
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(-101);
+        return registration;
+    }
+}
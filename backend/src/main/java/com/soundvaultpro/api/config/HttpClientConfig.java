@@ -0,0 +1,45 @@
+package com.soundvaultpro.api.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class HttpClientConfig {
+
+    private ExecutorService upstreamExecutor;
+
+    /**
+     * Non-blocking client for upstream APIs. Requests wait on the client's selector, not on a
+     * thread, so the small fixed pool only runs response handling and the stages chained to it.
+     */
+    @Bean
+    public HttpClient upstreamHttpClient(@Value("${upstream.async.threads:4}") int threads,
+                                         @Value("${upstream.async.connect-timeout-ms:3000}") long connectTimeoutMs) {
+        AtomicInteger threadCount = new AtomicInteger();
+        upstreamExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "upstream-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return HttpClient.newBuilder()
+                .executor(upstreamExecutor)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (upstreamExecutor != null) {
+            upstreamExecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.soundvaultpro.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.web.RateLimitFilter;
+import com.soundvaultpro.api.web.TokenBucketStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    /**
+     * Registered just behind the Spring Security filter chain (order -100), so the authenticated
+     * principal is known when picking the bucket
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(TokenBucketStore store, ObjectMapper objectMapper,
+                                                                   RateLimitProperties properties,
+                                                                   MeterRegistry meterRegistry) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(store, objectMapper, properties, meterRegistry));
+        registration.setOrder(-99);
+        return registration;
+    }
+}
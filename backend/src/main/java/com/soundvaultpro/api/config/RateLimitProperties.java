@@ -0,0 +1,36 @@
+package com.soundvaultpro.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request rate limit tiers, bound from rate-limit.* in application.properties
+ */
+@Data
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /** Paths (Ant patterns, below the context path) that are never rate limited */
+    private List<String> exclude = new ArrayList<>();
+
+    /** Upper bound on tracked clients; beyond it new clients share one overflow bucket per tier */
+    private int maxKeys = 100_000;
+
+    /** Tiers in priority order; a request is metered by the first tier with a matching path */
+    private List<Tier> tiers = new ArrayList<>();
+
+    @Data
+    public static class Tier {
+        private String name;
+        private List<String> paths = new ArrayList<>();
+        /** Burst size: tokens a bucket holds when full */
+        private int capacity;
+        /** Tokens added back per minute */
+        private int refillPerMinute;
+    }
+}
@@ -1,6 +1,8 @@
 package com.soundvaultpro.api.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.service.UpstreamHealthTracker;
+import com.soundvaultpro.api.tracing.TracingClientInterceptor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -10,11 +12,14 @@ import org.springframework.web.client.RestTemplate;
 public class RestTemplateConfig {
 
     @Bean
-    public RestTemplate restTemplate(ObjectMapper objectMapper) {
+    public RestTemplate restTemplate(ObjectMapper objectMapper, UpstreamHealthTracker upstreamHealthTracker,
+                                     TracingClientInterceptor tracingClientInterceptor) {
         RestTemplate restTemplate = new RestTemplate();
         MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
         converter.setObjectMapper(objectMapper);
         restTemplate.getMessageConverters().add(0, converter);
+        restTemplate.getInterceptors().add(tracingClientInterceptor);
+        restTemplate.getInterceptors().add(upstreamHealthTracker);
         return restTemplate;
     }
 }
@@ -2,18 +2,25 @@ package com.soundvaultpro.api.config;
 
 import com.soundvaultpro.api.security.SupabaseAuthFilter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
@@ -30,6 +37,9 @@ public class SecurityConfig {
 
     @Value("${cors.exposed-headers}")
     private String exposedHeaders;
+
+    @Value("${management.allowed-addresses:127.0.0.1/32,::1/128}")
+    private String managementAllowedAddresses;
     
     private final SupabaseAuthFilter supabaseAuthFilter;
     
@@ -47,6 +57,8 @@ public class SecurityConfig {
                 auth
                     .requestMatchers("/auth/**", "/public/**").permitAll()
                     .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
+                    .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                    .requestMatchers(EndpointRequest.toAnyEndpoint()).access(fromAddresses(managementAllowedAddresses))
                     .anyRequest().permitAll() // Allow all requests for now, will implement proper authentication later
             )
             .addFilterBefore(supabaseAuthFilter, UsernamePasswordAuthenticationFilter.class);
@@ -54,6 +66,19 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Allow requests whose remote address is in one of the comma-separated networks (CIDR or single address)
+     */
+    private static AuthorizationManager<RequestAuthorizationContext> fromAddresses(String addresses) {
+        List<IpAddressMatcher> networks = Arrays.stream(addresses.split(","))
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        return (authentication, context) -> new AuthorizationDecision(
+                networks.stream().anyMatch(network -> network.matches(context.getRequest())));
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
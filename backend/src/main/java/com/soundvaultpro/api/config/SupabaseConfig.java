@@ -12,6 +12,9 @@ public class SupabaseConfig {
     @Value("${supabase.key}")
     private String supabaseKey;
 
+    @Value("${supabase.jwt-secret:}")
+    private String jwtSecret;
+
     public String getSupabaseUrl() {
         return supabaseUrl;
     }
@@ -19,4 +22,11 @@ public class SupabaseConfig {
     public String getSupabaseKey() {
         return supabaseKey;
     }
+
+    /**
+     * The secret Supabase Auth signs access tokens with (Project Settings, API, JWT Secret)
+     */
+    public String getJwtSecret() {
+        return jwtSecret;
+    }
 }
@@ -0,0 +1,74 @@
+package com.soundvaultpro.api.config;
+
+import com.soundvaultpro.api.tracing.LogSpanExporter;
+import com.soundvaultpro.api.tracing.ServerTimingSpanProcessor;
+import com.soundvaultpro.api.tracing.TracingFilter;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * OpenTelemetry tracing with an in-process exporter. New traces are sampled with probability
+ * tracing.sampling.probability. Inbound traceparent headers are ignored unless
+ * tracing.propagation.enabled is set, since a sampled one is always traced and any client could
+ * otherwise force sampling; enable it only behind a proxy that strips the header from clients.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Value("${tracing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${tracing.sampling.probability:0.0}")
+    private double samplingProbability;
+
+    @Value("${tracing.propagation.enabled:false}")
+    private boolean propagationEnabled;
+
+    @Value("${tracing.export.log:true}")
+    private boolean logExport;
+
+    @Bean(destroyMethod = "close")
+    public OpenTelemetrySdk openTelemetry(ServerTimingSpanProcessor serverTimingSpanProcessor) {
+        SdkTracerProviderBuilder tracerProvider = SdkTracerProvider.builder()
+                .setSampler(enabled
+                        ? Sampler.parentBased(Sampler.traceIdRatioBased(samplingProbability))
+                        : Sampler.alwaysOff())
+                .addSpanProcessor(serverTimingSpanProcessor);
+        if (logExport) {
+            tracerProvider.addSpanProcessor(BatchSpanProcessor.builder(new LogSpanExporter()).build());
+        }
+        return OpenTelemetrySdk.builder()
+                .setTracerProvider(tracerProvider.build())
+                .setPropagators(ContextPropagators.create(propagationEnabled
+                        ? W3CTraceContextPropagator.getInstance()
+                        : TextMapPropagator.noop()))
+                .build();
+    }
+
+    /**
+     * Registered ahead of the concurrency limit (-101) and Spring Security (-100), so the request
+     * span covers both and the auth filter's stage is a child of it
+     */
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(
+            OpenTelemetrySdk openTelemetry, ServerTimingSpanProcessor serverTimingSpanProcessor,
+            @Value("${tracing.exclude:/actuator,/events}") List<String> excludePrefixes) {
+        TracingFilter filter = new TracingFilter(openTelemetry.getTracer("com.soundvaultpro.api"),
+                openTelemetry.getPropagators().getTextMapPropagator(), serverTimingSpanProcessor, excludePrefixes);
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(-105);
+        return registration;
+    }
+}
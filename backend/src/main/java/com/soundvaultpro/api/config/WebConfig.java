@@ -1,12 +1,17 @@
 package com.soundvaultpro.api.config;
 
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.soundvaultpro.api.web.ConditionalGetInterceptor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.Arrays;
@@ -27,6 +32,17 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${cors.exposed-headers}")
     private String[] exposedHeaders;
     
+    @Value("${api.cbor.enabled:true}")
+    private boolean cborEnabled;
+    
+    private final CBORMapper cborObjectMapper;
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+    
+    public WebConfig(CBORMapper cborObjectMapper, ConditionalGetInterceptor conditionalGetInterceptor) {
+        this.cborObjectMapper = cborObjectMapper;
+        this.conditionalGetInterceptor = conditionalGetInterceptor;
+    }
+    
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -37,6 +53,22 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowCredentials(true);
     }
     
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGetInterceptor);
+    }
+    
+    /**
+     * Let clients opt into the compact CBOR encoding with "Accept: application/cbor".
+     * JSON stays first in the list, so it remains the default for every other Accept header.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (cborEnabled) {
+            converters.add(new MappingJackson2CborHttpMessageConverter(cborObjectMapper));
+        }
+    }
+    
     @Bean
     public CorsFilter corsFilter() {
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -2,6 +2,7 @@ package com.soundvaultpro.api.controller;
 
 import com.soundvaultpro.api.dto.ResponseDto;
 import com.soundvaultpro.api.service.GeniusService;
+import com.soundvaultpro.api.web.ConditionalGet;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -43,6 +44,7 @@ public class GeniusController {
      * @return Song details
      */
     @GetMapping("/songs/{songId}")
+    @ConditionalGet(maxAge = "${http.cache.genius.max-age:86400}", shared = true)
     public ResponseEntity<ResponseDto<Map<String, Object>>> getSongDetails(@PathVariable int songId) {
         log.info("Received request to get song details for ID: {}", songId);
         try {
@@ -0,0 +1,120 @@
+package com.soundvaultpro.api.controller;
+
+import com.soundvaultpro.api.ingest.HlsSegmentStage;
+import com.soundvaultpro.api.ingest.IngestService;
+import com.soundvaultpro.api.security.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Adaptive-bitrate HLS streams of ingested tracks.
+ *
+ * Playlists and the content key are only served to the track's owner, identified by the request's
+ * bearer token, so players must send it with every playlist and key request (hls.js: xhrSetup).
+ * Segments are encrypted, so they are served to anyone who knows their URL, with Range support.
+ */
+@RestController
+@RequestMapping("/tracks/{trackId}/hls")
+@RequiredArgsConstructor
+public class HlsController {
+
+    private static final MediaType PLAYLIST = MediaType.parseMediaType("application/vnd.apple.mpegurl");
+    private static final MediaType SEGMENT = MediaType.parseMediaType("video/mp2t");
+    private static final Pattern RENDITION = Pattern.compile("\\d{1,4}k");
+    private static final Pattern SEGMENT_NAME = Pattern.compile("seg_\\d{5,}\\.ts");
+    private static final String STAGE = "hls";
+
+    private final IngestService ingestService;
+
+    @GetMapping("/" + HlsSegmentStage.MASTER_PLAYLIST)
+    public ResponseEntity<String> getMasterPlaylist(@PathVariable String trackId) throws IOException {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (supabaseId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Optional<Path> hlsDir = hlsDir(trackId, supabaseId);
+        if (hlsDir.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return playlist(Files.readString(hlsDir.get().resolve(HlsSegmentStage.MASTER_PLAYLIST)));
+    }
+
+    @GetMapping("/{rendition}/" + HlsSegmentStage.MEDIA_PLAYLIST)
+    public ResponseEntity<String> getMediaPlaylist(@PathVariable String trackId, @PathVariable String rendition)
+            throws IOException {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (supabaseId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Optional<Path> hlsDir = hlsDir(trackId, supabaseId);
+        if (hlsDir.isEmpty() || !RENDITION.matcher(rendition).matches()) {
+            return ResponseEntity.notFound().build();
+        }
+        Path file = hlsDir.get().resolve(rendition).resolve(HlsSegmentStage.MEDIA_PLAYLIST);
+        if (!Files.exists(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        return playlist(Files.readString(file).replace(
+                "URI=\"" + HlsSegmentStage.KEY_URI + "\"", "URI=\"../" + HlsSegmentStage.KEY_URI + "\""));
+    }
+
+    @GetMapping("/" + HlsSegmentStage.KEY_URI)
+    public ResponseEntity<byte[]> getKey(@PathVariable String trackId) throws IOException {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (supabaseId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Optional<Path> hlsDir = hlsDir(trackId, supabaseId);
+        if (hlsDir.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .cacheControl(CacheControl.noStore())
+                .body(Files.readAllBytes(hlsDir.get().resolve(HlsSegmentStage.KEY_FILE)));
+    }
+
+    @GetMapping("/{rendition}/{segment:seg_\\d+\\.ts}")
+    public ResponseEntity<Resource> getSegment(@PathVariable String trackId, @PathVariable String rendition,
+                                               @PathVariable String segment) {
+        if (!RENDITION.matcher(rendition).matches() || !SEGMENT_NAME.matcher(segment).matches()) {
+            return ResponseEntity.notFound().build();
+        }
+        Path file = ingestService.mediaDir(trackId).resolve(HlsSegmentStage.HLS_DIR).resolve(rendition).resolve(segment);
+        if (!Files.exists(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(SEGMENT)
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                .body(new FileSystemResource(file));
+    }
+
+    private Optional<Path> hlsDir(String trackId, String supabaseId) {
+        return ingestService.completedStageDir(trackId, supabaseId, STAGE)
+                .map(dir -> dir.resolve(HlsSegmentStage.HLS_DIR));
+    }
+
+    private static ResponseEntity<String> playlist(String body) {
+        return ResponseEntity.ok()
+                .contentType(PLAYLIST)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+}
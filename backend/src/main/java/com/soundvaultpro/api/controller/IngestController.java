@@ -0,0 +1,104 @@
+package com.soundvaultpro.api.controller;
+
+import com.soundvaultpro.api.dto.IngestStatusDto;
+import com.soundvaultpro.api.dto.ResponseDto;
+import com.soundvaultpro.api.ingest.IngestJob;
+import com.soundvaultpro.api.ingest.IngestService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+@RestController
+@RequestMapping("/tracks")
+@RequiredArgsConstructor
+@Slf4j
+public class IngestController {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-fA-F]{64}");
+
+    private final IngestService ingestService;
+
+    /**
+     * Upload a track's audio for ingest (transcoding and analysis). Returns at once; poll the
+     * status endpoint to follow the job.
+     *
+     * @param trackId The track's id in the tracks table
+     * @param supabaseId The owner's Supabase ID
+     * @param file The original audio file
+     * @return The queued job
+     */
+    @PostMapping("/{trackId}/ingest")
+    public ResponseEntity<ResponseDto<IngestStatusDto>> ingest(
+            @PathVariable String trackId,
+            @RequestParam String supabaseId,
+            @RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body(ResponseDto.error("Audio file is required"));
+        }
+        try {
+            IngestJob job = ingestService.submit(trackId, supabaseId, file);
+            return ResponseEntity.accepted().body(ResponseDto.success("Ingest queued", toDto(job)));
+        } catch (Exception e) {
+            log.error("Error queueing ingest of track {}: {}", trackId, e.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Failed to queue ingest: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{trackId}/ingest")
+    public ResponseEntity<ResponseDto<IngestStatusDto>> getIngestStatus(
+            @PathVariable String trackId,
+            @RequestParam String supabaseId) {
+        try {
+            return ingestService.getJob(trackId)
+                    .filter(job -> job.getSupabaseId().equals(supabaseId))
+                    .map(job -> ResponseEntity.ok(ResponseDto.success(toDto(job))))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ResponseDto.error("Failed to get ingest status: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Look for one of the user's tracks with the same audio before uploading it, so the client can
+     * reuse that track's storage object instead of encrypting and uploading the file again
+     *
+     * @param supabaseId The user's Supabase ID
+     * @param sha256 Hex SHA-256 of the plaintext audio file
+     * @return The matching track's id, and its dropbox_id when known, or 404 when there is none
+     */
+    @GetMapping("/duplicates")
+    public ResponseEntity<ResponseDto<Map<String, Object>>> findDuplicate(
+            @RequestParam String supabaseId,
+            @RequestParam String sha256) {
+        if (!SHA256_HEX.matcher(sha256).matches()) {
+            return ResponseEntity.badRequest().body(ResponseDto.error("sha256 must be 64 hex digits"));
+        }
+        try {
+            return ingestService.findDuplicate(supabaseId, sha256.toLowerCase(Locale.ROOT))
+                    .map(duplicate -> ResponseEntity.ok(ResponseDto.success(duplicate)))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ResponseDto.error("Failed to look up duplicates: " + e.getMessage()));
+        }
+    }
+
+    private static IngestStatusDto toDto(IngestJob job) {
+        return IngestStatusDto.builder()
+                .trackId(job.getTrackId())
+                .state(job.getState().name())
+                .contentHash(job.getContentHash())
+                .linkedTrackId(job.getLinkedTrackId())
+                .savedBytes(job.getSavedBytes())
+                .stages(job.getStages())
+                .results(job.getResults())
+                .error(job.getError())
+                .updatedAt(job.getUpdatedAt())
+                .build();
+    }
+}
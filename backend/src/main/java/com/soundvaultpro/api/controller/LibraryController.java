@@ -0,0 +1,85 @@
+package com.soundvaultpro.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.dto.ResponseDto;
+import com.soundvaultpro.api.library.LibraryExportService;
+import com.soundvaultpro.api.library.LibraryImportService;
+import com.soundvaultpro.api.security.AuthenticatedUser;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/library")
+@RequiredArgsConstructor
+@Slf4j
+public class LibraryController {
+
+    private final LibraryExportService libraryExportService;
+    private final LibraryImportService libraryImportService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Download the signed-in user's tracks, playlists and playlist entries as a ZIP, written to the
+     * response as it is read from Supabase
+     *
+     * @param format ndjson for a complete backup, m3u for playlists other players can open
+     */
+    @GetMapping("/export")
+    public void exportLibrary(
+            @RequestParam(defaultValue = LibraryExportService.NDJSON) String format,
+            HttpServletResponse response) throws IOException {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (supabaseId == null) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ResponseDto.error("Not authenticated"));
+            return;
+        }
+        if (!LibraryExportService.NDJSON.equals(format) && !LibraryExportService.M3U.equals(format)) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ResponseDto.error("format must be ndjson or m3u"));
+            return;
+        }
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"soundvault-library-" + format + ".zip\"");
+        try {
+            libraryExportService.export(supabaseId, format, response.getOutputStream());
+        } catch (IOException | RuntimeException e) {
+            // The status is already sent; the client sees a truncated archive
+            log.error("Library export for {} failed: {}", supabaseId, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Import a library archive sent as the request body, as exported by /library/export, into the
+     * signed-in user's library
+     *
+     * @return Counts of what was imported
+     */
+    @PostMapping(value = "/import", consumes = {"application/zip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ResponseDto<Map<String, Object>>> importLibrary(InputStream body) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (supabaseId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ResponseDto.error("Not authenticated"));
+        }
+        try {
+            Map<String, Object> result = libraryImportService.importArchive(supabaseId, body);
+            return ResponseEntity.ok(ResponseDto.success("Library imported", result));
+        } catch (Exception e) {
+            log.error("Library import for {} failed: {}", supabaseId, e.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Failed to import library: " + e.getMessage()));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.soundvaultpro.api.controller;
 
 import com.soundvaultpro.api.dto.ResponseDto;
 import com.soundvaultpro.api.service.LyricsService;
+import com.soundvaultpro.api.web.ConditionalGet;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,6 +21,7 @@ public class LyricsController {
     private final LyricsService lyricsService;
     
     @GetMapping("/search")
+    @ConditionalGet(maxAge = "${http.cache.lyrics.max-age:3600}", shared = true)
     public ResponseEntity<ResponseDto<Map<String, String>>> searchLyrics(
             @RequestParam("track") String trackName,
             @RequestParam("artist") String artist) {
@@ -0,0 +1,88 @@
+package com.soundvaultpro.api.controller;
+
+import com.soundvaultpro.api.dto.PlayEventBatchDto;
+import com.soundvaultpro.api.dto.ResponseDto;
+import com.soundvaultpro.api.plays.PlayHistoryService;
+import com.soundvaultpro.api.security.AuthenticatedUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/events")
+@RequiredArgsConstructor
+public class PlayHistoryController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final PlayHistoryService playHistoryService;
+
+    /**
+     * Play, skip and seek events from the request's user's player, batched
+     *
+     * @param batch The events, oldest first
+     * @return 202 once queued, or 503 with Retry-After when the node is too far behind to take them
+     */
+    @PostMapping("/plays:batch")
+    public ResponseEntity<ResponseDto<Void>> recordPlays(@RequestBody PlayEventBatchDto batch) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (supabaseId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ResponseDto.error("Not authenticated"));
+        }
+        try {
+            if (!playHistoryService.record(supabaseId, batch.getEvents())) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(ResponseDto.error("Play history is busy, retry the batch"));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(ResponseDto.success("Events accepted", null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ResponseDto.error("Invalid events: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * The user's most recently played tracks, newest first
+     */
+    @GetMapping("/plays/recent")
+    public ResponseEntity<ResponseDto<List<Map<String, Object>>>> getRecentlyPlayed(
+            @RequestParam(defaultValue = "20") int limit) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (supabaseId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ResponseDto.error("Not authenticated"));
+        }
+        return ResponseEntity.ok(ResponseDto.success(
+                playHistoryService.recentlyPlayed(supabaseId, Math.max(1, Math.min(limit, MAX_LIMIT)))));
+    }
+
+    /**
+     * The user's most played tracks, most played first
+     */
+    @GetMapping("/plays/top")
+    public ResponseEntity<ResponseDto<List<Map<String, Object>>>> getMostPlayed(
+            @RequestParam(defaultValue = "20") int limit) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (supabaseId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ResponseDto.error("Not authenticated"));
+        }
+        return ResponseEntity.ok(ResponseDto.success(
+                playHistoryService.mostPlayed(supabaseId, Math.max(1, Math.min(limit, MAX_LIMIT)))));
+    }
+
+    /**
+     * The user's play, skip and seek counts for a track
+     */
+    @GetMapping("/plays/tracks/{trackId}")
+    public ResponseEntity<ResponseDto<Map<String, Object>>> getTrackCounts(@PathVariable long trackId) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (supabaseId == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ResponseDto.error("Not authenticated"));
+        }
+        return ResponseEntity.ok(ResponseDto.success(playHistoryService.trackCounts(supabaseId, trackId)));
+    }
+}
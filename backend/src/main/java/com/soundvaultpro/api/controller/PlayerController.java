@@ -0,0 +1,39 @@
+package com.soundvaultpro.api.controller;
+
+import com.soundvaultpro.api.dto.PlayerEventDto;
+import com.soundvaultpro.api.dto.ResponseDto;
+import com.soundvaultpro.api.security.AuthenticatedUser;
+import com.soundvaultpro.api.service.LyricsPrefetchService;
+import com.soundvaultpro.api.storage.StorageLinkBroker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/player")
+@RequiredArgsConstructor
+public class PlayerController {
+
+    private final LyricsPrefetchService lyricsPrefetchService;
+    private final StorageLinkBroker storageLinkBroker;
+    
+    /**
+     * Play and queue events from the client, used to prefetch lyrics and download links for upcoming tracks.
+     * Download links are only prefetched for the user of the request's token.
+     */
+    @PostMapping("/events")
+    public ResponseEntity<ResponseDto<Void>> playerEvent(@RequestBody PlayerEventDto event) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (StringUtils.hasText(event.getSupabaseId()) && supabaseId != null && !event.getSupabaseId().equals(supabaseId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(ResponseDto.error("supabaseId does not match the authenticated user"));
+        }
+        lyricsPrefetchService.onPlayerEvent(event);
+        storageLinkBroker.onPlayerEvent(supabaseId, event);
+        return ResponseEntity.ok(ResponseDto.success("Event accepted", null));
+    }
+}
@@ -1,8 +1,10 @@
 package com.soundvaultpro.api.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.soundvaultpro.api.dto.PlaylistDto;
 import com.soundvaultpro.api.dto.ResponseDto;
 import com.soundvaultpro.api.service.PlaylistService;
+import com.soundvaultpro.api.web.ConditionalGet;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +20,7 @@ public class PlaylistController {
     private final PlaylistService playlistService;
     
     @GetMapping
+    @ConditionalGet
     public ResponseEntity<ResponseDto<List<PlaylistDto>>> getPlaylists(@RequestParam String supabaseId) {
         try {
             List<PlaylistDto> playlists = playlistService.getPlaylistsByUser(supabaseId);
@@ -46,6 +49,31 @@ public class PlaylistController {
         }
     }
     
+    /**
+     * Create a smart playlist from {"name", "description", "rules"}; see SmartRules for the rules
+     */
+    @PostMapping("/smart")
+    public ResponseEntity<ResponseDto<PlaylistDto>> createSmartPlaylist(
+            @RequestParam String supabaseId,
+            @RequestBody JsonNode playlistData) {
+        try {
+            String name = playlistData.path("name").asText(null);
+            String description = playlistData.path("description").asText(null);
+            
+            if (name == null) {
+                return ResponseEntity.badRequest().body(ResponseDto.error("Playlist name is required"));
+            }
+            if (!playlistData.has("rules")) {
+                return ResponseEntity.badRequest().body(ResponseDto.error("Smart playlist rules are required"));
+            }
+            
+            PlaylistDto playlist = playlistService.createSmartPlaylist(supabaseId, name, description, playlistData.get("rules"));
+            return ResponseEntity.ok(ResponseDto.success("Smart playlist created successfully", playlist));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ResponseDto.error("Failed to create smart playlist: " + e.getMessage()));
+        }
+    }
+    
     @PutMapping("/{playlistId}")
     public ResponseEntity<ResponseDto<PlaylistDto>> updatePlaylist(
             @PathVariable Long playlistId,
@@ -66,6 +94,19 @@ public class PlaylistController {
         }
     }
     
+    @PutMapping("/{playlistId}/rules")
+    public ResponseEntity<ResponseDto<PlaylistDto>> updateRules(
+            @PathVariable Long playlistId,
+            @RequestParam String supabaseId,
+            @RequestBody JsonNode rules) {
+        try {
+            PlaylistDto playlist = playlistService.updateRules(supabaseId, playlistId, rules);
+            return ResponseEntity.ok(ResponseDto.success("Smart playlist rules updated successfully", playlist));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ResponseDto.error("Failed to update rules: " + e.getMessage()));
+        }
+    }
+    
     @DeleteMapping("/{playlistId}")
     public ResponseEntity<ResponseDto<Void>> deletePlaylist(
             @PathVariable Long playlistId,
@@ -77,4 +118,36 @@ public class PlaylistController {
             return ResponseEntity.badRequest().body(ResponseDto.error("Failed to delete playlist: " + e.getMessage()));
         }
     }
+
+    @PostMapping("/{playlistId}/tracks")
+    public ResponseEntity<ResponseDto<Void>> addTrack(
+            @PathVariable Long playlistId,
+            @RequestParam String supabaseId,
+            @RequestBody Map<String, Long> trackData) {
+        try {
+            Long trackId = trackData.get("trackId");
+
+            if (trackId == null) {
+                return ResponseEntity.badRequest().body(ResponseDto.error("Track ID is required"));
+            }
+
+            playlistService.addTrack(supabaseId, playlistId, trackId);
+            return ResponseEntity.ok(ResponseDto.success("Track added to playlist", null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ResponseDto.error("Failed to add track: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/{playlistId}/tracks/{trackId}")
+    public ResponseEntity<ResponseDto<Void>> removeTrack(
+            @PathVariable Long playlistId,
+            @PathVariable Long trackId,
+            @RequestParam String supabaseId) {
+        try {
+            playlistService.removeTrack(supabaseId, playlistId, trackId);
+            return ResponseEntity.ok(ResponseDto.success("Track removed from playlist", null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ResponseDto.error("Failed to remove track: " + e.getMessage()));
+        }
+    }
 }
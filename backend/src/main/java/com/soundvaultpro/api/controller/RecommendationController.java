@@ -0,0 +1,65 @@
+package com.soundvaultpro.api.controller;
+
+import com.soundvaultpro.api.dto.ResponseDto;
+import com.soundvaultpro.api.service.RecommendationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+public class RecommendationController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final RecommendationService recommendationService;
+
+    /**
+     * The user's tracks most often found in playlists with a track
+     *
+     * @param trackId The track's id
+     * @param supabaseId The owner's Supabase ID
+     * @param limit Maximum number of tracks (at most 100)
+     * @return Tracks with their score, best first
+     */
+    @GetMapping("/tracks/{trackId}/similar")
+    public ResponseEntity<ResponseDto<List<Map<String, Object>>>> getSimilarTracks(
+            @PathVariable Long trackId,
+            @RequestParam String supabaseId,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            int clamped = Math.max(1, Math.min(limit, MAX_LIMIT));
+            return ResponseEntity.ok(ResponseDto.success(recommendationService.findSimilarTracks(trackId, supabaseId, clamped)));
+        } catch (Exception e) {
+            log.error("Error finding tracks similar to {}: {}", trackId, e.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Error finding similar tracks: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * The user's tracks that would best continue a playlist
+     *
+     * @param playlistId The playlist's id
+     * @param supabaseId The owner's Supabase ID
+     * @param limit Maximum number of tracks (at most 100)
+     * @return Tracks not in the playlist with their score, best first
+     */
+    @GetMapping("/playlists/{playlistId}/continuation")
+    public ResponseEntity<ResponseDto<List<Map<String, Object>>>> getPlaylistContinuation(
+            @PathVariable Long playlistId,
+            @RequestParam String supabaseId,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            int clamped = Math.max(1, Math.min(limit, MAX_LIMIT));
+            return ResponseEntity.ok(ResponseDto.success(recommendationService.continuePlaylist(playlistId, supabaseId, clamped)));
+        } catch (Exception e) {
+            log.error("Error continuing playlist {}: {}", playlistId, e.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Error continuing playlist: " + e.getMessage()));
+        }
+    }
+}
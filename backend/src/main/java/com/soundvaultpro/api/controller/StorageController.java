@@ -0,0 +1,155 @@
+package com.soundvaultpro.api.controller;
+
+import com.soundvaultpro.api.dto.ResponseDto;
+import com.soundvaultpro.api.dto.StorageCredentialsDto;
+import com.soundvaultpro.api.dto.StorageLinksRequestDto;
+import com.soundvaultpro.api.security.AuthenticatedUser;
+import com.soundvaultpro.api.storage.StorageLink;
+import com.soundvaultpro.api.storage.StorageLinkBroker;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@RestController
+@RequestMapping("/storage")
+@RequiredArgsConstructor
+@Slf4j
+public class StorageController {
+
+    private final StorageLinkBroker storageLinkBroker;
+
+    /**
+     * Hand the user's storage refresh token to the server, which mints download links from then on
+     */
+    @PutMapping("/credentials")
+    public ResponseEntity<ResponseDto<Void>> connect(@RequestBody StorageCredentialsDto credentials) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        HttpStatus rejected = rejection(supabaseId, credentials.getSupabaseId());
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).body(ResponseDto.error(rejected.getReasonPhrase()));
+        }
+        if (!StringUtils.hasText(credentials.getRefreshToken())) {
+            return ResponseEntity.badRequest().body(ResponseDto.error("refreshToken is required"));
+        }
+        try {
+            storageLinkBroker.connect(supabaseId, credentials.getRefreshToken());
+            return ResponseEntity.ok(ResponseDto.success("Storage connected", null));
+        } catch (Exception e) {
+            log.error("Error storing storage credentials for {}: {}", supabaseId, e.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Failed to store credentials: " + e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/credentials")
+    public ResponseEntity<ResponseDto<Void>> disconnect(@RequestParam(name = "supabaseId", required = false) String requested) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        HttpStatus rejected = rejection(supabaseId, requested);
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).body(ResponseDto.error(rejected.getReasonPhrase()));
+        }
+        try {
+            boolean removed = storageLinkBroker.disconnect(supabaseId);
+            return ResponseEntity.ok(ResponseDto.success(removed ? "Storage disconnected" : "Storage was not connected", null));
+        } catch (Exception e) {
+            log.error("Error removing storage credentials for {}: {}", supabaseId, e.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Failed to remove credentials: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Direct download links for a batch of files, served from cache where possible
+     *
+     * @return links by path with their expiry in epoch milliseconds, and the paths that failed
+     */
+    @PostMapping("/links")
+    public CompletableFuture<ResponseEntity<ResponseDto<Map<String, Object>>>> getLinks(
+            @RequestBody StorageLinksRequestDto request) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        HttpStatus rejected = rejection(supabaseId, request.getSupabaseId());
+        if (rejected != null) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(rejected).body(ResponseDto.error(rejected.getReasonPhrase())));
+        }
+        if (request.getPaths() == null || request.getPaths().isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(ResponseDto.error("paths are required")));
+        }
+        CompletableFuture<Map<String, StorageLink>> links;
+        try {
+            links = storageLinkBroker.links(supabaseId, request.getPaths());
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(ResponseDto.error(e.getMessage())));
+        }
+        return links.thenApply(minted -> {
+            Map<String, Object> byPath = new HashMap<>();
+            minted.forEach((path, link) -> byPath.put(path, Map.of("url", link.url(), "expiresAt", link.expiresAt())));
+            List<String> failed = new ArrayList<>();
+            for (String path : request.getPaths()) {
+                if (!minted.containsKey(path)) {
+                    failed.add(path);
+                }
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put("links", byPath);
+            response.put("failed", failed);
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(ResponseDto.success(response));
+        }).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Error getting storage links for {}: {}", supabaseId, cause.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Error getting storage links: " + cause.getMessage()));
+        });
+    }
+
+    /**
+     * Redirect to a file's direct link, so an audio element can use this URL as its source
+     */
+    @GetMapping("/stream")
+    public CompletableFuture<ResponseEntity<Void>> stream(@RequestParam(name = "supabaseId", required = false) String requested,
+                                                          @RequestParam String path) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        HttpStatus rejected = rejection(supabaseId, requested);
+        if (rejected != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(rejected).build());
+        }
+        if (!storageLinkBroker.isConnected(supabaseId)) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.FORBIDDEN).build());
+        }
+        return storageLinkBroker.link(supabaseId, path)
+                .thenApply(link -> ResponseEntity.status(HttpStatus.FOUND)
+                        .location(URI.create(link.url()))
+                        .cacheControl(CacheControl.noStore())
+                        .<Void>build())
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.error("Error getting storage link to {} for {}: {}", path, supabaseId, cause.getMessage());
+                    return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+                });
+    }
+
+    /**
+     * Credentials and links belong to the user of the request's token. A supabaseId in the request
+     * is optional and must name that same user.
+     *
+     * @return the status to reject the request with, or null if it may go ahead
+     */
+    private static HttpStatus rejection(String authenticated, String requested) {
+        if (authenticated == null) {
+            return HttpStatus.UNAUTHORIZED;
+        }
+        if (StringUtils.hasText(requested) && !requested.equals(authenticated)) {
+            return HttpStatus.FORBIDDEN;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.soundvaultpro.api.controller;
+
+import com.soundvaultpro.api.storage.StubStorageClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Serves the files behind links minted by {@link StubStorageClient}, with Range support, for
+ * local development and tests
+ */
+@RestController
+@RequestMapping("/storage/stub")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "storage.provider", havingValue = "stub")
+public class StubStorageController {
+
+    private final StubStorageClient stubStorageClient;
+
+    @GetMapping("/files")
+    public ResponseEntity<Resource> getFile(@RequestParam String path, @RequestParam long expires,
+                                            @RequestParam String sig) {
+        Path file = stubStorageClient.resolve(path, expires, sig);
+        if (file == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!Files.isRegularFile(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        Resource resource = new FileSystemResource(file);
+        return ResponseEntity.ok()
+                .contentType(MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .cacheControl(CacheControl.noStore())
+                .body(resource);
+    }
+}
@@ -0,0 +1,61 @@
+package com.soundvaultpro.api.controller;
+
+import com.soundvaultpro.api.dto.ResponseDto;
+import com.soundvaultpro.api.service.GeniusService;
+import com.soundvaultpro.api.service.LyricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@RestController
+@RequestMapping("/tracks")
+@RequiredArgsConstructor
+@Slf4j
+public class TrackController {
+
+    private final GeniusService geniusService;
+    private final LyricsService lyricsService;
+
+    /**
+     * Genius song details and lyrics in one response, served asynchronously so no request thread
+     * waits on the upstream calls. With track and artist given, both lookups run concurrently;
+     * otherwise the lyrics search follows the Genius lookup, using its title and artist.
+     *
+     * @param songId The Genius song ID
+     * @param trackName The track name for the lyrics search (optional)
+     * @param artist The artist name for the lyrics search (optional)
+     * @return Song details and lyrics (null when not found)
+     */
+    @GetMapping("/details")
+    public CompletableFuture<ResponseEntity<ResponseDto<Map<String, Object>>>> getTrackDetails(
+            @RequestParam int songId,
+            @RequestParam(value = "track", required = false) String trackName,
+            @RequestParam(value = "artist", required = false) String artist) {
+        CompletableFuture<Map<String, Object>> song = geniusService.getSongDetailsAsync(songId);
+        CompletableFuture<String> lyrics = StringUtils.hasText(trackName) && StringUtils.hasText(artist)
+                ? lyricsService.searchLyricsAsync(trackName, artist)
+                : song.thenCompose(details -> lyricsService.searchLyricsAsync(
+                        (String) details.get("title"), (String) details.get("artist")));
+
+        return song.thenCombine(lyrics, (details, text) -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("song", details);
+            response.put("lyrics", text);
+            return ResponseEntity.ok(ResponseDto.success(response));
+        }).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Error getting track details for {}: {}", songId, cause.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Error getting track details: " + cause.getMessage()));
+        });
+    }
+}
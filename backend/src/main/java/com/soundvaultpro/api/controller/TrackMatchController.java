@@ -0,0 +1,79 @@
+package com.soundvaultpro.api.controller;
+
+import com.soundvaultpro.api.dto.ResponseDto;
+import com.soundvaultpro.api.service.TrackMatchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/tracks/{trackId}")
+@RequiredArgsConstructor
+@Slf4j
+public class TrackMatchController {
+
+    private final TrackMatchService trackMatchService;
+
+    /**
+     * The user's other tracks that are the same recording, by acoustic fingerprint
+     *
+     * @param trackId The track's id
+     * @param supabaseId The owner's Supabase ID
+     * @return Matching tracks with the fraction of fingerprint bits they share, best first
+     */
+    @GetMapping("/same-recording")
+    public ResponseEntity<ResponseDto<List<Map<String, Object>>>> getSameRecording(
+            @PathVariable String trackId,
+            @RequestParam String supabaseId) {
+        try {
+            return ResponseEntity.ok(ResponseDto.success(trackMatchService.findSameRecording(trackId, supabaseId)));
+        } catch (Exception e) {
+            log.error("Error finding tracks matching {}: {}", trackId, e.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Error finding matching tracks: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * The Genius song of a track
+     *
+     * @param trackId The track's id
+     * @param supabaseId The owner's Supabase ID
+     * @param title The track's title, used if a search is needed (optional)
+     * @param artist The track's artist, used if a search is needed (optional)
+     * @return The song id when known for this track or the same recording, otherwise ranked search candidates
+     */
+    @GetMapping("/genius-match")
+    public ResponseEntity<ResponseDto<Map<String, Object>>> getGeniusMatch(
+            @PathVariable String trackId,
+            @RequestParam String supabaseId,
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) String artist) {
+        try {
+            return ResponseEntity.ok(ResponseDto.success(trackMatchService.matchGenius(trackId, supabaseId, title, artist)));
+        } catch (Exception e) {
+            log.error("Error matching track {} on Genius: {}", trackId, e.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Error matching track: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Confirm the Genius song of a track
+     */
+    @PutMapping("/genius-match")
+    public ResponseEntity<ResponseDto<Void>> confirmGeniusMatch(
+            @PathVariable String trackId,
+            @RequestParam String supabaseId,
+            @RequestParam int songId) {
+        try {
+            trackMatchService.confirmGenius(trackId, supabaseId, songId);
+            return ResponseEntity.ok(ResponseDto.success("Genius match saved", null));
+        } catch (Exception e) {
+            log.error("Error saving Genius match of track {}: {}", trackId, e.getMessage());
+            return ResponseEntity.badRequest().body(ResponseDto.error("Error saving Genius match: " + e.getMessage()));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.soundvaultpro.api.controller;
 import com.soundvaultpro.api.dto.ResponseDto;
 import com.soundvaultpro.api.dto.UserDto;
 import com.soundvaultpro.api.service.UserService;
+import com.soundvaultpro.api.web.ConditionalGet;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +18,7 @@ public class UserController {
     private final UserService userService;
     
     @GetMapping("/{supabaseId}")
+    @ConditionalGet
     public ResponseEntity<ResponseDto<UserDto>> getUserBySupabaseId(@PathVariable String supabaseId) {
         try {
             UserDto userDto = userService.findBySupabaseId(supabaseId);
@@ -0,0 +1,72 @@
+package com.soundvaultpro.api.controller;
+
+import com.soundvaultpro.api.ingest.IngestJob;
+import com.soundvaultpro.api.ingest.IngestService;
+import com.soundvaultpro.api.ingest.IngestStorage;
+import com.soundvaultpro.api.ingest.WaveformStage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Serves a track's precomputed waveform peaks (see {@link WaveformStage} for the format).
+ * Range requests are supported, and the ETag changes only when the track is ingested again.
+ */
+@RestController
+@RequestMapping("/tracks/{trackId}/waveform")
+@RequiredArgsConstructor
+public class WaveformController {
+
+    private static final String RETRY_AFTER_SECONDS = "2";
+
+    private final IngestService ingestService;
+    private final IngestStorage ingestStorage;
+
+    /**
+     * @return The waveform file, or 202 Accepted while it is still being computed
+     */
+    @GetMapping
+    public ResponseEntity<Resource> getWaveform(@PathVariable String trackId, @RequestParam String supabaseId)
+            throws IOException {
+        Optional<IngestJob> job = ingestService.mediaJob(trackId, supabaseId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        if (!job.get().isStageDone(WaveformStage.STAGE)) {
+            // Computed lazily for tracks ingested before waveforms were, while their source is kept
+            boolean pending = job.get().getState() == IngestJob.State.QUEUED
+                    || job.get().getState() == IngestJob.State.RUNNING
+                    || ingestService.runPendingStages(job.get().getTrackId());
+            return pending
+                    ? ResponseEntity.status(HttpStatus.ACCEPTED).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build()
+                    : ResponseEntity.notFound().build();
+        }
+
+        Path file = ingestStorage.trackDir(job.get().getTrackId()).resolve(WaveformStage.WAVEFORM_FILE);
+        if (!Files.exists(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .eTag(Long.toHexString(Files.getLastModifiedTime(file).toMillis()) + "-" + Long.toHexString(Files.size(file)))
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                .body(new FileSystemResource(file));
+    }
+}
@@ -0,0 +1,26 @@
+package com.soundvaultpro.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class IngestStatusDto {
+    private String trackId;
+    private String state;
+    private String contentHash;
+    /** Track whose media is shared because the uploads were identical */
+    private String linkedTrackId;
+    private long savedBytes;
+    private Map<String, String> stages;
+    private Map<String, Object> results;
+    private String error;
+    private Instant updatedAt;
+}
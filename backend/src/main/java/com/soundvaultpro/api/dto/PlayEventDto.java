@@ -0,0 +1,22 @@
+package com.soundvaultpro.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlayEventDto {
+    // "play" when a track starts, "skip" when it is skipped, "seek" when the user seeks within it
+    private String type;
+    private Long trackId;
+    // When the event happened, epoch millis; defaults to when it was received
+    private Long at;
+    // Playback position in ms; for a seek, where it started
+    private Integer positionMs;
+    // Seek only: position in ms the seek went to
+    private Integer toPositionMs;
+}
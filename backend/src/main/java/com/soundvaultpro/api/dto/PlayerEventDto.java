@@ -0,0 +1,20 @@
+package com.soundvaultpro.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlayerEventDto {
+    private String supabaseId;
+    // "play" when a track starts, "queue" when the upcoming queue changes
+    private String type;
+    private TrackRefDto current;
+    private List<TrackRefDto> queue;
+}
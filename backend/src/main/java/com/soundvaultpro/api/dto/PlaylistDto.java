@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 @Builder
@@ -19,4 +20,14 @@ public class PlaylistDto {
     private String userName;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    /** The rules of a smart playlist; null for a static one */
+    private Map<String, Object> rules;
+
+    /**
+     * Static playlist, as selected by the PlaylistRepository projections
+     */
+    public PlaylistDto(Long id, String name, String description, String userId, String userName,
+                       LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this(id, name, description, userId, userName, createdAt, updatedAt, null);
+    }
 }
@@ -0,0 +1,18 @@
+package com.soundvaultpro.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TrackRefDto {
+    private String trackName;
+    private String artist;
+    private Integer geniusSongId;
+    // Storage path of the track's file, used to mint its download link ahead of time
+    private String path;
+}
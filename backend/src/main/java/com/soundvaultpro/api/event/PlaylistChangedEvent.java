@@ -0,0 +1,22 @@
+package com.soundvaultpro.api.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by PlaylistService after a playlist mutation has been written to Supabase
+ */
+@Getter
+@RequiredArgsConstructor
+public class PlaylistChangedEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final String supabaseId;
+    private final Long playlistId;
+    private final Type type;
+}
@@ -0,0 +1,28 @@
+package com.soundvaultpro.api.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published by PlaylistService after tracks were added to or removed from a playlist in Supabase.
+ * Deleting a playlist removes all of its tracks. A library import publishes one ADDED event per
+ * playlist it filled, once all of its entries are written.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PlaylistTracksChangedEvent {
+
+    public enum Type {
+        ADDED,
+        REMOVED
+    }
+
+    private final String supabaseId;
+    private final Long playlistId;
+    private final Type type;
+    private final List<Long> trackIds;
+    /** The playlist's other tracks: those it already had for ADDED, those it still has for REMOVED */
+    private final List<Long> otherTrackIds;
+}
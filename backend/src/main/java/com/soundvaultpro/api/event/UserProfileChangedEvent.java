@@ -0,0 +1,15 @@
+package com.soundvaultpro.api.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by UserService after a user's profile or keys have been saved or queued for writing;
+ * not for a login that matched the stored profile
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserProfileChangedEvent {
+
+    private final String supabaseId;
+}
@@ -0,0 +1,111 @@
+package com.soundvaultpro.api.ingest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds a user's track with the same audio content as a new upload.
+ *
+ * Every track that holds its own media is indexed by owner and content hash; tracks linked to
+ * another track's media are not, so a lookup always lands on the track that stores the data.
+ * With ingest.dedup.index.enabled=false nothing is kept in memory and lookups scan the job
+ * files instead.
+ */
+@Component
+@Slf4j
+public class ContentHashIndex {
+
+    private final IngestStorage storage;
+    private final Map<String, String> tracksByContent = new ConcurrentHashMap<>();
+    private final Map<String, Long> savedBytesByTrack = new ConcurrentHashMap<>();
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    @Value("${ingest.dedup.index.enabled:true}")
+    private boolean indexEnabled;
+
+    public ContentHashIndex(IngestStorage storage, MeterRegistry meterRegistry) {
+        this.storage = storage;
+        Gauge.builder("ingest.dedup.saved.bytes", savedBytes, AtomicLong::get)
+                .description("Upload and media bytes not stored because tracks were linked to identical audio")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("ingest.dedup.index.size", tracksByContent, Map::size)
+                .description("Tracks in the in-memory content hash index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        for (IngestJob job : storage.loadAll()) {
+            add(job);
+        }
+        log.info("Content hash index loaded: {} tracks, {} bytes saved by deduplication",
+                tracksByContent.size(), savedBytes.get());
+    }
+
+    /**
+     * The user's track that stores media for this content hash, other than excludedTrackId
+     */
+    public Optional<String> find(String supabaseId, String contentHash, String excludedTrackId) throws IOException {
+        if (indexEnabled) {
+            return Optional.ofNullable(tracksByContent.get(key(supabaseId, contentHash)))
+                    .filter(trackId -> !trackId.equals(excludedTrackId));
+        }
+        return storage.loadAll().stream()
+                .filter(job -> isIndexable(job) && !job.getTrackId().equals(excludedTrackId)
+                        && supabaseId.equals(job.getSupabaseId()) && contentHash.equals(job.getContentHash()))
+                .map(IngestJob::getTrackId)
+                .findFirst();
+    }
+
+    /**
+     * Whether any other track is linked to this track's media
+     */
+    public boolean hasLinks(String trackId) throws IOException {
+        return storage.loadAll().stream().anyMatch(job -> trackId.equals(job.getLinkedTrackId()));
+    }
+
+    public void add(IngestJob job) {
+        if (isIndexable(job)) {
+            if (indexEnabled) {
+                tracksByContent.putIfAbsent(key(job.getSupabaseId(), job.getContentHash()), job.getTrackId());
+            }
+        } else if (job.getLinkedTrackId() != null) {
+            long saved = job.getSavedBytes();
+            Long previous = savedBytesByTrack.put(job.getTrackId(), saved);
+            savedBytes.addAndGet(saved - (previous == null ? 0 : previous));
+        }
+    }
+
+    public void remove(IngestJob job) {
+        if (job.getContentHash() != null) {
+            tracksByContent.remove(key(job.getSupabaseId(), job.getContentHash()), job.getTrackId());
+        }
+        Long saved = savedBytesByTrack.remove(job.getTrackId());
+        if (saved != null) {
+            savedBytes.addAndGet(-saved);
+        }
+    }
+
+    public long savedBytes() {
+        return savedBytes.get();
+    }
+
+    private static boolean isIndexable(IngestJob job) {
+        return job.getContentHash() != null && job.getLinkedTrackId() == null && job.getState() != IngestJob.State.FAILED;
+    }
+
+    private static String key(String supabaseId, String contentHash) {
+        return supabaseId + '/' + contentHash;
+    }
+}
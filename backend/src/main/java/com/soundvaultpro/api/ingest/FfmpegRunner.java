@@ -0,0 +1,145 @@
+package com.soundvaultpro.api.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the local ffmpeg binary for ingest stages. Every run is limited to ingest.ffmpeg.threads
+ * threads and started under nice, so transcoding yields the CPU to API request threads.
+ */
+@Component
+@Slf4j
+public class FfmpegRunner {
+
+    private static final int MAX_ERROR_OUTPUT = 4096;
+    private static final int PCM_BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Receives decoded audio as interleaved signed 16-bit samples. The array is reused between
+     * calls, so only its first count values are valid and it must not be kept.
+     */
+    @FunctionalInterface
+    public interface PcmSink {
+        void accept(short[] samples, int count) throws IOException;
+    }
+
+    @Value("${ingest.ffmpeg.path:ffmpeg}")
+    private String ffmpegPath;
+
+    @Value("${ingest.ffmpeg.threads:1}")
+    private int threads;
+
+    @Value("${ingest.ffmpeg.nice:10}")
+    private int niceness;
+
+    @Value("${ingest.ffmpeg.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    /**
+     * Run ffmpeg with the given arguments (after the common input-independent options) and wait for it
+     */
+    public void run(List<String> arguments) throws IOException, InterruptedException {
+        Path errorLog = Files.createTempFile("ffmpeg", ".log");
+        try {
+            Process process = start(arguments, ProcessBuilder.Redirect.DISCARD, ProcessBuilder.Redirect.to(errorLog.toFile()));
+            if (!process.waitFor(timeoutMinutes, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                throw new IOException("ffmpeg timed out after " + timeoutMinutes + " minutes");
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("ffmpeg exited with " + process.exitValue() + ": " + tail(errorLog));
+            }
+        } finally {
+            Files.deleteIfExists(errorLog);
+        }
+    }
+
+    /**
+     * Decode the first audio stream of a file to 16-bit PCM and stream it into the sink, without
+     * holding more than one buffer of audio in memory
+     */
+    public void decode(Path source, int channels, int sampleRate, PcmSink sink) throws IOException, InterruptedException {
+        decode(source, channels, sampleRate, 0, sink);
+    }
+
+    /**
+     * Decode at most the first maxSeconds of audio (all of it when maxSeconds is 0)
+     */
+    public void decode(Path source, int channels, int sampleRate, int maxSeconds, PcmSink sink)
+            throws IOException, InterruptedException {
+        List<String> arguments = new ArrayList<>(List.of("-i", source.toString(), "-map", "0:a:0", "-vn"));
+        if (maxSeconds > 0) {
+            arguments.addAll(List.of("-t", String.valueOf(maxSeconds)));
+        }
+        arguments.addAll(List.of("-ac", String.valueOf(channels), "-ar", String.valueOf(sampleRate), "-f", "s16le", "-"));
+        Path errorLog = Files.createTempFile("ffmpeg", ".log");
+        Process process = start(arguments, ProcessBuilder.Redirect.PIPE, ProcessBuilder.Redirect.to(errorLog.toFile()));
+        // Reading blocks, so the timeout is enforced by killing the process, which ends the stream
+        CompletableFuture<Void> watchdog = CompletableFuture.runAsync(process::destroyForcibly,
+                CompletableFuture.delayedExecutor(timeoutMinutes, TimeUnit.MINUTES));
+        try {
+            byte[] bytes = new byte[PCM_BUFFER_BYTES];
+            short[] samples = new short[PCM_BUFFER_BYTES / 2];
+            int pending = 0;
+            try (InputStream pcm = process.getInputStream()) {
+                int read;
+                while ((read = pcm.read(bytes, pending, bytes.length - pending)) != -1) {
+                    int available = pending + read;
+                    int count = available / 2;
+                    for (int i = 0; i < count; i++) {
+                        samples[i] = (short) ((bytes[2 * i] & 0xff) | (bytes[2 * i + 1] << 8));
+                    }
+                    // Carry an odd trailing byte over to the next read
+                    pending = available % 2;
+                    if (pending == 1) {
+                        bytes[0] = bytes[available - 1];
+                    }
+                    if (count > 0) {
+                        sink.accept(samples, count);
+                    }
+                }
+            }
+            process.waitFor();
+            if (watchdog.isDone()) {
+                throw new IOException("ffmpeg timed out after " + timeoutMinutes + " minutes");
+            }
+            if (process.exitValue() != 0) {
+                throw new IOException("ffmpeg exited with " + process.exitValue() + ": " + tail(errorLog));
+            }
+        } finally {
+            watchdog.cancel(false);
+            process.destroyForcibly();
+            Files.deleteIfExists(errorLog);
+        }
+    }
+
+    private Process start(List<String> arguments, ProcessBuilder.Redirect output, ProcessBuilder.Redirect errors)
+            throws IOException {
+        List<String> command = new ArrayList<>();
+        if (niceness > 0 && !System.getProperty("os.name", "").startsWith("Windows")) {
+            command.addAll(List.of("nice", "-n", String.valueOf(niceness)));
+        }
+        command.addAll(List.of(ffmpegPath, "-nostdin", "-hide_banner", "-loglevel", "error", "-threads", String.valueOf(threads)));
+        command.addAll(arguments);
+        log.debug("Running {}", command);
+        return new ProcessBuilder(command)
+                .redirectOutput(output)
+                .redirectError(errors)
+                .start();
+    }
+
+    private static String tail(Path errorLog) throws IOException {
+        String errors = Files.readString(errorLog).trim();
+        return errors.length() > MAX_ERROR_OUTPUT ? errors.substring(errors.length() - MAX_ERROR_OUTPUT) : errors;
+    }
+}
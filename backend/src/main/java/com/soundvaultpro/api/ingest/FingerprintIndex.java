@@ -0,0 +1,287 @@
+package com.soundvaultpro.api.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index of every user's track fingerprints, for finding recordings of the same audio
+ * in a library whatever their encoding.
+ *
+ * Each user's index is one sorted long[]: sub-fingerprint value in the high 32 bits, track
+ * ordinal and frame in the low 32, with every ingest.fingerprint.index-stride-th frame indexed.
+ * A lookup finds the entries equal to each sub-fingerprint of the query, or differing from it in
+ * one bit, by binary search and lets every hit vote for a track and time offset. Tracks whose
+ * best offset gets enough votes are verified by the bit error rate of the two fingerprints at
+ * that offset.
+ */
+@Component
+@Slf4j
+public class FingerprintIndex {
+
+    public static final String FINGERPRINT_FILE = "fingerprint.bin";
+
+    private static final int FRAME_BITS = 14;
+    private static final int MAX_FRAME = (1 << FRAME_BITS) - 1;
+    private static final int MAX_ORDINAL = (1 << (32 - FRAME_BITS)) - 1;
+
+    private final IngestStorage storage;
+    private final Map<String, UserIndex> users = new ConcurrentHashMap<>();
+
+    @Value("${ingest.fingerprint.index-stride:4}")
+    private int stride;
+
+    @Value("${ingest.fingerprint.min-votes:3}")
+    private int minVotes;
+
+    @Value("${ingest.fingerprint.min-overlap-frames:100}")
+    private int minOverlapFrames;
+
+    @Value("${ingest.fingerprint.match-threshold:0.65}")
+    private double matchThreshold;
+
+    public FingerprintIndex(IngestStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * A track of the same user judged to be the same recording
+     *
+     * @param similarity Fraction of fingerprint bits that agree where the two tracks overlap
+     */
+    public record Match(String trackId, double similarity) {
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("trackId", trackId);
+            map.put("similarity", Math.round(similarity * 1000) / 1000.0);
+            return map;
+        }
+    }
+
+    private static final class UserIndex {
+        final List<String> trackIds = new ArrayList<>();
+        final Map<String, Integer> ordinals = new HashMap<>();
+        long[] entries = new long[0];
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() throws IOException {
+        int loaded = 0;
+        for (IngestJob job : storage.loadAll()) {
+            if (job.getLinkedTrackId() == null && job.isStageDone(FingerprintStage.STAGE)) {
+                int[] fingerprint = read(job.getTrackId());
+                if (fingerprint != null) {
+                    add(job.getSupabaseId(), job.getTrackId(), fingerprint);
+                    loaded++;
+                }
+            }
+        }
+        log.info("Fingerprint index loaded: {} tracks of {} users", loaded, users.size());
+    }
+
+    public void add(String supabaseId, String trackId, int[] fingerprint) {
+        UserIndex index = users.computeIfAbsent(supabaseId, id -> new UserIndex());
+        synchronized (index) {
+            removeEntries(index, trackId);
+            Integer ordinal = index.ordinals.get(trackId);
+            if (ordinal == null) {
+                if (index.trackIds.size() > MAX_ORDINAL) {
+                    log.warn("Fingerprint index of user {} is full; track {} not indexed", supabaseId, trackId);
+                    return;
+                }
+                ordinal = index.trackIds.size();
+                index.trackIds.add(trackId);
+                index.ordinals.put(trackId, ordinal);
+            }
+
+            int count = Math.min(fingerprint.length, MAX_FRAME + 1);
+            long[] added = new long[(count + stride - 1) / stride];
+            int n = 0;
+            for (int frame = 0; frame < count; frame += stride) {
+                added[n++] = entry(fingerprint[frame], ordinal, frame);
+            }
+            Arrays.sort(added, 0, n);
+            index.entries = mergeSorted(index.entries, added, n);
+        }
+    }
+
+    public void remove(String supabaseId, String trackId) {
+        UserIndex index = users.get(supabaseId);
+        if (index != null) {
+            synchronized (index) {
+                removeEntries(index, trackId);
+            }
+        }
+    }
+
+    /**
+     * The user's other tracks that are the same recording as the given fingerprint, best first
+     */
+    public List<Match> findSimilar(String supabaseId, String trackId, int[] fingerprint) throws IOException {
+        UserIndex index = users.get(supabaseId);
+        if (index == null || fingerprint.length == 0) {
+            return List.of();
+        }
+
+        Map<Long, Integer> votes = new HashMap<>();
+        List<String> trackIds;
+        synchronized (index) {
+            long[] entries = index.entries;
+            trackIds = new ArrayList<>(index.trackIds);
+            Integer self = index.ordinals.get(trackId);
+            for (int frame = 0; frame < fingerprint.length; frame++) {
+                // The value itself and, since one flipped bit is common in a re-encode, its 32 neighbours
+                for (int flip = -1; flip < 32; flip++) {
+                    int value = flip < 0 ? fingerprint[frame] : fingerprint[frame] ^ (1 << flip);
+                    long key = (long) value << 32;
+                    for (int at = lowerBound(entries, key); at < entries.length && (entries[at] & 0xFFFFFFFF00000000L) == key; at++) {
+                        int ordinal = (int) (entries[at] >>> FRAME_BITS) & MAX_ORDINAL;
+                        if (self == null || ordinal != self) {
+                            int offset = (int) (entries[at] & MAX_FRAME) - frame;
+                            votes.merge(((long) ordinal << 32) | (offset & 0xFFFFFFFFL), 1, Integer::sum);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Best offset of every candidate track
+        Map<Integer, long[]> best = new HashMap<>();
+        votes.forEach((key, count) -> {
+            if (count >= minVotes) {
+                int ordinal = (int) (key >>> 32);
+                long[] current = best.get(ordinal);
+                if (current == null || count > current[1]) {
+                    best.put(ordinal, new long[]{(int) key.longValue(), count});
+                }
+            }
+        });
+
+        List<Match> matches = new ArrayList<>();
+        for (Map.Entry<Integer, long[]> candidate : best.entrySet()) {
+            String candidateId = trackIds.get(candidate.getKey());
+            int[] other = candidateId == null ? null : read(candidateId);
+            if (other != null) {
+                double similarity = similarity(fingerprint, other, (int) candidate.getValue()[0]);
+                if (similarity >= matchThreshold) {
+                    matches.add(new Match(candidateId, similarity));
+                }
+            }
+        }
+        matches.sort(Comparator.comparingDouble(Match::similarity).reversed());
+        return matches;
+    }
+
+    public List<Match> findSimilar(String supabaseId, String trackId) throws IOException {
+        int[] fingerprint = read(trackId);
+        return fingerprint == null ? List.of() : findSimilar(supabaseId, trackId, fingerprint);
+    }
+
+    public void write(String trackId, int[] fingerprint) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(fingerprint.length * Integer.BYTES);
+        buffer.asIntBuffer().put(fingerprint);
+        IngestStorage.writeAtomically(storage.trackDir(trackId).resolve(FINGERPRINT_FILE), buffer.array());
+    }
+
+    /**
+     * The stored fingerprint of a track, or null if it has none
+     */
+    public int[] read(String trackId) throws IOException {
+        Path file = storage.trackDir(trackId).resolve(FINGERPRINT_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        IntBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).asIntBuffer();
+        int[] fingerprint = new int[buffer.remaining()];
+        buffer.get(fingerprint);
+        return fingerprint;
+    }
+
+    /**
+     * Fraction of agreeing bits where b, shifted by offset frames, overlaps a
+     */
+    private double similarity(int[] a, int[] b, int offset) {
+        int from = Math.max(0, -offset);
+        int to = Math.min(a.length, b.length - offset);
+        int overlap = to - from;
+        if (overlap < Math.min(minOverlapFrames, Math.min(a.length, b.length))) {
+            return 0;
+        }
+        long differingBits = 0;
+        for (int i = from; i < to; i++) {
+            differingBits += Integer.bitCount(a[i] ^ b[i + offset]);
+        }
+        return 1.0 - (double) differingBits / (overlap * 32L);
+    }
+
+    private static void removeEntries(UserIndex index, String trackId) {
+        Integer ordinal = index.ordinals.get(trackId);
+        if (ordinal == null) {
+            return;
+        }
+        long[] entries = index.entries;
+        int kept = 0;
+        long[] remaining = new long[entries.length];
+        for (long entry : entries) {
+            if (((int) (entry >>> FRAME_BITS) & MAX_ORDINAL) != ordinal) {
+                remaining[kept++] = entry;
+            }
+        }
+        index.entries = Arrays.copyOf(remaining, kept);
+    }
+
+    private static long entry(int subFingerprint, int ordinal, int frame) {
+        return ((long) subFingerprint << 32) | ((long) ordinal << FRAME_BITS) | frame;
+    }
+
+    /**
+     * Signed long order keeps entries with equal sub-fingerprints together, which is all lookups need
+     */
+    private static long[] mergeSorted(long[] existing, long[] added, int addedCount) {
+        long[] merged = new long[existing.length + addedCount];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < existing.length && j < addedCount) {
+            merged[k++] = existing[i] <= added[j] ? existing[i++] : added[j++];
+        }
+        while (i < existing.length) {
+            merged[k++] = existing[i++];
+        }
+        while (j < addedCount) {
+            merged[k++] = added[j++];
+        }
+        return merged;
+    }
+
+    private static int lowerBound(long[] entries, long key) {
+        int low = 0;
+        int high = entries.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
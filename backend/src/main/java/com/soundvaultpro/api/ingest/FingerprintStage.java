@@ -0,0 +1,75 @@
+package com.soundvaultpro.api.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fingerprints the first ingest.fingerprint.max-seconds of the track, adds it to the
+ * {@link FingerprintIndex} and records the user's other tracks that are the same recording.
+ */
+@Component
+@Order(300)
+@Slf4j
+public class FingerprintStage implements IngestStage {
+
+    public static final String STAGE = "fingerprint";
+
+    private final IngestStorage storage;
+    private final FfmpegRunner ffmpeg;
+    private final Fingerprinter fingerprinter;
+    private final FingerprintIndex index;
+
+    @Value("${ingest.fingerprint.max-seconds:120}")
+    private int maxSeconds;
+
+    public FingerprintStage(IngestStorage storage, FfmpegRunner ffmpeg, Fingerprinter fingerprinter,
+                            FingerprintIndex index) {
+        this.storage = storage;
+        this.ffmpeg = ffmpeg;
+        this.fingerprinter = fingerprinter;
+        this.index = index;
+    }
+
+    @Override
+    public String name() {
+        return STAGE;
+    }
+
+    @Override
+    public void run(IngestJob job) throws Exception {
+        short[] samples = new short[maxSeconds * Fingerprinter.SAMPLE_RATE];
+        int[] count = new int[1];
+        ffmpeg.decode(storage.sourceFile(job.getTrackId()), 1, Fingerprinter.SAMPLE_RATE, maxSeconds, (pcm, n) -> {
+            int copied = Math.min(n, samples.length - count[0]);
+            System.arraycopy(pcm, 0, samples, count[0], copied);
+            count[0] += copied;
+        });
+
+        long start = System.nanoTime();
+        int[] fingerprint = fingerprinter.fingerprint(samples, count[0]);
+        index.write(job.getTrackId(), fingerprint);
+        List<FingerprintIndex.Match> matches = index.findSimilar(job.getSupabaseId(), job.getTrackId(), fingerprint);
+        index.add(job.getSupabaseId(), job.getTrackId(), fingerprint);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("frames", fingerprint.length);
+        result.put("sameRecording", matches.stream().map(FingerprintIndex.Match::toMap).toList());
+        job.getResults().put(name(), result);
+        log.debug("Fingerprinted track {} in {} ms, {} matching tracks", job.getTrackId(),
+                (System.nanoTime() - start) / 1_000_000, matches.size());
+    }
+
+    @Override
+    public void reset(IngestJob job) throws IOException {
+        index.remove(job.getSupabaseId(), job.getTrackId());
+        Files.deleteIfExists(storage.trackDir(job.getTrackId()).resolve(FingerprintIndex.FINGERPRINT_FILE));
+    }
+}
@@ -0,0 +1,175 @@
+package com.soundvaultpro.api.ingest;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Acoustic fingerprints in the style of chromaprint and the Philips (Haitsma-Kalker) scheme it
+ * descends from: mono audio at {@link #SAMPLE_RATE} Hz is cut into overlapping Hann-windowed
+ * frames, and each frame's spectrum between 300 and 2000 Hz is summed into 33 log-spaced bands.
+ * Bit m of a frame's 32-bit sub-fingerprint is set when the energy difference between bands m
+ * and m+1 grew since the previous frame. The bits survive lossy re-encoding, so the MP3 and FLAC
+ * of one recording share most sub-fingerprints while different recordings share about half their
+ * bits, like random data.
+ *
+ * The spectra are computed in parallel on a dedicated fork-join pool of low-priority threads.
+ * Each task allocates its FFT buffers once and reuses them for all of its frames.
+ */
+@Component
+public class Fingerprinter {
+
+    public static final int SAMPLE_RATE = 5512;
+    public static final int FRAME_SIZE = 2048;
+    /** Frame step of 1/32 frame (about 86 sub-fingerprints per second), so some frames of two copies always line up */
+    public static final int HOP_SIZE = 64;
+
+    private static final int BANDS = 33;
+    private static final double MIN_FREQUENCY = 300;
+    private static final double MAX_FREQUENCY = 2000;
+    private static final int FRAMES_PER_TASK = 64;
+
+    private static final float[] WINDOW = new float[FRAME_SIZE];
+    private static final int[] BAND_EDGES = new int[BANDS + 1];
+    private static final double[] COS = new double[FRAME_SIZE / 2];
+    private static final double[] SIN = new double[FRAME_SIZE / 2];
+    private static final int[] BIT_REVERSE = new int[FRAME_SIZE];
+
+    static {
+        for (int i = 0; i < FRAME_SIZE; i++) {
+            WINDOW[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (FRAME_SIZE - 1)));
+        }
+        double ratio = Math.log(MAX_FREQUENCY / MIN_FREQUENCY);
+        for (int band = 0; band <= BANDS; band++) {
+            double frequency = MIN_FREQUENCY * Math.exp(ratio * band / BANDS);
+            BAND_EDGES[band] = (int) Math.round(frequency * FRAME_SIZE / SAMPLE_RATE);
+        }
+        for (int i = 0; i < FRAME_SIZE / 2; i++) {
+            COS[i] = Math.cos(-2 * Math.PI * i / FRAME_SIZE);
+            SIN[i] = Math.sin(-2 * Math.PI * i / FRAME_SIZE);
+        }
+        int bits = Integer.numberOfTrailingZeros(FRAME_SIZE);
+        for (int i = 0; i < FRAME_SIZE; i++) {
+            BIT_REVERSE[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    public Fingerprinter(@Value("${ingest.fingerprint.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("fingerprint-" + thread.getPoolIndex());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Fingerprint the first count samples of mono PCM at {@link #SAMPLE_RATE} Hz
+     *
+     * @return One sub-fingerprint per frame after the first, empty when the audio is shorter than two frames
+     */
+    public int[] fingerprint(short[] samples, int count) {
+        int frames = count < FRAME_SIZE ? 0 : (count - FRAME_SIZE) / HOP_SIZE + 1;
+        if (frames < 2) {
+            return new int[0];
+        }
+        float[] energies = new float[frames * BANDS];
+        pool.invoke(new BandEnergies(samples, energies, 0, frames));
+
+        int[] fingerprint = new int[frames - 1];
+        for (int frame = 1; frame < frames; frame++) {
+            int current = frame * BANDS;
+            int previous = current - BANDS;
+            int bits = 0;
+            for (int band = 0; band < 32; band++) {
+                float difference = energies[current + band] - energies[current + band + 1]
+                        - (energies[previous + band] - energies[previous + band + 1]);
+                if (difference > 0) {
+                    bits |= 1 << band;
+                }
+            }
+            fingerprint[frame - 1] = bits;
+        }
+        return fingerprint;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Band energies of a range of frames, split in halves until a range is small enough to run
+     */
+    private static final class BandEnergies extends RecursiveAction {
+        private final short[] samples;
+        private final float[] energies;
+        private final int from;
+        private final int to;
+
+        BandEnergies(short[] samples, float[] energies, int from, int to) {
+            this.samples = samples;
+            this.energies = energies;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > FRAMES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BandEnergies(samples, energies, from, middle),
+                        new BandEnergies(samples, energies, middle, to));
+                return;
+            }
+            double[] real = new double[FRAME_SIZE];
+            double[] imaginary = new double[FRAME_SIZE];
+            for (int frame = from; frame < to; frame++) {
+                int offset = frame * HOP_SIZE;
+                for (int i = 0; i < FRAME_SIZE; i++) {
+                    real[BIT_REVERSE[i]] = samples[offset + i] * WINDOW[i];
+                    imaginary[i] = 0;
+                }
+                fft(real, imaginary);
+                for (int band = 0; band < BANDS; band++) {
+                    double energy = 0;
+                    for (int bin = BAND_EDGES[band]; bin < BAND_EDGES[band + 1]; bin++) {
+                        energy += real[bin] * real[bin] + imaginary[bin] * imaginary[bin];
+                    }
+                    energies[frame * BANDS + band] = (float) energy;
+                }
+            }
+        }
+    }
+
+    /**
+     * In-place iterative radix-2 FFT of input already in bit-reversed order
+     */
+    private static void fft(double[] real, double[] imaginary) {
+        for (int size = 2; size <= FRAME_SIZE; size <<= 1) {
+            int half = size >> 1;
+            int step = FRAME_SIZE / size;
+            for (int start = 0; start < FRAME_SIZE; start += size) {
+                for (int k = 0; k < half; k++) {
+                    double cos = COS[k * step];
+                    double sin = SIN[k * step];
+                    int even = start + k;
+                    int odd = even + half;
+                    double oddReal = real[odd] * cos - imaginary[odd] * sin;
+                    double oddImaginary = real[odd] * sin + imaginary[odd] * cos;
+                    real[odd] = real[even] - oddReal;
+                    imaginary[odd] = imaginary[even] - oddImaginary;
+                    real[even] += oddReal;
+                    imaginary[even] += oddImaginary;
+                }
+            }
+        }
+    }
+}
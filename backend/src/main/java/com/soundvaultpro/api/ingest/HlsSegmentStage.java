@@ -0,0 +1,123 @@
+package com.soundvaultpro.api.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.List;
+
+/**
+ * Transcodes the source into AAC HLS renditions at ingest.hls.bitrates, with every segment
+ * encrypted under AES-128 by the track's content key. No IV is written to the playlists, so each
+ * segment's IV is its media sequence number, as HLS specifies.
+ *
+ * A rendition counts as finished once its playlist ends with EXT-X-ENDLIST; anything else left
+ * by an interrupted run is discarded and transcoded again.
+ */
+@Component
+@Order(100)
+@Slf4j
+public class HlsSegmentStage implements IngestStage {
+
+    public static final String HLS_DIR = "hls";
+    public static final String MASTER_PLAYLIST = "master.m3u8";
+    public static final String MEDIA_PLAYLIST = "index.m3u8";
+    public static final String KEY_FILE = "key.bin";
+    /** Key URI written into media playlists; rewritten to the key endpoint when a playlist is served */
+    public static final String KEY_URI = "key";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final IngestStorage storage;
+    private final FfmpegRunner ffmpeg;
+
+    @Value("${ingest.hls.bitrates:64,128,256}")
+    private List<Integer> bitrates;
+
+    @Value("${ingest.hls.segment-seconds:6}")
+    private int segmentSeconds;
+
+    public HlsSegmentStage(IngestStorage storage, FfmpegRunner ffmpeg) {
+        this.storage = storage;
+        this.ffmpeg = ffmpeg;
+    }
+
+    @Override
+    public String name() {
+        return "hls";
+    }
+
+    @Override
+    public void run(IngestJob job) throws Exception {
+        Path hlsDir = storage.trackDir(job.getTrackId()).resolve(HLS_DIR);
+        Path keyFile = contentKey(hlsDir);
+        Path keyInfo = hlsDir.resolve("key.info");
+        Files.writeString(keyInfo, KEY_URI + "\n" + keyFile.toAbsolutePath() + "\n");
+
+        StringBuilder master = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:3\n");
+        for (int bitrate : bitrates) {
+            String rendition = bitrate + "k";
+            Path dir = hlsDir.resolve(rendition);
+            if (!isComplete(dir.resolve(MEDIA_PLAYLIST))) {
+                IngestStorage.deleteRecursively(dir);
+                Files.createDirectories(dir);
+                ffmpeg.run(List.of(
+                        "-i", storage.sourceFile(job.getTrackId()).toString(),
+                        "-map", "0:a:0", "-vn",
+                        "-c:a", "aac", "-b:a", rendition, "-ac", "2", "-ar", "44100",
+                        "-f", "hls",
+                        "-hls_time", String.valueOf(segmentSeconds),
+                        "-hls_playlist_type", "vod",
+                        "-hls_key_info_file", keyInfo.toString(),
+                        "-hls_segment_filename", dir.resolve("seg_%05d.ts").toString(),
+                        dir.resolve(MEDIA_PLAYLIST).toString()));
+                log.debug("Transcoded {} rendition of track {}", rendition, job.getTrackId());
+            }
+            // Peak bandwidth allowing for the MPEG-TS container overhead
+            master.append("#EXT-X-STREAM-INF:BANDWIDTH=").append(bitrate * 1100)
+                    .append(",CODECS=\"mp4a.40.2\"\n")
+                    .append(rendition).append('/').append(MEDIA_PLAYLIST).append('\n');
+        }
+        IngestStorage.writeAtomically(hlsDir.resolve(MASTER_PLAYLIST), master.toString().getBytes(StandardCharsets.UTF_8));
+        Files.deleteIfExists(keyInfo);
+    }
+
+    @Override
+    public void reset(IngestJob job) throws IOException {
+        Path hlsDir = storage.trackDir(job.getTrackId()).resolve(HLS_DIR);
+        if (!Files.isDirectory(hlsDir)) {
+            return;
+        }
+        try (var entries = Files.list(hlsDir)) {
+            for (Path entry : entries.toList()) {
+                if (!entry.getFileName().toString().equals(KEY_FILE)) {
+                    IngestStorage.deleteRecursively(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * The track's 128-bit content key, created on first use and kept across re-ingests so
+     * segments a client already holds stay decryptable
+     */
+    private static Path contentKey(Path hlsDir) throws IOException {
+        Path keyFile = hlsDir.resolve(KEY_FILE);
+        if (!Files.exists(keyFile)) {
+            byte[] key = new byte[16];
+            RANDOM.nextBytes(key);
+            IngestStorage.writeAtomically(keyFile, key);
+        }
+        return keyFile;
+    }
+
+    private static boolean isComplete(Path playlist) throws IOException {
+        return Files.exists(playlist) && Files.readString(playlist).contains("#EXT-X-ENDLIST");
+    }
+}
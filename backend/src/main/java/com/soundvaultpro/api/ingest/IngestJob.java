@@ -0,0 +1,63 @@
+package com.soundvaultpro.api.ingest;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Durable state of one track's ingest, stored as job.json next to the track's media. Finished
+ * stages are recorded by name, so a job interrupted by a restart resumes at the first stage
+ * that has not finished.
+ */
+@Data
+@NoArgsConstructor
+public class IngestJob {
+
+    public enum State {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    public static final String STAGE_DONE = "done";
+
+    private String trackId;
+    private String supabaseId;
+    private String sourceName;
+    private long sourceBytes;
+    /** Hex SHA-256 of the uploaded file */
+    private String contentHash;
+    /** Track whose media this track shares because their uploads were identical, or null */
+    private String linkedTrackId;
+    /** Bytes not stored because of the link */
+    private long savedBytes;
+    private State state;
+    private Map<String, String> stages = new LinkedHashMap<>();
+    /** Stage outputs that belong with the track metadata, keyed by stage */
+    private Map<String, Object> results = new LinkedHashMap<>();
+    private String error;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    public IngestJob(String trackId, String supabaseId, String sourceName, long sourceBytes) {
+        this.trackId = trackId;
+        this.supabaseId = supabaseId;
+        this.sourceName = sourceName;
+        this.sourceBytes = sourceBytes;
+        this.state = State.QUEUED;
+        this.createdAt = Instant.now();
+        this.updatedAt = createdAt;
+    }
+
+    /**
+     * The track whose directory holds this track's media
+     */
+    public String mediaTrackId() {
+        return linkedTrackId != null ? linkedTrackId : trackId;
+    }
+
+    public boolean isStageDone(String stage) {
+        return STAGE_DONE.equals(stages.get(stage));
+    }
+}
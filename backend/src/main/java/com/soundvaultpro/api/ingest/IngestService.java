@@ -0,0 +1,333 @@
+package com.soundvaultpro.api.ingest;
+
+import com.soundvaultpro.api.replica.SupabaseReplica;
+import com.soundvaultpro.api.service.SupabaseService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs uploaded tracks through the {@link IngestStage} pipeline on a small pool of low-priority
+ * workers. Jobs are durable: their state is saved after every stage, and jobs that were queued
+ * or running when the node stopped are resumed at startup, skipping finished stages.
+ */
+@Service
+@Slf4j
+public class IngestService {
+
+    private final IngestStorage storage;
+    private final List<IngestStage> stages;
+    private final ExecutorService workers;
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter deduplicated;
+    private final ContentHashIndex contentIndex;
+    private final ObjectProvider<SupabaseReplica> replicaProvider;
+    private final SupabaseService supabaseService;
+
+    @Value("${ingest.keep-source:false}")
+    private boolean keepSource;
+
+    public IngestService(IngestStorage storage, List<IngestStage> stages, ContentHashIndex contentIndex,
+                         ObjectProvider<SupabaseReplica> replicaProvider, SupabaseService supabaseService,
+                         MeterRegistry meterRegistry,
+                         @Value("${ingest.workers:1}") int workerCount,
+                         @Value("${ingest.stages:}") List<String> enabledStages) {
+        this.storage = storage;
+        this.stages = enabledStages.isEmpty()
+                ? stages
+                : stages.stream().filter(stage -> enabledStages.contains(stage.name())).toList();
+        this.contentIndex = contentIndex;
+        this.replicaProvider = replicaProvider;
+        this.supabaseService = supabaseService;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ingest-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        this.completed = Counter.builder("ingest.jobs.completed").register(meterRegistry);
+        this.failed = Counter.builder("ingest.jobs.failed").register(meterRegistry);
+        this.deduplicated = Counter.builder("ingest.dedup.linked")
+                .description("Uploads linked to an identical track instead of being ingested")
+                .register(meterRegistry);
+        Gauge.builder("ingest.jobs.pending", scheduled, Set::size)
+                .description("Ingest jobs queued or running on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Store an uploaded track and queue it for ingest, replacing the outputs of any earlier ingest.
+     * An upload identical to another of the user's tracks is linked to that track's media instead
+     * and is done at once.
+     *
+     * @throws IllegalArgumentException if the tracks row does not exist or belongs to another user
+     */
+    public IngestJob submit(String trackId, String supabaseId, MultipartFile file) throws IOException {
+        Optional<IngestJob> existing = storage.load(trackId);
+        if ((existing.isPresent() && !existing.get().getSupabaseId().equals(supabaseId))
+                || !supabaseService.isTrackOwner(trackId, supabaseId)) {
+            throw new IllegalArgumentException("Track not found or not owned by user");
+        }
+        if (!scheduled.add(trackId)) {
+            throw new IllegalStateException("Track is already being ingested");
+        }
+        boolean queued = false;
+        Path upload = storage.sourceFile(trackId).resolveSibling("source.part");
+        try {
+            Files.createDirectories(upload.getParent());
+            String contentHash = copyAndHash(file, upload);
+
+            if (existing.isPresent()) {
+                IngestJob previous = existing.get();
+                if (previous.getLinkedTrackId() == null && !contentHash.equals(previous.getContentHash())
+                        && contentIndex.hasLinks(trackId)) {
+                    throw new IllegalStateException("Track's audio is shared with identical uploads and cannot be replaced");
+                }
+                contentIndex.remove(previous);
+                for (IngestStage stage : stages) {
+                    stage.reset(previous);
+                }
+            }
+
+            IngestJob job = new IngestJob(trackId, supabaseId, file.getOriginalFilename(), file.getSize());
+            job.setContentHash(contentHash);
+            Optional<String> duplicateOf = contentIndex.find(supabaseId, contentHash, trackId);
+            if (duplicateOf.isPresent()) {
+                Files.delete(upload);
+                job.setLinkedTrackId(duplicateOf.get());
+                job.setSavedBytes(file.getSize() + storage.mediaBytes(duplicateOf.get()));
+                job.setState(IngestJob.State.DONE);
+                storage.save(job);
+                contentIndex.add(job);
+                deduplicated.increment();
+                log.info("Track {} has the same audio as track {}; linked instead of ingested", trackId, duplicateOf.get());
+                return job;
+            }
+
+            Files.move(upload, storage.sourceFile(trackId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            storage.save(job);
+            contentIndex.add(job);
+            workers.execute(() -> process(trackId));
+            queued = true;
+            return job;
+        } finally {
+            Files.deleteIfExists(upload);
+            if (!queued) {
+                scheduled.remove(trackId);
+            }
+        }
+    }
+
+    public Optional<IngestJob> getJob(String trackId) {
+        return storage.load(trackId);
+    }
+
+    /**
+     * Store a result that does not come from a stage, such as a metadata match the user confirmed
+     */
+    public IngestJob recordResult(String trackId, String supabaseId, String key, Object value) throws IOException {
+        IngestJob job = storage.load(trackId)
+                .filter(j -> j.getSupabaseId().equals(supabaseId))
+                .orElseThrow(() -> new IllegalArgumentException("Track not found"));
+        // A running job saves its own copy after every stage and would drop the result
+        if (scheduled.contains(trackId)) {
+            throw new IllegalStateException("Track is being ingested");
+        }
+        job.getResults().put(key, value);
+        job.setUpdatedAt(Instant.now());
+        storage.save(job);
+        return job;
+    }
+
+    /**
+     * The user's track holding media for this content hash, with its dropbox_id when the read
+     * replica has the track's row
+     */
+    public Optional<Map<String, Object>> findDuplicate(String supabaseId, String contentHash) throws IOException {
+        Optional<String> trackId = contentIndex.find(supabaseId, contentHash, null);
+        if (trackId.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, Object> duplicate = new LinkedHashMap<>();
+        duplicate.put("trackId", trackId.get());
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica != null) {
+            replica.findTracksByUser(supabaseId).stream()
+                    .filter(row -> trackId.get().equals(row.path("id").asText()))
+                    .findFirst()
+                    .ifPresent(row -> duplicate.put("dropboxId", row.path("dropbox_id").asText(null)));
+        }
+        return Optional.of(duplicate);
+    }
+
+    /**
+     * The track's directory, if the track belongs to the user and the stage's output is ready
+     */
+    public Optional<Path> completedStageDir(String trackId, String supabaseId, String stage) {
+        return mediaJob(trackId, supabaseId)
+                .filter(job -> job.isStageDone(stage))
+                .map(job -> storage.trackDir(job.getTrackId()));
+    }
+
+    /**
+     * The job of the track holding this track's media: the track's own job, or that of the track
+     * it is linked to. Empty when the track does not belong to the user.
+     */
+    public Optional<IngestJob> mediaJob(String trackId, String supabaseId) {
+        Optional<IngestJob> job = storage.load(trackId).filter(j -> j.getSupabaseId().equals(supabaseId));
+        if (job.isPresent() && job.get().getLinkedTrackId() != null) {
+            return storage.load(job.get().getLinkedTrackId()).filter(j -> j.getSupabaseId().equals(supabaseId));
+        }
+        return job;
+    }
+
+    /**
+     * The track's own media directory, or that of the track it is linked to
+     */
+    public Path mediaDir(String trackId) {
+        return storage.trackDir(storage.load(trackId).map(IngestJob::mediaTrackId).orElse(trackId));
+    }
+
+    /**
+     * Queue a finished job again to run stages it has not been through, such as a stage added
+     * after the track was ingested. Needs the source file, so only works with ingest.keep-source.
+     *
+     * @return Whether the stages are pending, either queued now or by an earlier call
+     */
+    public boolean runPendingStages(String trackId) throws IOException {
+        if (scheduled.contains(trackId)) {
+            return true;
+        }
+        Optional<IngestJob> job = storage.load(trackId);
+        if (job.isEmpty() || job.get().getState() != IngestJob.State.DONE || !Files.exists(storage.sourceFile(trackId))) {
+            return false;
+        }
+        if (scheduled.add(trackId)) {
+            try {
+                update(job.get(), IngestJob.State.QUEUED, null);
+                workers.execute(() -> process(trackId));
+            } catch (IOException | RuntimeException e) {
+                scheduled.remove(trackId);
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedJobs() {
+        try {
+            for (IngestJob job : storage.loadAll()) {
+                if ((job.getState() == IngestJob.State.QUEUED || job.getState() == IngestJob.State.RUNNING)
+                        && scheduled.add(job.getTrackId())) {
+                    log.info("Resuming ingest of track {}", job.getTrackId());
+                    workers.execute(() -> process(job.getTrackId()));
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not scan for interrupted ingest jobs: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs stay RUNNING on disk and are resumed on the next start
+        workers.shutdownNow();
+    }
+
+    private void process(String trackId) {
+        IngestJob job = null;
+        try {
+            job = storage.load(trackId).orElse(null);
+            if (job == null) {
+                return;
+            }
+            update(job, IngestJob.State.RUNNING, null);
+            for (IngestStage stage : stages) {
+                if (job.isStageDone(stage.name())) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                stage.run(job);
+                job.getStages().put(stage.name(), IngestJob.STAGE_DONE);
+                storage.save(job);
+                log.debug("Ingest stage {} of track {} took {} ms", stage.name(), trackId,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            if (!keepSource) {
+                Files.deleteIfExists(storage.sourceFile(trackId));
+            }
+            update(job, IngestJob.State.DONE, null);
+            completed.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Ingest of track {} failed: {}", trackId, e.getMessage(), e);
+            failed.increment();
+            if (job != null) {
+                contentIndex.remove(job);
+                try {
+                    update(job, IngestJob.State.FAILED, e.getMessage());
+                } catch (IOException saveError) {
+                    log.error("Could not record failed ingest of track {}: {}", trackId, saveError.getMessage());
+                }
+            }
+        } finally {
+            scheduled.remove(trackId);
+        }
+    }
+
+    private static String copyAndHash(MultipartFile file, Path target) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void update(IngestJob job, IngestJob.State state, String error) throws IOException {
+        job.setState(state);
+        job.setError(error);
+        job.setUpdatedAt(Instant.now());
+        storage.save(job);
+    }
+}
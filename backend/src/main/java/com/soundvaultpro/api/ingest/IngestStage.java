@@ -0,0 +1,23 @@
+package com.soundvaultpro.api.ingest;
+
+import java.io.IOException;
+
+/**
+ * One step of the ingest pipeline. Stages are beans, run in {@link org.springframework.core.annotation.Order}
+ * on an ingest worker thread while the track's source file is still available.
+ *
+ * A stage must be safe to run again after an interruption: it either finishes its output
+ * completely or leaves something it recognises and redoes on the next attempt.
+ */
+public interface IngestStage {
+
+    String name();
+
+    void run(IngestJob job) throws Exception;
+
+    /**
+     * Discard this stage's output before the track is ingested again from a new upload
+     */
+    default void reset(IngestJob job) throws IOException {
+    }
+}
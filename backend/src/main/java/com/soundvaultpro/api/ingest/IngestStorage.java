@@ -0,0 +1,126 @@
+package com.soundvaultpro.api.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * On-disk layout of ingested tracks: one directory per track holding job.json, the uploaded
+ * source until the pipeline has finished with it, and each stage's output.
+ */
+@Component
+public class IngestStorage {
+
+    private static final Pattern TRACK_ID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+    private static final String JOB_FILE = "job.json";
+    private static final String SOURCE_FILE = "source";
+
+    private final ObjectMapper objectMapper;
+    private final Path root;
+
+    public IngestStorage(ObjectMapper objectMapper, @Value("${ingest.dir:./data/ingest}") String root) {
+        this.objectMapper = objectMapper;
+        this.root = Paths.get(root);
+    }
+
+    public Path trackDir(String trackId) {
+        if (trackId == null || !TRACK_ID.matcher(trackId).matches()) {
+            throw new IllegalArgumentException("Invalid track id");
+        }
+        return root.resolve(trackId);
+    }
+
+    public Path sourceFile(String trackId) {
+        return trackDir(trackId).resolve(SOURCE_FILE);
+    }
+
+    /**
+     * Bytes taken by a track's stored media: everything in its directory but the job file
+     */
+    public long mediaBytes(String trackId) throws IOException {
+        Path dir = trackDir(trackId);
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        try (var paths = Files.walk(dir)) {
+            long total = 0;
+            for (Path path : paths.filter(Files::isRegularFile).toList()) {
+                if (!path.getFileName().toString().equals(JOB_FILE)) {
+                    total += Files.size(path);
+                }
+            }
+            return total;
+        }
+    }
+
+    public Optional<IngestJob> load(String trackId) {
+        Path file = trackDir(trackId).resolve(JOB_FILE);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.readValue(file.toFile(), IngestJob.class));
+        } catch (IOException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    public void save(IngestJob job) throws IOException {
+        Path dir = trackDir(job.getTrackId());
+        Files.createDirectories(dir);
+        Path tmp = dir.resolve(JOB_FILE + ".tmp");
+        objectMapper.writeValue(tmp.toFile(), job);
+        Files.move(tmp, dir.resolve(JOB_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public List<IngestJob> loadAll() throws IOException {
+        List<IngestJob> jobs = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return jobs;
+        }
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                String trackId = dir.getFileName().toString();
+                if (TRACK_ID.matcher(trackId).matches()) {
+                    load(trackId).ifPresent(jobs::add);
+                }
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Replace a file with content written to a sibling temporary file, so readers never see it half-written
+     */
+    public static void writeAtomically(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(tmp, content);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Delete a directory and everything under it, if it exists
+     */
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (var paths = Files.walk(dir)) {
+            for (Path path : paths.sorted((a, b) -> b.getNameCount() - a.getNameCount()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
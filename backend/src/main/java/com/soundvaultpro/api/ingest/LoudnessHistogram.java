@@ -0,0 +1,111 @@
+package com.soundvaultpro.api.ingest;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gated loudness blocks of one or more tracks, binned by loudness so that albums can be measured
+ * by merging their tracks' histograms instead of analysing the audio again.
+ *
+ * Each 0.1 LU bin between -70 and +5 LUFS keeps its block count and the exact sum of its blocks'
+ * mean-square energy, so gating is done per bin and the integrated loudness is exact for the
+ * blocks that pass, as ITU-R BS.1770 defines it.
+ */
+public final class LoudnessHistogram {
+
+    public static final double ABSOLUTE_GATE_LUFS = -70;
+    public static final double RELATIVE_GATE_LU = -10;
+
+    private static final double MAX_LUFS = 5;
+    private static final double BIN_WIDTH = 0.1;
+    private static final int BINS = (int) Math.round((MAX_LUFS - ABSOLUTE_GATE_LUFS) / BIN_WIDTH);
+
+    private final int[] counts = new int[BINS];
+    private final double[] energies = new double[BINS];
+    private double peak;
+
+    /**
+     * Add a 400 ms block by its K-weighted mean-square energy, summed over channels
+     */
+    public void addBlock(double energy) {
+        double loudness = loudness(energy);
+        if (loudness <= ABSOLUTE_GATE_LUFS) {
+            return;
+        }
+        int bin = Math.min(BINS - 1, (int) ((loudness - ABSOLUTE_GATE_LUFS) / BIN_WIDTH));
+        counts[bin]++;
+        energies[bin] += energy;
+    }
+
+    public void updatePeak(double samplePeak) {
+        peak = Math.max(peak, samplePeak);
+    }
+
+    public void merge(LoudnessHistogram other) {
+        for (int bin = 0; bin < BINS; bin++) {
+            counts[bin] += other.counts[bin];
+            energies[bin] += other.energies[bin];
+        }
+        peak = Math.max(peak, other.peak);
+    }
+
+    /**
+     * Gated integrated loudness in LUFS, or negative infinity for silence
+     */
+    public double integratedLoudness() {
+        double energy = 0;
+        long count = 0;
+        for (int bin = 0; bin < BINS; bin++) {
+            energy += energies[bin];
+            count += counts[bin];
+        }
+        if (count == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double threshold = loudness(energy / count) + RELATIVE_GATE_LU;
+
+        energy = 0;
+        count = 0;
+        for (int bin = 0; bin < BINS; bin++) {
+            // A bin straddling the threshold is decided by its mean block
+            if (counts[bin] > 0 && loudness(energies[bin] / counts[bin]) > threshold) {
+                energy += energies[bin];
+                count += counts[bin];
+            }
+        }
+        return count == 0 ? Double.NEGATIVE_INFINITY : loudness(energy / count);
+    }
+
+    /**
+     * Largest absolute sample value, 1.0 being full scale
+     */
+    public double peak() {
+        return peak;
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + Double.BYTES + BINS * (Integer.BYTES + Double.BYTES));
+        buffer.putInt(BINS).putDouble(peak);
+        for (int bin = 0; bin < BINS; bin++) {
+            buffer.putInt(counts[bin]).putDouble(energies[bin]);
+        }
+        return buffer.array();
+    }
+
+    public static LoudnessHistogram fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != BINS) {
+            throw new IllegalArgumentException("Unsupported loudness histogram");
+        }
+        LoudnessHistogram histogram = new LoudnessHistogram();
+        histogram.peak = buffer.getDouble();
+        for (int bin = 0; bin < BINS; bin++) {
+            histogram.counts[bin] = buffer.getInt();
+            histogram.energies[bin] = buffer.getDouble();
+        }
+        return histogram;
+    }
+
+    private static double loudness(double energy) {
+        return -0.691 + 10 * Math.log10(energy);
+    }
+}
@@ -0,0 +1,120 @@
+package com.soundvaultpro.api.ingest;
+
+/**
+ * EBU R128 / ITU-R BS.1770 loudness measurement of interleaved 16-bit PCM.
+ *
+ * Every channel goes through the two K-weighting biquads (a high shelf for the head and a high
+ * pass), and the squared output is summed per 100 ms. Each run of four sums is a 400 ms block,
+ * so blocks overlap by 75%, and every block goes into a {@link LoudnessHistogram} for gating.
+ * All state is primitive fields and arrays sized at construction; nothing is allocated per sample.
+ * Channels are weighted equally, which is right for mono and stereo.
+ */
+public final class LoudnessMeter {
+
+    private static final double FULL_SCALE = 32768.0;
+
+    private final int channels;
+    private final int framesPerSubBlock;
+    private final LoudnessHistogram histogram = new LoudnessHistogram();
+
+    // Biquad coefficients: shelf (b0..b2, a1, a2), then high pass
+    private final double sb0, sb1, sb2, sa1, sa2;
+    private final double hb0, hb1, hb2, ha1, ha2;
+    // Direct form I state per channel: x1, x2, y1, y2 of each stage
+    private final double[] shelfState;
+    private final double[] passState;
+
+    private final double[] subBlocks = new double[4];
+    private int subBlockCount;
+    private double subBlockEnergy;
+    private int subBlockFrames;
+    private int channel;
+    private int peak;
+
+    public LoudnessMeter(int sampleRate, int channels) {
+        this.channels = channels;
+        this.framesPerSubBlock = sampleRate / 10;
+        this.shelfState = new double[channels * 4];
+        this.passState = new double[channels * 4];
+
+        // Coefficients for any sample rate, matching the BS.1770 tables at 48 kHz
+        double f0 = 1681.974450955533;
+        double gain = 3.999843853973347;
+        double q = 0.7071752369554196;
+        double k = Math.tan(Math.PI * f0 / sampleRate);
+        double vh = Math.pow(10, gain / 20);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1 + k / q + k * k;
+        sb0 = (vh + vb * k / q + k * k) / a0;
+        sb1 = 2 * (k * k - vh) / a0;
+        sb2 = (vh - vb * k / q + k * k) / a0;
+        sa1 = 2 * (k * k - 1) / a0;
+        sa2 = (1 - k / q + k * k) / a0;
+
+        f0 = 38.13547087602444;
+        q = 0.5003270373238773;
+        k = Math.tan(Math.PI * f0 / sampleRate);
+        a0 = 1 + k / q + k * k;
+        hb0 = 1;
+        hb1 = -2;
+        hb2 = 1;
+        ha1 = 2 * (k * k - 1) / a0;
+        ha2 = (1 - k / q + k * k) / a0;
+    }
+
+    /**
+     * Feed interleaved samples; a call may end part-way through a frame
+     */
+    public void accept(short[] samples, int count) {
+        for (int i = 0; i < count; i++) {
+            int sample = samples[i];
+            int magnitude = sample < 0 ? -sample : sample;
+            if (magnitude > peak) {
+                peak = magnitude;
+            }
+            double x = sample / FULL_SCALE;
+
+            int s = channel * 4;
+            double shelved = sb0 * x + sb1 * shelfState[s] + sb2 * shelfState[s + 1]
+                    - sa1 * shelfState[s + 2] - sa2 * shelfState[s + 3];
+            shelfState[s + 1] = shelfState[s];
+            shelfState[s] = x;
+            shelfState[s + 3] = shelfState[s + 2];
+            shelfState[s + 2] = shelved;
+
+            double weighted = hb0 * shelved + hb1 * passState[s] + hb2 * passState[s + 1]
+                    - ha1 * passState[s + 2] - ha2 * passState[s + 3];
+            passState[s + 1] = passState[s];
+            passState[s] = shelved;
+            passState[s + 3] = passState[s + 2];
+            passState[s + 2] = weighted;
+
+            subBlockEnergy += weighted * weighted;
+            if (++channel == channels) {
+                channel = 0;
+                if (++subBlockFrames == framesPerSubBlock) {
+                    completeSubBlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * The histogram of all complete blocks so far, with the sample peak
+     */
+    public LoudnessHistogram finish() {
+        histogram.updatePeak(peak / FULL_SCALE);
+        return histogram;
+    }
+
+    private void completeSubBlock() {
+        subBlocks[subBlockCount % 4] = subBlockEnergy;
+        subBlockCount++;
+        subBlockEnergy = 0;
+        subBlockFrames = 0;
+        if (subBlockCount >= 4) {
+            double sum = subBlocks[0] + subBlocks[1] + subBlocks[2] + subBlocks[3];
+            histogram.addBlock(sum / (4.0 * framesPerSubBlock));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.soundvaultpro.api.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.soundvaultpro.api.service.SupabaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Measures the track's EBU R128 integrated loudness and derives ReplayGain 2.0 track and album
+ * gains (relative to -18 LUFS). The track's block histogram is stored as loudness.bin, and the
+ * album's loudness is measured by merging the histograms of the user's tracks that share the
+ * album, so adding a track to an album never re-analyses the others.
+ *
+ * With ingest.loudness.update-tracks the gains are written to the tracks rows of every track on
+ * the album, so they arrive with the track metadata clients already load.
+ */
+@Component
+@Order(400)
+@Slf4j
+public class LoudnessStage implements IngestStage {
+
+    public static final String STAGE = "loudness";
+    public static final String LOUDNESS_FILE = "loudness.bin";
+
+    private static final double REFERENCE_LUFS = -18;
+    private static final int SAMPLE_RATE = 48000;
+    private static final int CHANNELS = 2;
+
+    private final IngestStorage storage;
+    private final FfmpegRunner ffmpeg;
+    private final SupabaseService supabaseService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${ingest.loudness.update-tracks:true}")
+    private boolean updateTracks;
+
+    public LoudnessStage(IngestStorage storage, FfmpegRunner ffmpeg, SupabaseService supabaseService,
+                         ObjectMapper objectMapper) {
+        this.storage = storage;
+        this.ffmpeg = ffmpeg;
+        this.supabaseService = supabaseService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return STAGE;
+    }
+
+    @Override
+    public void run(IngestJob job) throws Exception {
+        LoudnessMeter meter = new LoudnessMeter(SAMPLE_RATE, CHANNELS);
+        ffmpeg.decode(storage.sourceFile(job.getTrackId()), CHANNELS, SAMPLE_RATE, meter::accept);
+        LoudnessHistogram histogram = meter.finish();
+        IngestStorage.writeAtomically(storage.trackDir(job.getTrackId()).resolve(LOUDNESS_FILE), histogram.toBytes());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("integratedLufs", round(histogram.integratedLoudness()));
+        result.put("trackGainDb", round(gain(histogram)));
+        result.put("samplePeak", round(histogram.peak()));
+        job.getResults().put(name(), result);
+
+        if (updateTracks) {
+            try {
+                updateAlbum(job.getTrackId());
+            } catch (RuntimeException e) {
+                // The gains are still in the job results; the next ingest on the album retries
+                log.warn("Could not store loudness of track {} in Supabase: {}", job.getTrackId(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void reset(IngestJob job) throws IOException {
+        Files.deleteIfExists(storage.trackDir(job.getTrackId()).resolve(LOUDNESS_FILE));
+    }
+
+    /**
+     * Recompute the album gain from the histograms of the album's tracks and write the gains of
+     * every one of them that has been measured
+     */
+    private void updateAlbum(String trackId) throws IOException {
+        List<String> albumTrackIds = supabaseService.findAlbumTrackIds(trackId);
+        Map<String, LoudnessHistogram> measured = new LinkedHashMap<>();
+        LoudnessHistogram album = new LoudnessHistogram();
+        for (String albumTrackId : albumTrackIds) {
+            Optional<LoudnessHistogram> histogram = histogram(albumTrackId);
+            if (histogram.isPresent()) {
+                measured.put(albumTrackId, histogram.get());
+                album.merge(histogram.get());
+            }
+        }
+
+        double albumGain = gain(album);
+        for (Map.Entry<String, LoudnessHistogram> track : measured.entrySet()) {
+            ObjectNode columns = objectMapper.createObjectNode();
+            columns.put("loudness_lufs", round(track.getValue().integratedLoudness()));
+            columns.put("replay_gain_track_db", round(gain(track.getValue())));
+            columns.put("replay_gain_album_db", round(albumGain));
+            columns.put("sample_peak", round(track.getValue().peak()));
+            columns.put("album_peak", round(album.peak()));
+            supabaseService.updateTrack(track.getKey(), columns);
+        }
+        log.debug("Album of track {}: {} of {} tracks measured, album gain {} dB", trackId, measured.size(),
+                albumTrackIds.size(), round(albumGain));
+    }
+
+    /**
+     * A track's histogram, which for a track linked to identical audio is that track's
+     */
+    private Optional<LoudnessHistogram> histogram(String trackId) throws IOException {
+        Optional<IngestJob> job;
+        try {
+            job = storage.load(trackId);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (job.isEmpty()) {
+            return Optional.empty();
+        }
+        Path file = storage.trackDir(job.get().mediaTrackId()).resolve(LOUDNESS_FILE);
+        return Files.exists(file)
+                ? Optional.of(LoudnessHistogram.fromBytes(Files.readAllBytes(file)))
+                : Optional.empty();
+    }
+
+    private static double gain(LoudnessHistogram histogram) {
+        double loudness = histogram.integratedLoudness();
+        return Double.isInfinite(loudness) ? 0 : REFERENCE_LUFS - loudness;
+    }
+
+    private static double round(double value) {
+        return Double.isInfinite(value) ? -70 : Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,200 @@
+package com.soundvaultpro.api.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes the track's waveform as min/max peaks at several resolutions, so the player can
+ * draw it without decoding any audio.
+ *
+ * The source is decoded to mono PCM and streamed through once. Only the finest level is built
+ * from samples; every coarser level merges groups of ingest.waveform.level-factor peaks of the
+ * level below. Peaks are signed 8-bit values, two bytes per peak.
+ *
+ * File layout (big-endian):
+ * <pre>
+ * "SVWF" | u8 version | u8 level count | u16 reserved | u32 sample rate | u32 frame count
+ * level count x (u32 samples per peak | u32 peak count | u32 data offset)
+ * peak data, coarsest level first: peak count x (i8 min | i8 max)
+ * </pre>
+ * The coarsest level follows the header directly, so a Range request for the first few
+ * kilobytes is enough to draw an overview.
+ */
+@Component
+@Order(200)
+@Slf4j
+public class WaveformStage implements IngestStage {
+
+    public static final String STAGE = "waveform";
+    public static final String WAVEFORM_FILE = "waveform.bin";
+
+    private static final byte[] MAGIC = {'S', 'V', 'W', 'F'};
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int LEVEL_ENTRY_BYTES = 12;
+
+    private final IngestStorage storage;
+    private final FfmpegRunner ffmpeg;
+
+    @Value("${ingest.waveform.sample-rate:11025}")
+    private int sampleRate;
+
+    @Value("${ingest.waveform.samples-per-peak:256}")
+    private int samplesPerPeak;
+
+    @Value("${ingest.waveform.levels:4}")
+    private int levelCount;
+
+    @Value("${ingest.waveform.level-factor:4}")
+    private int levelFactor;
+
+    public WaveformStage(IngestStorage storage, FfmpegRunner ffmpeg) {
+        this.storage = storage;
+        this.ffmpeg = ffmpeg;
+    }
+
+    @Override
+    public String name() {
+        return STAGE;
+    }
+
+    @Override
+    public void run(IngestJob job) throws Exception {
+        PeakAccumulator finest = new PeakAccumulator(samplesPerPeak);
+        ffmpeg.decode(storage.sourceFile(job.getTrackId()), 1, sampleRate, finest::accept);
+        finest.finish();
+
+        byte[][] levels = new byte[levelCount][];
+        int[] resolutions = new int[levelCount];
+        levels[0] = finest.peaks();
+        resolutions[0] = samplesPerPeak;
+        for (int level = 1; level < levelCount; level++) {
+            levels[level] = merge(levels[level - 1], levelFactor);
+            resolutions[level] = resolutions[level - 1] * levelFactor;
+        }
+
+        byte[] file = encode(levels, resolutions, finest.frames());
+        IngestStorage.writeAtomically(storage.trackDir(job.getTrackId()).resolve(WAVEFORM_FILE), file);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("durationMs", finest.frames() * 1000 / sampleRate);
+        result.put("levels", levelCount);
+        result.put("bytes", file.length);
+        job.getResults().put(name(), result);
+        log.debug("Computed {} byte waveform of track {}", file.length, job.getTrackId());
+    }
+
+    @Override
+    public void reset(IngestJob job) throws IOException {
+        Files.deleteIfExists(storage.trackDir(job.getTrackId()).resolve(WAVEFORM_FILE));
+    }
+
+    private byte[] encode(byte[][] levels, int[] resolutions, long frames) {
+        int size = HEADER_BYTES + levels.length * LEVEL_ENTRY_BYTES;
+        for (byte[] level : levels) {
+            size += level.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(MAGIC)
+                .put((byte) VERSION)
+                .put((byte) levels.length)
+                .putShort((short) 0)
+                .putInt(sampleRate)
+                .putInt((int) Math.min(frames, 0xFFFFFFFFL));
+
+        int offset = HEADER_BYTES + levels.length * LEVEL_ENTRY_BYTES;
+        for (int level = levels.length - 1; level >= 0; level--) {
+            buffer.putInt(resolutions[level]).putInt(levels[level].length / 2).putInt(offset);
+            offset += levels[level].length;
+        }
+        for (int level = levels.length - 1; level >= 0; level--) {
+            buffer.put(levels[level]);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] merge(byte[] peaks, int factor) {
+        int count = peaks.length / 2;
+        int mergedCount = (count + factor - 1) / factor;
+        byte[] merged = new byte[mergedCount * 2];
+        for (int i = 0; i < mergedCount; i++) {
+            byte min = Byte.MAX_VALUE;
+            byte max = Byte.MIN_VALUE;
+            for (int j = i * factor, end = Math.min(count, j + factor); j < end; j++) {
+                min = (byte) Math.min(min, peaks[2 * j]);
+                max = (byte) Math.max(max, peaks[2 * j + 1]);
+            }
+            merged[2 * i] = min;
+            merged[2 * i + 1] = max;
+        }
+        return merged;
+    }
+
+    /**
+     * Folds a PCM stream into min/max pairs, growing a byte array as the track goes on
+     */
+    private static final class PeakAccumulator {
+        private final int samplesPerPeak;
+        private byte[] peaks = new byte[4096];
+        private int length;
+        private long frames;
+        private int inPeak;
+        private int min = Short.MAX_VALUE;
+        private int max = Short.MIN_VALUE;
+
+        PeakAccumulator(int samplesPerPeak) {
+            this.samplesPerPeak = samplesPerPeak;
+        }
+
+        void accept(short[] samples, int count) {
+            for (int i = 0; i < count; i++) {
+                int sample = samples[i];
+                if (sample < min) {
+                    min = sample;
+                }
+                if (sample > max) {
+                    max = sample;
+                }
+                if (++inPeak == samplesPerPeak) {
+                    flush();
+                }
+            }
+            frames += count;
+        }
+
+        void finish() {
+            if (inPeak > 0) {
+                flush();
+            }
+        }
+
+        byte[] peaks() {
+            return Arrays.copyOf(peaks, length);
+        }
+
+        long frames() {
+            return frames;
+        }
+
+        private void flush() {
+            if (length + 2 > peaks.length) {
+                peaks = Arrays.copyOf(peaks, peaks.length * 2);
+            }
+            peaks[length++] = (byte) (min >> 8);
+            peaks[length++] = (byte) (max >> 8);
+            inPeak = 0;
+            min = Short.MAX_VALUE;
+            max = Short.MIN_VALUE;
+        }
+    }
+}
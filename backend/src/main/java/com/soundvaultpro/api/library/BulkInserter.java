@@ -0,0 +1,151 @@
+package com.soundvaultpro.api.library;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.service.AsyncUpstreamClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Inserts rows into a PostgREST table in bulk: rows are serialized into the open batch as they
+ * are added, and every batchSize rows the batch is POSTed as one JSON array without waiting for
+ * the response, up to maxInFlight batches at a time. Memory use is therefore bounded by
+ * maxInFlight + 1 serialized batches, however many rows pass through.
+ *
+ * Used from one thread; the listener is called on the HTTP client's threads.
+ */
+final class BulkInserter {
+
+    /**
+     * Told about each inserted batch with the keys its rows were added with, in order
+     *
+     * @param inserted The response: the inserted rows in order with return=representation
+     */
+    @FunctionalInterface
+    interface BatchListener {
+        void onInserted(long[] keys, JsonNode inserted);
+    }
+
+    private final AsyncUpstreamClient upstreamClient;
+    private final ObjectMapper objectMapper;
+    private final String url;
+    private final Map<String, String> headers;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final BatchListener listener;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final AtomicLong inserted = new AtomicLong();
+    private final long[] keys;
+    private ByteArrayOutputStream buffer;
+    private JsonGenerator generator;
+    private int rows;
+
+    BulkInserter(AsyncUpstreamClient upstreamClient, ObjectMapper objectMapper, String url, Map<String, String> headers,
+                 int batchSize, int maxInFlight, BatchListener listener) {
+        this.upstreamClient = upstreamClient;
+        this.objectMapper = objectMapper;
+        this.url = url;
+        this.headers = headers;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.listener = listener;
+        this.keys = new long[batchSize];
+    }
+
+    /**
+     * Add a row, sending the batch once it is full
+     *
+     * @param key Passed back to the listener with the row's batch
+     * @throws IOException if an earlier batch failed
+     */
+    void add(JsonNode row, long key) throws IOException {
+        throwIfFailed();
+        if (generator == null) {
+            buffer = new ByteArrayOutputStream();
+            generator = objectMapper.getFactory().createGenerator(buffer);
+            generator.writeStartArray();
+        }
+        generator.writeTree(row);
+        keys[rows++] = key;
+        if (rows == batchSize) {
+            send();
+        }
+    }
+
+    /**
+     * Send the open batch and wait for every batch to be written
+     *
+     * @throws IOException if a batch failed
+     */
+    void flush() throws IOException {
+        if (rows > 0) {
+            send();
+        }
+        try {
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bulk inserts");
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Rows written so far, as far as the responses tell
+     */
+    long inserted() {
+        return inserted.get();
+    }
+
+    private void send() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+        byte[] body = buffer.toByteArray();
+        long[] batchKeys = Arrays.copyOf(keys, rows);
+        generator = null;
+        buffer = null;
+        rows = 0;
+
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bulk inserts");
+        }
+        upstreamClient.postJson(url, headers, body).whenComplete((response, error) -> {
+            try {
+                if (error != null) {
+                    failure.compareAndSet(null, error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                } else {
+                    listener.onInserted(batchKeys, response);
+                    // Rows skipped as duplicates are not in the response
+                    inserted.addAndGet(response != null && response.isArray() ? response.size() : batchKeys.length);
+                }
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private void throwIfFailed() throws IOException {
+        Throwable error = failure.get();
+        if (error != null) {
+            throw new IOException("Bulk insert failed: " + error.getMessage(), error);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.soundvaultpro.api.library;
+
+/**
+ * Open-addressing map from a non-zero long key to a long id, without boxing, so an import can
+ * map 100k ids in a few megabytes. Not thread-safe.
+ */
+final class IdMap {
+
+    private long[] keys = new long[1024];
+    private long[] ids = new long[1024];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void put(long key, long id) {
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        int slot = find(keys, key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            size++;
+        }
+        ids[slot] = id;
+    }
+
+    /**
+     * @return The id, or 0 when the key is not mapped
+     */
+    long get(long key) {
+        int slot = find(keys, key);
+        return keys[slot] == 0 ? 0 : ids[slot];
+    }
+
+    /**
+     * Slot holding the key, or the empty slot where it belongs
+     */
+    private static int find(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldIds = ids;
+        keys = new long[oldKeys.length * 2];
+        ids = new long[oldKeys.length * 2];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                int target = find(keys, oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                ids[target] = oldIds[slot];
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.soundvaultpro.api.library;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of a library archive: a ZIP with a manifest and either NDJSON files, one row per line
+ * as PostgREST returns them, or extended M3U playlists
+ * <pre>
+ * manifest.json            {"version": 1, "format": "ndjson" | "m3u", "exportedAt": ...}
+ * tracks.ndjson            the user's tracks rows
+ * playlists.ndjson         the user's playlists rows
+ * playlist_tracks.ndjson   the entries of those playlists
+ * Library.m3u              m3u: every track
+ * playlists/{id}-{name}.m3u  m3u: one file per playlist
+ * </pre>
+ * Entries are written in this order, which is also the order an import needs them in: rows
+ * referring to tracks or playlists come after them.
+ */
+public final class LibraryArchive {
+
+    public static final int VERSION = 1;
+    public static final String MANIFEST = "manifest.json";
+    public static final String TRACKS = "tracks.ndjson";
+    public static final String PLAYLISTS = "playlists.ndjson";
+    public static final String PLAYLIST_TRACKS = "playlist_tracks.ndjson";
+    public static final String LIBRARY_M3U = "Library.m3u";
+    public static final String PLAYLIST_DIR = "playlists/";
+
+    private LibraryArchive() {
+    }
+
+    /**
+     * FNV-1a 64 of a track's storage location, the key tracks are matched by on import; never 0
+     */
+    static long locationKey(String location) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : location.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash != 0 ? hash : 1;
+    }
+
+    /**
+     * A playlist name made safe to use as a file name in the archive
+     */
+    static String fileName(String name) {
+        String safe = name.replaceAll("[^\\p{L}\\p{N} ._-]", "_").trim();
+        return safe.length() > 100 ? safe.substring(0, 100) : safe;
+    }
+}
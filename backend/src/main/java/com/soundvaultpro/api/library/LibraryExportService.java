@@ -0,0 +1,154 @@
+package com.soundvaultpro.api.library;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.soundvaultpro.api.service.SupabaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a user's library as a {@link LibraryArchive} straight to an output stream. Rows are read
+ * from PostgREST a page at a time and written as they are parsed, so an export holds one row in
+ * memory whatever the size of the library.
+ */
+@Service
+@Slf4j
+public class LibraryExportService {
+
+    public static final String NDJSON = "ndjson";
+    public static final String M3U = "m3u";
+
+    private static final byte[] NEWLINE = {'\n'};
+
+    private final SupabaseService supabaseService;
+    private final ObjectMapper objectMapper;
+
+    /** Column holding where a track's file is stored, used as the M3U location */
+    @Value("${library.track-location-column:file_url}")
+    private String locationColumn;
+
+    public LibraryExportService(SupabaseService supabaseService, ObjectMapper objectMapper) {
+        this.supabaseService = supabaseService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write the user's library as a ZIP in the given format
+     *
+     * @throws IllegalArgumentException if the format is not ndjson or m3u
+     */
+    public void export(String supabaseId, String format, OutputStream out) throws IOException {
+        if (!NDJSON.equals(format) && !M3U.equals(format)) {
+            throw new IllegalArgumentException("Unknown export format: " + format);
+        }
+        long start = System.currentTimeMillis();
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        ObjectNode manifest = objectMapper.createObjectNode()
+                .put("version", LibraryArchive.VERSION)
+                .put("format", format)
+                .put("exportedAt", Instant.now().toString());
+        zip.putNextEntry(new ZipEntry(LibraryArchive.MANIFEST));
+        zip.write(objectMapper.writeValueAsBytes(manifest));
+        zip.closeEntry();
+
+        long rows = NDJSON.equals(format) ? writeNdjson(supabaseId, zip) : writeM3u(supabaseId, zip);
+        zip.finish();
+        zip.flush();
+        log.info("Exported {} rows of {}'s library as {} in {} ms", rows, supabaseId, format,
+                System.currentTimeMillis() - start);
+    }
+
+    private long writeNdjson(String supabaseId, ZipOutputStream zip) throws IOException {
+        long rows = writeRows(zip, LibraryArchive.TRACKS, ownedBy("tracks", "*", supabaseId));
+        rows += writeRows(zip, LibraryArchive.PLAYLISTS, ownedBy("playlists", "*", supabaseId));
+        // The embedded playlists(user_id) only restricts the entries to the user's playlists
+        zip.putNextEntry(new ZipEntry(LibraryArchive.PLAYLIST_TRACKS));
+        rows += supabaseService.forEachRow(supabaseService.tableUrl("playlist_tracks")
+                .queryParam("select", "playlist_id,track_id,position,playlists!inner(user_id)")
+                .queryParam("playlists.user_id", "eq." + supabaseId)
+                .queryParam("order", "id.asc"), row -> {
+            ((ObjectNode) row).remove("playlists");
+            writeLine(zip, row);
+        });
+        zip.closeEntry();
+        return rows;
+    }
+
+    /**
+     * The user's rows of a table, by id
+     */
+    private UriComponentsBuilder ownedBy(String table, String columns, String supabaseId) {
+        return supabaseService.tableUrl(table)
+                .queryParam("select", columns)
+                .queryParam("user_id", "eq." + supabaseId)
+                .queryParam("order", "id.asc");
+    }
+
+    private long writeRows(ZipOutputStream zip, String entry, UriComponentsBuilder query) throws IOException {
+        zip.putNextEntry(new ZipEntry(entry));
+        long rows = supabaseService.forEachRow(query, row -> writeLine(zip, row));
+        zip.closeEntry();
+        return rows;
+    }
+
+    private void writeLine(ZipOutputStream zip, JsonNode row) throws IOException {
+        zip.write(objectMapper.writeValueAsBytes(row));
+        zip.write(NEWLINE);
+    }
+
+    private long writeM3u(String supabaseId, ZipOutputStream zip) throws IOException {
+        zip.putNextEntry(new ZipEntry(LibraryArchive.LIBRARY_M3U));
+        zip.write("#EXTM3U\n".getBytes(StandardCharsets.UTF_8));
+        long rows = supabaseService.forEachRow(ownedBy("tracks", "*", supabaseId),
+                track -> writeM3uEntry(zip, track));
+        zip.closeEntry();
+
+        // Only ids and names, so a user's playlists fit in memory
+        List<JsonNode> playlists = new ArrayList<>();
+        supabaseService.forEachRow(ownedBy("playlists", "id,name", supabaseId), playlists::add);
+        for (JsonNode playlist : playlists) {
+            String name = playlist.path("name").asText();
+            zip.putNextEntry(new ZipEntry(LibraryArchive.PLAYLIST_DIR + playlist.path("id").asLong() + "-"
+                    + LibraryArchive.fileName(name) + ".m3u"));
+            zip.write(("#EXTM3U\n#PLAYLIST:" + name.replace('\n', ' ') + "\n").getBytes(StandardCharsets.UTF_8));
+            rows += supabaseService.forEachRow(supabaseService.tableUrl("playlist_tracks")
+                    .queryParam("select", "position,tracks(*)")
+                    .queryParam("playlist_id", "eq." + playlist.path("id").asLong())
+                    .queryParam("order", "position.asc,id.asc"), entry -> {
+                if (entry.path("tracks").isObject()) {
+                    writeM3uEntry(zip, entry.get("tracks"));
+                }
+            });
+            zip.closeEntry();
+        }
+        return rows + playlists.size();
+    }
+
+    /**
+     * An extended M3U entry: #EXTINF with the duration in seconds (-1 when unknown) and
+     * "artist - title", then the track's location
+     */
+    private void writeM3uEntry(ZipOutputStream zip, JsonNode track) throws IOException {
+        String location = track.path(locationColumn).asText("");
+        if (location.isEmpty()) {
+            return;
+        }
+        String title = track.path("artist").asText("") + " - " + track.path("title").asText("");
+        String entry = "#EXTINF:" + track.path("duration").asInt(-1) + "," + title.replace('\n', ' ') + "\n"
+                + location + "\n";
+        zip.write(entry.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,374 @@
+package com.soundvaultpro.api.library;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.soundvaultpro.api.config.CacheConfig;
+import com.soundvaultpro.api.config.SupabaseConfig;
+import com.soundvaultpro.api.dto.PlaylistDto;
+import com.soundvaultpro.api.dto.UserDto;
+import com.soundvaultpro.api.event.PlaylistChangedEvent;
+import com.soundvaultpro.api.event.PlaylistTracksChangedEvent;
+import com.soundvaultpro.api.service.AsyncUpstreamClient;
+import com.soundvaultpro.api.service.PlaylistService;
+import com.soundvaultpro.api.service.SmartPlaylistService;
+import com.soundvaultpro.api.service.SupabaseService;
+import com.soundvaultpro.api.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Restores a {@link LibraryArchive} into a user's library.
+ *
+ * The archive is read as a stream: entries are unzipped and NDJSON rows parsed one at a time,
+ * and rows go to Supabase through {@link BulkInserter}s in batches of library.import.batch-size,
+ * with up to library.import.max-in-flight batches being written at once. Besides the open
+ * batches, an import only holds the mapping from archive ids to new ids, a few bytes per row.
+ *
+ * Tracks whose location (library.track-location-column) the user already has are not inserted
+ * again but mapped to the existing track, so restoring the same backup twice adds no tracks.
+ * Playlists are always created anew. M3U playlists are matched to existing tracks by location;
+ * entries without a match are skipped, since an M3U file holds no encryption keys to create the
+ * track from.
+ *
+ * An import is not transactional: a failure leaves the rows written before it in place.
+ */
+@Service
+@Slf4j
+public class LibraryImportService {
+
+    private final AsyncUpstreamClient upstreamClient;
+    private final SupabaseService supabaseService;
+    private final SupabaseConfig supabaseConfig;
+    private final ObjectMapper objectMapper;
+    private final UserService userService;
+    private final PlaylistService playlistService;
+    private final SmartPlaylistService smartPlaylistService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${library.track-location-column:file_url}")
+    private String locationColumn;
+
+    @Value("${library.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${library.import.max-in-flight:4}")
+    private int maxInFlight;
+
+    public LibraryImportService(AsyncUpstreamClient upstreamClient, SupabaseService supabaseService,
+                                SupabaseConfig supabaseConfig, ObjectMapper objectMapper, UserService userService,
+                                PlaylistService playlistService, SmartPlaylistService smartPlaylistService,
+                                ApplicationEventPublisher eventPublisher) {
+        this.upstreamClient = upstreamClient;
+        this.supabaseService = supabaseService;
+        this.supabaseConfig = supabaseConfig;
+        this.objectMapper = objectMapper;
+        this.userService = userService;
+        this.playlistService = playlistService;
+        this.smartPlaylistService = smartPlaylistService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * State of one import
+     */
+    private final class Import {
+        final String supabaseId;
+        /** Location key to the user's existing track id */
+        final IdMap locations = new IdMap();
+        /** Archive track id to track id; guarded by itself */
+        final IdMap trackIds = new IdMap();
+        /** Archive playlist id to playlist id; guarded by itself */
+        final IdMap playlistIds = new IdMap();
+        final List<Long> createdPlaylists = Collections.synchronizedList(new ArrayList<>());
+        final List<JsonNode> smartPlaylists = Collections.synchronizedList(new ArrayList<>());
+        /** Playlist id to the track ids written to it; guarded by itself */
+        final Map<Long, List<Long>> addedTracks = new HashMap<>();
+        boolean tracksRead;
+        boolean playlistsRead;
+        long tracksImported;
+        long tracksMatched;
+        long m3uPlaylists;
+        long playlistTracksImported;
+        long skipped;
+
+        Import(String supabaseId) {
+            this.supabaseId = supabaseId;
+        }
+    }
+
+    /**
+     * Import a library archive read from the stream
+     *
+     * @return What was imported
+     * @throws IllegalArgumentException if the stream is not a library archive
+     */
+    @CacheEvict(cacheNames = CacheConfig.PLAYLISTS, key = "#supabaseId")
+    public Map<String, Object> importArchive(String supabaseId, InputStream in) throws IOException {
+        long start = System.currentTimeMillis();
+        Import state = new Import(supabaseId);
+        supabaseService.forEachRow(supabaseService.tableUrl("tracks")
+                .queryParam("select", "id," + locationColumn)
+                .queryParam("user_id", "eq." + supabaseId)
+                .queryParam("order", "id.asc"), row -> {
+            String location = row.path(locationColumn).asText("");
+            if (!location.isEmpty()) {
+                state.locations.put(LibraryArchive.locationKey(location), row.path("id").asLong());
+            }
+        });
+
+        ZipInputStream zip = new ZipInputStream(new BufferedInputStream(in, 64 * 1024), StandardCharsets.UTF_8);
+        boolean recognized = false;
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            String name = entry.getName();
+            if (entry.isDirectory()) {
+                continue;
+            }
+            recognized |= switch (name) {
+                case LibraryArchive.MANIFEST -> checkManifest(zip);
+                case LibraryArchive.TRACKS -> importTracks(state, zip);
+                case LibraryArchive.PLAYLISTS -> importPlaylists(state, zip);
+                case LibraryArchive.PLAYLIST_TRACKS -> importPlaylistTracks(state, zip);
+                case LibraryArchive.LIBRARY_M3U -> true;
+                default -> (name.endsWith(".m3u") || name.endsWith(".m3u8")) && importM3u(state, name, zip);
+            };
+        }
+        if (!recognized) {
+            throw new IllegalArgumentException("Not a library archive");
+        }
+
+        for (Long playlistId : state.createdPlaylists) {
+            eventPublisher.publishEvent(new PlaylistChangedEvent(supabaseId, playlistId, PlaylistChangedEvent.Type.CREATED));
+        }
+        // Every inserter has been flushed, so these are the entries actually written
+        state.addedTracks.forEach((playlistId, trackIds) -> eventPublisher.publishEvent(new PlaylistTracksChangedEvent(
+                supabaseId, playlistId, PlaylistTracksChangedEvent.Type.ADDED, trackIds, List.of())));
+        for (JsonNode playlist : state.smartPlaylists) {
+            try {
+                smartPlaylistService.register(supabaseId, playlist.path("id").asLong(),
+                        smartPlaylistService.compile(playlist.get("rules")));
+            } catch (IllegalArgumentException e) {
+                log.warn("Imported smart playlist {} has invalid rules: {}", playlist.path("id").asLong(), e.getMessage());
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tracksImported", state.tracksImported);
+        result.put("tracksMatched", state.tracksMatched);
+        result.put("playlistsImported", state.createdPlaylists.size() + state.m3uPlaylists);
+        result.put("playlistTracksImported", state.playlistTracksImported);
+        result.put("rowsSkipped", state.skipped);
+        result.put("elapsedMs", System.currentTimeMillis() - start);
+        log.info("Imported library archive for {}: {}", supabaseId, result);
+        return result;
+    }
+
+    private boolean checkManifest(InputStream in) throws IOException {
+        JsonNode manifest = objectMapper.readTree(StreamUtils.nonClosing(in));
+        if (manifest.path("version").asInt() > LibraryArchive.VERSION) {
+            throw new IllegalArgumentException("Archive version " + manifest.path("version").asInt()
+                    + " is newer than this server supports");
+        }
+        return true;
+    }
+
+    private boolean importTracks(Import state, InputStream in) throws IOException {
+        BulkInserter inserter = inserter("tracks?select=id", "return=representation",
+                (keys, inserted) -> map(state.trackIds, keys, inserted));
+        try (MappingIterator<JsonNode> rows = rows(in)) {
+            while (rows.hasNextValue()) {
+                JsonNode row = rows.nextValue();
+                if (!row.isObject()) {
+                    state.skipped++;
+                    continue;
+                }
+                ObjectNode track = (ObjectNode) row;
+                long archiveId = track.path("id").asLong();
+                String location = track.path(locationColumn).asText("");
+                long existing = location.isEmpty() ? 0 : state.locations.get(LibraryArchive.locationKey(location));
+                if (existing != 0) {
+                    synchronized (state.trackIds) {
+                        state.trackIds.put(archiveId, existing);
+                    }
+                    state.tracksMatched++;
+                    continue;
+                }
+                track.remove("id");
+                track.put("user_id", state.supabaseId);
+                inserter.add(track, archiveId);
+            }
+        }
+        inserter.flush();
+        state.tracksImported += inserter.inserted();
+        state.tracksRead = true;
+        return true;
+    }
+
+    private boolean importPlaylists(Import state, InputStream in) throws IOException {
+        UserDto user = userService.findBySupabaseId(state.supabaseId);
+        BulkInserter inserter = inserter("playlists?select=id,rules", "return=representation", (keys, inserted) -> {
+            map(state.playlistIds, keys, inserted);
+            for (JsonNode playlist : inserted) {
+                state.createdPlaylists.add(playlist.path("id").asLong());
+                if (playlist.path("rules").isObject()) {
+                    state.smartPlaylists.add(playlist);
+                }
+            }
+        });
+        try (MappingIterator<JsonNode> rows = rows(in)) {
+            while (rows.hasNextValue()) {
+                JsonNode row = rows.nextValue();
+                if (!row.isObject()) {
+                    state.skipped++;
+                    continue;
+                }
+                ObjectNode playlist = (ObjectNode) row;
+                long archiveId = playlist.path("id").asLong();
+                playlist.remove("id");
+                playlist.put("user_id", state.supabaseId);
+                if (user != null) {
+                    playlist.put("user_name", user.getName());
+                }
+                inserter.add(playlist, archiveId);
+            }
+        }
+        inserter.flush();
+        state.playlistsRead = true;
+        return true;
+    }
+
+    private boolean importPlaylistTracks(Import state, InputStream in) throws IOException {
+        if (!state.tracksRead || !state.playlistsRead) {
+            throw new IllegalArgumentException(LibraryArchive.PLAYLIST_TRACKS + " must come after "
+                    + LibraryArchive.TRACKS + " and " + LibraryArchive.PLAYLISTS);
+        }
+        BulkInserter inserter = entryInserter(state);
+        try (MappingIterator<JsonNode> rows = rows(in)) {
+            while (rows.hasNextValue()) {
+                JsonNode row = rows.nextValue();
+                long playlistId = state.playlistIds.get(row.path("playlist_id").asLong());
+                long trackId = state.trackIds.get(row.path("track_id").asLong());
+                if (playlistId == 0 || trackId == 0) {
+                    state.skipped++;
+                    continue;
+                }
+                inserter.add(objectMapper.createObjectNode()
+                        .put("playlist_id", playlistId)
+                        .put("track_id", trackId)
+                        .put("position", row.path("position").asInt()), 0);
+            }
+        }
+        inserter.flush();
+        state.playlistTracksImported += inserter.inserted();
+        return true;
+    }
+
+    /**
+     * Create a playlist from an extended M3U file, with the entries whose location is one of the
+     * user's tracks
+     */
+    private boolean importM3u(Import state, String entryName, InputStream in) throws IOException {
+        String name = null;
+        List<Long> trackIds = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(StreamUtils.nonClosing(in), StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (line.startsWith("#PLAYLIST:")) {
+                name = line.substring("#PLAYLIST:".length()).strip();
+            } else if (!line.isEmpty() && !line.startsWith("#")) {
+                long trackId = state.locations.get(LibraryArchive.locationKey(line));
+                if (trackId != 0) {
+                    trackIds.add(trackId);
+                } else {
+                    state.skipped++;
+                }
+            }
+        }
+        if (name == null || name.isEmpty()) {
+            // playlists/{id}-{name}.m3u as exported, or any other file name
+            String file = entryName.substring(entryName.lastIndexOf('/') + 1);
+            name = file.substring(0, file.lastIndexOf('.')).replaceFirst("^\\d+-", "");
+        }
+
+        PlaylistDto playlist = playlistService.createPlaylist(state.supabaseId, name, null);
+        state.m3uPlaylists++;
+        BulkInserter inserter = entryInserter(state);
+        for (int position = 0; position < trackIds.size(); position++) {
+            inserter.add(objectMapper.createObjectNode()
+                    .put("playlist_id", playlist.getId())
+                    .put("track_id", trackIds.get(position))
+                    .put("position", position), 0);
+        }
+        inserter.flush();
+        state.playlistTracksImported += inserter.inserted();
+        return true;
+    }
+
+    private BulkInserter entryInserter(Import state) {
+        // An M3U file may list a track twice; playlist_tracks holds it once, and only rows written are returned
+        return inserter("playlist_tracks?on_conflict=playlist_id,track_id&select=playlist_id,track_id",
+                "return=representation,resolution=ignore-duplicates", (keys, inserted) -> {
+                    synchronized (state.addedTracks) {
+                        for (JsonNode entry : inserted) {
+                            state.addedTracks.computeIfAbsent(entry.path("playlist_id").asLong(), id -> new ArrayList<>())
+                                    .add(entry.path("track_id").asLong());
+                        }
+                    }
+                });
+    }
+
+    private BulkInserter inserter(String query, String prefer, BulkInserter.BatchListener listener) {
+        Map<String, String> headers = Map.of(
+                "apikey", supabaseConfig.getSupabaseKey(),
+                "Authorization", "Bearer " + supabaseConfig.getSupabaseKey(),
+                "Prefer", prefer);
+        return new BulkInserter(upstreamClient, objectMapper, supabaseConfig.getSupabaseUrl() + "/rest/v1/" + query,
+                headers, batchSize, maxInFlight, listener);
+    }
+
+    /**
+     * NDJSON rows of a ZIP entry, parsed one at a time; closing them leaves the archive open
+     */
+    private MappingIterator<JsonNode> rows(InputStream in) throws IOException {
+        return objectMapper.readerFor(JsonNode.class).readValues(StreamUtils.nonClosing(in));
+    }
+
+    /**
+     * Map the archive ids of an inserted batch to the new ids, relying on PostgREST returning
+     * the rows of a bulk insert in the order they were sent
+     */
+    private static void map(IdMap ids, long[] keys, JsonNode inserted) {
+        if (!inserted.isArray() || inserted.size() != keys.length) {
+            throw new IllegalStateException("Expected " + keys.length + " inserted rows, got " + inserted.size());
+        }
+        synchronized (ids) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    ids.put(keys[i], inserted.get(i).path("id").asLong());
+                }
+            }
+        }
+    }
+}
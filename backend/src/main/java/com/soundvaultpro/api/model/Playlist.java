@@ -4,20 +4,36 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
-@Data
+@Getter
+@Setter
+@ToString
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "playlists")
+@Table(name = "playlists",
+       indexes = {
+           @Index(name = "idx_playlists_user_created", columnList = "user_id, created_at"),
+           @Index(name = "idx_playlists_remote_id", columnList = "remoteId", unique = true)
+       })
 public class Playlist {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "playlists_seq")
+    @SequenceGenerator(name = "playlists_seq", sequenceName = "playlists_seq", allocationSize = 50)
     private Long id;
+    
+    // id of the row in Supabase when this playlist is a local copy of one
+    private String remoteId;
 
     @NotBlank
     @Size(max = 100)
@@ -26,6 +42,8 @@ public class Playlist {
     @Size(max = 500)
     private String description;
     
+    // Excluded from toString so logging a playlist never loads its owner
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -35,4 +53,21 @@ public class Playlist {
     
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
+    
+    // Identity is the database id only, so comparing or hashing never touches the lazy user
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Playlist other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Playlist.class.hashCode();
+    }
 }
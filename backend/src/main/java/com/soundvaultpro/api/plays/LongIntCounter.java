@@ -0,0 +1,93 @@
+package com.soundvaultpro.api.plays;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Open-addressing map from a positive long key to an int count, without boxing. Not thread-safe.
+ */
+final class LongIntCounter {
+
+    private long[] keys = new long[16];
+    private int[] counts = new int[16];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void add(long key, int delta) {
+        if (2 * (size + 1) > keys.length) {
+            grow();
+        }
+        int slot = find(keys, key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            size++;
+        }
+        counts[slot] += delta;
+    }
+
+    int get(long key) {
+        int slot = find(keys, key);
+        return keys[slot] == 0 ? 0 : counts[slot];
+    }
+
+    void forEach(Entry consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                consumer.accept(keys[slot], counts[slot]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface Entry {
+        void accept(long key, int count);
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                out.writeLong(keys[slot]);
+                out.writeInt(counts[slot]);
+            }
+        }
+    }
+
+    void read(DataInput in) throws IOException {
+        int entries = in.readInt();
+        for (int i = 0; i < entries; i++) {
+            long key = in.readLong();
+            add(key, in.readInt());
+        }
+    }
+
+    /**
+     * Slot holding the key, or the empty slot where it belongs
+     */
+    private static int find(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                int target = find(keys, oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                counts[target] = oldCounts[slot];
+            }
+        }
+    }
+}
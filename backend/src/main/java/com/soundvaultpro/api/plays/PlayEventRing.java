@@ -0,0 +1,115 @@
+package com.soundvaultpro.api.plays;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring of play events, held in preallocated parallel
+ * arrays so that nothing is allocated per event.
+ *
+ * A producer claims a run of slots with one compare-and-set on the claim cursor, fills them and
+ * publishes each slot by storing its sequence number in it. The consumer takes slots in sequence
+ * order as they are published and then advances its cursor, which frees them for producers. No
+ * locks are taken on either side.
+ */
+final class PlayEventRing {
+
+    private final int capacity;
+    private final int mask;
+    private final String[] users;
+    private final long[] timestamps;
+    private final long[] trackIds;
+    private final byte[] types;
+    private final int[] positions;
+    private final int[] targets;
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    PlayEventRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.users = new String[capacity];
+        this.timestamps = new long[capacity];
+        this.trackIds = new long[capacity];
+        this.types = new byte[capacity];
+        this.positions = new int[capacity];
+        this.targets = new int[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    @FunctionalInterface
+    interface Handler {
+        void onEvent(String user, long timestamp, long trackId, byte type, int position, int target);
+    }
+
+    /**
+     * Claim count consecutive slots
+     *
+     * @return The sequence of the first slot, or -1 if the ring has no room for all of them
+     */
+    long claim(int count) {
+        while (true) {
+            long current = claimed.get();
+            if (current + count - consumed > capacity) {
+                return -1;
+            }
+            if (claimed.compareAndSet(current, current + count)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Fill and publish a claimed slot. Every claimed slot must be published, or the consumer stalls at it.
+     */
+    void publish(long sequence, String user, long timestamp, long trackId, byte type, int position, int target) {
+        int slot = (int) sequence & mask;
+        users[slot] = user;
+        timestamps[slot] = timestamp;
+        trackIds[slot] = trackId;
+        types[slot] = type;
+        positions[slot] = position;
+        targets[slot] = target;
+        published.set(slot, sequence);
+    }
+
+    /**
+     * Hand up to max published events to the handler in sequence order. Only one thread may drain.
+     *
+     * @return The number of events handled
+     */
+    int drain(Handler handler, int max) {
+        long next = consumed;
+        int handled = 0;
+        while (handled < max) {
+            int slot = (int) next & mask;
+            if (published.get(slot) != next) {
+                break;
+            }
+            handler.onEvent(users[slot], timestamps[slot], trackIds[slot], types[slot], positions[slot], targets[slot]);
+            users[slot] = null;
+            next++;
+            handled++;
+        }
+        consumed = next;
+        return handled;
+    }
+
+    /**
+     * Events claimed but not yet drained
+     */
+    int size() {
+        return (int) (claimed.get() - consumed);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,314 @@
+package com.soundvaultpro.api.plays;
+
+import com.soundvaultpro.api.dto.PlayEventDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Play history: play, skip and seek events from players, stored as columnar files with per-user
+ * rollups for "recently played" and "most played".
+ *
+ * Request threads put events into a lock-free {@link PlayEventRing} and return at once; when the
+ * ring is full the batch is refused so the player can retry later. A single writer thread drains
+ * the ring, appends the events to the hourly {@link PlayLog} partition and updates the
+ * {@link PlayRollups}. Every plays.checkpoint-interval-ms the writer flushes the log and saves the
+ * rollups with the log position they cover, so a restart only replays the rows written after the
+ * last checkpoint.
+ */
+@Service
+@Slf4j
+public class PlayHistoryService {
+
+    public static final byte PLAY = 0;
+    public static final byte SKIP = 1;
+    public static final byte SEEK = 2;
+
+    private static final String CHECKPOINT_FILE = "rollups.bin";
+    private static final int CHECKPOINT_MAGIC = 0x53565052;
+    private static final int DRAIN_BATCH = 4096;
+
+    private final PlayEventRing ring;
+    private final PlayRollups rollups;
+    private final Counter acceptedEvents;
+    private final Counter rejectedEvents;
+    private final Counter droppedEvents;
+    private final List<PlayListener> playListeners = new CopyOnWriteArrayList<>();
+    private PlayLog playLog;
+    private Thread writer;
+    private volatile boolean running;
+
+    @Value("${plays.dir:./data/plays}")
+    private String dir;
+
+    @Value("${plays.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${plays.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${plays.checkpoint-interval-ms:60000}")
+    private long checkpointIntervalMs;
+
+    public PlayHistoryService(MeterRegistry meterRegistry,
+                              @Value("${plays.buffer-size:65536}") int bufferSize,
+                              @Value("${plays.recent-size:100}") int recentSize,
+                              @Value("${plays.max-tracks-per-user:100000}") int maxTracksPerUser) {
+        this.ring = new PlayEventRing(bufferSize);
+        this.rollups = new PlayRollups(recentSize, maxTracksPerUser);
+        this.acceptedEvents = eventCounter(meterRegistry, "accepted");
+        this.rejectedEvents = eventCounter(meterRegistry, "rejected");
+        this.droppedEvents = eventCounter(meterRegistry, "dropped");
+        Gauge.builder("plays.buffer.depth", ring, PlayEventRing::size)
+                .description("Play events waiting for the writer")
+                .register(meterRegistry);
+        Gauge.builder("plays.users", rollups, PlayRollups::userCount)
+                .description("Users with play history")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Told about each play as the writer stores it. Called on the writer thread, so it must be quick.
+     */
+    @FunctionalInterface
+    public interface PlayListener {
+        void onPlay(String supabaseId, long trackId);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Path root = Paths.get(dir);
+        playLog = new PlayLog(root);
+        long start = System.currentTimeMillis();
+        long replayed = replay(root);
+        log.info("Play history loaded for {} users, {} events replayed in {} ms", rollups.userCount(), replayed,
+                System.currentTimeMillis() - start);
+
+        running = true;
+        writer = new Thread(this::drainLoop, "play-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Queue a batch of events from a user's player
+     *
+     * @return false if the buffer has no room for the batch; nothing of it was queued
+     * @throws IllegalArgumentException if an event is invalid; nothing of the batch was queued
+     */
+    public boolean record(String supabaseId, List<PlayEventDto> events) {
+        if (supabaseId == null || supabaseId.isBlank() || supabaseId.indexOf('\n') >= 0 || supabaseId.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Invalid Supabase ID");
+        }
+        if (events == null || events.isEmpty()) {
+            return true;
+        }
+        if (events.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " events per batch");
+        }
+        byte[] types = new byte[events.size()];
+        for (int i = 0; i < types.length; i++) {
+            PlayEventDto event = events.get(i);
+            types[i] = parseType(event.getType());
+            if (event.getTrackId() == null || event.getTrackId() <= 0) {
+                throw new IllegalArgumentException("Event " + i + " has no valid trackId");
+            }
+        }
+
+        long sequence = ring.claim(types.length);
+        if (sequence < 0) {
+            rejectedEvents.increment(types.length);
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < types.length; i++) {
+            PlayEventDto event = events.get(i);
+            ring.publish(sequence + i, supabaseId, event.getAt() != null ? event.getAt() : now, event.getTrackId(),
+                    types[i], event.getPositionMs() != null ? event.getPositionMs() : 0,
+                    event.getToPositionMs() != null ? event.getToPositionMs() : 0);
+        }
+        acceptedEvents.increment(types.length);
+        return true;
+    }
+
+    /**
+     * The user's most recently played distinct tracks with when they were played, newest first
+     */
+    public List<Map<String, Object>> recentlyPlayed(String supabaseId, int limit) {
+        return rollups.recent(supabaseId, limit);
+    }
+
+    /**
+     * The user's most played tracks with their play, skip and seek counts
+     */
+    public List<Map<String, Object>> mostPlayed(String supabaseId, int limit) {
+        return rollups.top(supabaseId, limit);
+    }
+
+    /**
+     * The user's play, skip and seek counts for a track
+     */
+    public Map<String, Object> trackCounts(String supabaseId, long trackId) {
+        return rollups.track(supabaseId, trackId);
+    }
+
+    /**
+     * The user's play count for a track
+     */
+    public int playCount(String supabaseId, long trackId) {
+        return rollups.plays(supabaseId, trackId);
+    }
+
+    /**
+     * A copy of the user's play counts by track
+     */
+    public Map<Long, Integer> playCounts(String supabaseId) {
+        return rollups.plays(supabaseId);
+    }
+
+    /**
+     * Listen to plays stored from now on; plays replayed at startup are not passed on
+     */
+    public void addPlayListener(PlayListener listener) {
+        playListeners.add(listener);
+    }
+
+    private void drainLoop() {
+        long nextFlush = System.currentTimeMillis() + flushIntervalMs;
+        long nextCheckpoint = System.currentTimeMillis() + checkpointIntervalMs;
+        try {
+            while (running || ring.size() > 0) {
+                long now = System.currentTimeMillis();
+                String partition = PlayLog.partitionOf(now);
+                int drained = ring.drain((user, timestamp, trackId, type, position, target) -> {
+                    try {
+                        playLog.append(partition, user, timestamp, trackId, type, position, target);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    if (!rollups.add(user, timestamp, trackId, type)) {
+                        droppedEvents.increment();
+                    } else if (type == PLAY) {
+                        for (PlayListener listener : playListeners) {
+                            listener.onPlay(user, trackId);
+                        }
+                    }
+                }, DRAIN_BATCH);
+
+                if (now >= nextFlush) {
+                    playLog.flush();
+                    nextFlush = now + flushIntervalMs;
+                }
+                if (now >= nextCheckpoint) {
+                    checkpoint();
+                    nextCheckpoint = now + checkpointIntervalMs;
+                }
+                if (drained == 0) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            }
+            checkpoint();
+            playLog.close();
+        } catch (IOException | RuntimeException e) {
+            // Events already in the log are replayed from the last checkpoint on the next start
+            log.error("Play history writer stopped: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Flush the log and save the rollups with the log position they include
+     */
+    private void checkpoint() throws IOException {
+        playLog.flush();
+        Path file = Paths.get(dir).resolve(CHECKPOINT_FILE);
+        Path tmp = file.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeUTF(playLog.partition() != null ? playLog.partition() : "");
+            out.writeLong(playLog.partitionRows());
+            rollups.write(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load the last checkpoint and add the rows written after it
+     *
+     * @return The number of rows replayed
+     */
+    private long replay(Path root) throws IOException {
+        String watermark = "";
+        long watermarkRows = 0;
+        Path file = root.resolve(CHECKPOINT_FILE);
+        if (Files.exists(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != CHECKPOINT_MAGIC) {
+                    throw new IOException("Not a play history checkpoint: " + file);
+                }
+                watermark = in.readUTF();
+                watermarkRows = in.readLong();
+                rollups.read(in);
+            }
+        }
+
+        long replayed = 0;
+        for (String partition : PlayLog.partitions(root)) {
+            int order = partition.compareTo(watermark);
+            if (order < 0) {
+                continue;
+            }
+            long from = order == 0 ? watermarkRows : 0;
+            long rows = PlayLog.scan(root, partition, from, (user, timestamp, trackId, type, position, target) ->
+                    rollups.add(playLog.user(user), timestamp, trackId, type));
+            replayed += Math.max(0, rows - from);
+        }
+        return replayed;
+    }
+
+    private static byte parseType(String type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Event type is required");
+        }
+        return switch (type) {
+            case "play" -> PLAY;
+            case "skip" -> SKIP;
+            case "seek" -> SEEK;
+            default -> throw new IllegalArgumentException("Unknown event type: " + type);
+        };
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("plays.events")
+                .description("Play events received, by whether they were queued and counted")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,222 @@
+package com.soundvaultpro.api.plays;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Append-only columnar play history on local disk.
+ *
+ * Events are stored in hourly partitions named yyyyMMddHH (UTC, by arrival time). A partition is
+ * a directory with one file per column, each a plain array of big-endian values:
+ * <pre>
+ * timestamp.col  long  event time, epoch millis
+ * user.col       int   line number of the user's Supabase ID in users.txt
+ * track.col      long  track id
+ * type.col       byte  {@link PlayHistoryService#PLAY}, SKIP or SEEK
+ * position.col   int   playback position in ms (seek: where the seek started)
+ * target.col     int   seek: position in ms the seek went to, otherwise 0
+ * </pre>
+ * Row i of a partition is element i of every column. After a crash the columns may differ in
+ * length; the partition's rows are then the shortest column's, and the excess is cut off when the
+ * partition is appended to again.
+ *
+ * Only one thread may append.
+ */
+final class PlayLog implements AutoCloseable {
+
+    static final String USERS_FILE = "users.txt";
+    private static final DateTimeFormatter PARTITION = DateTimeFormatter.ofPattern("yyyyMMddHH").withZone(ZoneOffset.UTC);
+    private static final String[] COLUMNS = {"timestamp", "user", "track", "type", "position", "target"};
+    private static final int[] WIDTHS = {Long.BYTES, Integer.BYTES, Long.BYTES, 1, Integer.BYTES, Integer.BYTES};
+    private static final int BUFFER_ROWS = 8192;
+
+    private final Path dir;
+    private final List<String> users = new ArrayList<>();
+    private final Map<String, Integer> userOrdinals = new HashMap<>();
+    private final BufferedWriter usersWriter;
+    private final ByteBuffer[] buffers = new ByteBuffer[COLUMNS.length];
+    private final FileChannel[] channels = new FileChannel[COLUMNS.length];
+    private String partition;
+    private long partitionRows;
+    private int bufferedRows;
+
+    PlayLog(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        Path usersFile = dir.resolve(USERS_FILE);
+        if (Files.exists(usersFile)) {
+            for (String user : Files.readAllLines(usersFile, StandardCharsets.UTF_8)) {
+                userOrdinals.put(user, users.size());
+                users.add(user);
+            }
+        }
+        this.usersWriter = Files.newBufferedWriter(usersFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        for (int column = 0; column < COLUMNS.length; column++) {
+            buffers[column] = ByteBuffer.allocateDirect(BUFFER_ROWS * WIDTHS[column]);
+        }
+    }
+
+    static String partitionOf(long epochMillis) {
+        return PARTITION.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    String user(int ordinal) {
+        return users.get(ordinal);
+    }
+
+    /**
+     * Partition being appended to, or null before the first append
+     */
+    String partition() {
+        return partition;
+    }
+
+    /**
+     * Rows in the current partition, including those not flushed yet
+     */
+    long partitionRows() {
+        return partitionRows;
+    }
+
+    void append(String partition, String user, long timestamp, long trackId, byte type, int position, int target)
+            throws IOException {
+        if (!partition.equals(this.partition)) {
+            open(partition);
+        }
+        if (bufferedRows == BUFFER_ROWS) {
+            flush();
+        }
+        Integer ordinal = userOrdinals.get(user);
+        if (ordinal == null) {
+            ordinal = users.size();
+            users.add(user);
+            userOrdinals.put(user, ordinal);
+            usersWriter.write(user);
+            usersWriter.newLine();
+        }
+        buffers[0].putLong(timestamp);
+        buffers[1].putInt(ordinal);
+        buffers[2].putLong(trackId);
+        buffers[3].put(type);
+        buffers[4].putInt(position);
+        buffers[5].putInt(target);
+        bufferedRows++;
+        partitionRows++;
+    }
+
+    /**
+     * Write buffered rows to the column files. New users are written first, so every flushed row
+     * refers to a user on disk.
+     */
+    void flush() throws IOException {
+        usersWriter.flush();
+        if (bufferedRows == 0) {
+            return;
+        }
+        for (int column = 0; column < COLUMNS.length; column++) {
+            ByteBuffer buffer = buffers[column].flip();
+            while (buffer.hasRemaining()) {
+                channels[column].write(buffer);
+            }
+            buffer.clear();
+        }
+        bufferedRows = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        closeChannels();
+        usersWriter.close();
+    }
+
+    /**
+     * Partitions on disk, oldest first
+     */
+    static List<String> partitions(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(dir)) {
+            return paths.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.length() == 10 && name.chars().allMatch(Character::isDigit))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @FunctionalInterface
+    interface RowHandler {
+        void onRow(int user, long timestamp, long trackId, byte type, int position, int target);
+    }
+
+    /**
+     * Read the rows of a partition from row from on, by mapping its columns
+     *
+     * @return The partition's row count
+     */
+    static long scan(Path dir, String partition, long from, RowHandler handler) throws IOException {
+        Path partitionDir = dir.resolve(partition);
+        MappedByteBuffer[] columns = new MappedByteBuffer[COLUMNS.length];
+        long rows = Long.MAX_VALUE;
+        for (int column = 0; column < COLUMNS.length; column++) {
+            try (FileChannel channel = FileChannel.open(partitionDir.resolve(COLUMNS[column] + ".col"), StandardOpenOption.READ)) {
+                columns[column] = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                rows = Math.min(rows, channel.size() / WIDTHS[column]);
+            }
+        }
+        for (long row = from; row < rows; row++) {
+            int i = (int) row;
+            handler.onRow(columns[1].getInt(i * Integer.BYTES), columns[0].getLong(i * Long.BYTES),
+                    columns[2].getLong(i * Long.BYTES), columns[3].get(i), columns[4].getInt(i * Integer.BYTES),
+                    columns[5].getInt(i * Integer.BYTES));
+        }
+        return rows;
+    }
+
+    private void open(String newPartition) throws IOException {
+        flush();
+        closeChannels();
+        Path partitionDir = dir.resolve(newPartition);
+        Files.createDirectories(partitionDir);
+        long rows = Long.MAX_VALUE;
+        for (int column = 0; column < COLUMNS.length; column++) {
+            channels[column] = FileChannel.open(partitionDir.resolve(COLUMNS[column] + ".col"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            rows = Math.min(rows, channels[column].size() / WIDTHS[column]);
+        }
+        // Cut off rows only partly written before a crash, then append after the rest
+        for (int column = 0; column < COLUMNS.length; column++) {
+            channels[column].truncate(rows * WIDTHS[column]);
+            channels[column].position(rows * WIDTHS[column]);
+        }
+        partition = newPartition;
+        partitionRows = rows;
+    }
+
+    private void closeChannels() throws IOException {
+        for (int column = 0; column < COLUMNS.length; column++) {
+            if (channels[column] != null) {
+                channels[column].close();
+                channels[column] = null;
+            }
+        }
+    }
+}
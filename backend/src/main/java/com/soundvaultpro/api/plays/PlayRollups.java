@@ -0,0 +1,222 @@
+package com.soundvaultpro.api.plays;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user play counts, kept up to date event by event: plays, skips and seeks per track, and the
+ * user's most recent plays. Only the play history writer updates them; queries lock one user's
+ * rollup at a time. Each count holds at most maxTracks tracks per user, so a client sending
+ * made-up track IDs cannot grow them without bound.
+ */
+final class PlayRollups {
+
+    private final int recentSize;
+    private final int maxTracks;
+    private final Map<String, UserRollup> users = new ConcurrentHashMap<>();
+
+    PlayRollups(int recentSize, int maxTracks) {
+        this.recentSize = recentSize;
+        this.maxTracks = maxTracks;
+    }
+
+    private final class UserRollup {
+        final LongIntCounter plays = new LongIntCounter();
+        final LongIntCounter skips = new LongIntCounter();
+        final LongIntCounter seeks = new LongIntCounter();
+        final long[] recentTracks = new long[recentSize];
+        final long[] recentTimes = new long[recentSize];
+        int recentCount;
+        int recentNext;
+    }
+
+    int userCount() {
+        return users.size();
+    }
+
+    /**
+     * Count an event
+     *
+     * @return false if it was left out because the user already has maxTracks other tracks of its type
+     */
+    boolean add(String user, long timestamp, long trackId, byte type) {
+        UserRollup rollup = users.computeIfAbsent(user, id -> new UserRollup());
+        synchronized (rollup) {
+            switch (type) {
+                case PlayHistoryService.PLAY -> {
+                    if (!count(rollup.plays, trackId)) {
+                        return false;
+                    }
+                    rollup.recentTracks[rollup.recentNext] = trackId;
+                    rollup.recentTimes[rollup.recentNext] = timestamp;
+                    rollup.recentNext = (rollup.recentNext + 1) % recentSize;
+                    rollup.recentCount = Math.min(rollup.recentCount + 1, recentSize);
+                    return true;
+                }
+                case PlayHistoryService.SKIP -> {
+                    return count(rollup.skips, trackId);
+                }
+                case PlayHistoryService.SEEK -> {
+                    return count(rollup.seeks, trackId);
+                }
+                default -> {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private boolean count(LongIntCounter counter, long trackId) {
+        if (counter.size() >= maxTracks && counter.get(trackId) == 0) {
+            return false;
+        }
+        counter.add(trackId, 1);
+        return true;
+    }
+
+    /**
+     * The user's most recently played distinct tracks, newest first
+     */
+    List<Map<String, Object>> recent(String user, int limit) {
+        UserRollup rollup = users.get(user);
+        List<Map<String, Object>> tracks = new ArrayList<>();
+        if (rollup == null) {
+            return tracks;
+        }
+        synchronized (rollup) {
+            Set<Long> seen = new HashSet<>();
+            for (int i = 1; i <= rollup.recentCount && tracks.size() < limit; i++) {
+                int slot = Math.floorMod(rollup.recentNext - i, recentSize);
+                if (seen.add(rollup.recentTracks[slot])) {
+                    Map<String, Object> track = new LinkedHashMap<>();
+                    track.put("trackId", rollup.recentTracks[slot]);
+                    track.put("playedAt", rollup.recentTimes[slot]);
+                    tracks.add(track);
+                }
+            }
+        }
+        return tracks;
+    }
+
+    /**
+     * The user's most played tracks with their counts, most played first
+     */
+    List<Map<String, Object>> top(String user, int limit) {
+        UserRollup rollup = users.get(user);
+        if (rollup == null) {
+            return List.of();
+        }
+        PriorityQueue<long[]> best = new PriorityQueue<>(Comparator.comparingLong(entry -> entry[1]));
+        List<Map<String, Object>> tracks = new ArrayList<>();
+        synchronized (rollup) {
+            rollup.plays.forEach((trackId, plays) -> {
+                best.offer(new long[]{trackId, plays});
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            });
+            while (!best.isEmpty()) {
+                tracks.add(0, counts(rollup, best.poll()[0]));
+            }
+        }
+        return tracks;
+    }
+
+    /**
+     * The user's counts for one track
+     */
+    Map<String, Object> track(String user, long trackId) {
+        UserRollup rollup = users.getOrDefault(user, new UserRollup());
+        synchronized (rollup) {
+            return counts(rollup, trackId);
+        }
+    }
+
+    /**
+     * The user's play count for one track
+     */
+    int plays(String user, long trackId) {
+        UserRollup rollup = users.get(user);
+        if (rollup == null) {
+            return 0;
+        }
+        synchronized (rollup) {
+            return rollup.plays.get(trackId);
+        }
+    }
+
+    /**
+     * A copy of the user's play counts by track
+     */
+    Map<Long, Integer> plays(String user) {
+        UserRollup rollup = users.get(user);
+        Map<Long, Integer> plays = new HashMap<>();
+        if (rollup != null) {
+            synchronized (rollup) {
+                rollup.plays.forEach(plays::put);
+            }
+        }
+        return plays;
+    }
+
+    private static Map<String, Object> counts(UserRollup rollup, long trackId) {
+        Map<String, Object> track = new LinkedHashMap<>();
+        track.put("trackId", trackId);
+        track.put("plays", rollup.plays.get(trackId));
+        track.put("skips", rollup.skips.get(trackId));
+        track.put("seeks", rollup.seeks.get(trackId));
+        return track;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(users.size());
+        for (Map.Entry<String, UserRollup> entry : users.entrySet()) {
+            UserRollup rollup = entry.getValue();
+            synchronized (rollup) {
+                out.writeUTF(entry.getKey());
+                rollup.plays.write(out);
+                rollup.skips.write(out);
+                rollup.seeks.write(out);
+                out.writeInt(rollup.recentCount);
+                // Oldest first, so reading them back in order restores the ring
+                for (int i = rollup.recentCount; i >= 1; i--) {
+                    int slot = Math.floorMod(rollup.recentNext - i, recentSize);
+                    out.writeLong(rollup.recentTracks[slot]);
+                    out.writeLong(rollup.recentTimes[slot]);
+                }
+            }
+        }
+    }
+
+    void read(DataInput in) throws IOException {
+        int count = in.readInt();
+        for (int u = 0; u < count; u++) {
+            UserRollup rollup = users.computeIfAbsent(in.readUTF(), id -> new UserRollup());
+            rollup.plays.read(in);
+            rollup.skips.read(in);
+            rollup.seeks.read(in);
+            int recent = in.readInt();
+            for (int i = 0; i < recent; i++) {
+                long trackId = in.readLong();
+                long timestamp = in.readLong();
+                if (recent - i <= recentSize) {
+                    rollup.recentTracks[rollup.recentNext] = trackId;
+                    rollup.recentTimes[rollup.recentNext] = timestamp;
+                    rollup.recentNext = (rollup.recentNext + 1) % recentSize;
+                    rollup.recentCount = Math.min(rollup.recentCount + 1, recentSize);
+                }
+            }
+        }
+    }
+}
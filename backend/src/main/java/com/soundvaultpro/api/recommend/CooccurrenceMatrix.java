@@ -0,0 +1,232 @@
+package com.soundvaultpro.api.recommend;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Immutable, symmetric song co-occurrence matrix in compressed sparse row form, held off-heap.
+ *
+ * The whole matrix is one direct buffer, or a memory-mapped file when loaded from a snapshot,
+ * laid out exactly like the snapshot:
+ * <pre>
+ * header       magic, version, songs, entries, playlists, unused (ints), built-at millis (long)
+ * songs        long[songs]      song keys, ascending; a song's index is its rank
+ * occurrences  int[songs]       playlists containing the song
+ * row starts   int[songs + 1]
+ * columns      int[entries]     indices of the other songs, ascending within a row
+ * counts       int[entries]     playlists containing both songs
+ * </pre>
+ * Every pair is stored in the rows of both its songs, so a row lists all of a song's neighbours.
+ */
+final class CooccurrenceMatrix {
+
+    private static final int MAGIC = 0x5356434F;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int entries;
+    private final int playlists;
+    private final long builtAt;
+    private final LongBuffer songs;
+    private final IntBuffer occurrences;
+    private final IntBuffer rowStarts;
+    private final IntBuffer columns;
+    private final IntBuffer counts;
+
+    private CooccurrenceMatrix(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a co-occurrence matrix");
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.entries = buffer.getInt(12);
+        this.playlists = buffer.getInt(16);
+        this.builtAt = buffer.getLong(24);
+        if (buffer.capacity() != byteSize(size, entries)) {
+            throw new IllegalArgumentException("Truncated co-occurrence matrix");
+        }
+        int at = HEADER_BYTES;
+        this.songs = buffer.slice(at, size * Long.BYTES).asLongBuffer();
+        at += size * Long.BYTES;
+        this.occurrences = buffer.slice(at, size * Integer.BYTES).asIntBuffer();
+        at += size * Integer.BYTES;
+        this.rowStarts = buffer.slice(at, (size + 1) * Integer.BYTES).asIntBuffer();
+        at += (size + 1) * Integer.BYTES;
+        this.columns = buffer.slice(at, entries * Integer.BYTES).asIntBuffer();
+        at += entries * Integer.BYTES;
+        this.counts = buffer.slice(at, entries * Integer.BYTES).asIntBuffer();
+    }
+
+    static CooccurrenceMatrix empty() {
+        return build(new long[0], new int[0], new long[0], new int[0], 0, 0);
+    }
+
+    /**
+     * @param songKeys Song keys, ascending
+     * @param occurrences Playlists containing each song
+     * @param pairs Distinct index pairs a &lt; b packed as a &lt;&lt; 32 | b, ascending
+     * @param pairCounts Playlists containing each pair
+     */
+    static CooccurrenceMatrix build(long[] songKeys, int[] occurrences, long[] pairs, int[] pairCounts,
+                                    int pairCount, int playlists) {
+        int size = songKeys.length;
+        long entries = 2L * pairCount;
+        long bytes = byteSize(size, entries);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Co-occurrence matrix of " + entries + " entries is too large");
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) bytes);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, size).putInt(12, (int) entries)
+                .putInt(16, playlists).putLong(24, System.currentTimeMillis());
+        CooccurrenceMatrix matrix = new CooccurrenceMatrix(buffer);
+        matrix.songs.put(0, songKeys);
+        matrix.occurrences.put(0, occurrences);
+
+        int[] cursor = new int[size + 1];
+        for (int i = 0; i < pairCount; i++) {
+            cursor[(int) (pairs[i] >>> 32)]++;
+            cursor[(int) pairs[i]]++;
+        }
+        int start = 0;
+        for (int row = 0; row <= size; row++) {
+            int degree = cursor[row];
+            cursor[row] = start;
+            start += degree;
+        }
+        matrix.rowStarts.put(0, cursor);
+
+        // Pairs ascend by a, then b, so both rows of every pair fill in ascending column order
+        for (int i = 0; i < pairCount; i++) {
+            int a = (int) (pairs[i] >>> 32);
+            int b = (int) pairs[i];
+            matrix.columns.put(cursor[a], b);
+            matrix.counts.put(cursor[a]++, pairCounts[i]);
+            matrix.columns.put(cursor[b], a);
+            matrix.counts.put(cursor[b]++, pairCounts[i]);
+        }
+        return matrix;
+    }
+
+    /**
+     * Map a snapshot written by {@link #write} into memory
+     */
+    static CooccurrenceMatrix read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new CooccurrenceMatrix(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer content = buffer.duplicate().clear();
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+            channel.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Stored entries; every pair is stored twice
+     */
+    int entries() {
+        return entries;
+    }
+
+    int playlists() {
+        return playlists;
+    }
+
+    long builtAt() {
+        return builtAt;
+    }
+
+    long bytes() {
+        return buffer.capacity();
+    }
+
+    long song(int index) {
+        return songs.get(index);
+    }
+
+    /**
+     * Index of a song, or -1 if it is in no playlist
+     */
+    int indexOf(long song) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = songs.get(middle);
+            if (value < song) {
+                low = middle + 1;
+            } else if (value > song) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    int occurrences(int index) {
+        return occurrences.get(index);
+    }
+
+    int rowStart(int index) {
+        return rowStarts.get(index);
+    }
+
+    int rowEnd(int index) {
+        return rowStarts.get(index + 1);
+    }
+
+    int column(int entry) {
+        return columns.get(entry);
+    }
+
+    int count(int entry) {
+        return counts.get(entry);
+    }
+
+    /**
+     * Playlists containing both songs
+     */
+    int count(int a, int b) {
+        int low = rowStarts.get(a);
+        int high = rowStarts.get(a + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int column = columns.get(middle);
+            if (column < b) {
+                low = middle + 1;
+            } else if (column > b) {
+                high = middle - 1;
+            } else {
+                return counts.get(middle);
+            }
+        }
+        return 0;
+    }
+
+    private static long byteSize(int size, long entries) {
+        return HEADER_BYTES + (long) size * Long.BYTES + (2L * size + 1) * Integer.BYTES + 2 * entries * Integer.BYTES;
+    }
+}
@@ -0,0 +1,130 @@
+package com.soundvaultpro.api.recommend;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Off-heap open-addressing map from an unordered pair of song keys to a signed count, holding the
+ * changes made since the {@link CooccurrenceMatrix} was built. The pair (a, a) holds changes to
+ * the number of playlists containing a. Entries that return to zero keep their slot until the
+ * map is folded into a new matrix.
+ *
+ * Not thread-safe; the engine guards it with its lock.
+ */
+final class PairCounts {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private LongBuffer keys;
+    private IntBuffer values;
+    private int capacity;
+    private int size;
+
+    PairCounts() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Pairs with a slot, including those whose count is back to zero
+     */
+    int size() {
+        return size;
+    }
+
+    long bytes() {
+        return (long) capacity * (2 * Long.BYTES + Integer.BYTES);
+    }
+
+    void add(long a, long b, int delta) {
+        if (a > b) {
+            long swap = a;
+            a = b;
+            b = swap;
+        }
+        if (2 * (size + 1) > capacity) {
+            grow();
+        }
+        int slot = find(a, b);
+        if (keys.get(2 * slot) == 0 && keys.get(2 * slot + 1) == 0) {
+            keys.put(2 * slot, a);
+            keys.put(2 * slot + 1, b);
+            size++;
+        }
+        values.put(slot, values.get(slot) + delta);
+    }
+
+    int get(long a, long b) {
+        if (size == 0) {
+            return 0;
+        }
+        return a <= b ? values.get(find(a, b)) : values.get(find(b, a));
+    }
+
+    void forEach(PairConsumer consumer) {
+        for (int slot = 0; slot < capacity; slot++) {
+            long a = keys.get(2 * slot);
+            long b = keys.get(2 * slot + 1);
+            if ((a != 0 || b != 0) && values.get(slot) != 0) {
+                consumer.accept(a, b, values.get(slot));
+            }
+        }
+    }
+
+    PairCounts copy() {
+        PairCounts copy = new PairCounts();
+        forEach(copy::add);
+        return copy;
+    }
+
+    @FunctionalInterface
+    interface PairConsumer {
+        void accept(long a, long b, int count);
+    }
+
+    /**
+     * Slot holding the pair, or the empty slot where it belongs. Song keys are never zero, so
+     * (0, 0) marks an empty slot.
+     */
+    private int find(long a, long b) {
+        int mask = capacity - 1;
+        int slot = (int) mix(a * 31 + b) & mask;
+        while (true) {
+            long slotA = keys.get(2 * slot);
+            long slotB = keys.get(2 * slot + 1);
+            if ((slotA == a && slotB == b) || (slotA == 0 && slotB == 0)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        LongBuffer oldKeys = keys;
+        IntBuffer oldValues = values;
+        int oldCapacity = capacity;
+        allocate(capacity * 2);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long a = oldKeys.get(2 * slot);
+            long b = oldKeys.get(2 * slot + 1);
+            if (a != 0 || b != 0) {
+                int target = find(a, b);
+                keys.put(2 * target, a);
+                keys.put(2 * target + 1, b);
+                values.put(target, oldValues.get(slot));
+            }
+        }
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        keys = ByteBuffer.allocateDirect(newCapacity * 2 * Long.BYTES).asLongBuffer();
+        values = ByteBuffer.allocateDirect(newCapacity * Integer.BYTES).asIntBuffer();
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        value = (value ^ (value >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return value ^ (value >>> 33);
+    }
+}
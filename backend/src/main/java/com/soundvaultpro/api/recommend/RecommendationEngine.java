@@ -0,0 +1,648 @@
+package com.soundvaultpro.api.recommend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.soundvaultpro.api.event.PlaylistTracksChangedEvent;
+import com.soundvaultpro.api.service.SupabaseService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Song co-occurrence across every user's playlists, for "similar tracks" and "continue this
+ * playlist".
+ *
+ * Only aggregates are kept: per song key (see {@link SongKey}) the number of playlists containing
+ * it, and per pair of songs the number of playlists containing both. No user, playlist or track id
+ * is stored, and a pair only counts towards a recommendation once recommend.min-support playlists
+ * contain it, so rankings never reflect a single playlist.
+ *
+ * The counts are an off-heap {@link CooccurrenceMatrix} plus the {@link PairCounts} of changes
+ * made through PlaylistService since it was built. When too many changes have piled up they are
+ * folded into a new matrix. A full rebuild from playlist_tracks runs every
+ * recommend.rebuild-interval-ms on a dedicated fork-join pool, which also picks up changes made
+ * directly in Supabase. Each new matrix is snapshotted to disk and memory-mapped on the next start.
+ */
+@Service
+@Slf4j
+public class RecommendationEngine {
+
+    public static final String SNAPSHOT_FILE = "cooccurrence.bin";
+
+    /** Pairs counted per batch of a rebuild, bounding its heap use to about 8 bytes per pair */
+    private static final int BATCH_PAIRS = 1 << 24;
+
+    private final SupabaseService supabaseService;
+    private final ForkJoinPool pool;
+    private final ExecutorService updater;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile CooccurrenceMatrix matrix = CooccurrenceMatrix.empty();
+    /** Changes not yet in the matrix; guarded by lock */
+    private PairCounts changes = new PairCounts();
+    /** Changes since a running rebuild or compaction started, which the new matrix will not have; guarded by lock */
+    private PairCounts changesSinceRebuild;
+
+    @Value("${recommend.dir:./data/recommend}")
+    private String dir;
+
+    @Value("${recommend.min-support:3}")
+    private int minSupport;
+
+    @Value("${recommend.max-playlist-tracks:250}")
+    private int maxPlaylistTracks;
+
+    @Value("${recommend.max-seeds:50}")
+    private int maxSeeds;
+
+    @Value("${recommend.max-pending-changes:100000}")
+    private int maxPendingChanges;
+
+    @Value("${recommend.page-size:1000}")
+    private int pageSize;
+
+    @Value("${recommend.rebuild-interval-ms:21600000}")
+    private long rebuildIntervalMs;
+
+    public RecommendationEngine(SupabaseService supabaseService, MeterRegistry meterRegistry,
+                                @Value("${recommend.rebuild-parallelism:0}") int parallelism) {
+        this.supabaseService = supabaseService;
+        int threads = parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("recommend-rebuild-" + thread.getPoolIndex());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, null, false);
+        this.updater = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recommend-update");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("recommend.songs", this, engine -> engine.matrix.size())
+                .description("Songs in the co-occurrence matrix")
+                .register(meterRegistry);
+        Gauge.builder("recommend.pairs", this, engine -> engine.matrix.entries() / 2)
+                .description("Song pairs in the co-occurrence matrix")
+                .register(meterRegistry);
+        Gauge.builder("recommend.matrix.bytes", this, engine -> engine.matrix.bytes())
+                .description("Off-heap size of the co-occurrence matrix")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("recommend.pending.changes", this, RecommendationEngine::pendingChanges)
+                .description("Song pairs changed since the co-occurrence matrix was built")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A song ranked for the seeds of a query
+     */
+    public record Recommendation(long song, double score) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Path file = snapshotFile();
+        boolean loaded = false;
+        if (Files.exists(file)) {
+            try {
+                matrix = CooccurrenceMatrix.read(file);
+                loaded = true;
+                log.info("Loaded co-occurrence snapshot: {} songs, {} pairs from {} playlists", matrix.size(),
+                        matrix.entries() / 2, matrix.playlists());
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Could not load co-occurrence snapshot {}: {}", file, e.getMessage());
+            }
+        }
+        if (!loaded || System.currentTimeMillis() - matrix.builtAt() > rebuildIntervalMs) {
+            CompletableFuture.runAsync(this::rebuild);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        updater.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    @EventListener
+    public void onPlaylistTracksChanged(PlaylistTracksChangedEvent event) {
+        try {
+            updater.execute(() -> apply(event));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the next rebuild picks the change up
+        }
+    }
+
+    /**
+     * Rank candidate songs by how often they share playlists with the seed songs. A candidate's
+     * score is the sum over the seeds of the cosine similarity count(seed, candidate) /
+     * sqrt(occurrences(seed) * occurrences(candidate)), counting only pairs with enough support.
+     *
+     * @param seeds Seed song keys; only the last recommend.max-seeds are used
+     * @return Up to limit candidates with a positive score, best first
+     */
+    public List<Recommendation> recommend(long[] seeds, long[] candidates, int limit) {
+        if (seeds.length > maxSeeds) {
+            seeds = Arrays.copyOfRange(seeds, seeds.length - maxSeeds, seeds.length);
+        }
+        double[] scores = new double[candidates.length];
+        lock.readLock().lock();
+        try {
+            CooccurrenceMatrix current = matrix;
+            int[] candidateIndices = new int[candidates.length];
+            int[] candidateOccurrences = new int[candidates.length];
+            // Candidates in the matrix as index << 32 | position, sorted, to join with seed rows
+            long[] byIndex = new long[candidates.length];
+            int indexed = 0;
+            for (int c = 0; c < candidates.length; c++) {
+                candidateIndices[c] = current.indexOf(candidates[c]);
+                candidateOccurrences[c] = occurrences(current, candidateIndices[c], candidates[c]);
+                if (candidateIndices[c] >= 0) {
+                    byIndex[indexed++] = (long) candidateIndices[c] << 32 | c;
+                }
+            }
+            Arrays.sort(byIndex, 0, indexed);
+
+            int[] pairCounts = new int[candidates.length];
+            for (long seed : seeds) {
+                int seedIndex = current.indexOf(seed);
+                int seedOccurrences = occurrences(current, seedIndex, seed);
+                if (seedOccurrences < minSupport) {
+                    continue;
+                }
+                Arrays.fill(pairCounts, 0);
+                if (seedIndex >= 0) {
+                    countPairs(current, seedIndex, candidateIndices, byIndex, indexed, pairCounts);
+                }
+                if (changes.size() > 0) {
+                    for (int c = 0; c < candidates.length; c++) {
+                        pairCounts[c] += changes.get(seed, candidates[c]);
+                    }
+                }
+                for (int c = 0; c < candidates.length; c++) {
+                    if (pairCounts[c] >= minSupport && candidateOccurrences[c] >= minSupport && candidates[c] != seed) {
+                        scores[c] += pairCounts[c] / Math.sqrt((double) seedOccurrences * candidateOccurrences[c]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        PriorityQueue<Recommendation> best = new PriorityQueue<>(Comparator.comparingDouble(Recommendation::score));
+        for (int c = 0; c < candidates.length; c++) {
+            if (scores[c] > 0) {
+                best.offer(new Recommendation(candidates[c], scores[c]));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<Recommendation> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingDouble(Recommendation::score).reversed());
+        return ranked;
+    }
+
+    /**
+     * Add the matrix counts of a seed with every candidate, walking whichever of the seed's row and
+     * the candidates is shorter and binary searching the other
+     */
+    private static void countPairs(CooccurrenceMatrix current, int seedIndex, int[] candidateIndices,
+                                   long[] byIndex, int indexed, int[] pairCounts) {
+        int rowStart = current.rowStart(seedIndex);
+        int rowEnd = current.rowEnd(seedIndex);
+        if (rowEnd - rowStart > indexed) {
+            for (int c = 0; c < candidateIndices.length; c++) {
+                if (candidateIndices[c] >= 0) {
+                    pairCounts[c] += current.count(seedIndex, candidateIndices[c]);
+                }
+            }
+            return;
+        }
+        for (int entry = rowStart; entry < rowEnd; entry++) {
+            long key = (long) current.column(entry) << 32;
+            int at = Arrays.binarySearch(byIndex, 0, indexed, key);
+            // Positions are non-negative, so every candidate with this index sorts at or after key
+            for (at = at < 0 ? -at - 1 : at; at < indexed && (byIndex[at] & 0xFFFFFFFF00000000L) == key; at++) {
+                pairCounts[(int) byIndex[at]] += current.count(entry);
+            }
+        }
+    }
+
+    /**
+     * Replace the matrix with one counted from every playlist in Supabase
+     */
+    @Scheduled(initialDelayString = "${recommend.rebuild-interval-ms:21600000}",
+            fixedDelayString = "${recommend.rebuild-interval-ms:21600000}")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            record(() -> changesSinceRebuild = new PairCounts());
+            Playlists playlists = fetchPlaylists();
+            swap(pool.submit(() -> count(playlists)).get());
+            log.info("Co-occurrence matrix rebuilt in {} ms: {} songs, {} pairs from {} playlists",
+                    System.currentTimeMillis() - start, matrix.size(), matrix.entries() / 2, playlists.count());
+        } catch (Exception e) {
+            record(() -> changesSinceRebuild = null);
+            log.warn("Co-occurrence rebuild failed: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Fold the pending changes into a new matrix
+     */
+    void compact() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            CooccurrenceMatrix base;
+            PairCounts folded;
+            lock.writeLock().lock();
+            try {
+                base = matrix;
+                folded = changes.copy();
+                changesSinceRebuild = new PairCounts();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            swap(pool.submit(() -> merge(base, folded)).get());
+            log.debug("Folded {} co-occurrence changes into the matrix in {} ms", folded.size(),
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            record(() -> changesSinceRebuild = null);
+            log.warn("Co-occurrence compaction failed: {}", e.getMessage());
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private int pendingChanges() {
+        lock.readLock().lock();
+        try {
+            return changes.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(PlaylistTracksChangedEvent event) {
+        try {
+            Set<Long> trackIds = new LinkedHashSet<>(event.getTrackIds());
+            trackIds.addAll(event.getOtherTrackIds());
+            Map<Long, Long> songs = new HashMap<>();
+            for (JsonNode track : supabaseService.findTracks(trackIds)) {
+                songs.put(track.path("id").asLong(), SongKey.of(track.path("artist").asText(), track.path("title").asText()));
+            }
+            Set<Long> others = songKeys(event.getOtherTrackIds(), songs);
+            Set<Long> changed = songKeys(event.getTrackIds(), songs);
+            changed.removeAll(others);
+            // Playlists over the limit are left out of the counts; the next rebuild settles any that crossed it
+            if (changed.isEmpty() || changed.size() + others.size() > maxPlaylistTracks) {
+                return;
+            }
+
+            int delta = event.getType() == PlaylistTracksChangedEvent.Type.ADDED ? 1 : -1;
+            Long[] changedSongs = changed.toArray(new Long[0]);
+            record(() -> {
+                for (int i = 0; i < changedSongs.length; i++) {
+                    for (int j = i; j < changedSongs.length; j++) {
+                        addChange(changedSongs[i], changedSongs[j], delta);
+                    }
+                    for (long other : others) {
+                        addChange(changedSongs[i], other, delta);
+                    }
+                }
+            });
+            if (pendingChanges() > maxPendingChanges) {
+                CompletableFuture.runAsync(this::compact);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not apply change of playlist {} to recommendations: {}", event.getPlaylistId(), e.getMessage());
+        }
+    }
+
+    private void addChange(long a, long b, int delta) {
+        changes.add(a, b, delta);
+        if (changesSinceRebuild != null) {
+            changesSinceRebuild.add(a, b, delta);
+        }
+    }
+
+    private void record(Runnable update) {
+        lock.writeLock().lock();
+        try {
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Install a new matrix, keep only the changes it does not have and snapshot it
+     */
+    private void swap(CooccurrenceMatrix built) {
+        record(() -> {
+            matrix = built;
+            changes = changesSinceRebuild;
+            changesSinceRebuild = null;
+        });
+        try {
+            built.write(snapshotFile());
+        } catch (IOException e) {
+            log.warn("Could not write co-occurrence snapshot: {}", e.getMessage());
+        }
+    }
+
+    private int occurrences(CooccurrenceMatrix current, int index, long song) {
+        return (index >= 0 ? current.occurrences(index) : 0) + changes.get(song, song);
+    }
+
+    private Path snapshotFile() {
+        return Paths.get(dir).resolve(SNAPSHOT_FILE);
+    }
+
+    private static Set<Long> songKeys(List<Long> trackIds, Map<Long, Long> songs) {
+        Set<Long> keys = new LinkedHashSet<>();
+        for (Long trackId : trackIds) {
+            Long song = songs.get(trackId);
+            if (song != null) {
+                keys.add(song);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Every playlist's distinct songs: playlist p holds songs[starts[p]] up to songs[starts[p + 1]], ascending
+     */
+    private record Playlists(long[] songs, int[] starts, int count) {
+    }
+
+    private Playlists fetchPlaylists() {
+        long[] songs = new long[4096];
+        int[] starts = new int[1024];
+        int count = 0;
+        int size = 0;
+        long current = Long.MIN_VALUE;
+        for (int offset = 0; ; offset += pageSize) {
+            JsonNode page = supabaseService.fetchPlaylistSongs(offset, pageSize);
+            if (!page.isArray()) {
+                break;
+            }
+            for (JsonNode row : page) {
+                JsonNode track = row.path("tracks");
+                if (!track.isObject()) {
+                    continue;
+                }
+                long playlistId = row.path("playlist_id").asLong();
+                if (playlistId != current) {
+                    size = closePlaylist(songs, starts[count], size);
+                    if (size > starts[count]) {
+                        count++;
+                        if (count + 1 >= starts.length) {
+                            starts = Arrays.copyOf(starts, starts.length * 2);
+                        }
+                    }
+                    starts[count] = size;
+                    current = playlistId;
+                }
+                if (size == songs.length) {
+                    songs = Arrays.copyOf(songs, songs.length * 2);
+                }
+                songs[size++] = SongKey.of(track.path("artist").asText(), track.path("title").asText());
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+        size = closePlaylist(songs, starts[count], size);
+        if (size > starts[count]) {
+            count++;
+        }
+        starts[count] = size;
+        return new Playlists(songs, starts, count);
+    }
+
+    /**
+     * Sort and deduplicate the songs of the playlist starting at start, dropping it if it is over the limit
+     *
+     * @return The end of the playlist, start if it was dropped
+     */
+    private int closePlaylist(long[] songs, int start, int end) {
+        Arrays.sort(songs, start, end);
+        int unique = start;
+        for (int i = start; i < end; i++) {
+            if (i == start || songs[i] != songs[i - 1]) {
+                songs[unique++] = songs[i];
+            }
+        }
+        return unique - start > maxPlaylistTracks ? start : unique;
+    }
+
+    /**
+     * Count the playlists' songs and song pairs into a matrix. Runs on the rebuild pool, which the
+     * parallel streams and sorts inside it use.
+     */
+    private CooccurrenceMatrix count(Playlists playlists) {
+        int total = playlists.starts()[playlists.count()];
+        long[] songs = playlists.songs();
+        long[] vocabulary = distinct(Arrays.copyOf(songs, total));
+        int[] indices = new int[total];
+        IntStream.range(0, total).parallel().forEach(i -> indices[i] = Arrays.binarySearch(vocabulary, songs[i]));
+        int[] occurrences = new int[vocabulary.length];
+        for (int index : indices) {
+            occurrences[index]++;
+        }
+
+        PairAccumulator pairs = new PairAccumulator();
+        int[] starts = playlists.starts();
+        for (int from = 0; from < playlists.count(); ) {
+            int to = from;
+            long batchPairs = 0;
+            long[] offsets = new long[playlists.count() - from + 1];
+            while (to < playlists.count()) {
+                long length = starts[to + 1] - starts[to];
+                long playlistPairs = length * (length - 1) / 2;
+                if (to > from && batchPairs + playlistPairs > BATCH_PAIRS) {
+                    break;
+                }
+                offsets[to - from] = batchPairs;
+                batchPairs += playlistPairs;
+                to++;
+            }
+
+            long[] batch = new long[(int) batchPairs];
+            int batchFrom = from;
+            IntStream.range(from, to).parallel().forEach(p -> {
+                int at = (int) offsets[p - batchFrom];
+                for (int i = starts[p]; i < starts[p + 1]; i++) {
+                    for (int j = i + 1; j < starts[p + 1]; j++) {
+                        // Songs of a playlist ascend, so indices[i] < indices[j]
+                        batch[at++] = (long) indices[i] << 32 | indices[j];
+                    }
+                }
+            });
+            Arrays.parallelSort(batch);
+            pairs.addSorted(batch, null, batch.length);
+            from = to;
+        }
+        return CooccurrenceMatrix.build(vocabulary, occurrences, pairs.keys, pairs.counts, pairs.size, playlists.count());
+    }
+
+    /**
+     * The matrix with the changes added
+     */
+    private static CooccurrenceMatrix merge(CooccurrenceMatrix base, PairCounts folded) {
+        long[] changedSongs = new long[2 * folded.size()];
+        int[] changedCount = new int[1];
+        folded.forEach((a, b, count) -> {
+            changedSongs[changedCount[0]++] = a;
+            changedSongs[changedCount[0]++] = b;
+        });
+        long[] baseSongs = new long[base.size()];
+        Arrays.setAll(baseSongs, base::song);
+        long[] union = Arrays.copyOf(baseSongs, baseSongs.length + changedCount[0]);
+        System.arraycopy(changedSongs, 0, union, baseSongs.length, changedCount[0]);
+        long[] vocabulary = distinct(union);
+
+        int[] remap = new int[base.size()];
+        IntStream.range(0, base.size()).parallel().forEach(i -> remap[i] = Arrays.binarySearch(vocabulary, baseSongs[i]));
+        int[] occurrences = new int[vocabulary.length];
+        for (int i = 0; i < base.size(); i++) {
+            occurrences[remap[i]] = base.occurrences(i);
+        }
+
+        long[] basePairs = new long[base.entries() / 2];
+        int[] baseCounts = new int[basePairs.length];
+        int n = 0;
+        for (int row = 0; row < base.size(); row++) {
+            for (int entry = base.rowStart(row); entry < base.rowEnd(row); entry++) {
+                int column = base.column(entry);
+                if (column > row) {
+                    basePairs[n] = (long) remap[row] << 32 | remap[column];
+                    baseCounts[n++] = base.count(entry);
+                }
+            }
+        }
+
+        long[] changedPairs = new long[folded.size()];
+        int[] changedCounts = new int[folded.size()];
+        int[] m = new int[1];
+        folded.forEach((a, b, count) -> {
+            int indexA = Arrays.binarySearch(vocabulary, a);
+            if (a == b) {
+                occurrences[indexA] = Math.max(0, occurrences[indexA] + count);
+            } else {
+                changedPairs[m[0]] = (long) indexA << 32 | Arrays.binarySearch(vocabulary, b);
+                changedCounts[m[0]++] = count;
+            }
+        });
+        sortByKey(changedPairs, changedCounts, m[0]);
+
+        PairAccumulator pairs = new PairAccumulator();
+        pairs.addSorted(basePairs, baseCounts, n);
+        pairs.addSorted(changedPairs, changedCounts, m[0]);
+        return CooccurrenceMatrix.build(vocabulary, occurrences, pairs.keys, pairs.counts, pairs.size, base.playlists());
+    }
+
+    /**
+     * Sorted, distinct pair counts, to which sorted batches of pairs are added by merging
+     */
+    private static final class PairAccumulator {
+        long[] keys = new long[0];
+        int[] counts = new int[0];
+        int size;
+
+        /**
+         * Add pairs sorted by key, with a count each or, without counts, one per occurrence.
+         * Pairs whose total drops to zero or below are removed.
+         */
+        void addSorted(long[] addedKeys, int[] addedCounts, int addedSize) {
+            long[] mergedKeys = new long[size + addedSize];
+            int[] mergedCounts = new int[size + addedSize];
+            int merged = 0;
+            int i = 0;
+            int j = 0;
+            while (i < size || j < addedSize) {
+                long key = j == addedSize || (i < size && keys[i] <= addedKeys[j]) ? keys[i] : addedKeys[j];
+                int count = 0;
+                while (i < size && keys[i] == key) {
+                    count += counts[i++];
+                }
+                while (j < addedSize && addedKeys[j] == key) {
+                    count += addedCounts == null ? 1 : addedCounts[j];
+                    j++;
+                }
+                if (count > 0) {
+                    mergedKeys[merged] = key;
+                    mergedCounts[merged++] = count;
+                }
+            }
+            keys = mergedKeys;
+            counts = mergedCounts;
+            size = merged;
+        }
+    }
+
+    private static long[] distinct(long[] values) {
+        Arrays.parallelSort(values);
+        int unique = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 || values[i] != values[i - 1]) {
+                values[unique++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, unique);
+    }
+
+    private static void sortByKey(long[] keys, int[] values, int size) {
+        Integer[] order = new Integer[size];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingLong(i -> keys[i]));
+        long[] sortedKeys = new long[size];
+        int[] sortedValues = new int[size];
+        for (int i = 0; i < size; i++) {
+            sortedKeys[i] = keys[order[i]];
+            sortedValues[i] = values[order[i]];
+        }
+        System.arraycopy(sortedKeys, 0, keys, 0, size);
+        System.arraycopy(sortedValues, 0, values, 0, size);
+    }
+}
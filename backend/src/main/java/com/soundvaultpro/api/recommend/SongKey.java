@@ -0,0 +1,43 @@
+package com.soundvaultpro.api.recommend;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Identity of a song across users' libraries. Tracks are private rows of one user, so the
+ * co-occurrence statistics are kept per song: a 64-bit FNV-1a hash of the normalised artist and
+ * title, never zero. The hash is all the recommendation engine stores about a song.
+ */
+public final class SongKey {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SongKey() {
+    }
+
+    public static long of(String artist, String title) {
+        long hash = FNV_OFFSET;
+        String text = normalize(artist) + '\u0000' + normalize(title);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Lower case without accents, with every run of punctuation and spaces reduced to one space
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        return SEPARATORS.matcher(decomposed.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
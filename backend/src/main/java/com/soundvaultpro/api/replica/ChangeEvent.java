@@ -0,0 +1,27 @@
+package com.soundvaultpro.api.replica;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A row change on one of the replicated Supabase tables, in the shape Supabase Realtime
+ * delivers postgres_changes. Re-published as an application event once applied to the replica.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ChangeEvent {
+
+    public enum Type {
+        INSERT,
+        UPDATE,
+        DELETE
+    }
+
+    private final String table;
+    private final Type type;
+    /** The new row; null for DELETE */
+    private final JsonNode record;
+    /** The previous row, at least its primary key; null for INSERT */
+    private final JsonNode oldRecord;
+}
@@ -0,0 +1,17 @@
+package com.soundvaultpro.api.replica;
+
+import java.util.function.Consumer;
+
+/**
+ * A feed of row changes for the replicated tables
+ */
+public interface ChangeEventSource {
+
+    /**
+     * Start delivering events. {@code onReconnect} is called whenever the feed had to reconnect,
+     * because events may have been missed while it was down.
+     */
+    void start(Consumer<ChangeEvent> listener, Runnable onReconnect);
+
+    void stop();
+}
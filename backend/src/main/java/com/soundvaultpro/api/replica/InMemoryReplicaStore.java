@@ -0,0 +1,162 @@
+package com.soundvaultpro.api.replica;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replica held in concurrent maps, with an index per owner column. Reads are lock-free;
+ * writes to a table are serialized so the owner index stays consistent with the rows.
+ */
+@Component
+@ConditionalOnProperty(name = "supabase.replica.enabled", havingValue = "true")
+public class InMemoryReplicaStore implements ReplicaStore {
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+
+    private static final class Table {
+        final Map<String, JsonNode> rows = new ConcurrentHashMap<>();
+        final Map<String, Set<String>> keysByOwner = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void upsert(String table, JsonNode row) {
+        String key = ReplicaStore.rowKey(table, row);
+        if (key == null) {
+            return;
+        }
+        Table t = table(table);
+        synchronized (t) {
+            put(table, t, key, row);
+        }
+    }
+
+    @Override
+    public void merge(String table, JsonNode columns) {
+        String key = ReplicaStore.rowKey(table, columns);
+        if (key == null) {
+            return;
+        }
+        Table t = table(table);
+        synchronized (t) {
+            JsonNode existing = t.rows.get(key);
+            ObjectNode merged = existing instanceof ObjectNode existingRow ? existingRow.deepCopy() : ((ObjectNode) columns).objectNode();
+            merged.setAll((ObjectNode) columns);
+            put(table, t, key, merged);
+        }
+    }
+
+    @Override
+    public void delete(String table, JsonNode keyRow) {
+        String key = ReplicaStore.rowKey(table, keyRow);
+        if (key == null) {
+            return;
+        }
+        Table t = table(table);
+        synchronized (t) {
+            remove(table, t, key);
+        }
+    }
+
+    @Override
+    public void replaceAll(String table, List<JsonNode> rows, Set<String> keep) {
+        Table t = table(table);
+        synchronized (t) {
+            Map<String, JsonNode> snapshot = new HashMap<>(rows.size() * 2);
+            for (JsonNode row : rows) {
+                String key = ReplicaStore.rowKey(table, row);
+                if (key != null) {
+                    snapshot.put(key, row);
+                }
+            }
+            for (String key : new ArrayList<>(t.rows.keySet())) {
+                if (!snapshot.containsKey(key) && !keep.contains(key)) {
+                    remove(table, t, key);
+                }
+            }
+            for (Map.Entry<String, JsonNode> entry : snapshot.entrySet()) {
+                if (!keep.contains(entry.getKey())) {
+                    put(table, t, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<JsonNode> findById(String table, String id) {
+        return Optional.ofNullable(table(table).rows.get(id));
+    }
+
+    @Override
+    public List<JsonNode> findByOwner(String table, String owner) {
+        Table t = table(table);
+        Set<String> keys = t.keysByOwner.get(owner);
+        if (keys == null) {
+            return Collections.emptyList();
+        }
+        List<JsonNode> result = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            JsonNode row = t.rows.get(key);
+            if (row != null) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int count(String table) {
+        return table(table).rows.size();
+    }
+
+    private Table table(String table) {
+        return tables.computeIfAbsent(table, name -> new Table());
+    }
+
+    private static void put(String table, Table t, String key, JsonNode row) {
+        JsonNode previous = t.rows.put(key, row);
+        String ownerColumn = OWNER_COLUMNS.get(table);
+        if (ownerColumn == null) {
+            return;
+        }
+        String previousOwner = previous != null ? previous.path(ownerColumn).asText(null) : null;
+        String owner = row.path(ownerColumn).asText(null);
+        if (previousOwner != null && !previousOwner.equals(owner)) {
+            unindex(t, previousOwner, key);
+        }
+        if (owner != null) {
+            t.keysByOwner.computeIfAbsent(owner, o -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    private static void remove(String table, Table t, String key) {
+        JsonNode previous = t.rows.remove(key);
+        String ownerColumn = OWNER_COLUMNS.get(table);
+        if (previous != null && ownerColumn != null) {
+            String owner = previous.path(ownerColumn).asText(null);
+            if (owner != null) {
+                unindex(t, owner, key);
+            }
+        }
+    }
+
+    private static void unindex(Table t, String owner, String key) {
+        Set<String> keys = t.keysByOwner.get(owner);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                t.keysByOwner.remove(owner, keys);
+            }
+        }
+    }
+}
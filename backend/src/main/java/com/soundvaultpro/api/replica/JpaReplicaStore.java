@@ -0,0 +1,326 @@
+package com.soundvaultpro.api.replica;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.soundvaultpro.api.dto.PlaylistDto;
+import com.soundvaultpro.api.model.Playlist;
+import com.soundvaultpro.api.model.User;
+import com.soundvaultpro.api.repository.PlaylistRepository;
+import com.soundvaultpro.api.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Replica that keeps user_profiles and playlists in the JPA tables behind {@link User} and
+ * {@link Playlist}, so the copy survives restarts when the datasource is file-based (see the
+ * localstore profile). The other replicated tables have no entities and stay in memory.
+ *
+ * Playlists are only stored once their owner's profile is, which the table order of
+ * {@link SupabaseReplica#TABLES} guarantees during reconciliation.
+ */
+@Component
+@Primary
+@ConditionalOnExpression("${supabase.replica.enabled:false} and '${supabase.replica.store:memory}' == 'jpa'")
+@Slf4j
+public class JpaReplicaStore implements ReplicaStore {
+
+    private static final String USERS = "user_profiles";
+    private static final String PLAYLISTS = "playlists";
+
+    private final UserRepository userRepository;
+    private final PlaylistRepository playlistRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final InMemoryReplicaStore otherTables;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Object> tableLocks = new ConcurrentHashMap<>();
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public JpaReplicaStore(UserRepository userRepository, PlaylistRepository playlistRepository,
+                           EntityManager entityManager, PlatformTransactionManager transactionManager,
+                           InMemoryReplicaStore otherTables, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.playlistRepository = playlistRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.otherTables = otherTables;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void upsert(String table, JsonNode row) {
+        write(table, row, true);
+    }
+
+    @Override
+    public void merge(String table, JsonNode columns) {
+        write(table, columns, false);
+    }
+
+    @Override
+    public void delete(String table, JsonNode keyRow) {
+        String key = ReplicaStore.rowKey(table, keyRow);
+        if (key == null) {
+            return;
+        }
+        switch (table) {
+            case USERS -> inTransaction(USERS, () -> deleteUsers(List.of(key)));
+            case PLAYLISTS -> inTransaction(PLAYLISTS, () -> playlistRepository.deleteByRemoteIdIn(List.of(key)));
+            default -> otherTables.delete(table, keyRow);
+        }
+    }
+
+    @Override
+    public void replaceAll(String table, List<JsonNode> rows, Set<String> keep) {
+        if (!USERS.equals(table) && !PLAYLISTS.equals(table)) {
+            otherTables.replaceAll(table, rows, keep);
+            return;
+        }
+
+        Map<String, JsonNode> snapshot = new LinkedHashMap<>(rows.size() * 2);
+        for (JsonNode row : rows) {
+            String key = ReplicaStore.rowKey(table, row);
+            if (key != null && !keep.contains(key)) {
+                snapshot.put(key, row);
+            }
+        }
+
+        inTransaction(table, () -> {
+            List<String> keys = new ArrayList<>(snapshot.keySet());
+            for (int from = 0; from < keys.size(); from += batchSize) {
+                List<String> chunk = keys.subList(from, Math.min(from + batchSize, keys.size()));
+                if (USERS.equals(table)) {
+                    saveUsers(chunk, snapshot);
+                } else {
+                    savePlaylists(chunk, snapshot);
+                }
+                // Send the chunk as one JDBC batch and keep the persistence context small
+                entityManager.flush();
+                entityManager.clear();
+            }
+
+            List<String> stale = new ArrayList<>(USERS.equals(table)
+                    ? userRepository.findAllSupabaseIds()
+                    : playlistRepository.findAllRemoteIds());
+            stale.removeIf(key -> snapshot.containsKey(key) || keep.contains(key));
+            for (int from = 0; from < stale.size(); from += batchSize) {
+                List<String> chunk = stale.subList(from, Math.min(from + batchSize, stale.size()));
+                if (USERS.equals(table)) {
+                    deleteUsers(chunk);
+                } else {
+                    playlistRepository.deleteByRemoteIdIn(chunk);
+                }
+            }
+        });
+    }
+
+    @Override
+    public Optional<JsonNode> findById(String table, String id) {
+        return switch (table) {
+            case USERS -> userRepository.findBySupabaseId(id).map(this::userRow);
+            case PLAYLISTS -> playlistRepository.findDetailByRemoteId(id).map(this::playlistRow);
+            default -> otherTables.findById(table, id);
+        };
+    }
+
+    @Override
+    public List<JsonNode> findByOwner(String table, String owner) {
+        if (PLAYLISTS.equals(table)) {
+            return playlistRepository.findListByUserSupabaseId(owner).stream()
+                    .map(this::playlistRow)
+                    .collect(Collectors.toList());
+        }
+        return otherTables.findByOwner(table, owner);
+    }
+
+    @Override
+    public int count(String table) {
+        return switch (table) {
+            case USERS -> (int) userRepository.count();
+            case PLAYLISTS -> (int) playlistRepository.count();
+            default -> otherTables.count(table);
+        };
+    }
+
+    private void write(String table, JsonNode row, boolean complete) {
+        String key = ReplicaStore.rowKey(table, row);
+        if (key == null) {
+            return;
+        }
+        switch (table) {
+            case USERS -> inTransaction(USERS, () -> {
+                User user = userRepository.findBySupabaseId(key).orElse(null);
+                saveUser(user, key, row, complete);
+            });
+            case PLAYLISTS -> inTransaction(PLAYLISTS, () -> {
+                Playlist playlist = playlistRepository.findByRemoteId(key).orElse(null);
+                User owner = row.hasNonNull("user_id")
+                        ? userRepository.findBySupabaseId(row.get("user_id").asText()).orElse(null)
+                        : null;
+                savePlaylist(playlist, owner, key, row, complete);
+            });
+            default -> {
+                if (complete) {
+                    otherTables.upsert(table, row);
+                } else {
+                    otherTables.merge(table, row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a unit of work in a transaction, one at a time per table, mirroring the per-table
+     * write serialization of {@link InMemoryReplicaStore}
+     */
+    private void inTransaction(String table, Runnable work) {
+        synchronized (tableLocks.computeIfAbsent(table, name -> new Object())) {
+            transactionTemplate.executeWithoutResult(status -> work.run());
+        }
+    }
+
+    private void saveUsers(List<String> keys, Map<String, JsonNode> snapshot) {
+        Map<String, User> existing = userRepository.findBySupabaseIdIn(keys).stream()
+                .collect(Collectors.toMap(User::getSupabaseId, Function.identity()));
+        for (String key : keys) {
+            saveUser(existing.get(key), key, snapshot.get(key), true);
+        }
+    }
+
+    private void savePlaylists(List<String> keys, Map<String, JsonNode> snapshot) {
+        Map<String, Playlist> existing = playlistRepository.findByRemoteIdIn(keys).stream()
+                .collect(Collectors.toMap(Playlist::getRemoteId, Function.identity()));
+        Set<String> ownerIds = new HashSet<>();
+        for (String key : keys) {
+            String ownerId = snapshot.get(key).path("user_id").asText(null);
+            if (ownerId != null) {
+                ownerIds.add(ownerId);
+            }
+        }
+        Map<String, User> owners = userRepository.findBySupabaseIdIn(ownerIds).stream()
+                .collect(Collectors.toMap(User::getSupabaseId, Function.identity()));
+        for (String key : keys) {
+            JsonNode row = snapshot.get(key);
+            savePlaylist(existing.get(key), owners.get(row.path("user_id").asText()), key, row, true);
+        }
+    }
+
+    private void saveUser(User user, String key, JsonNode row, boolean complete) {
+        if (user == null) {
+            // A partial write for a profile we have not seen yet; the full row arrives with its change event
+            if (text(row, "email") == null || text(row, "name") == null) {
+                return;
+            }
+            user = new User();
+            user.setSupabaseId(key);
+        }
+        if (complete || row.has("email")) {
+            user.setEmail(text(row, "email"));
+        }
+        if (complete || row.has("name")) {
+            user.setName(text(row, "name"));
+        }
+        if (complete || row.has("profile_picture")) {
+            user.setProfilePicture(text(row, "profile_picture"));
+        }
+        if (complete || row.has("public_key")) {
+            user.setPublicKey(text(row, "public_key"));
+        }
+        if (complete || row.has("encrypted_private_key")) {
+            user.setEncryptedPrivateKey(text(row, "encrypted_private_key"));
+        }
+        userRepository.save(user);
+    }
+
+    private void savePlaylist(Playlist playlist, User owner, String key, JsonNode row, boolean complete) {
+        if (playlist == null) {
+            if (owner == null || text(row, "name") == null) {
+                log.debug("Not replicating playlist {} without a known owner or name", key);
+                return;
+            }
+            playlist = new Playlist();
+            playlist.setRemoteId(key);
+        }
+        if (owner != null) {
+            playlist.setUser(owner);
+        }
+        if (complete || row.has("name")) {
+            playlist.setName(text(row, "name"));
+        }
+        if (complete || row.has("description")) {
+            playlist.setDescription(text(row, "description"));
+        }
+        if (row.hasNonNull("created_at")) {
+            playlist.setCreatedAt(timestamp(row, "created_at"));
+        }
+        if (row.hasNonNull("updated_at")) {
+            playlist.setUpdatedAt(timestamp(row, "updated_at"));
+        }
+        playlistRepository.save(playlist);
+    }
+
+    private void deleteUsers(List<String> supabaseIds) {
+        // Supabase cascades profile deletes to playlists; the foreign key here needs the same order
+        playlistRepository.deleteByUserSupabaseIdIn(supabaseIds);
+        userRepository.deleteBySupabaseIdIn(supabaseIds);
+    }
+
+    private JsonNode userRow(User user) {
+        ObjectNode row = objectMapper.createObjectNode();
+        row.put("id", user.getSupabaseId());
+        row.put("email", user.getEmail());
+        row.put("name", user.getName());
+        putIfPresent(row, "profile_picture", user.getProfilePicture());
+        putIfPresent(row, "public_key", user.getPublicKey());
+        putIfPresent(row, "encrypted_private_key", user.getEncryptedPrivateKey());
+        return row;
+    }
+
+    private JsonNode playlistRow(PlaylistDto playlist) {
+        ObjectNode row = objectMapper.createObjectNode();
+        row.put("id", playlist.getId());
+        row.put("name", playlist.getName());
+        putIfPresent(row, "description", playlist.getDescription());
+        row.put("user_id", playlist.getUserId());
+        putIfPresent(row, "user_name", playlist.getUserName());
+        row.put("created_at", playlist.getCreatedAt().format(DateTimeFormatter.ISO_DATE_TIME));
+        row.put("updated_at", playlist.getUpdatedAt().format(DateTimeFormatter.ISO_DATE_TIME));
+        return row;
+    }
+
+    private static void putIfPresent(ObjectNode row, String column, String value) {
+        if (value != null) {
+            row.put(column, value);
+        }
+    }
+
+    private static String text(JsonNode row, String column) {
+        return row.path(column).asText(null);
+    }
+
+    private static LocalDateTime timestamp(JsonNode row, String column) {
+        return LocalDateTime.parse(row.get(column).asText(), DateTimeFormatter.ISO_DATE_TIME);
+    }
+}
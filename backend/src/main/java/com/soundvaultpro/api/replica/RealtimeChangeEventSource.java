@@ -0,0 +1,209 @@
+package com.soundvaultpro.api.replica;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.soundvaultpro.api.config.SupabaseConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Change feed from Supabase Realtime (Phoenix channel protocol over a WebSocket), subscribed to
+ * postgres_changes on every replicated table. Reconnects with exponential backoff.
+ */
+@Component
+@ConditionalOnProperty(name = "supabase.replica.source", havingValue = "realtime", matchIfMissing = true)
+@Slf4j
+public class RealtimeChangeEventSource implements ChangeEventSource {
+
+    private static final String TOPIC = "realtime:soundvault-replica";
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    private final SupabaseConfig supabaseConfig;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "supabase-realtime");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong ref = new AtomicLong();
+
+    @Value("${supabase.replica.heartbeat-interval-ms:25000}")
+    private long heartbeatIntervalMs;
+
+    private HttpClient httpClient;
+    private volatile Consumer<ChangeEvent> listener;
+    private volatile Runnable onReconnect;
+    private volatile WebSocket webSocket;
+    private volatile ScheduledFuture<?> heartbeat;
+    private volatile boolean running;
+    private long backoffMs = 1_000;
+    private boolean connectedBefore;
+
+    public RealtimeChangeEventSource(SupabaseConfig supabaseConfig, ObjectMapper objectMapper) {
+        this.supabaseConfig = supabaseConfig;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void start(Consumer<ChangeEvent> listener, Runnable onReconnect) {
+        this.listener = listener;
+        this.onReconnect = onReconnect;
+        this.running = true;
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        scheduler.execute(this::connect);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+        }
+        WebSocket current = webSocket;
+        if (current != null) {
+            current.sendClose(WebSocket.NORMAL_CLOSURE, "shutdown");
+        }
+        scheduler.shutdownNow();
+    }
+
+    private void connect() {
+        if (!running) {
+            return;
+        }
+        URI uri = URI.create(supabaseConfig.getSupabaseUrl().replaceFirst("^http", "ws")
+                + "/realtime/v1/websocket?vsn=1.0.0&apikey=" + supabaseConfig.getSupabaseKey());
+        httpClient.newWebSocketBuilder()
+                .buildAsync(uri, new Listener())
+                .whenCompleteAsync((socket, error) -> {
+                    if (error != null) {
+                        log.warn("Supabase Realtime connection failed: {}", error.getMessage());
+                        scheduleReconnect();
+                        return;
+                    }
+                    webSocket = socket;
+                    backoffMs = 1_000;
+                    join(socket);
+                    heartbeat = scheduler.scheduleAtFixedRate(this::sendHeartbeat,
+                            heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+                    if (connectedBefore && onReconnect != null) {
+                        onReconnect.run();
+                    }
+                    connectedBefore = true;
+                }, scheduler);
+    }
+
+    private void join(WebSocket socket) {
+        ObjectNode config = objectMapper.createObjectNode();
+        ArrayNode changes = config.putArray("postgres_changes");
+        for (String table : SupabaseReplica.TABLES) {
+            changes.addObject().put("event", "*").put("schema", "public").put("table", table);
+        }
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.set("config", config);
+        payload.put("access_token", supabaseConfig.getSupabaseKey());
+        send(socket, TOPIC, "phx_join", payload);
+    }
+
+    private void sendHeartbeat() {
+        WebSocket current = webSocket;
+        if (current != null) {
+            send(current, "phoenix", "heartbeat", objectMapper.createObjectNode());
+        }
+    }
+
+    private void send(WebSocket socket, String topic, String event, JsonNode payload) {
+        String nextRef = Long.toString(ref.incrementAndGet());
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("topic", topic);
+        message.put("event", event);
+        message.set("payload", payload);
+        message.put("ref", nextRef);
+        message.put("join_ref", nextRef);
+        socket.sendText(message.toString(), true);
+    }
+
+    private void scheduleReconnect() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+        }
+        webSocket = null;
+        if (!running) {
+            return;
+        }
+        long delay = backoffMs;
+        backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        scheduler.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void handle(String text) {
+        try {
+            JsonNode message = objectMapper.readTree(text);
+            if (!"postgres_changes".equals(message.path("event").asText())) {
+                return;
+            }
+            JsonNode data = message.path("payload").path("data");
+            ChangeEvent.Type type = ChangeEvent.Type.valueOf(data.path("type").asText());
+            JsonNode record = data.path("record");
+            JsonNode oldRecord = data.path("old_record");
+            Consumer<ChangeEvent> current = listener;
+            if (current != null) {
+                current.accept(new ChangeEvent(
+                        data.path("table").asText(),
+                        type,
+                        record.isObject() && record.size() > 0 ? record : null,
+                        oldRecord.isObject() && oldRecord.size() > 0 ? oldRecord : null));
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable Realtime message: {}", e.getMessage());
+        }
+    }
+
+    private class Listener implements WebSocket.Listener {
+
+        private final StringBuilder buffer = new StringBuilder();
+
+        @Override
+        public CompletionStage<?> onText(WebSocket socket, CharSequence data, boolean last) {
+            buffer.append(data);
+            if (last) {
+                handle(buffer.toString());
+                buffer.setLength(0);
+            }
+            socket.request(1);
+            return null;
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket socket, int statusCode, String reason) {
+            log.info("Supabase Realtime connection closed ({}): {}", statusCode, reason);
+            if (running) {
+                scheduler.execute(RealtimeChangeEventSource.this::scheduleReconnect);
+            }
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket socket, Throwable error) {
+            log.warn("Supabase Realtime connection error: {}", error.getMessage());
+            if (running) {
+                scheduler.execute(RealtimeChangeEventSource.this::scheduleReconnect);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.soundvaultpro.api.replica;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Local copy of the replicated Supabase tables, holding rows in their PostgREST JSON form
+ */
+public interface ReplicaStore {
+
+    /**
+     * Column that groups rows of a table for {@link #findByOwner}
+     */
+    Map<String, String> OWNER_COLUMNS = Map.of(
+            "playlists", "user_id",
+            "tracks", "user_id",
+            "playlist_tracks", "playlist_id");
+
+    /**
+     * Insert or replace a complete row
+     */
+    void upsert(String table, JsonNode row);
+
+    /**
+     * Merge the given columns into a row, creating it if it does not exist yet
+     */
+    void merge(String table, JsonNode columns);
+
+    /**
+     * Delete the row identified by the key columns of {@code keyRow}
+     */
+    void delete(String table, JsonNode keyRow);
+
+    /**
+     * Replace the contents of a table with a snapshot, leaving rows whose key is in {@code keep} as they are
+     */
+    void replaceAll(String table, List<JsonNode> rows, Set<String> keep);
+
+    Optional<JsonNode> findById(String table, String id);
+
+    /**
+     * Rows whose owner column (see {@link #OWNER_COLUMNS}) equals {@code owner}
+     */
+    List<JsonNode> findByOwner(String table, String owner);
+
+    int count(String table);
+
+    /**
+     * Key of a row: its "id", or playlist_id:track_id for playlist_tracks rows without one
+     */
+    static String rowKey(String table, JsonNode row) {
+        if (row.hasNonNull("id")) {
+            return row.get("id").asText();
+        }
+        if ("playlist_tracks".equals(table)) {
+            return row.path("playlist_id").asText() + ":" + row.path("track_id").asText();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.soundvaultpro.api.replica;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * In-process change feed for local development and tests: whatever is passed to
+ * {@link #publish(ChangeEvent)} is delivered to the replica synchronously.
+ */
+@Component
+@ConditionalOnProperty(name = "supabase.replica.source", havingValue = "stub")
+public class StubChangeEventSource implements ChangeEventSource {
+
+    private volatile Consumer<ChangeEvent> listener;
+
+    @Override
+    public void start(Consumer<ChangeEvent> listener, Runnable onReconnect) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void stop() {
+        this.listener = null;
+    }
+
+    public void publish(ChangeEvent event) {
+        Consumer<ChangeEvent> current = listener;
+        if (current != null) {
+            current.accept(event);
+        }
+    }
+}
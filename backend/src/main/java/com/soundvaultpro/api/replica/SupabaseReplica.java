@@ -0,0 +1,232 @@
+package com.soundvaultpro.api.replica;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.config.SupabaseConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional local read replica of user_profiles, playlists, playlist_tracks and tracks.
+ *
+ * The replica is fed by a change feed and by write-through from this node's own writes, and a
+ * periodic reconciliation pass replaces each table with a fresh PostgREST snapshot to repair
+ * anything the feed missed. Reads are served locally once the first reconciliation has finished;
+ * until then {@link #isReady()} is false and callers keep going to PostgREST.
+ */
+@Service
+@ConditionalOnProperty(name = "supabase.replica.enabled", havingValue = "true")
+@Slf4j
+public class SupabaseReplica {
+
+    public static final List<String> TABLES = List.of("user_profiles", "playlists", "playlist_tracks", "tracks");
+
+    private final ReplicaStore store;
+    private final ChangeEventSource changeEventSource;
+    private final RestTemplate restTemplate;
+    private final SupabaseConfig supabaseConfig;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter appliedEvents;
+
+    @Value("${supabase.replica.page-size:1000}")
+    private int pageSize;
+
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+    private final Map<String, Set<String>> touchedDuringReconcile = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public SupabaseReplica(ReplicaStore store, ChangeEventSource changeEventSource, RestTemplate restTemplate,
+                           SupabaseConfig supabaseConfig, ObjectMapper objectMapper,
+                           ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.changeEventSource = changeEventSource;
+        this.restTemplate = restTemplate;
+        this.supabaseConfig = supabaseConfig;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.appliedEvents = Counter.builder("supabase.replica.events")
+                .description("Change events applied to the local replica")
+                .register(meterRegistry);
+        for (String table : TABLES) {
+            Gauge.builder("supabase.replica.rows", store, s -> s.count(table))
+                    .description("Rows held in the local replica")
+                    .tag("table", table)
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        changeEventSource.start(this::apply, () -> CompletableFuture.runAsync(this::reconcile));
+    }
+
+    @PreDestroy
+    public void stop() {
+        changeEventSource.stop();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Apply a change from the feed and re-publish it as an application event
+     */
+    public void apply(ChangeEvent event) {
+        String table = event.getTable();
+        if (!TABLES.contains(table)) {
+            return;
+        }
+        JsonNode row = event.getType() == ChangeEvent.Type.DELETE ? event.getOldRecord() : event.getRecord();
+        if (row == null) {
+            return;
+        }
+        markTouched(table, row);
+        if (event.getType() == ChangeEvent.Type.DELETE) {
+            store.delete(table, row);
+        } else {
+            store.upsert(table, row);
+        }
+        appliedEvents.increment();
+        eventPublisher.publishEvent(event);
+    }
+
+    /**
+     * Write-through of columns this node has just written upstream, so its own reads see them
+     * before the change feed delivers the event
+     */
+    public void applyLocalWrite(String table, JsonNode columns) {
+        markTouched(table, columns);
+        store.merge(table, columns);
+    }
+
+    /**
+     * Write-through of a row this node has just deleted upstream
+     */
+    public void applyLocalDelete(String table, JsonNode keyRow) {
+        markTouched(table, keyRow);
+        store.delete(table, keyRow);
+    }
+
+    public Optional<JsonNode> findUserProfile(String supabaseId) {
+        return store.findById("user_profiles", supabaseId);
+    }
+
+    public Optional<JsonNode> findPlaylist(Long playlistId) {
+        return store.findById("playlists", String.valueOf(playlistId));
+    }
+
+    /**
+     * A user's playlists, newest first, like the PostgREST query they replace
+     */
+    public List<JsonNode> findPlaylistsByUser(String supabaseId) {
+        List<JsonNode> playlists = new ArrayList<>(store.findByOwner("playlists", supabaseId));
+        playlists.sort(Comparator.comparing((JsonNode row) -> row.path("created_at").asText()).reversed());
+        return playlists;
+    }
+
+    public Optional<JsonNode> findTrack(Long trackId) {
+        return store.findById("tracks", String.valueOf(trackId));
+    }
+
+    public List<JsonNode> findTracksByUser(String supabaseId) {
+        return store.findByOwner("tracks", supabaseId);
+    }
+
+    public List<JsonNode> findPlaylistTracks(Long playlistId) {
+        List<JsonNode> entries = new ArrayList<>(store.findByOwner("playlist_tracks", String.valueOf(playlistId)));
+        entries.sort(Comparator.comparingInt(row -> row.path("position").asInt()));
+        return entries;
+    }
+
+    /**
+     * Replace every table with a fresh snapshot. Rows changed by events while a table is being
+     * fetched are left alone, since the event is at least as new as the snapshot.
+     */
+    @Scheduled(fixedDelayString = "${supabase.replica.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (!reconcileLock.tryLock()) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            for (String table : TABLES) {
+                Set<String> touched = ConcurrentHashMap.newKeySet();
+                touchedDuringReconcile.put(table, touched);
+                try {
+                    store.replaceAll(table, fetchAll(table), touched);
+                } finally {
+                    touchedDuringReconcile.remove(table);
+                }
+            }
+            ready = true;
+            log.info("Supabase replica reconciled in {} ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Supabase replica reconciliation failed: {}", e.getMessage());
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void markTouched(String table, JsonNode row) {
+        Set<String> touched = touchedDuringReconcile.get(table);
+        String key = ReplicaStore.rowKey(table, row);
+        if (touched != null && key != null) {
+            touched.add(key);
+        }
+    }
+
+    private List<JsonNode> fetchAll(String table) throws Exception {
+        HttpEntity<String> entity = new HttpEntity<>(createHeaders());
+        List<JsonNode> rows = new ArrayList<>();
+        for (int offset = 0; ; offset += pageSize) {
+            String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/" + table
+                    + "?select=*&order=id.asc&limit=" + pageSize + "&offset=" + offset;
+            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+            JsonNode page = objectMapper.readTree(response.getBody());
+            if (!page.isArray()) {
+                break;
+            }
+            page.forEach(rows::add);
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Create HTTP headers for Supabase API requests
+     */
+    private HttpHeaders createHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("apikey", supabaseConfig.getSupabaseKey());
+        headers.set("Authorization", "Bearer " + supabaseConfig.getSupabaseKey());
+        return headers;
+    }
+}
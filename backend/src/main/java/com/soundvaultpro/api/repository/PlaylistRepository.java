@@ -1,15 +1,49 @@
 package com.soundvaultpro.api.repository;
 
+import com.soundvaultpro.api.dto.PlaylistDto;
 import com.soundvaultpro.api.model.Playlist;
-import com.soundvaultpro.api.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Playlists are read only through the PlaylistDto projections below, which select the owner's
+ * columns in the same statement. Entities are loaded only to be written.
+ */
 @Repository
 public interface PlaylistRepository extends JpaRepository<Playlist, Long> {
-    List<Playlist> findByUserOrderByCreatedAtDesc(User user);
-    Optional<Playlist> findByIdAndUser(Long id, User user);
+    @Query("select new com.soundvaultpro.api.dto.PlaylistDto(cast(p.remoteId as Long), p.name, p.description, " +
+           "u.supabaseId, u.name, p.createdAt, p.updatedAt) " +
+           "from Playlist p join p.user u where u.supabaseId = :supabaseId order by p.createdAt desc")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    List<PlaylistDto> findListByUserSupabaseId(@Param("supabaseId") String supabaseId);
+
+    @Query("select new com.soundvaultpro.api.dto.PlaylistDto(cast(p.remoteId as Long), p.name, p.description, " +
+           "u.supabaseId, u.name, p.createdAt, p.updatedAt) " +
+           "from Playlist p join p.user u where p.remoteId = :remoteId")
+    Optional<PlaylistDto> findDetailByRemoteId(@Param("remoteId") String remoteId);
+
+    Optional<Playlist> findByRemoteId(String remoteId);
+
+    List<Playlist> findByRemoteIdIn(Collection<String> remoteIds);
+
+    @Query("select p.remoteId from Playlist p where p.remoteId is not null")
+    List<String> findAllRemoteIds();
+
+    @Modifying
+    @Query("delete from Playlist p where p.remoteId in :remoteIds")
+    int deleteByRemoteIdIn(@Param("remoteIds") Collection<String> remoteIds);
+
+    @Modifying
+    @Query("delete from Playlist p where p.user in (select u from User u where u.supabaseId in :supabaseIds)")
+    int deleteByUserSupabaseIdIn(@Param("supabaseIds") Collection<String> supabaseIds);
 }
@@ -1,15 +1,32 @@
 package com.soundvaultpro.api.repository;
 
 import com.soundvaultpro.api.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findBySupabaseId(String supabaseId);
+    List<User> findBySupabaseIdIn(Collection<String> supabaseIds);
     Boolean existsByEmail(String email);
     Boolean existsBySupabaseId(String supabaseId);
+
+    @Query("select u.supabaseId from User u where u.supabaseId is not null")
+    List<String> findAllSupabaseIds();
+
+    @Modifying
+    @Query("delete from User u where u.supabaseId in :supabaseIds")
+    int deleteBySupabaseIdIn(@Param("supabaseIds") Collection<String> supabaseIds);
 }
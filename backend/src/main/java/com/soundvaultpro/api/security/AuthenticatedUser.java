@@ -0,0 +1,31 @@
+package com.soundvaultpro.api.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * The user that {@link SupabaseAuthFilter} authenticated for the current request
+ */
+public final class AuthenticatedUser {
+
+    private AuthenticatedUser() {
+    }
+
+    /**
+     * The Supabase ID from the request's validated token, or null if the request carried none
+     */
+    public static String supabaseId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && authentication.getDetails() instanceof SupabaseDetails details) {
+            return details.supabaseId();
+        }
+        return null;
+    }
+
+    /**
+     * Details of the authentication set by {@link SupabaseAuthFilter}
+     */
+    record SupabaseDetails(String supabaseId) {
+    }
+}
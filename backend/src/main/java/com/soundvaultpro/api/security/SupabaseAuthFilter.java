@@ -3,6 +3,10 @@ package com.soundvaultpro.api.security;
 import com.soundvaultpro.api.dto.UserDto;
 import com.soundvaultpro.api.service.SupabaseService;
 import com.soundvaultpro.api.service.UserService;
+import com.soundvaultpro.api.tracing.StageTracer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Scope;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -27,6 +31,7 @@ public class SupabaseAuthFilter extends OncePerRequestFilter {
 
     private final SupabaseService supabaseService;
     private final UserService userService;
+    private final StageTracer stageTracer;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -35,38 +40,50 @@ public class SupabaseAuthFilter extends OncePerRequestFilter {
         String token = extractTokenFromRequest(request);
         
         if (StringUtils.hasText(token)) {
-            try {
-                // Validate token with Supabase
-                Map<String, Object> userData = supabaseService.validateToken(token);
-                if (userData != null && userData.containsKey("sub")) {
-                    String supabaseId = (String) userData.get("sub");
-                    
-                    // Try to find user in our database
-                    UserDto user = userService.findBySupabaseId(supabaseId);
-                    
-                    if (user != null) {
-                        // Create authentication object
-                        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
-                            user,
-                            null,
-                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
-                        );
-                        
-                        // Set authentication in context
-                        SecurityContextHolder.getContext().setAuthentication(auth);
-                        log.debug("User authenticated: {}", supabaseId);
-                    } else {
-                        log.warn("User with Supabase ID {} not found in database", supabaseId);
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Could not authenticate user: {}", e.getMessage());
+            // Its own stage, so Server-Timing separates auth from the handler
+            Span span = stageTracer.startStage("auth", SpanKind.INTERNAL);
+            try (Scope ignored = span.makeCurrent()) {
+                authenticate(token);
+            } finally {
+                span.end();
             }
         }
         
         filterChain.doFilter(request, response);
     }
     
+    private void authenticate(String token) {
+        try {
+            // Validate token with Supabase
+            Map<String, Object> userData = supabaseService.validateToken(token);
+            if (userData != null && userData.containsKey("sub")) {
+                String supabaseId = (String) userData.get("sub");
+                
+                // Try to find user in our database
+                UserDto user = userService.findBySupabaseId(supabaseId);
+                
+                if (user != null) {
+                    // Create authentication object
+                    UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                        user,
+                        null,
+                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"))
+                    );
+                    // The principal carries no Supabase ID, which endpoints check requests against
+                    auth.setDetails(new AuthenticatedUser.SupabaseDetails(supabaseId));
+                    
+                    // Set authentication in context
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                    log.debug("User authenticated: {}", supabaseId);
+                } else {
+                    log.warn("User with Supabase ID {} not found in database", supabaseId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Could not authenticate user: {}", e.getMessage());
+        }
+    }
+    
     private String extractTokenFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,117 @@
+package com.soundvaultpro.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.tracing.StageTracer;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking JSON calls to upstream APIs on the JDK {@link HttpClient}. Calls feed the
+ * same health tracking and tracing as RestTemplate calls, and error statuses fail the future
+ * with the {@link RestClientResponseException} RestTemplate would have thrown.
+ */
+@Component
+public class AsyncUpstreamClient {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final UpstreamHealthTracker upstreamHealthTracker;
+    private final StageTracer stageTracer;
+
+    @Value("${upstream.async.request-timeout-ms:10000}")
+    private long requestTimeoutMs;
+
+    public AsyncUpstreamClient(HttpClient upstreamHttpClient, ObjectMapper objectMapper,
+                               UpstreamHealthTracker upstreamHealthTracker, StageTracer stageTracer) {
+        this.httpClient = upstreamHttpClient;
+        this.objectMapper = objectMapper;
+        this.upstreamHealthTracker = upstreamHealthTracker;
+        this.stageTracer = stageTracer;
+    }
+
+    public CompletableFuture<JsonNode> getJson(String url, Map<String, String> headers) {
+        return send("GET", url, headers, HttpRequest.BodyPublishers.noBody());
+    }
+
+    /**
+     * POST a JSON body that is already serialized, so the caller controls how much of it is in memory
+     */
+    public CompletableFuture<JsonNode> postJson(String url, Map<String, String> headers, byte[] body) {
+        Map<String, String> withContentType = new HashMap<>(headers);
+        withContentType.put(HttpHeaders.CONTENT_TYPE, "application/json");
+        return send("POST", url, withContentType, HttpRequest.BodyPublishers.ofByteArray(body));
+    }
+
+    /**
+     * POST form parameters, as OAuth token endpoints expect, and read a JSON response
+     */
+    public CompletableFuture<JsonNode> postForm(String url, Map<String, String> headers, Map<String, String> form) {
+        String body = form.entrySet().stream()
+                .map(e -> URLEncoder.encode(e.getKey(), StandardCharsets.UTF_8) + "="
+                        + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        Map<String, String> withContentType = new HashMap<>(headers);
+        withContentType.put(HttpHeaders.CONTENT_TYPE, "application/x-www-form-urlencoded");
+        return send("POST", url, withContentType, HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private CompletableFuture<JsonNode> send(String method, String url, Map<String, String> headers,
+                                             HttpRequest.BodyPublisher body) {
+        URI uri = URI.create(url);
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .method(method, body);
+        headers.forEach(request::header);
+
+        String host = uri.getHost();
+        Span span = stageTracer.startStage(method + " " + host, SpanKind.CLIENT);
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    int status = response != null ? response.statusCode() : 0;
+                    boolean failed = error != null || status >= 500 || status == 429;
+                    upstreamHealthTracker.record(host, failed);
+                    if (status > 0) {
+                        span.setAttribute("http.response.status_code", status);
+                    }
+                    if (failed) {
+                        span.setStatus(StatusCode.ERROR);
+                    }
+                    span.end();
+
+                    if (error != null) {
+                        throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+                    }
+                    if (status >= 400) {
+                        throw new CompletionException(new RestClientResponseException(
+                                method + " " + host + uri.getPath() + " returned " + status, status, "", null,
+                                response.body(), StandardCharsets.UTF_8));
+                    }
+                    try {
+                        return objectMapper.readTree(response.body());
+                    } catch (IOException e) {
+                        throw new CompletionException(new RuntimeException("Error processing JSON", e));
+                    }
+                });
+    }
+}
@@ -0,0 +1,329 @@
+package com.soundvaultpro.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.soundvaultpro.api.event.PlaylistChangedEvent;
+import com.soundvaultpro.api.replica.ChangeEvent;
+import com.soundvaultpro.api.replica.SupabaseReplica;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes playlist and library changes to every open event stream of the affected user.
+ *
+ * Publishing never writes to a socket: each connection has a bounded queue that a small
+ * dispatch pool drains, so a slow client only delays itself. A connection that falls more than
+ * its queue capacity behind has its backlog replaced by a single "resync" event, telling the
+ * client to refetch instead of replaying every change. Idle connections hold no thread.
+ */
+@Service
+@Slf4j
+public class ChangeStreamService {
+
+    private final ObjectProvider<SupabaseReplica> replicaProvider;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter overflows;
+    private final ExecutorService dispatcher;
+
+    @Value("${notifications.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${notifications.sse.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${notifications.sse.max-connections:10000}")
+    private int maxConnections;
+
+    @Value("${notifications.sse.max-connections-per-user:10}")
+    private int maxConnectionsPerUser;
+
+    @Value("${notifications.sse.upstream-events:true}")
+    private boolean upstreamEvents;
+
+    public ChangeStreamService(ObjectProvider<SupabaseReplica> replicaProvider, MeterRegistry meterRegistry,
+                               @Value("${notifications.sse.dispatch-threads:2}") int dispatchThreads) {
+        this.replicaProvider = replicaProvider;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-dispatch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.overflows = Counter.builder("notifications.sse.overflows")
+                .description("Event streams whose backlog was replaced by a resync event")
+                .register(meterRegistry);
+        Gauge.builder("notifications.sse.connections", connections, AtomicInteger::get)
+                .description("Open event stream connections")
+                .register(meterRegistry);
+    }
+
+    private record Notification(String name, Object data) {
+
+        SseEmitter.SseEventBuilder toEvent() {
+            return data == null
+                    ? SseEmitter.event().comment(name)
+                    : SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    private static final Notification HEARTBEAT = new Notification("keepalive", null);
+    private static final Notification RESYNC = new Notification("resync", Map.of("reason", "backlog"));
+
+    private final class Subscriber {
+        final String supabaseId;
+        final SseEmitter emitter;
+        final long openedAt = System.nanoTime();
+        private final Deque<Notification> queue = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(String supabaseId, SseEmitter emitter) {
+            this.supabaseId = supabaseId;
+            this.emitter = emitter;
+        }
+
+        void offer(Notification notification) {
+            synchronized (queue) {
+                if (closed) {
+                    return;
+                }
+                if (queue.size() >= queueCapacity) {
+                    queue.clear();
+                    queue.add(RESYNC);
+                    overflows.increment();
+                } else if (notification != HEARTBEAT || queue.isEmpty()) {
+                    queue.add(notification);
+                }
+            }
+            scheduleDrain();
+        }
+
+        void scheduleDrain() {
+            if (!closed && draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Notification notification;
+                while (!closed && (notification = poll()) != null) {
+                    emitter.send(notification.toEvent());
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the emitter's completion callback unregisters it
+                close();
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            if (!isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private Notification poll() {
+            synchronized (queue) {
+                return queue.poll();
+            }
+        }
+
+        private boolean isEmpty() {
+            synchronized (queue) {
+                return queue.isEmpty();
+            }
+        }
+
+        void close() {
+            synchronized (queue) {
+                closed = true;
+                queue.clear();
+            }
+        }
+    }
+
+    /**
+     * Open an event stream for a user, or null when this node is at its connection limit
+     */
+    public SseEmitter subscribe(String supabaseId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(supabaseId, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> {
+            unsubscribe(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        Set<Subscriber> userSubscribers = subscribers.compute(supabaseId, (id, existing) -> {
+            Set<Subscriber> set = existing != null ? existing : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+        // Past the per-user limit the oldest sessions are the likeliest to be abandoned tabs
+        if (userSubscribers.size() > maxConnectionsPerUser) {
+            userSubscribers.stream()
+                    .filter(s -> s != subscriber)
+                    .min(Comparator.comparingLong(s -> s.openedAt))
+                    .ifPresent(oldest -> {
+                        oldest.close();
+                        oldest.emitter.complete();
+                    });
+        }
+
+        subscriber.offer(new Notification("ready", Map.of("supabaseId", supabaseId)));
+        return emitter;
+    }
+
+    public int connectionCount() {
+        return connections.get();
+    }
+
+    @EventListener
+    public void onPlaylistChanged(PlaylistChangedEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", event.getType().name());
+        data.put("playlistId", event.getPlaylistId());
+        data.put("source", "api");
+        publish(event.getSupabaseId(), new Notification("playlist", data));
+    }
+
+    /**
+     * Changes from the Supabase change feed, which also cover writes made outside this API
+     */
+    @EventListener
+    public void onUpstreamChange(ChangeEvent event) {
+        if (!upstreamEvents) {
+            return;
+        }
+        JsonNode row = event.getType() == ChangeEvent.Type.DELETE ? event.getOldRecord() : event.getRecord();
+        if (row == null) {
+            return;
+        }
+
+        String owner;
+        String name;
+        switch (event.getTable()) {
+            case "playlists" -> {
+                owner = row.path("user_id").asText(null);
+                name = "playlist";
+            }
+            case "tracks" -> {
+                owner = row.path("user_id").asText(null);
+                name = "track";
+            }
+            case "playlist_tracks" -> {
+                owner = playlistOwner(row.path("playlist_id").asText(null));
+                name = "playlist-tracks";
+            }
+            default -> {
+                return;
+            }
+        }
+        if (owner == null) {
+            return;
+        }
+
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("type", event.getType().name());
+        data.put("table", event.getTable());
+        data.put("id", row.path("id").isMissingNode() ? null : row.path("id").asText());
+        if (row.has("playlist_id")) {
+            data.put("playlistId", row.path("playlist_id").asText());
+        }
+        data.put("source", "upstream");
+        publish(owner, new Notification(name, data));
+    }
+
+    /**
+     * Comment lines keep proxies from closing idle streams and surface dead connections
+     */
+    @Scheduled(fixedDelayString = "${notifications.sse.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        for (Set<Subscriber> userSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : userSubscribers) {
+                subscriber.offer(HEARTBEAT);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (Set<Subscriber> userSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : userSubscribers) {
+                subscriber.close();
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private void publish(String supabaseId, Notification notification) {
+        if (supabaseId == null) {
+            return;
+        }
+        Set<Subscriber> userSubscribers = subscribers.get(supabaseId);
+        if (userSubscribers != null) {
+            for (Subscriber subscriber : userSubscribers) {
+                subscriber.offer(notification);
+            }
+        }
+    }
+
+    private String playlistOwner(String playlistId) {
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica == null || playlistId == null) {
+            return null;
+        }
+        try {
+            return replica.findPlaylist(Long.parseLong(playlistId))
+                    .map(playlist -> playlist.path("user_id").asText(null))
+                    .orElse(null);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.close();
+        subscribers.computeIfPresent(subscriber.supabaseId, (id, userSubscribers) -> {
+            if (userSubscribers.remove(subscriber)) {
+                connections.decrementAndGet();
+            }
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+    }
+}
@@ -2,9 +2,12 @@ package com.soundvaultpro.api.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.config.CacheConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -17,6 +20,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +30,8 @@ public class GeniusService {
     
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final AsyncUpstreamClient upstreamClient;
+    private final CacheManager cacheManager;
     
     @Value("${genius.api.url:https://api.genius.com}")
     private String geniusApiUrl;
@@ -84,48 +91,58 @@ public class GeniusService {
     }
     
     /**
-     * Get song details by Genius song ID
+     * Get song details by Genius song ID, blocking until they arrive
      * 
      * @param songId The Genius song ID
      * @return Song details
      */
     public Map<String, Object> getSongDetails(int songId) {
-        log.info("Getting song details for ID: {}", songId);
-        
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("Authorization", "Bearer " + geniusAccessToken);
-        
-        HttpEntity<?> entity = new HttpEntity<>(headers);
-        
         try {
-            ResponseEntity<String> response = restTemplate.exchange(
-                geniusApiUrl + "/songs/" + songId,
-                HttpMethod.GET,
-                entity,
-                String.class
-            );
-            
-            JsonNode rootNode = objectMapper.readTree(response.getBody());
-            JsonNode songNode = rootNode.path("response").path("song");
-            
-            Map<String, Object> songDetails = new HashMap<>();
-            songDetails.put("id", songNode.path("id").asInt());
-            songDetails.put("title", songNode.path("title").asText());
-            songDetails.put("artist", songNode.path("primary_artist").path("name").asText());
-            songDetails.put("album", songNode.path("album").path("name").asText(""));
-            songDetails.put("releaseDate", songNode.path("release_date").asText(""));
-            songDetails.put("imageUrl", songNode.path("song_art_image_url").asText());
-            songDetails.put("lyricsUrl", songNode.path("url").asText());
-            
-            // Extract lyrics state from the API response if available
-            if (songNode.has("lyrics_state")) {
-                songDetails.put("lyricsState", songNode.path("lyrics_state").asText());
-            }
-            
-            return songDetails;
-        } catch (Exception e) {
-            log.error("Error getting song details from Genius API: {}", e.getMessage(), e);
-            throw new RuntimeException("Failed to get song details from Genius API", e);
+            return getSongDetailsAsync(songId).join();
+        } catch (CompletionException e) {
+            log.error("Error getting song details from Genius API: {}", e.getCause().getMessage(), e.getCause());
+            throw new RuntimeException("Failed to get song details from Genius API", e.getCause());
+        }
+    }
+    
+    /**
+     * Get song details by Genius song ID without blocking. Details are cached.
+     * 
+     * @param songId The Genius song ID
+     * @return Song details, or a future failed with the upstream error
+     */
+    public CompletableFuture<Map<String, Object>> getSongDetailsAsync(int songId) {
+        Cache cache = cacheManager.getCache(CacheConfig.GENIUS_SONGS);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> cached = cache != null ? cache.get(songId, Map.class) : null;
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
         }
+        
+        log.info("Getting song details for ID: {}", songId);
+        return upstreamClient.getJson(geniusApiUrl + "/songs/" + songId,
+                        Map.of(HttpHeaders.AUTHORIZATION, "Bearer " + geniusAccessToken))
+                .thenApply(rootNode -> {
+                    JsonNode songNode = rootNode.path("response").path("song");
+                    
+                    Map<String, Object> songDetails = new HashMap<>();
+                    songDetails.put("id", songNode.path("id").asInt());
+                    songDetails.put("title", songNode.path("title").asText());
+                    songDetails.put("artist", songNode.path("primary_artist").path("name").asText());
+                    songDetails.put("album", songNode.path("album").path("name").asText(""));
+                    songDetails.put("releaseDate", songNode.path("release_date").asText(""));
+                    songDetails.put("imageUrl", songNode.path("song_art_image_url").asText());
+                    songDetails.put("lyricsUrl", songNode.path("url").asText());
+                    
+                    // Extract lyrics state from the API response if available
+                    if (songNode.has("lyrics_state")) {
+                        songDetails.put("lyricsState", songNode.path("lyrics_state").asText());
+                    }
+                    
+                    if (cache != null) {
+                        cache.put(songId, songDetails);
+                    }
+                    return songDetails;
+                });
     }
 }
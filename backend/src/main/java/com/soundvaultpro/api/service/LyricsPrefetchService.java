@@ -0,0 +1,202 @@
+package com.soundvaultpro.api.service;
+
+import com.soundvaultpro.api.cache.CacheKeys;
+import com.soundvaultpro.api.config.CacheConfig;
+import com.soundvaultpro.api.dto.PlayerEventDto;
+import com.soundvaultpro.api.dto.TrackRefDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Warms the lyrics and Genius caches for the tracks a user is about to hear.
+ *
+ * Player events queue the next few tracks; a scheduled pass fetches them through the cached
+ * service methods. Upstream calls are capped per minute, and the pass backs off exponentially
+ * while an upstream's error rate is above the configured threshold.
+ */
+@Service
+@Slf4j
+public class LyricsPrefetchService {
+
+    private final LyricsService lyricsService;
+    private final GeniusService geniusService;
+    private final UpstreamHealthTracker upstreamHealthTracker;
+    private final Cache lyricsCache;
+    private final Cache geniusCache;
+    private final Counter fetched;
+    private final Counter alreadyCached;
+
+    @Value("${lyrics.prefetch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${lyrics.prefetch.lookahead:3}")
+    private int lookahead;
+
+    @Value("${lyrics.prefetch.max-pending:500}")
+    private int maxPending;
+
+    @Value("${lyrics.prefetch.max-upstream-calls-per-minute:30}")
+    private int maxCallsPerMinute;
+
+    @Value("${lyrics.prefetch.max-error-rate:0.25}")
+    private double maxErrorRate;
+
+    @Value("${lyrics.prefetch.initial-backoff-ms:5000}")
+    private long initialBackoffMs;
+
+    @Value("${lyrics.prefetch.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${lyrics.api.url:https://api.musixmatch.com/ws/1.1}")
+    private String lyricsApiUrl;
+
+    @Value("${genius.api.url:https://api.genius.com}")
+    private String geniusApiUrl;
+
+    // Next track first; guarded by itself
+    private final Deque<TrackRefDto> pending = new ArrayDeque<>();
+
+    // Only touched by the scheduled pass, which never overlaps itself
+    private long budgetWindowStart;
+    private int callsInWindow;
+    private long backoffMs;
+    private long backoffUntil;
+
+    public LyricsPrefetchService(LyricsService lyricsService, GeniusService geniusService,
+                                 UpstreamHealthTracker upstreamHealthTracker, CacheManager cacheManager,
+                                 MeterRegistry meterRegistry) {
+        this.lyricsService = lyricsService;
+        this.geniusService = geniusService;
+        this.upstreamHealthTracker = upstreamHealthTracker;
+        this.lyricsCache = cacheManager.getCache(CacheConfig.LYRICS);
+        this.geniusCache = cacheManager.getCache(CacheConfig.GENIUS_SONGS);
+        this.fetched = prefetchCounter(meterRegistry, "fetched");
+        this.alreadyCached = prefetchCounter(meterRegistry, "cached");
+        Gauge.builder("lyrics.prefetch.pending", this, LyricsPrefetchService::pendingCount)
+                .description("Tracks waiting to be prefetched")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue the next tracks of a player event ahead of anything queued earlier
+     */
+    public void onPlayerEvent(PlayerEventDto event) {
+        List<TrackRefDto> queue = event.getQueue();
+        if (!enabled || queue == null || queue.isEmpty()) {
+            return;
+        }
+        List<TrackRefDto> upcoming = queue.subList(0, Math.min(lookahead, queue.size()));
+        synchronized (pending) {
+            for (int i = upcoming.size() - 1; i >= 0; i--) {
+                TrackRefDto track = upcoming.get(i);
+                if (track == null || (!hasLyricsKey(track) && track.getGeniusSongId() == null)) {
+                    continue;
+                }
+                pending.remove(track);
+                pending.addFirst(track);
+            }
+            while (pending.size() > maxPending) {
+                pending.removeLast();
+            }
+        }
+    }
+
+    public int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lyrics.prefetch.interval-ms:1000}")
+    public void prefetch() {
+        long now = System.currentTimeMillis();
+        if (!enabled || now < backoffUntil) {
+            return;
+        }
+        if (now - budgetWindowStart >= 60_000) {
+            budgetWindowStart = now;
+            callsInWindow = 0;
+        }
+
+        TrackRefDto track;
+        while ((track = nextPending()) != null) {
+            boolean needsLyrics = hasLyricsKey(track)
+                    && lyricsCache.get(CacheKeys.of(track.getTrackName(), track.getArtist())) == null;
+            boolean needsGenius = track.getGeniusSongId() != null
+                    && geniusCache.get(track.getGeniusSongId()) == null;
+            if (!needsLyrics && !needsGenius) {
+                alreadyCached.increment();
+                continue;
+            }
+
+            // A lyrics lookup is a track match plus a lyrics fetch
+            int cost = (needsLyrics ? 2 : 0) + (needsGenius ? 1 : 0);
+            if (callsInWindow + cost > maxCallsPerMinute) {
+                requeue(track);
+                return;
+            }
+            if ((needsLyrics && unhealthy(lyricsApiUrl)) || (needsGenius && unhealthy(geniusApiUrl))) {
+                requeue(track);
+                backoffMs = backoffMs == 0 ? initialBackoffMs : Math.min(backoffMs * 2, maxBackoffMs);
+                backoffUntil = now + backoffMs;
+                log.info("Upstream error rate high, pausing lyrics prefetch for {} ms", backoffMs);
+                return;
+            }
+
+            callsInWindow += cost;
+            if (needsLyrics) {
+                lyricsService.searchLyrics(track.getTrackName(), track.getArtist());
+            }
+            if (needsGenius) {
+                try {
+                    geniusService.getSongDetails(track.getGeniusSongId());
+                } catch (RuntimeException e) {
+                    log.debug("Prefetch of Genius song {} failed: {}", track.getGeniusSongId(), e.getMessage());
+                }
+            }
+            fetched.increment();
+        }
+        backoffMs = 0;
+    }
+
+    private TrackRefDto nextPending() {
+        synchronized (pending) {
+            return pending.pollFirst();
+        }
+    }
+
+    private void requeue(TrackRefDto track) {
+        synchronized (pending) {
+            if (!pending.contains(track)) {
+                pending.addFirst(track);
+            }
+        }
+    }
+
+    private boolean unhealthy(String apiUrl) {
+        return upstreamHealthTracker.errorRate(URI.create(apiUrl).getHost()) > maxErrorRate;
+    }
+
+    private static boolean hasLyricsKey(TrackRefDto track) {
+        return track.getTrackName() != null && track.getArtist() != null;
+    }
+
+    private static Counter prefetchCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("lyrics.prefetch.tracks")
+                .description("Prefetched tracks by whether they needed an upstream call")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
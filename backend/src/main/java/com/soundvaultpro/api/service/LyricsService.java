@@ -1,25 +1,26 @@
 package com.soundvaultpro.api.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.cache.CacheKeys;
+import com.soundvaultpro.api.config.CacheConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class LyricsService {
 
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final AsyncUpstreamClient upstreamClient;
+    private final CacheManager cacheManager;
     
     @Value("${lyrics.api.key:dummy_key_for_development}")
     private String lyricsApiKey;
@@ -28,27 +29,51 @@ public class LyricsService {
     private String lyricsApiUrl;
     
     /**
-     * Search for lyrics by track name and artist
+     * Search for lyrics by track name and artist, blocking until they arrive
      * 
      * @param trackName The name of the track
      * @param artist The artist name
      * @return The lyrics if found, null otherwise
      */
     public String searchLyrics(String trackName, String artist) {
-        try {
-            // First search for the track to get the track ID
-            String trackId = searchTrack(trackName, artist);
-            if (trackId == null) {
-                log.warn("Track not found: {} by {}", trackName, artist);
-                return null;
-            }
-            
-            // Then get the lyrics using the track ID
-            return getLyricsByTrackId(trackId);
-        } catch (Exception e) {
-            log.error("Error searching for lyrics: {}", e.getMessage(), e);
-            return null;
+        return searchLyricsAsync(trackName, artist).join();
+    }
+    
+    /**
+     * Search for lyrics by track name and artist without blocking: the lyrics fetch is chained
+     * to the track lookup on the upstream client's threads. Found lyrics are cached.
+     * 
+     * @param trackName The name of the track
+     * @param artist The artist name
+     * @return The lyrics if found, null otherwise; never completes exceptionally
+     */
+    public CompletableFuture<String> searchLyricsAsync(String trackName, String artist) {
+        Cache cache = cacheManager.getCache(CacheConfig.LYRICS);
+        String key = CacheKeys.of(trackName, artist);
+        String cached = cache != null ? cache.get(key, String.class) : null;
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
         }
+        
+        // First search for the track to get the track ID, then get the lyrics using the track ID
+        return searchTrack(trackName, artist)
+                .thenCompose(trackId -> {
+                    if (trackId == null) {
+                        log.warn("Track not found: {} by {}", trackName, artist);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return getLyricsByTrackId(trackId);
+                })
+                .thenApply(lyrics -> {
+                    if (lyrics != null && cache != null) {
+                        cache.put(key, lyrics);
+                    }
+                    return lyrics;
+                })
+                .exceptionally(e -> {
+                    log.error("Error searching for lyrics: {}", e.getMessage(), e);
+                    return null;
+                });
     }
     
     /**
@@ -58,38 +83,24 @@ public class LyricsService {
      * @param artist The artist name
      * @return The track ID if found, null otherwise
      */
-    private String searchTrack(String trackName, String artist) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(lyricsApiUrl + "/matcher.track.get")
-                    .queryParam("apikey", lyricsApiKey)
-                    .queryParam("q_track", trackName)
-                    .queryParam("q_artist", artist)
-                    .build()
-                    .toUriString();
-            
-            HttpHeaders headers = new HttpHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, 
-                    HttpMethod.GET, 
-                    entity, 
-                    String.class
-            );
-            
-            JsonNode root = objectMapper.readTree(response.getBody());
-            JsonNode message = root.path("message");
-            JsonNode body = message.path("body");
+    private CompletableFuture<String> searchTrack(String trackName, String artist) {
+        String url = UriComponentsBuilder.fromHttpUrl(lyricsApiUrl + "/matcher.track.get")
+                .queryParam("apikey", lyricsApiKey)
+                .queryParam("q_track", trackName)
+                .queryParam("q_artist", artist)
+                .encode()
+                .build()
+                .toUriString();
+        
+        return upstreamClient.getJson(url, Map.of()).thenApply(root -> {
+            JsonNode body = root.path("message").path("body");
             
             if (body.path("track").isMissingNode()) {
                 return null;
             }
             
             return body.path("track").path("track_id").asText();
-        } catch (Exception e) {
-            log.error("Error searching for track: {}", e.getMessage(), e);
-            return null;
-        }
+        });
     }
     
     /**
@@ -98,36 +109,22 @@ public class LyricsService {
      * @param trackId The track ID
      * @return The lyrics if found, null otherwise
      */
-    private String getLyricsByTrackId(String trackId) {
-        try {
-            String url = UriComponentsBuilder.fromHttpUrl(lyricsApiUrl + "/track.lyrics.get")
-                    .queryParam("apikey", lyricsApiKey)
-                    .queryParam("track_id", trackId)
-                    .build()
-                    .toUriString();
-            
-            HttpHeaders headers = new HttpHeaders();
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-            
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url, 
-                    HttpMethod.GET, 
-                    entity, 
-                    String.class
-            );
-            
-            JsonNode root = objectMapper.readTree(response.getBody());
-            JsonNode message = root.path("message");
-            JsonNode body = message.path("body");
+    private CompletableFuture<String> getLyricsByTrackId(String trackId) {
+        String url = UriComponentsBuilder.fromHttpUrl(lyricsApiUrl + "/track.lyrics.get")
+                .queryParam("apikey", lyricsApiKey)
+                .queryParam("track_id", trackId)
+                .encode()
+                .build()
+                .toUriString();
+        
+        return upstreamClient.getJson(url, Map.of()).thenApply(root -> {
+            JsonNode body = root.path("message").path("body");
             
             if (body.path("lyrics").isMissingNode()) {
                 return null;
             }
             
             return body.path("lyrics").path("lyrics_body").asText();
-        } catch (Exception e) {
-            log.error("Error getting lyrics: {}", e.getMessage(), e);
-            return null;
-        }
+        });
     }
 }
@@ -6,8 +6,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.soundvaultpro.api.dto.PlaylistDto;
+import com.soundvaultpro.api.config.CacheConfig;
 import com.soundvaultpro.api.config.SupabaseConfig;
+import com.soundvaultpro.api.event.PlaylistChangedEvent;
+import com.soundvaultpro.api.event.PlaylistTracksChangedEvent;
+import com.soundvaultpro.api.replica.SupabaseReplica;
+import com.soundvaultpro.api.smart.SmartRules;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -19,6 +28,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -28,11 +38,21 @@ public class PlaylistService {
     private final SupabaseConfig supabaseConfig;
     private final ObjectMapper objectMapper;
     private final UserService userService;
+    private final SupabaseService supabaseService;
+    private final SmartPlaylistService smartPlaylistService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<SupabaseReplica> replicaProvider;
     
     /**
      * Get all playlists for a user
      */
+    @Cacheable(cacheNames = CacheConfig.PLAYLISTS)
     public List<PlaylistDto> getPlaylistsByUser(String supabaseId) {
+        SupabaseReplica replica = readyReplica();
+        if (replica != null) {
+            return replica.findPlaylistsByUser(supabaseId).stream().map(SupabaseRows::toPlaylistDto).toList();
+        }
+        
         HttpHeaders headers = createHeaders();
         HttpEntity<String> entity = new HttpEntity<>(headers);
         
@@ -50,16 +70,7 @@ public class PlaylistService {
             
             if (jsonNode.isArray()) {
                 for (JsonNode node : jsonNode) {
-                    PlaylistDto dto = PlaylistDto.builder()
-                            .id(node.get("id").asLong())
-                            .name(node.get("name").asText())
-                            .description(node.has("description") ? node.get("description").asText() : null)
-                            .userId(node.get("user_id").asText())
-                            .userName(node.has("user_name") ? node.get("user_name").asText() : "")
-                            .createdAt(LocalDateTime.parse(node.get("created_at").asText(), DateTimeFormatter.ISO_DATE_TIME))
-                            .updatedAt(LocalDateTime.parse(node.get("updated_at").asText(), DateTimeFormatter.ISO_DATE_TIME))
-                            .build();
-                    playlists.add(dto);
+                    playlists.add(SupabaseRows.toPlaylistDto(node));
                 }
             }
             
@@ -73,7 +84,59 @@ public class PlaylistService {
     /**
      * Create a new playlist
      */
+    @CacheEvict(cacheNames = CacheConfig.PLAYLISTS, key = "#supabaseId")
     public PlaylistDto createPlaylist(String supabaseId, String name, String description) {
+        return insertPlaylist(supabaseId, name, description, null);
+    }
+    
+    /**
+     * Create a smart playlist, whose tracks are the user's tracks matching its rules, and fill it
+     */
+    @CacheEvict(cacheNames = CacheConfig.PLAYLISTS, key = "#supabaseId")
+    public PlaylistDto createSmartPlaylist(String supabaseId, String name, String description, JsonNode rules) {
+        // Compile first, so malformed rules never reach Supabase
+        SmartRules compiled = smartPlaylistService.compile(rules);
+        PlaylistDto playlist = insertPlaylist(supabaseId, name, description, rules);
+        smartPlaylistService.register(supabaseId, playlist.getId(), compiled);
+        return playlist;
+    }
+    
+    /**
+     * Replace the rules of a smart playlist and bring its tracks in line with them
+     */
+    @CacheEvict(cacheNames = CacheConfig.PLAYLISTS, key = "#supabaseId")
+    public PlaylistDto updateRules(String supabaseId, Long playlistId, JsonNode rules) {
+        if (!isSmart(verifyPlaylistOwnership(supabaseId, playlistId))) {
+            throw new RuntimeException("Not a smart playlist");
+        }
+        SmartRules compiled = smartPlaylistService.compile(rules);
+        
+        try {
+            HttpHeaders headers = createHeaders();
+            
+            ObjectNode requestBody = objectMapper.createObjectNode();
+            requestBody.set("rules", rules);
+            requestBody.put("updated_at", LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+            
+            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
+            
+            String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/playlists?id=eq." + playlistId;
+            restTemplate.exchange(
+                url, 
+                HttpMethod.PATCH, 
+                entity, 
+                String.class
+            );
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+        
+        smartPlaylistService.register(supabaseId, playlistId, compiled);
+        eventPublisher.publishEvent(new PlaylistChangedEvent(supabaseId, playlistId, PlaylistChangedEvent.Type.UPDATED));
+        return getPlaylist(playlistId);
+    }
+    
+    private PlaylistDto insertPlaylist(String supabaseId, String name, String description, JsonNode rules) {
         try {
             HttpHeaders headers = createHeaders();
             
@@ -85,6 +148,10 @@ public class PlaylistService {
                 requestBody.put("description", description);
             }
             
+            if (rules != null) {
+                requestBody.set("rules", rules);
+            }
+            
             // Get user details to store user name
             try {
                 var userDto = userService.findBySupabaseId(supabaseId);
@@ -110,15 +177,17 @@ public class PlaylistService {
             );
             
             JsonNode jsonNode = objectMapper.readTree(response.getBody());
-            return PlaylistDto.builder()
-                    .id(jsonNode.get("id").asLong())
-                    .name(jsonNode.get("name").asText())
-                    .description(jsonNode.has("description") ? jsonNode.get("description").asText() : null)
-                    .userId(jsonNode.get("user_id").asText())
-                    .userName(jsonNode.has("user_name") ? jsonNode.get("user_name").asText() : "")
-                    .createdAt(LocalDateTime.parse(jsonNode.get("created_at").asText(), DateTimeFormatter.ISO_DATE_TIME))
-                    .updatedAt(LocalDateTime.parse(jsonNode.get("updated_at").asText(), DateTimeFormatter.ISO_DATE_TIME))
-                    .build();
+            // PostgREST answers an insert with return=representation as a one-element array
+            JsonNode row = jsonNode.isArray() ? jsonNode.get(0) : jsonNode;
+            PlaylistDto playlist = SupabaseRows.toPlaylistDto(row);
+            
+            SupabaseReplica replica = replicaProvider.getIfAvailable();
+            if (replica != null) {
+                replica.applyLocalWrite("playlists", row);
+            }
+            
+            eventPublisher.publishEvent(new PlaylistChangedEvent(supabaseId, playlist.getId(), PlaylistChangedEvent.Type.CREATED));
+            return playlist;
             
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Error processing JSON", e);
@@ -128,6 +197,7 @@ public class PlaylistService {
     /**
      * Update a playlist
      */
+    @CacheEvict(cacheNames = CacheConfig.PLAYLISTS, key = "#supabaseId")
     public PlaylistDto updatePlaylist(String supabaseId, Long playlistId, String name, String description) {
         try {
             // First check if the playlist exists and belongs to the user
@@ -154,6 +224,8 @@ public class PlaylistService {
                 String.class
             );
             
+            eventPublisher.publishEvent(new PlaylistChangedEvent(supabaseId, playlistId, PlaylistChangedEvent.Type.UPDATED));
+            
             // Get the updated playlist
             return getPlaylist(playlistId);
             
@@ -165,9 +237,10 @@ public class PlaylistService {
     /**
      * Delete a playlist
      */
+    @CacheEvict(cacheNames = CacheConfig.PLAYLISTS, key = "#supabaseId")
     public void deletePlaylist(String supabaseId, Long playlistId) {
-        // First check if the playlist exists and belongs to the user
-        verifyPlaylistOwnership(supabaseId, playlistId);
+        boolean smart = isSmart(verifyPlaylistOwnership(supabaseId, playlistId));
+        List<Long> trackIds = fetchPlaylistTrackIds(playlistId);
         
         HttpHeaders headers = createHeaders();
         HttpEntity<String> entity = new HttpEntity<>(headers);
@@ -179,6 +252,144 @@ public class PlaylistService {
             entity, 
             String.class
         );
+        
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica != null) {
+            replica.applyLocalDelete("playlists", objectMapper.createObjectNode().put("id", playlistId));
+        }
+        
+        if (smart) {
+            smartPlaylistService.unregister(playlistId);
+        }
+        
+        eventPublisher.publishEvent(new PlaylistChangedEvent(supabaseId, playlistId, PlaylistChangedEvent.Type.DELETED));
+        // A smart playlist's tracks follow from its rules, so they are not playlist edits
+        if (!smart && !trackIds.isEmpty()) {
+            eventPublisher.publishEvent(new PlaylistTracksChangedEvent(supabaseId, playlistId,
+                    PlaylistTracksChangedEvent.Type.REMOVED, trackIds, List.of()));
+        }
+    }
+    
+    /**
+     * Track ids of a playlist in playlist order, after checking that it belongs to the user
+     */
+    public List<Long> getPlaylistTrackIds(String supabaseId, Long playlistId) {
+        verifyPlaylistOwnership(supabaseId, playlistId);
+        return fetchPlaylistTrackIds(playlistId);
+    }
+    
+    private List<Long> fetchPlaylistTrackIds(Long playlistId) {
+        SupabaseReplica replica = readyReplica();
+        if (replica != null) {
+            return replica.findPlaylistTracks(playlistId).stream().map(row -> row.path("track_id").asLong()).toList();
+        }
+        
+        HttpHeaders headers = createHeaders();
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+        
+        String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/playlist_tracks?select=track_id&playlist_id=eq." + playlistId + "&order=position.asc";
+        ResponseEntity<String> response = restTemplate.exchange(
+            url, 
+            HttpMethod.GET, 
+            entity, 
+            String.class
+        );
+        
+        try {
+            List<Long> trackIds = new ArrayList<>();
+            for (JsonNode node : objectMapper.readTree(response.getBody())) {
+                trackIds.add(node.path("track_id").asLong());
+            }
+            return trackIds;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+    
+    /**
+     * Add one of the user's tracks to the end of a playlist
+     */
+    public void addTrack(String supabaseId, Long playlistId, Long trackId) {
+        requireStatic(verifyPlaylistOwnership(supabaseId, playlistId));
+        List<Long> trackIds = fetchPlaylistTrackIds(playlistId);
+        if (trackIds.contains(trackId)) {
+            throw new RuntimeException("Track is already in the playlist");
+        }
+        boolean owned = supabaseService.findTracks(List.of(trackId)).stream()
+                .anyMatch(track -> supabaseId.equals(track.path("user_id").asText()));
+        if (!owned) {
+            throw new RuntimeException("Track not found or not owned by user");
+        }
+        
+        try {
+            HttpHeaders headers = createHeaders();
+            
+            ObjectNode requestBody = objectMapper.createObjectNode();
+            requestBody.put("playlist_id", playlistId);
+            requestBody.put("track_id", trackId);
+            requestBody.put("position", trackIds.size());
+            
+            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
+            
+            String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/playlist_tracks";
+            ResponseEntity<String> response = restTemplate.exchange(
+                url, 
+                HttpMethod.POST, 
+                entity, 
+                String.class
+            );
+            
+            SupabaseReplica replica = replicaProvider.getIfAvailable();
+            if (replica != null) {
+                JsonNode jsonNode = objectMapper.readTree(response.getBody());
+                replica.applyLocalWrite("playlist_tracks", jsonNode.isArray() ? jsonNode.get(0) : jsonNode);
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+        
+        eventPublisher.publishEvent(new PlaylistChangedEvent(supabaseId, playlistId, PlaylistChangedEvent.Type.UPDATED));
+        eventPublisher.publishEvent(new PlaylistTracksChangedEvent(supabaseId, playlistId,
+                PlaylistTracksChangedEvent.Type.ADDED, List.of(trackId), trackIds));
+    }
+    
+    /**
+     * Remove a track from a playlist
+     */
+    public void removeTrack(String supabaseId, Long playlistId, Long trackId) {
+        requireStatic(verifyPlaylistOwnership(supabaseId, playlistId));
+        List<Long> trackIds = fetchPlaylistTrackIds(playlistId);
+        if (!trackIds.contains(trackId)) {
+            throw new RuntimeException("Track is not in the playlist");
+        }
+        
+        HttpHeaders headers = createHeaders();
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+        
+        String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/playlist_tracks?playlist_id=eq." + playlistId + "&track_id=eq." + trackId;
+        ResponseEntity<String> response = restTemplate.exchange(
+            url, 
+            HttpMethod.DELETE, 
+            entity, 
+            String.class
+        );
+        
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica != null) {
+            try {
+                // The deleted rows carry the id the replica keys playlist_tracks rows by
+                for (JsonNode row : objectMapper.readTree(response.getBody())) {
+                    replica.applyLocalDelete("playlist_tracks", row);
+                }
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Error processing JSON", e);
+            }
+        }
+        
+        List<Long> remaining = trackIds.stream().filter(id -> !Objects.equals(id, trackId)).toList();
+        eventPublisher.publishEvent(new PlaylistChangedEvent(supabaseId, playlistId, PlaylistChangedEvent.Type.UPDATED));
+        eventPublisher.publishEvent(new PlaylistTracksChangedEvent(supabaseId, playlistId,
+                PlaylistTracksChangedEvent.Type.REMOVED, List.of(trackId), remaining));
     }
     
     /**
@@ -200,15 +411,14 @@ public class PlaylistService {
             JsonNode jsonNode = objectMapper.readTree(response.getBody());
             if (jsonNode.isArray() && jsonNode.size() > 0) {
                 JsonNode node = jsonNode.get(0);
-                return PlaylistDto.builder()
-                        .id(node.get("id").asLong())
-                        .name(node.get("name").asText())
-                        .description(node.has("description") ? node.get("description").asText() : null)
-                        .userId(node.get("user_id").asText())
-                        .userName(node.has("user_name") ? node.get("user_name").asText() : "")
-                        .createdAt(LocalDateTime.parse(node.get("created_at").asText(), DateTimeFormatter.ISO_DATE_TIME))
-                        .updatedAt(LocalDateTime.parse(node.get("updated_at").asText(), DateTimeFormatter.ISO_DATE_TIME))
-                        .build();
+                
+                // Read after our own write, so this is at least as fresh as the replica
+                SupabaseReplica replica = replicaProvider.getIfAvailable();
+                if (replica != null) {
+                    replica.applyLocalWrite("playlists", node);
+                }
+                
+                return SupabaseRows.toPlaylistDto(node);
             }
             throw new RuntimeException("Playlist not found");
         } catch (JsonProcessingException e) {
@@ -218,8 +428,17 @@ public class PlaylistService {
     
     /**
      * Verify that a playlist exists and belongs to the user
+     *
+     * @return The playlists row
      */
-    private void verifyPlaylistOwnership(String supabaseId, Long playlistId) {
+    private JsonNode verifyPlaylistOwnership(String supabaseId, Long playlistId) {
+        SupabaseReplica replica = readyReplica();
+        if (replica != null) {
+            return replica.findPlaylist(playlistId)
+                    .filter(node -> supabaseId.equals(node.path("user_id").asText()))
+                    .orElseThrow(() -> new RuntimeException("Playlist not found or not owned by user"));
+        }
+        
         HttpHeaders headers = createHeaders();
         HttpEntity<String> entity = new HttpEntity<>(headers);
         
@@ -236,11 +455,33 @@ public class PlaylistService {
             if (!jsonNode.isArray() || jsonNode.size() == 0) {
                 throw new RuntimeException("Playlist not found or not owned by user");
             }
+            return jsonNode.get(0);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Error processing JSON", e);
         }
     }
     
+    private static boolean isSmart(JsonNode playlist) {
+        return playlist.path("rules").isObject();
+    }
+    
+    /**
+     * Smart playlists get their tracks from their rules only
+     */
+    private static void requireStatic(JsonNode playlist) {
+        if (isSmart(playlist)) {
+            throw new RuntimeException("The tracks of a smart playlist follow from its rules");
+        }
+    }
+    
+    /**
+     * The local replica if it is enabled and has finished its first reconciliation, otherwise null
+     */
+    private SupabaseReplica readyReplica() {
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        return replica != null && replica.isReady() ? replica : null;
+    }
+    
     /**
      * Create HTTP headers for Supabase API requests
      */
@@ -0,0 +1,212 @@
+package com.soundvaultpro.api.service;
+
+import com.soundvaultpro.api.cache.Invalidation;
+import com.soundvaultpro.api.cache.InvalidationBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact fingerprint of the last user_profiles row persisted for each user: one 64-bit hash per
+ * login-managed column plus the time it was recorded. Lets a login with unchanged data skip its
+ * upstream write, and a changed one send only the columns that differ.
+ *
+ * Fingerprints live in memory and are snapshotted to a local file, so a restart does not turn
+ * the next login of every user back into a full upsert. Recording or forgetting a fingerprint is
+ * broadcast on the invalidation bus, and other nodes forget theirs, so a login served by another
+ * replica cannot leave a stale fingerprint here. Broadcasts missed while a node was down are
+ * only covered by max-age-hours, which bounds how old a loaded fingerprint can be.
+ */
+@Component
+@Slf4j
+public class ProfileSnapshotStore {
+
+    private static final String[] COLUMNS = {"email", "name", "profile_picture"};
+    private static final int RECORDED_AT = COLUMNS.length;
+    private static final int FILE_VERSION = 1;
+    static final String REGION = "profile-snapshot";
+
+    @Value("${supabase.profile-snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${supabase.profile-snapshot.path:./data/profile-snapshot.bin}")
+    private String snapshotPath;
+
+    @Value("${supabase.profile-snapshot.max-age-hours:24}")
+    private long maxAgeHours;
+
+    private final Map<String, long[]> fingerprints = new ConcurrentHashMap<>();
+    private final InvalidationBus bus;
+    private final String origin = UUID.randomUUID().toString();
+    private volatile boolean dirty;
+
+    public ProfileSnapshotStore(InvalidationBus bus) {
+        this.bus = bus;
+        bus.subscribe(this::onInvalidation);
+    }
+
+    /**
+     * Compare login data with the last persisted fingerprint.
+     * A null value means the caller did not send that column, which is never a change.
+     *
+     * @return null if there is no usable fingerprint (a full upsert is needed),
+     *         otherwise the names of the columns that changed, possibly empty
+     */
+    public List<String> changedColumns(String supabaseId, String email, String name, String profilePicture) {
+        if (!enabled) {
+            return null;
+        }
+        long[] fingerprint = fingerprints.get(supabaseId);
+        if (fingerprint == null || System.currentTimeMillis() - fingerprint[RECORDED_AT] > maxAgeHours * 3_600_000L) {
+            return null;
+        }
+        String[] values = {email, name, profilePicture};
+        List<String> changed = new ArrayList<>(COLUMNS.length);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (values[i] != null && hash(values[i]) != fingerprint[i]) {
+                changed.add(COLUMNS[i]);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Record the values that were just written upstream; null columns keep their previous fingerprint
+     */
+    public void record(String supabaseId, String email, String name, String profilePicture) {
+        if (!enabled) {
+            return;
+        }
+        String[] values = {email, name, profilePicture};
+        fingerprints.compute(supabaseId, (id, previous) -> {
+            long[] fingerprint = new long[COLUMNS.length + 1];
+            for (int i = 0; i < COLUMNS.length; i++) {
+                fingerprint[i] = values[i] != null ? hash(values[i]) : previous != null ? previous[i] : 0L;
+            }
+            fingerprint[RECORDED_AT] = System.currentTimeMillis();
+            return fingerprint;
+        });
+        dirty = true;
+        bus.publish(new Invalidation(origin, REGION, supabaseId));
+    }
+
+    /**
+     * Drop a user's fingerprint, e.g. after a write of their row failed, so the next login upserts in full
+     */
+    public void forget(String supabaseId) {
+        drop(supabaseId);
+        if (enabled) {
+            bus.publish(new Invalidation(origin, REGION, supabaseId));
+        }
+    }
+
+    private void onInvalidation(Invalidation invalidation) {
+        if (!REGION.equals(invalidation.region()) || origin.equals(invalidation.origin())) {
+            return;
+        }
+        if (invalidation.key() == null) {
+            fingerprints.clear();
+            dirty = true;
+        } else {
+            drop(invalidation.key());
+        }
+    }
+
+    private void drop(String supabaseId) {
+        if (fingerprints.remove(supabaseId) != null) {
+            dirty = true;
+        }
+    }
+
+    public int size() {
+        return fingerprints.size();
+    }
+
+    @PostConstruct
+    public void load() {
+        Path path = Paths.get(snapshotPath);
+        if (!enabled || !Files.exists(path)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FILE_VERSION) {
+                log.warn("Ignoring profile snapshot {} written by another version", path);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String supabaseId = in.readUTF();
+                long[] fingerprint = new long[COLUMNS.length + 1];
+                for (int j = 0; j < fingerprint.length; j++) {
+                    fingerprint[j] = in.readLong();
+                }
+                fingerprints.put(supabaseId, fingerprint);
+            }
+            log.info("Loaded {} profile fingerprints from {}", count, path);
+        } catch (IOException e) {
+            log.warn("Could not load profile snapshot {}: {}", path, e.getMessage());
+            fingerprints.clear();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${supabase.profile-snapshot.save-interval-ms:60000}")
+    @PreDestroy
+    public void save() {
+        if (!enabled || !dirty) {
+            return;
+        }
+        dirty = false;
+        Path path = Paths.get(snapshotPath);
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Map<String, long[]> copy = Map.copyOf(fingerprints);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FILE_VERSION);
+                out.writeInt(copy.size());
+                for (Map.Entry<String, long[]> entry : copy.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    for (long value : entry.getValue()) {
+                        out.writeLong(value);
+                    }
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Could not save profile snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 code units
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
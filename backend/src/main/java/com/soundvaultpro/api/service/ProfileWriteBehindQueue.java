@@ -0,0 +1,447 @@
+package com.soundvaultpro.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.soundvaultpro.api.config.SupabaseConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind queue for user_profiles upserts.
+ *
+ * Rows are coalesced per user (later fields win) and flushed to PostgREST as array upserts
+ * once the batch size is reached or the flush interval elapses. Every accepted row is first
+ * appended to a local journal, so rows that were acknowledged to the caller but not yet
+ * flushed are replayed after a crash. The journal is fsynced on every append unless
+ * journal-fsync is turned off, in which case a power loss can drop acknowledged rows.
+ *
+ * Failed flushes back off exponentially. A batch that PostgREST rejects with a 4xx is split
+ * until the offending rows are isolated; those are logged and dropped so they cannot block
+ * the rest of the queue.
+ *
+ * Profile fingerprints are recorded in the {@link ProfileSnapshotStore} only once a row has been
+ * written, and forgotten for dropped rows, so a login is never skipped for a write that failed.
+ */
+@Component
+@ConditionalOnProperty(name = "supabase.write-behind.enabled", havingValue = "true")
+@Slf4j
+public class ProfileWriteBehindQueue {
+
+    private static final String FLUSHING_SUFFIX = ".flushing";
+
+    private final RestTemplate restTemplate;
+    private final SupabaseConfig supabaseConfig;
+    private final ObjectMapper objectMapper;
+    private final ProfileSnapshotStore profileSnapshotStore;
+
+    @Value("${supabase.write-behind.batch-size:100}")
+    private int batchSize;
+
+    @Value("${supabase.write-behind.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${supabase.write-behind.journal:./data/profile-writes.journal}")
+    private String journalPath;
+
+    @Value("${supabase.write-behind.journal-fsync:true}")
+    private boolean journalFsync;
+
+    @Value("${supabase.write-behind.retry-initial-ms:1000}")
+    private long retryInitialMs;
+
+    @Value("${supabase.write-behind.retry-max-ms:60000}")
+    private long retryMaxMs;
+
+    private final Map<String, ObjectNode> pending = new LinkedHashMap<>();
+    /** Rows of the batch being sent, by user; guarded by this */
+    private Map<String, ObjectNode> inFlight = Map.of();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "profile-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Path journal;
+    private FileChannel journalChannel;
+
+    /** Guarded by flushLock */
+    private int consecutiveFailures;
+    private long retryAt;
+
+    public ProfileWriteBehindQueue(RestTemplate restTemplate, SupabaseConfig supabaseConfig, ObjectMapper objectMapper,
+                                   ProfileSnapshotStore profileSnapshotStore) {
+        this.restTemplate = restTemplate;
+        this.supabaseConfig = supabaseConfig;
+        this.objectMapper = objectMapper;
+        this.profileSnapshotStore = profileSnapshotStore;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        journal = Paths.get(journalPath);
+        if (journal.getParent() != null) {
+            Files.createDirectories(journal.getParent());
+        }
+        synchronized (this) {
+            // A leftover ".flushing" file holds rows whose flush never completed; they are older than the journal
+            replay(flushingJournal());
+            replay(journal);
+            compactJournal();
+            journalChannel = openJournal();
+        }
+        if (!pending.isEmpty()) {
+            log.info("Replayed {} pending profile writes from {}", pending.size(), journal);
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Accept a user_profiles row (must contain "id") for a later batched upsert.
+     *
+     * @return false if the queue is full, in which case the caller should write synchronously
+     */
+    public boolean enqueue(ObjectNode row) {
+        boolean flushNow;
+        synchronized (this) {
+            String id = row.get("id").asText();
+            ObjectNode existing = pending.get(id);
+            if (existing == null && pending.size() >= maxPending) {
+                return false;
+            }
+            if (!appendToJournal(row)) {
+                return false;
+            }
+            if (existing != null) {
+                existing.setAll(row);
+            } else {
+                pending.put(id, row.deepCopy());
+            }
+            flushNow = pending.size() >= batchSize;
+        }
+        if (flushNow) {
+            flushExecutor.execute(this::flush);
+        }
+        return true;
+    }
+
+    /**
+     * Merge fields into a row that is still waiting to be flushed. A row that is being sent right
+     * now gets the fields in a full copy queued behind it, since a direct write could land before
+     * the upsert in flight and be overwritten by it.
+     *
+     * @return false if nothing is pending or in flight for the user
+     */
+    public boolean mergeIfPending(String supabaseId, ObjectNode fields) {
+        synchronized (this) {
+            ObjectNode existing = pending.get(supabaseId);
+            ObjectNode sending = existing == null ? inFlight.get(supabaseId) : null;
+            if (existing == null && sending == null) {
+                return false;
+            }
+            ObjectNode row = existing != null ? fields.deepCopy() : sending.deepCopy().setAll(fields);
+            row.put("id", supabaseId);
+            if (!appendToJournal(row)) {
+                return false;
+            }
+            if (existing != null) {
+                existing.setAll(row);
+            } else {
+                pending.put(supabaseId, row);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Get a copy of the row still waiting to be flushed for a user, or null
+     */
+    public synchronized ObjectNode pendingRow(String supabaseId) {
+        ObjectNode row = pending.get(supabaseId);
+        return row != null ? row.deepCopy() : null;
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Send everything that is pending. Runs on the time trigger, the size trigger and at shutdown.
+     */
+    @Scheduled(fixedDelayString = "${supabase.write-behind.flush-interval-ms:500}")
+    public void flush() {
+        flush(false);
+    }
+
+    /**
+     * @param force Whether to try even while backing off from a failed flush
+     */
+    private void flush(boolean force) {
+        flushLock.lock();
+        try {
+            if (!force && System.currentTimeMillis() < retryAt) {
+                return;
+            }
+            Map<String, ObjectNode> batch;
+            Path rolled;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                // Only once the journal holding these rows has been moved aside can they leave pending
+                rolled = rollJournal();
+                batch = new LinkedHashMap<>(pending);
+                pending.clear();
+                inFlight = Map.copyOf(batch);
+            }
+
+            int size = batch.size();
+            try {
+                send(batch);
+                consecutiveFailures = 0;
+                retryAt = 0;
+                log.debug("Flushed {} profile writes to Supabase", size);
+            } catch (Exception e) {
+                // 5xx, 408/429 and I/O errors; batch now holds only the rows that were not written
+                long delay = Math.min(retryMaxMs, retryInitialMs << Math.min(consecutiveFailures, 20));
+                consecutiveFailures++;
+                retryAt = System.currentTimeMillis() + delay;
+                log.warn("Profile write-behind flush of {} rows failed, retrying in {} ms: {}",
+                        batch.size(), delay, e.getMessage());
+                requeue(batch);
+            }
+            synchronized (this) {
+                inFlight = Map.of();
+            }
+
+            if (rolled != null) {
+                Files.deleteIfExists(rolled);
+            }
+        } catch (IOException e) {
+            log.error("Could not maintain profile write-behind journal: {}", e.getMessage(), e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(true);
+        synchronized (this) {
+            if (journalChannel != null) {
+                journalChannel.close();
+            }
+        }
+    }
+
+    /**
+     * PostgREST derives the column list of a bulk insert from its rows, so rows are grouped by
+     * their set of columns; a missing column would otherwise overwrite the stored value with NULL.
+     * Rows are removed from the batch as they are written or dropped.
+     */
+    private void send(Map<String, ObjectNode> batch) throws JsonProcessingException {
+        Map<TreeSet<String>, List<ObjectNode>> groups = new LinkedHashMap<>();
+        for (ObjectNode row : batch.values()) {
+            TreeSet<String> columns = new TreeSet<>();
+            row.fieldNames().forEachRemaining(columns::add);
+            groups.computeIfAbsent(columns, key -> new ArrayList<>()).add(row);
+        }
+
+        String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/user_profiles?on_conflict=id";
+        for (List<ObjectNode> group : groups.values()) {
+            for (int from = 0; from < group.size(); from += batchSize) {
+                upsert(url, group.subList(from, Math.min(from + batchSize, group.size())), batch);
+            }
+        }
+    }
+
+    /**
+     * Upsert rows, halving on a 4xx until the rejected rows are found and dropped. Errors worth
+     * retrying are thrown.
+     */
+    private void upsert(String url, List<ObjectNode> rows, Map<String, ObjectNode> batch) throws JsonProcessingException {
+        ArrayNode body = objectMapper.createArrayNode();
+        body.addAll(rows);
+        HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(body), createHeaders());
+        try {
+            restTemplate.exchange(url, HttpMethod.POST, entity, String.class);
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode().isSameCodeAs(HttpStatus.REQUEST_TIMEOUT)
+                    || e.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+                throw e;
+            }
+            if (rows.size() > 1) {
+                int half = rows.size() / 2;
+                upsert(url, rows.subList(0, half), batch);
+                upsert(url, rows.subList(half, rows.size()), batch);
+                return;
+            }
+            log.error("Dropping profile write rejected by Supabase with {}: {} {}",
+                    e.getStatusCode().value(), body, e.getResponseBodyAsString());
+            String id = rows.get(0).get("id").asText();
+            profileSnapshotStore.forget(id);
+            batch.remove(id);
+            return;
+        }
+        for (ObjectNode row : rows) {
+            String id = row.get("id").asText();
+            profileSnapshotStore.record(id, row.path("email").asText(null), row.path("name").asText(null),
+                    row.path("profile_picture").asText(null));
+            batch.remove(id);
+        }
+    }
+
+    /**
+     * Put a failed batch back without overwriting anything that was queued for the same user meanwhile
+     */
+    private synchronized void requeue(Map<String, ObjectNode> batch) {
+        Map<String, ObjectNode> newer = new LinkedHashMap<>(pending);
+        pending.clear();
+        for (Map.Entry<String, ObjectNode> entry : batch.entrySet()) {
+            ObjectNode row = entry.getValue();
+            ObjectNode newerRow = newer.remove(entry.getKey());
+            if (newerRow != null) {
+                row.setAll(newerRow);
+            }
+            pending.put(entry.getKey(), row);
+            appendToJournal(row);
+        }
+        pending.putAll(newer);
+    }
+
+    private Path flushingJournal() {
+        return journal.resolveSibling(journal.getFileName() + FLUSHING_SUFFIX);
+    }
+
+    /**
+     * Move the current journal aside so it can be deleted once its rows are flushed. If that
+     * fails the journal stays where it is, and is reopened for appends either way.
+     */
+    private Path rollJournal() throws IOException {
+        if (journalChannel == null) {
+            return null;
+        }
+        journalChannel.close();
+        try {
+            return Files.move(journal, flushingJournal(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            journalChannel = openJournal();
+        }
+    }
+
+    /**
+     * Rewrite the journal to hold exactly one coalesced line per pending user
+     */
+    private void compactJournal() throws IOException {
+        Path compacted = journal.resolveSibling(journal.getFileName() + ".tmp");
+        List<String> lines = new ArrayList<>(pending.size());
+        for (ObjectNode row : pending.values()) {
+            lines.add(objectMapper.writeValueAsString(row));
+        }
+        Files.write(compacted, lines, StandardCharsets.UTF_8);
+        Files.move(compacted, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(flushingJournal());
+    }
+
+    private FileChannel openJournal() throws IOException {
+        return FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private boolean appendToJournal(ObjectNode row) {
+        if (journalChannel == null) {
+            return true;
+        }
+        try {
+            ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(row) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                journalChannel.write(line);
+            }
+            if (journalFsync) {
+                journalChannel.force(false);
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("Could not append to profile write-behind journal: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void replay(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Iterator<String> lines = reader.lines().iterator();
+            while (lines.hasNext()) {
+                String line = lines.next();
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode row;
+                try {
+                    row = objectMapper.readTree(line);
+                } catch (JsonProcessingException e) {
+                    // A torn last line from a crash mid-write
+                    log.warn("Skipping unreadable journal line in {}", file);
+                    continue;
+                }
+                if (row instanceof ObjectNode objectRow && objectRow.hasNonNull("id")) {
+                    pending.merge(objectRow.get("id").asText(), objectRow, (older, newer) -> older.setAll(newer));
+                }
+            }
+        }
+    }
+
+    /**
+     * Create HTTP headers for Supabase bulk upserts
+     */
+    private HttpHeaders createHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("apikey", supabaseConfig.getSupabaseKey());
+        headers.set("Authorization", "Bearer " + supabaseConfig.getSupabaseKey());
+        headers.set("Content-Type", "application/json");
+        headers.set("Prefer", "resolution=merge-duplicates,return=minimal");
+        return headers;
+    }
+}
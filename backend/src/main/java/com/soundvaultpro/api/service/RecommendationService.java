@@ -0,0 +1,93 @@
+package com.soundvaultpro.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.soundvaultpro.api.recommend.RecommendationEngine;
+import com.soundvaultpro.api.recommend.SongKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Recommendations from the user's own library, ranked by how often songs share playlists across
+ * all users (see {@link RecommendationEngine})
+ */
+@Service
+@RequiredArgsConstructor
+public class RecommendationService {
+
+    private final RecommendationEngine recommendationEngine;
+    private final SupabaseService supabaseService;
+    private final PlaylistService playlistService;
+
+    /**
+     * The user's tracks most often found in playlists together with the given track, best first
+     */
+    public List<Map<String, Object>> findSimilarTracks(Long trackId, String supabaseId, int limit) {
+        List<JsonNode> library = supabaseService.findTracksByUser(supabaseId);
+        JsonNode track = library.stream()
+                .filter(row -> row.path("id").asLong() == trackId)
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Track not found or not owned by user"));
+        return rank(library, List.of(track), limit);
+    }
+
+    /**
+     * The user's tracks not in the playlist that most often share playlists with its tracks, best first
+     */
+    public List<Map<String, Object>> continuePlaylist(Long playlistId, String supabaseId, int limit) {
+        List<Long> trackIds = playlistService.getPlaylistTrackIds(supabaseId, playlistId);
+        List<JsonNode> library = supabaseService.findTracksByUser(supabaseId);
+        Map<Long, JsonNode> tracksById = new LinkedHashMap<>();
+        library.forEach(row -> tracksById.put(row.path("id").asLong(), row));
+        List<JsonNode> seeds = new ArrayList<>();
+        for (Long trackId : trackIds) {
+            JsonNode track = tracksById.get(trackId);
+            if (track != null) {
+                seeds.add(track);
+            }
+        }
+        return rank(library, seeds, limit);
+    }
+
+    /**
+     * Rank the library's songs other than the seeds', returning one track per song
+     */
+    private List<Map<String, Object>> rank(List<JsonNode> library, List<JsonNode> seeds, int limit) {
+        Set<Long> seedSongs = new LinkedHashSet<>();
+        seeds.forEach(track -> seedSongs.add(songKey(track)));
+        Map<Long, JsonNode> candidates = new LinkedHashMap<>();
+        for (JsonNode track : library) {
+            long song = songKey(track);
+            if (!seedSongs.contains(song)) {
+                candidates.putIfAbsent(song, track);
+            }
+        }
+        if (seedSongs.isEmpty() || candidates.isEmpty()) {
+            return List.of();
+        }
+
+        List<Map<String, Object>> tracks = new ArrayList<>();
+        for (RecommendationEngine.Recommendation recommendation : recommendationEngine.recommend(
+                seedSongs.stream().mapToLong(Long::longValue).toArray(),
+                candidates.keySet().stream().mapToLong(Long::longValue).toArray(), limit)) {
+            JsonNode track = candidates.get(recommendation.song());
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("trackId", track.path("id").asLong());
+            result.put("title", track.path("title").asText());
+            result.put("artist", track.path("artist").asText());
+            result.put("score", Math.round(recommendation.score() * 1000) / 1000.0);
+            tracks.add(result);
+        }
+        return tracks;
+    }
+
+    private static long songKey(JsonNode track) {
+        return SongKey.of(track.path("artist").asText(), track.path("title").asText());
+    }
+}
@@ -0,0 +1,395 @@
+package com.soundvaultpro.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.soundvaultpro.api.event.PlaylistChangedEvent;
+import com.soundvaultpro.api.plays.PlayHistoryService;
+import com.soundvaultpro.api.replica.ChangeEvent;
+import com.soundvaultpro.api.smart.SmartRules;
+import com.soundvaultpro.api.smart.SmartTrack;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps the entries of smart playlists in playlist_tracks in step with their rules, so reading a
+ * smart playlist is the same query as reading a static one.
+ *
+ * A smart playlist's rules are compiled into {@link SmartRules} once, when it is created or
+ * loaded. Creating one or changing its rules evaluates the owner's library in parallel and writes
+ * the difference in bulk. After that a track is only evaluated again when it changes: tracks rows
+ * from the replica's change feed as they arrive, and tracks played since the last
+ * smart-playlists.play-count-refresh-ms for owners with play count rules. Every
+ * smart-playlists.reconcile-interval-ms the owners' libraries are evaluated in full, which moves
+ * tracks through "added in the last N days" windows and picks up changes the feed did not
+ * deliver, e.g. with the replica disabled.
+ *
+ * Membership only changes on a single maintenance thread, so updates never race each other.
+ */
+@Service
+@Slf4j
+public class SmartPlaylistService {
+
+    private final SupabaseService supabaseService;
+    private final PlayHistoryService playHistoryService;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService maintainer;
+    private final Counter addedEntries;
+    private final Counter removedEntries;
+    /** Smart playlists by id */
+    private final Map<Long, SmartPlaylist> playlists = new ConcurrentHashMap<>();
+    /** Smart playlists by owner; the lists are replaced, never changed */
+    private final Map<String, List<SmartPlaylist>> byOwner = new ConcurrentHashMap<>();
+    /** Tracks played since the last refresh, by owner, for owners with play count rules */
+    private final Map<String, Set<Long>> played = new ConcurrentHashMap<>();
+
+    @Value("${smart-playlists.write-batch-size:500}")
+    private int writeBatchSize;
+
+    public SmartPlaylistService(SupabaseService supabaseService, PlayHistoryService playHistoryService,
+                                ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry) {
+        this.supabaseService = supabaseService;
+        this.playHistoryService = playHistoryService;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.maintainer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "smart-playlists");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.addedEntries = entryCounter(meterRegistry, "added");
+        this.removedEntries = entryCounter(meterRegistry, "removed");
+        Gauge.builder("smart.playlists", playlists, Map::size)
+                .description("Smart playlists being maintained")
+                .register(meterRegistry);
+        playHistoryService.addPlayListener(this::onPlay);
+    }
+
+    /**
+     * A smart playlist and the tracks in it; the fields other than id, owner and rules are only
+     * used on the maintenance thread
+     */
+    private static final class SmartPlaylist {
+        final long id;
+        final String owner;
+        final SmartRules rules;
+        final Set<Long> members = new HashSet<>();
+        int nextPosition;
+
+        SmartPlaylist(long id, String owner, SmartRules rules) {
+            this.id = id;
+            this.owner = owner;
+            this.rules = rules;
+        }
+    }
+
+    /**
+     * Compile a smart playlist's rules
+     *
+     * @throws IllegalArgumentException if they are malformed
+     */
+    public SmartRules compile(JsonNode rules) {
+        return SmartRules.compile(rules);
+    }
+
+    /**
+     * Start maintaining a smart playlist, or switch it to new rules, and bring its entries in line
+     * with them in one parallel pass over the owner's library
+     *
+     * @return The number of tracks in the playlist
+     */
+    public int register(String supabaseId, Long playlistId, SmartRules rules) {
+        return await(maintainer.submit(() -> {
+            SmartPlaylist playlist = load(playlistId, supabaseId, rules);
+            put(playlist);
+            evaluateLibrary(supabaseId, List.of(playlist));
+            return playlist.members.size();
+        }));
+    }
+
+    /**
+     * Stop maintaining a deleted smart playlist
+     */
+    public void unregister(Long playlistId) {
+        await(maintainer.submit(() -> remove(playlistId)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        execute(() -> {
+            long start = System.currentTimeMillis();
+            loadAll();
+            // Catch up with what changed while this node was down
+            evaluateAll();
+            log.info("Smart playlists loaded and evaluated: {} playlists in {} ms", playlists.size(),
+                    System.currentTimeMillis() - start);
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        maintainer.shutdownNow();
+    }
+
+    @EventListener
+    public void onChange(ChangeEvent event) {
+        if (!"tracks".equals(event.getTable())) {
+            return;
+        }
+        if (event.getType() == ChangeEvent.Type.DELETE) {
+            // The entries themselves went with the track, by ON DELETE CASCADE
+            long trackId = event.getOldRecord().path("id").asLong();
+            execute(() -> trackDeleted(trackId));
+        } else {
+            JsonNode row = event.getRecord();
+            execute(() -> evaluateTracks(row.path("user_id").asText(), List.of(row)));
+        }
+    }
+
+    /**
+     * Evaluate the tracks played since the last refresh against their owners' play count rules
+     */
+    @Scheduled(fixedDelayString = "${smart-playlists.play-count-refresh-ms:10000}")
+    public void refreshPlayCounts() {
+        for (String owner : played.keySet()) {
+            Set<Long> trackIds = played.remove(owner);
+            if (trackIds != null) {
+                execute(() -> evaluateTracks(owner, supabaseService.findLibraryTracks(trackIds)));
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${smart-playlists.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${smart-playlists.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        execute(this::evaluateAll);
+    }
+
+    private void onPlay(String supabaseId, long trackId) {
+        List<SmartPlaylist> owned = byOwner.get(supabaseId);
+        if (owned != null && usesPlayCount(owned)) {
+            // compute, so that a refresh taking the set away cannot lose the play
+            played.compute(supabaseId, (owner, trackIds) -> {
+                Set<Long> tracks = trackIds != null ? trackIds : new HashSet<>();
+                tracks.add(trackId);
+                return tracks;
+            });
+        }
+    }
+
+    private void loadAll() {
+        for (JsonNode row : supabaseService.findSmartPlaylists()) {
+            long playlistId = row.path("id").asLong();
+            try {
+                put(load(playlistId, row.path("user_id").asText(), SmartRules.compile(row.get("rules"))));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping smart playlist {} with invalid rules: {}", playlistId, e.getMessage());
+            }
+        }
+    }
+
+    private SmartPlaylist load(Long playlistId, String owner, SmartRules rules) {
+        SmartPlaylist playlist = new SmartPlaylist(playlistId, owner, rules);
+        for (JsonNode entry : supabaseService.findPlaylistEntries(playlistId)) {
+            playlist.members.add(entry.path("track_id").asLong());
+            playlist.nextPosition = Math.max(playlist.nextPosition, entry.path("position").asInt() + 1);
+        }
+        return playlist;
+    }
+
+    private void evaluateAll() {
+        for (Map.Entry<String, List<SmartPlaylist>> entry : byOwner.entrySet()) {
+            try {
+                evaluateLibrary(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                log.warn("Could not evaluate smart playlists of {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Evaluate the owner's whole library against some of their smart playlists, reading each
+     * track once and testing the tracks in parallel
+     */
+    private void evaluateLibrary(String owner, List<SmartPlaylist> targets) {
+        Map<Long, Integer> playCounts = usesPlayCount(targets) ? playHistoryService.playCounts(owner) : Map.of();
+        List<SmartTrack> library = supabaseService.findLibrary(owner).parallelStream()
+                .map(row -> SmartTrack.of(row, playCounts.getOrDefault(row.path("id").asLong(), 0)))
+                .toList();
+        for (SmartPlaylist playlist : targets) {
+            List<Long> matching = library.parallelStream()
+                    .filter(playlist.rules::test)
+                    .map(SmartTrack::id)
+                    .toList();
+            Set<Long> matchingIds = new HashSet<>(matching);
+            List<Long> added = matching.stream().filter(trackId -> !playlist.members.contains(trackId)).toList();
+            List<Long> removed = playlist.members.stream().filter(trackId -> !matchingIds.contains(trackId)).toList();
+            update(playlist, added, removed);
+        }
+    }
+
+    /**
+     * Evaluate changed tracks of an owner against each of their smart playlists
+     */
+    private void evaluateTracks(String owner, List<JsonNode> rows) {
+        List<SmartPlaylist> owned = byOwner.getOrDefault(owner, List.of());
+        if (owned.isEmpty()) {
+            return;
+        }
+        boolean countPlays = usesPlayCount(owned);
+        List<List<Long>> added = new ArrayList<>();
+        List<List<Long>> removed = new ArrayList<>();
+        for (int p = 0; p < owned.size(); p++) {
+            added.add(new ArrayList<>());
+            removed.add(new ArrayList<>());
+        }
+        for (JsonNode row : rows) {
+            if (!owner.equals(row.path("user_id").asText())) {
+                continue;
+            }
+            long trackId = row.path("id").asLong();
+            SmartTrack track = SmartTrack.of(row, countPlays ? playHistoryService.playCount(owner, trackId) : 0);
+            for (int p = 0; p < owned.size(); p++) {
+                SmartPlaylist playlist = owned.get(p);
+                boolean matches = playlist.rules.test(track);
+                if (matches != playlist.members.contains(trackId)) {
+                    (matches ? added : removed).get(p).add(trackId);
+                }
+            }
+        }
+        for (int p = 0; p < owned.size(); p++) {
+            update(owned.get(p), added.get(p), removed.get(p));
+        }
+    }
+
+    private void trackDeleted(long trackId) {
+        for (SmartPlaylist playlist : playlists.values()) {
+            if (playlist.members.remove(trackId)) {
+                removedEntries.increment();
+                eventPublisher.publishEvent(new PlaylistChangedEvent(playlist.owner, playlist.id,
+                        PlaylistChangedEvent.Type.UPDATED));
+            }
+        }
+    }
+
+    /**
+     * Write membership changes upstream in batches of smart-playlists.write-batch-size; new
+     * tracks go to the end of the playlist
+     */
+    private void update(SmartPlaylist playlist, List<Long> added, List<Long> removed) {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < removed.size(); from += writeBatchSize) {
+            List<Long> batch = removed.subList(from, Math.min(from + writeBatchSize, removed.size()));
+            supabaseService.deletePlaylistTracks(playlist.id, batch);
+            batch.forEach(playlist.members::remove);
+        }
+        for (int from = 0; from < added.size(); from += writeBatchSize) {
+            List<Long> batch = added.subList(from, Math.min(from + writeBatchSize, added.size()));
+            ArrayNode rows = objectMapper.createArrayNode();
+            for (Long trackId : batch) {
+                rows.addObject()
+                        .put("playlist_id", playlist.id)
+                        .put("track_id", trackId)
+                        .put("position", playlist.nextPosition++);
+            }
+            supabaseService.insertPlaylistTracks(rows);
+            playlist.members.addAll(batch);
+        }
+        addedEntries.increment(added.size());
+        removedEntries.increment(removed.size());
+        eventPublisher.publishEvent(new PlaylistChangedEvent(playlist.owner, playlist.id, PlaylistChangedEvent.Type.UPDATED));
+    }
+
+    private void put(SmartPlaylist playlist) {
+        playlists.put(playlist.id, playlist);
+        byOwner.compute(playlist.owner, (owner, owned) -> {
+            List<SmartPlaylist> updated = new ArrayList<>();
+            if (owned != null) {
+                owned.stream().filter(other -> other.id != playlist.id).forEach(updated::add);
+            }
+            updated.add(playlist);
+            return List.copyOf(updated);
+        });
+    }
+
+    private Void remove(Long playlistId) {
+        SmartPlaylist playlist = playlists.remove(playlistId);
+        if (playlist != null) {
+            byOwner.computeIfPresent(playlist.owner, (owner, owned) -> {
+                List<SmartPlaylist> updated = owned.stream().filter(other -> other.id != playlist.id).toList();
+                return updated.isEmpty() ? null : updated;
+            });
+        }
+        return null;
+    }
+
+    private static boolean usesPlayCount(List<SmartPlaylist> owned) {
+        for (SmartPlaylist playlist : owned) {
+            if (playlist.rules.usesPlayCount()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void execute(Runnable task) {
+        try {
+            maintainer.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    // The next reconciliation repairs whatever this left out
+                    log.warn("Smart playlist maintenance failed: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while updating smart playlist", e);
+        }
+    }
+
+    private static Counter entryCounter(MeterRegistry meterRegistry, String change) {
+        return Counter.builder("smart.playlist.entries")
+                .description("Smart playlist entries written upstream, by whether they were added or removed")
+                .tag("change", change)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,53 @@
+package com.soundvaultpro.api.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.dto.PlaylistDto;
+import com.soundvaultpro.api.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Mapping of Supabase table rows (as returned by PostgREST or Realtime) to DTOs
+ */
+public final class SupabaseRows {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> RULES_TYPE = new TypeReference<>() {
+    };
+
+    private SupabaseRows() {
+    }
+
+    /**
+     * Map a playlists row
+     */
+    public static PlaylistDto toPlaylistDto(JsonNode node) {
+        return PlaylistDto.builder()
+                .id(node.get("id").asLong())
+                .name(node.get("name").asText())
+                .description(node.has("description") ? node.get("description").asText() : null)
+                .userId(node.get("user_id").asText())
+                .userName(node.has("user_name") ? node.get("user_name").asText() : "")
+                .createdAt(LocalDateTime.parse(node.get("created_at").asText(), DateTimeFormatter.ISO_DATE_TIME))
+                .updatedAt(LocalDateTime.parse(node.get("updated_at").asText(), DateTimeFormatter.ISO_DATE_TIME))
+                .rules(node.path("rules").isObject() ? MAPPER.convertValue(node.get("rules"), RULES_TYPE) : null)
+                .build();
+    }
+
+    /**
+     * Map a user_profiles row
+     */
+    public static UserDto toUserDto(JsonNode userNode) {
+        return UserDto.builder()
+                .id(Long.parseLong(userNode.get("id").asText()))
+                .email(userNode.get("email").asText())
+                .name(userNode.get("name").asText())
+                .profilePicture(userNode.has("profile_picture") ? userNode.get("profile_picture").asText() : null)
+                .publicKey(userNode.has("public_key") ? userNode.get("public_key").asText() : null)
+                .build();
+    }
+}
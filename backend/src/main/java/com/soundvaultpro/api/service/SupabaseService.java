@@ -1,40 +1,100 @@
 package com.soundvaultpro.api.service;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.soundvaultpro.api.config.SupabaseConfig;
 import com.soundvaultpro.api.dto.UserDto;
+import com.soundvaultpro.api.replica.SupabaseReplica;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.Base64;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
 
 @Service
+@Slf4j
 public class SupabaseService {
 
+    private static final String TRACK_COLUMNS = "id,title,artist,user_id";
+    /** The tracks columns smart playlist rules look at */
+    private static final String LIBRARY_COLUMNS = "id,title,artist,album,genre,year,user_id,created_at";
+    private static final int PAGE_SIZE = 1000;
+
     private final RestTemplate restTemplate;
     private final SupabaseConfig supabaseConfig;
     private final ObjectMapper objectMapper;
+    private final ProfileWriteBehindQueue writeBehindQueue;
+    private final ProfileSnapshotStore profileSnapshotStore;
+    private final ObjectProvider<SupabaseReplica> replicaProvider;
+    private final Counter skippedProfileWrites;
+    private final Counter patchedProfileWrites;
+    private final Counter upsertedProfileWrites;
+    private final JwtParser jwtParser;
 
-    public SupabaseService(RestTemplate restTemplate, SupabaseConfig supabaseConfig, ObjectMapper objectMapper) {
+    public SupabaseService(RestTemplate restTemplate, SupabaseConfig supabaseConfig, ObjectMapper objectMapper,
+                           ObjectProvider<ProfileWriteBehindQueue> writeBehindQueue,
+                           ProfileSnapshotStore profileSnapshotStore, ObjectProvider<SupabaseReplica> replicaProvider,
+                           MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
         this.supabaseConfig = supabaseConfig;
         this.objectMapper = objectMapper;
+        this.writeBehindQueue = writeBehindQueue.getIfAvailable();
+        this.profileSnapshotStore = profileSnapshotStore;
+        this.replicaProvider = replicaProvider;
+        this.skippedProfileWrites = profileWriteCounter(meterRegistry, "skipped");
+        this.patchedProfileWrites = profileWriteCounter(meterRegistry, "patched");
+        this.upsertedProfileWrites = profileWriteCounter(meterRegistry, "upserted");
+        if (supabaseConfig.getJwtSecret() == null || supabaseConfig.getJwtSecret().isBlank()) {
+            log.warn("supabase.jwt-secret is not set; every bearer token will be rejected");
+            this.jwtParser = null;
+        } else {
+            this.jwtParser = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(supabaseConfig.getJwtSecret().getBytes(StandardCharsets.UTF_8)))
+                    .build();
+        }
+        Gauge.builder("supabase.profile.snapshot.size", profileSnapshotStore, ProfileSnapshotStore::size)
+                .description("Users with a profile fingerprint")
+                .register(meterRegistry);
     }
 
     /**
-     * Save user profile and encryption keys to Supabase
+     * Save user profile and encryption keys to Supabase.
+     * A login whose profile matches the last persisted fingerprint writes nothing, and one that
+     * differs only PATCHes the changed columns. With write-behind enabled the upsert is queued
+     * and this returns without waiting for Supabase; the queue records the fingerprint once the
+     * row is written.
+     *
+     * @return The profile, and whether anything was written or queued
      */
-    public UserDto saveUserProfile(String supabaseId, String email, String name, String profilePicture, 
+    public SavedProfile saveUserProfile(String supabaseId, String email, String name, String profilePicture, 
                                   String publicKey, String encryptedPrivateKey) {
         try {
             HttpHeaders headers = createHeaders();
@@ -56,36 +116,94 @@ public class SupabaseService {
                 requestBody.put("encrypted_private_key", encryptedPrivateKey);
             }
             
-            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
+            // Keys are not fingerprinted, so only login-only saves can be skipped or reduced
+            List<String> changedColumns = publicKey == null && encryptedPrivateKey == null
+                    ? profileSnapshotStore.changedColumns(supabaseId, email, name, profilePicture)
+                    : null;
             
-            // Upsert the user profile (insert if not exists, update if exists)
-            String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/user_profiles?on_conflict=id";
-            ResponseEntity<String> response = restTemplate.exchange(
-                url, 
-                HttpMethod.POST, 
-                entity, 
-                String.class
-            );
+            boolean written = true;
+            if (changedColumns != null && changedColumns.isEmpty()) {
+                skippedProfileWrites.increment();
+                written = false;
+            } else if (changedColumns != null) {
+                ObjectNode patchBody = objectMapper.createObjectNode();
+                for (String column : changedColumns) {
+                    patchBody.set(column, requestBody.get(column));
+                }
+                
+                if (writeBehindQueue == null || !writeBehindQueue.mergeIfPending(supabaseId, patchBody)) {
+                    HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(patchBody), headers);
+                    
+                    String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/user_profiles?id=eq." + supabaseId;
+                    restTemplate.exchange(
+                        url, 
+                        HttpMethod.PATCH, 
+                        entity, 
+                        String.class
+                    );
+                    applyToReplica(patchBody.deepCopy().put("id", supabaseId));
+                    profileSnapshotStore.record(supabaseId, email, name, profilePicture);
+                }
+                patchedProfileWrites.increment();
+            } else {
+                if (writeBehindQueue == null || !writeBehindQueue.enqueue(requestBody)) {
+                    HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
+                    
+                    // Upsert the user profile (insert if not exists, update if exists)
+                    String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/user_profiles?on_conflict=id";
+                    restTemplate.exchange(
+                        url, 
+                        HttpMethod.POST, 
+                        entity, 
+                        String.class
+                    );
+                    applyToReplica(requestBody);
+                    profileSnapshotStore.record(supabaseId, email, name, profilePicture);
+                }
+                upsertedProfileWrites.increment();
+            }
             
-            // Parse the response and return as UserDto
-            JsonNode jsonNode = objectMapper.readTree(response.getBody());
-            return UserDto.builder()
+            UserDto user = UserDto.builder()
                     .id(Long.parseLong(supabaseId))
                     .email(email)
                     .name(name)
                     .profilePicture(profilePicture)
                     .publicKey(publicKey)
                     .build();
+            return new SavedProfile(user, written);
             
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Error processing JSON", e);
         }
     }
+
+    public record SavedProfile(UserDto user, boolean written) {
+    }
     
     /**
-     * Get user profile from Supabase by supabaseId
+     * Get user profile from Supabase by supabaseId, including writes still queued for it
      */
     public UserDto getUserProfile(String supabaseId) {
+        ObjectNode pendingRow = writeBehindQueue != null ? writeBehindQueue.pendingRow(supabaseId) : null;
+        
+        JsonNode userNode;
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica != null && replica.isReady()) {
+            userNode = replica.findUserProfile(supabaseId).orElse(null);
+        } else {
+            userNode = fetchUserProfile(supabaseId);
+        }
+        
+        if (pendingRow != null) {
+            ObjectNode merged = userNode != null ? ((ObjectNode) userNode).deepCopy() : objectMapper.createObjectNode();
+            merged.setAll(pendingRow);
+            userNode = merged;
+        }
+        
+        return userNode != null ? SupabaseRows.toUserDto(userNode) : null;
+    }
+    
+    private JsonNode fetchUserProfile(String supabaseId) {
         HttpHeaders headers = createHeaders();
         HttpEntity<String> entity = new HttpEntity<>(headers);
         
@@ -99,17 +217,7 @@ public class SupabaseService {
         
         try {
             JsonNode jsonNode = objectMapper.readTree(response.getBody());
-            if (jsonNode.isArray() && jsonNode.size() > 0) {
-                JsonNode userNode = jsonNode.get(0);
-                return UserDto.builder()
-                        .id(Long.parseLong(userNode.get("id").asText()))
-                        .email(userNode.get("email").asText())
-                        .name(userNode.get("name").asText())
-                        .profilePicture(userNode.has("profile_picture") ? userNode.get("profile_picture").asText() : null)
-                        .publicKey(userNode.has("public_key") ? userNode.get("public_key").asText() : null)
-                        .build();
-            }
-            return null;
+            return jsonNode.isArray() && jsonNode.size() > 0 ? jsonNode.get(0) : null;
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Error processing JSON", e);
         }
@@ -126,6 +234,11 @@ public class SupabaseService {
             requestBody.put("public_key", publicKey);
             requestBody.put("encrypted_private_key", encryptedPrivateKey);
             
+            // Ride along with a profile upsert that is still queued for this user
+            if (writeBehindQueue != null && writeBehindQueue.mergeIfPending(supabaseId, requestBody)) {
+                return getUserProfile(supabaseId);
+            }
+            
             HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(requestBody), headers);
             
             // Update the user profile with the keys
@@ -136,6 +249,7 @@ public class SupabaseService {
                 entity, 
                 String.class
             );
+            applyToReplica(requestBody.put("id", supabaseId));
             
             // Get the updated user profile
             return getUserProfile(supabaseId);
@@ -145,6 +259,385 @@ public class SupabaseService {
         }
     }
     
+    /**
+     * Ids of the tracks on the same album as a track and owned by the same user, the track
+     * included; just the track itself when it has no album
+     */
+    public List<String> findAlbumTrackIds(String trackId) {
+        HttpEntity<String> entity = new HttpEntity<>(createHeaders());
+        try {
+            JsonNode rows = objectMapper.readTree(restTemplate.exchange(
+                    supabaseConfig.getSupabaseUrl() + "/rest/v1/tracks?select=user_id,album&id=eq." + trackId,
+                    HttpMethod.GET, entity, String.class).getBody());
+            if (!rows.isArray() || rows.isEmpty()) {
+                return List.of();
+            }
+            String album = rows.get(0).path("album").asText(null);
+            if (album == null || album.isBlank()) {
+                return List.of(trackId);
+            }
+            URI url = UriComponentsBuilder.fromHttpUrl(supabaseConfig.getSupabaseUrl() + "/rest/v1/tracks")
+                    .queryParam("select", "id")
+                    .queryParam("user_id", "eq." + rows.get(0).path("user_id").asText())
+                    .queryParam("album", "eq." + album)
+                    .build()
+                    .encode()
+                    .toUri();
+            List<String> trackIds = new ArrayList<>();
+            for (JsonNode row : objectMapper.readTree(restTemplate.exchange(url, HttpMethod.GET, entity, String.class).getBody())) {
+                trackIds.add(row.path("id").asText());
+            }
+            return trackIds;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    /**
+     * Whether the tracks row with this id exists and belongs to the user
+     */
+    public boolean isTrackOwner(String trackId, String supabaseId) {
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica != null && replica.isReady()) {
+            try {
+                return replica.findTrack(Long.parseLong(trackId))
+                        .filter(row -> supabaseId.equals(row.path("user_id").asText()))
+                        .isPresent();
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        URI url = UriComponentsBuilder.fromHttpUrl(supabaseConfig.getSupabaseUrl() + "/rest/v1/tracks")
+                .queryParam("select", "id")
+                .queryParam("id", "eq." + trackId)
+                .queryParam("user_id", "eq." + supabaseId)
+                .build()
+                .encode()
+                .toUri();
+        try {
+            JsonNode rows = objectMapper.readTree(restTemplate.exchange(url, HttpMethod.GET,
+                    new HttpEntity<>(createHeaders()), String.class).getBody());
+            return rows.isArray() && !rows.isEmpty();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    /**
+     * PATCH columns of a tracks row
+     */
+    public void updateTrack(String trackId, ObjectNode columns) {
+        try {
+            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(columns), createHeaders());
+            restTemplate.exchange(supabaseConfig.getSupabaseUrl() + "/rest/v1/tracks?id=eq." + trackId,
+                    HttpMethod.PATCH, entity, String.class);
+            applyToReplica("tracks", columns.deepCopy().put("id", trackId));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    /**
+     * A user's tracks with their id, title, artist and user_id
+     */
+    public List<JsonNode> findTracksByUser(String supabaseId) {
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica != null && replica.isReady()) {
+            return replica.findTracksByUser(supabaseId);
+        }
+        return fetchTracks(TRACK_COLUMNS, "user_id=eq." + supabaseId);
+    }
+
+    /**
+     * The tracks rows with the given ids that exist, with their id, title, artist and user_id
+     */
+    public List<JsonNode> findTracks(Collection<Long> trackIds) {
+        return findTracks(TRACK_COLUMNS, trackIds);
+    }
+
+    /**
+     * A user's tracks with the columns smart playlist rules look at
+     */
+    public List<JsonNode> findLibrary(String supabaseId) {
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica != null && replica.isReady()) {
+            return replica.findTracksByUser(supabaseId);
+        }
+        return fetchTracks(LIBRARY_COLUMNS, "user_id=eq." + supabaseId);
+    }
+
+    /**
+     * The tracks rows with the given ids that exist, with the columns smart playlist rules look at
+     */
+    public List<JsonNode> findLibraryTracks(Collection<Long> trackIds) {
+        return findTracks(LIBRARY_COLUMNS, trackIds);
+    }
+
+    /**
+     * One page of every playlist's entries as playlist_id with the entry's track title and artist,
+     * ordered by playlist. Smart playlists are left out, since their entries follow from rules
+     * rather than from anyone putting the songs together.
+     */
+    public JsonNode fetchPlaylistSongs(int offset, int limit) {
+        HttpEntity<String> entity = new HttpEntity<>(createHeaders());
+        String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/playlist_tracks?select=playlist_id,tracks(title,artist),playlists!inner(rules)"
+                + "&playlists.rules=is.null&order=playlist_id.asc,track_id.asc&limit=" + limit + "&offset=" + offset;
+        try {
+            return objectMapper.readTree(restTemplate.exchange(url, HttpMethod.GET, entity, String.class).getBody());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    /**
+     * Every smart playlist as id, user_id and rules
+     */
+    public List<JsonNode> findSmartPlaylists() {
+        return fetchPages("playlists?select=id,user_id,rules&rules=not.is.null&order=id.asc");
+    }
+
+    /**
+     * A playlist's playlist_tracks rows in playlist order
+     */
+    public List<JsonNode> findPlaylistEntries(Long playlistId) {
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica != null && replica.isReady()) {
+            return replica.findPlaylistTracks(playlistId);
+        }
+        return fetchPages("playlist_tracks?select=id,playlist_id,track_id,position&playlist_id=eq." + playlistId
+                + "&order=position.asc");
+    }
+
+    /**
+     * Insert playlist_tracks rows with a single request; rows for tracks already in their
+     * playlist are skipped
+     */
+    public void insertPlaylistTracks(ArrayNode rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            HttpHeaders headers = createHeaders();
+            headers.set("Prefer", "return=representation,resolution=ignore-duplicates");
+            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(rows), headers);
+            JsonNode inserted = objectMapper.readTree(restTemplate.exchange(
+                    supabaseConfig.getSupabaseUrl() + "/rest/v1/playlist_tracks?on_conflict=playlist_id,track_id",
+                    HttpMethod.POST, entity, String.class).getBody());
+            SupabaseReplica replica = replicaProvider.getIfAvailable();
+            if (replica != null && inserted.isArray()) {
+                inserted.forEach(row -> replica.applyLocalWrite("playlist_tracks", row));
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    /**
+     * Delete a playlist's entries for the given tracks with a single request
+     */
+    public void deletePlaylistTracks(Long playlistId, Collection<Long> trackIds) {
+        if (trackIds.isEmpty()) {
+            return;
+        }
+        StringJoiner ids = new StringJoiner(",", "track_id=in.(", ")");
+        trackIds.forEach(trackId -> ids.add(String.valueOf(trackId)));
+        HttpEntity<String> entity = new HttpEntity<>(createHeaders());
+        String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/playlist_tracks?playlist_id=eq." + playlistId + "&" + ids;
+        try {
+            JsonNode deleted = objectMapper.readTree(restTemplate.exchange(url, HttpMethod.DELETE, entity, String.class).getBody());
+            SupabaseReplica replica = replicaProvider.getIfAvailable();
+            if (replica != null && deleted.isArray()) {
+                // The deleted rows carry the id the replica keys playlist_tracks rows by
+                deleted.forEach(row -> replica.applyLocalDelete("playlist_tracks", row));
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    /**
+     * The encrypted storage refresh token held for a user, or null if there is none
+     */
+    public String findStorageCredential(String supabaseId) {
+        URI url = storageCredentialsUrl(supabaseId).queryParam("select", "refresh_token").build().encode().toUri();
+        try {
+            JsonNode rows = objectMapper.readTree(restTemplate.exchange(url, HttpMethod.GET,
+                    new HttpEntity<>(createHeaders()), String.class).getBody());
+            return rows.isArray() && !rows.isEmpty() ? rows.get(0).path("refresh_token").asText(null) : null;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    /**
+     * Store a user's encrypted storage refresh token, replacing any earlier one
+     */
+    public void saveStorageCredential(String supabaseId, String encryptedRefreshToken) {
+        ObjectNode row = objectMapper.createObjectNode()
+                .put("user_id", supabaseId)
+                .put("refresh_token", encryptedRefreshToken);
+        try {
+            HttpHeaders headers = createHeaders();
+            headers.set("Prefer", "resolution=merge-duplicates,return=minimal");
+            HttpEntity<String> entity = new HttpEntity<>(objectMapper.writeValueAsString(row), headers);
+            restTemplate.exchange(supabaseConfig.getSupabaseUrl() + "/rest/v1/storage_credentials?on_conflict=user_id",
+                    HttpMethod.POST, entity, String.class);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    /**
+     * Delete a user's storage refresh token
+     *
+     * @return Whether there was one
+     */
+    public boolean deleteStorageCredential(String supabaseId) {
+        URI url = storageCredentialsUrl(supabaseId).queryParam("select", "user_id").build().encode().toUri();
+        try {
+            JsonNode deleted = objectMapper.readTree(restTemplate.exchange(url, HttpMethod.DELETE,
+                    new HttpEntity<>(createHeaders()), String.class).getBody());
+            return deleted.isArray() && !deleted.isEmpty();
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    private UriComponentsBuilder storageCredentialsUrl(String supabaseId) {
+        return UriComponentsBuilder.fromHttpUrl(supabaseConfig.getSupabaseUrl() + "/rest/v1/storage_credentials")
+                .queryParam("user_id", "eq." + supabaseId);
+    }
+
+    /**
+     * Reads one row at a time
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void onRow(JsonNode row) throws IOException;
+    }
+
+    /**
+     * A PostgREST URL for the table, to add filters to with queryParam
+     */
+    public UriComponentsBuilder tableUrl(String table) {
+        return UriComponentsBuilder.fromHttpUrl(supabaseConfig.getSupabaseUrl() + "/rest/v1/" + table);
+    }
+
+    /**
+     * Hand every row of a PostgREST query to the handler, in the query's order. Pages are parsed
+     * as they are read, so only the current row is held in memory. The query's order must be total.
+     *
+     * @param query A {@link #tableUrl} with its filters; values are encoded here
+     * @return The number of rows
+     */
+    public long forEachRow(UriComponentsBuilder query, RowHandler handler) throws IOException {
+        HttpHeaders headers = createHeaders();
+        long total = 0;
+        try {
+            for (int offset = 0; ; offset += PAGE_SIZE) {
+                URI url = query.cloneBuilder()
+                        .replaceQueryParam("limit", PAGE_SIZE)
+                        .replaceQueryParam("offset", offset)
+                        .build()
+                        .encode()
+                        .toUri();
+                Integer rows = restTemplate.execute(url, HttpMethod.GET,
+                        request -> request.getHeaders().putAll(headers),
+                        response -> {
+                            int count = 0;
+                            try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                                    return 0;
+                                }
+                                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                    try {
+                                        handler.onRow(objectMapper.readTree(parser));
+                                    } catch (IOException e) {
+                                        // Not the response's fault; rethrown as is below
+                                        throw new UncheckedIOException(e);
+                                    }
+                                    count++;
+                                }
+                            }
+                            return count;
+                        });
+                total += rows != null ? rows : 0;
+                if (rows == null || rows < PAGE_SIZE) {
+                    return total;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<JsonNode> findTracks(String columns, Collection<Long> trackIds) {
+        if (trackIds.isEmpty()) {
+            return List.of();
+        }
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica != null && replica.isReady()) {
+            List<JsonNode> tracks = new ArrayList<>();
+            for (Long trackId : trackIds) {
+                replica.findTrack(trackId).ifPresent(tracks::add);
+            }
+            return tracks;
+        }
+        StringJoiner ids = new StringJoiner(",", "id=in.(", ")");
+        trackIds.forEach(trackId -> ids.add(String.valueOf(trackId)));
+        return fetchTracks(columns, ids.toString());
+    }
+
+    private List<JsonNode> fetchTracks(String columns, String filter) {
+        return fetchPages("tracks?select=" + columns + "&" + filter + "&order=id.asc");
+    }
+
+    /**
+     * All rows of a PostgREST query, fetched a page at a time so that the server's row limit
+     * does not cut the result short
+     */
+    private List<JsonNode> fetchPages(String query) {
+        HttpEntity<String> entity = new HttpEntity<>(createHeaders());
+        List<JsonNode> rows = new ArrayList<>();
+        try {
+            for (int offset = 0; ; offset += PAGE_SIZE) {
+                String url = supabaseConfig.getSupabaseUrl() + "/rest/v1/" + query + "&limit=" + PAGE_SIZE + "&offset=" + offset;
+                JsonNode page = objectMapper.readTree(restTemplate.exchange(url, HttpMethod.GET, entity, String.class).getBody());
+                if (!page.isArray()) {
+                    return rows;
+                }
+                page.forEach(rows::add);
+                if (page.size() < PAGE_SIZE) {
+                    return rows;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error processing JSON", e);
+        }
+    }
+
+    /**
+     * Write a row we just persisted through to the local replica, so our own reads see it
+     * before the Realtime echo arrives
+     */
+    private void applyToReplica(ObjectNode row) {
+        applyToReplica("user_profiles", row);
+    }
+
+    private void applyToReplica(String table, ObjectNode row) {
+        SupabaseReplica replica = replicaProvider.getIfAvailable();
+        if (replica != null) {
+            replica.applyLocalWrite(table, row);
+        }
+    }
+    
+    private static Counter profileWriteCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("supabase.profile.writes")
+                .description("Profile saves by the upstream write they needed")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+    
     /**
      * Create HTTP headers for Supabase API requests
      */
@@ -158,36 +651,18 @@ public class SupabaseService {
     }
     
     /**
-     * Validate a JWT token from Supabase
+     * Validate a JWT token from Supabase: its HS256 signature against supabase.jwt-secret and its expiry
      * @param token The JWT token to validate
      * @return Map containing the JWT claims if token is valid, null otherwise
      */
     public Map<String, Object> validateToken(String token) {
+        if (jwtParser == null) {
+            return null;
+        }
         try {
-            // Parse the token
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) {
-                return null;
-            }
-            
-            // Decode the payload
-            String payload = parts[1];
-            String decodedPayload = new String(Base64.getUrlDecoder().decode(payload));
-            Map<String, Object> claims = objectMapper.readValue(decodedPayload, Map.class);
-            
-            // TODO: Add proper JWT validation with JWK verification
-            // For now, just check if the token is expired
-            if (claims.containsKey("exp")) {
-                long expTime = ((Number) claims.get("exp")).longValue();
-                long currentTime = System.currentTimeMillis() / 1000;
-                
-                if (currentTime > expTime) {
-                    return null; // Token expired
-                }
-            }
-            
-            return claims;
-        } catch (Exception e) {
+            return jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected bearer token: {}", e.getMessage());
             return null;
         }
     }
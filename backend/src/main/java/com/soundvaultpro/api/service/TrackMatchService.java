@@ -0,0 +1,167 @@
+package com.soundvaultpro.api.service;
+
+import com.soundvaultpro.api.ingest.FingerprintIndex;
+import com.soundvaultpro.api.ingest.IngestJob;
+import com.soundvaultpro.api.ingest.IngestService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Matches ingested tracks to Genius songs and to each other by their acoustic fingerprints.
+ *
+ * A Genius song confirmed for one track applies to every track that is the same recording, so
+ * re-encodes and re-imports are matched exactly without a text search. Only when no such track
+ * exists are Genius search results ranked by how well their title and artist agree with the track's.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrackMatchService {
+
+    public static final String GENIUS_RESULT = "genius";
+
+    private static final double TITLE_WEIGHT = 0.6;
+    private static final double ARTIST_WEIGHT = 0.4;
+
+    private final IngestService ingestService;
+    private final FingerprintIndex fingerprintIndex;
+    private final GeniusService geniusService;
+
+    /**
+     * The user's other tracks that are the same recording
+     */
+    public List<Map<String, Object>> findSameRecording(String trackId, String supabaseId) throws IOException {
+        IngestJob media = mediaJob(trackId, supabaseId);
+        List<Map<String, Object>> matches = new ArrayList<>();
+        for (FingerprintIndex.Match match : fingerprintIndex.findSimilar(supabaseId, media.getTrackId())) {
+            if (!match.trackId().equals(trackId)) {
+                matches.add(match.toMap());
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * The Genius song of a track: the one confirmed for it or for the same recording, or ranked
+     * search candidates
+     *
+     * @param title The track's title, for the search (defaults to the uploaded file name)
+     * @param artist The track's artist, for the search (optional)
+     */
+    public Map<String, Object> matchGenius(String trackId, String supabaseId, String title, String artist)
+            throws IOException {
+        IngestJob job = ingestService.getJob(trackId)
+                .filter(j -> j.getSupabaseId().equals(supabaseId))
+                .orElseThrow(() -> new IllegalArgumentException("Track not found"));
+        Map<String, Object> match = new LinkedHashMap<>();
+
+        Optional<Object> confirmed = confirmedSong(job);
+        if (confirmed.isPresent()) {
+            match.put("source", "confirmed");
+            match.put("songId", confirmed.get());
+            return match;
+        }
+
+        IngestJob media = mediaJob(trackId, supabaseId);
+        Optional<Object> linkedConfirmed = media == job ? Optional.empty() : confirmedSong(media);
+        if (linkedConfirmed.isPresent()) {
+            match.put("source", "identical");
+            match.put("songId", linkedConfirmed.get());
+            match.put("matchedTrackId", media.getTrackId());
+            return match;
+        }
+        for (FingerprintIndex.Match similar : fingerprintIndex.findSimilar(supabaseId, media.getTrackId())) {
+            Optional<Object> song = ingestService.getJob(similar.trackId()).flatMap(TrackMatchService::confirmedSong);
+            if (song.isPresent()) {
+                match.put("source", "fingerprint");
+                match.put("songId", song.get());
+                match.put("matchedTrackId", similar.trackId());
+                match.put("similarity", similar.toMap().get("similarity"));
+                return match;
+            }
+        }
+
+        String searchTitle = StringUtils.hasText(title) ? title : StringUtils.stripFilenameExtension(
+                Optional.ofNullable(job.getSourceName()).orElse(""));
+        if (!StringUtils.hasText(searchTitle)) {
+            throw new IllegalArgumentException("A title is needed to search Genius");
+        }
+        String query = StringUtils.hasText(artist) ? searchTitle + " " + artist : searchTitle;
+        List<Map<String, Object>> candidates = new ArrayList<>();
+        for (Map<String, Object> song : geniusService.searchSongs(query)) {
+            Map<String, Object> candidate = new LinkedHashMap<>(song);
+            double score = TITLE_WEIGHT * overlap(searchTitle, (String) song.get("title"));
+            score += StringUtils.hasText(artist)
+                    ? ARTIST_WEIGHT * overlap(artist, (String) song.get("artist"))
+                    : ARTIST_WEIGHT * overlap(searchTitle, (String) song.get("artist"));
+            candidate.put("score", Math.round(score * 1000) / 1000.0);
+            candidates.add(candidate);
+        }
+        candidates.sort(Comparator.comparingDouble((Map<String, Object> c) -> (Double) c.get("score")).reversed());
+        match.put("source", "search");
+        match.put("candidates", candidates);
+        return match;
+    }
+
+    /**
+     * Record the Genius song the user picked for a track, which then also applies to the same recording
+     */
+    public void confirmGenius(String trackId, String supabaseId, int songId) throws IOException {
+        ingestService.recordResult(trackId, supabaseId, GENIUS_RESULT, Map.of("songId", songId));
+        log.debug("Track {} confirmed as Genius song {}", trackId, songId);
+    }
+
+    private IngestJob mediaJob(String trackId, String supabaseId) {
+        return ingestService.mediaJob(trackId, supabaseId)
+                .orElseThrow(() -> new IllegalArgumentException("Track not found"));
+    }
+
+    private static Optional<Object> confirmedSong(IngestJob job) {
+        return job.getResults().get(GENIUS_RESULT) instanceof Map<?, ?> genius
+                ? Optional.ofNullable(genius.get("songId"))
+                : Optional.empty();
+    }
+
+    /**
+     * Share of the words in either name that appear in both, ignoring case, punctuation and
+     * bracketed additions like "(Remastered)" or "[feat. ...]"
+     */
+    private static double overlap(String a, String b) {
+        Set<String> left = words(a);
+        Set<String> right = words(b);
+        if (left.isEmpty() || right.isEmpty()) {
+            return 0;
+        }
+        Set<String> union = new HashSet<>(left);
+        union.addAll(right);
+        left.retainAll(right);
+        return (double) left.size() / union.size();
+    }
+
+    private static Set<String> words(String name) {
+        if (name == null) {
+            return new HashSet<>();
+        }
+        String plain = name.toLowerCase(Locale.ROOT)
+                .replaceAll("[(\\[][^)\\]]*[)\\]]", " ")
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+        return plain.isEmpty() ? new HashSet<>()
+                : Arrays.stream(plain.split(" ")).collect(Collectors.toCollection(HashSet::new));
+    }
+}
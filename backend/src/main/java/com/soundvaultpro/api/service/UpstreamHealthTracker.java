@@ -0,0 +1,98 @@
+package com.soundvaultpro.api.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Error rate of each upstream host over the last minute, recorded by intercepting every
+ * RestTemplate call and by {@link AsyncUpstreamClient}. Server errors, 429s and I/O failures
+ * count as errors.
+ */
+@Component
+public class UpstreamHealthTracker implements ClientHttpRequestInterceptor {
+
+    private static final int BUCKETS = 6;
+    private static final long BUCKET_MILLIS = 10_000;
+
+    @Value("${upstream.health.min-samples:10}")
+    private int minSamples;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    /**
+     * Calls and errors in fixed 10 second buckets, so old failures age out even when no calls are made
+     */
+    private static final class Window {
+        final long[] slots = new long[BUCKETS];
+        final int[] calls = new int[BUCKETS];
+        final int[] errors = new int[BUCKETS];
+
+        synchronized void record(long now, boolean error) {
+            long slot = now / BUCKET_MILLIS;
+            int i = (int) (slot % BUCKETS);
+            if (slots[i] != slot) {
+                slots[i] = slot;
+                calls[i] = 0;
+                errors[i] = 0;
+            }
+            calls[i]++;
+            if (error) {
+                errors[i]++;
+            }
+        }
+
+        synchronized int[] totals(long now) {
+            long current = now / BUCKET_MILLIS;
+            int totalCalls = 0;
+            int totalErrors = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (current - slots[i] < BUCKETS) {
+                    totalCalls += calls[i];
+                    totalErrors += errors[i];
+                }
+            }
+            return new int[] {totalCalls, totalErrors};
+        }
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String host = request.getURI().getHost();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getStatusCode().value();
+            record(host, status >= 500 || status == 429);
+            return response;
+        } catch (IOException e) {
+            record(host, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Fraction of failed calls to {@code host} over the last minute, 0 until there are enough calls to judge
+     */
+    public double errorRate(String host) {
+        Window window = host != null ? windows.get(host) : null;
+        if (window == null) {
+            return 0;
+        }
+        int[] totals = window.totals(System.currentTimeMillis());
+        return totals[0] < minSamples ? 0 : (double) totals[1] / totals[0];
+    }
+
+    public void record(String host, boolean error) {
+        if (host != null) {
+            windows.computeIfAbsent(host, h -> new Window()).record(System.currentTimeMillis(), error);
+        }
+    }
+}
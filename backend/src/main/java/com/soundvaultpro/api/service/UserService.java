@@ -1,8 +1,13 @@
 package com.soundvaultpro.api.service;
 
+import com.soundvaultpro.api.config.CacheConfig;
 import com.soundvaultpro.api.dto.SupabaseAuthDto;
 import com.soundvaultpro.api.dto.UserDto;
+import com.soundvaultpro.api.event.UserProfileChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -10,9 +15,11 @@ import org.springframework.stereotype.Service;
 public class UserService {
     
     private final SupabaseService supabaseService;
+    private final ApplicationEventPublisher eventPublisher;
     
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#authDto.supabaseId")
     public UserDto registerOrUpdateUser(SupabaseAuthDto authDto) {
-        return supabaseService.saveUserProfile(
+        SupabaseService.SavedProfile saved = supabaseService.saveUserProfile(
             authDto.getSupabaseId(),
             authDto.getEmail(),
             authDto.getName(),
@@ -20,13 +27,23 @@ public class UserService {
             null,  // publicKey - not set during registration
             null   // encryptedPrivateKey - not set during registration
         );
+        // A login that matched the stored profile changed nothing
+        if (saved.written()) {
+            eventPublisher.publishEvent(new UserProfileChangedEvent(authDto.getSupabaseId()));
+        }
+        return saved.user();
     }
     
+    // Resolved by the auth filter on every authenticated request
+    @Cacheable(cacheNames = CacheConfig.PRINCIPALS, unless = "#result == null")
     public UserDto findBySupabaseId(String supabaseId) {
         return supabaseService.getUserProfile(supabaseId);
     }
     
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#supabaseId")
     public UserDto saveKeyPair(String supabaseId, String publicKey, String encryptedPrivateKey) {
-        return supabaseService.saveUserKeys(supabaseId, publicKey, encryptedPrivateKey);
+        UserDto userDto = supabaseService.saveUserKeys(supabaseId, publicKey, encryptedPrivateKey);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(supabaseId));
+        return userDto;
     }
 }
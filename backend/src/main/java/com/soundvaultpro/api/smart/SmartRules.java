@@ -0,0 +1,193 @@
+package com.soundvaultpro.api.smart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * The rules of a smart playlist, compiled once from their JSON form into predicates over
+ * {@link SmartTrack}s:
+ * <pre>
+ * {"match": "all" | "any",
+ *  "conditions": [{"field": "artist", "op": "contains", "value": "radiohead"},
+ *                 {"field": "year", "op": "between", "value": [1995, 2001]},
+ *                 {"field": "addedAt", "op": "inLast", "value": 30},
+ *                 {"field": "playCount", "op": "gte", "value": 5}]}
+ * </pre>
+ * Text fields (artist, title, album, genre) take is, isNot, contains, notContains, startsWith and
+ * in, case-insensitively. Number fields (year, playCount) take is, isNot, lt, lte, gt, gte and
+ * between (inclusive); a track without a year matches no year condition. addedAt takes before
+ * and after with an ISO-8601 date, and inLast and notInLast with a number of days.
+ */
+public final class SmartRules {
+
+    public static final int MAX_CONDITIONS = 20;
+
+    private final boolean matchAll;
+    private final Predicate<SmartTrack>[] conditions;
+    private final boolean usesPlayCount;
+    private final boolean timeRelative;
+
+    private SmartRules(boolean matchAll, Predicate<SmartTrack>[] conditions, boolean usesPlayCount, boolean timeRelative) {
+        this.matchAll = matchAll;
+        this.conditions = conditions;
+        this.usesPlayCount = usesPlayCount;
+        this.timeRelative = timeRelative;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the rules are malformed
+     */
+    @SuppressWarnings("unchecked")
+    public static SmartRules compile(JsonNode definition) {
+        if (definition == null || !definition.isObject()) {
+            throw new IllegalArgumentException("Rules must be an object");
+        }
+        String match = definition.path("match").asText("all");
+        if (!match.equals("all") && !match.equals("any")) {
+            throw new IllegalArgumentException("match must be all or any");
+        }
+        JsonNode list = definition.path("conditions");
+        if (!list.isArray() || list.isEmpty()) {
+            throw new IllegalArgumentException("At least one condition is required");
+        }
+        if (list.size() > MAX_CONDITIONS) {
+            throw new IllegalArgumentException("At most " + MAX_CONDITIONS + " conditions");
+        }
+
+        Predicate<SmartTrack>[] conditions = new Predicate[list.size()];
+        boolean usesPlayCount = false;
+        boolean timeRelative = false;
+        for (int i = 0; i < conditions.length; i++) {
+            JsonNode condition = list.get(i);
+            String field = condition.path("field").asText("");
+            String op = condition.path("op").asText("");
+            JsonNode value = condition.path("value");
+            try {
+                conditions[i] = switch (field) {
+                    case "artist" -> text(SmartTrack::artist, op, value);
+                    case "title" -> text(SmartTrack::title, op, value);
+                    case "album" -> text(SmartTrack::album, op, value);
+                    case "genre" -> text(SmartTrack::genre, op, value);
+                    case "year" -> number(SmartTrack::year, op, value);
+                    case "playCount" -> number(SmartTrack::playCount, op, value);
+                    case "addedAt" -> date(op, value);
+                    default -> throw new IllegalArgumentException("unknown field '" + field + "'");
+                };
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Condition " + i + ": " + e.getMessage());
+            }
+            usesPlayCount |= field.equals("playCount");
+            timeRelative |= op.equals("inLast") || op.equals("notInLast");
+        }
+        return new SmartRules(match.equals("all"), conditions, usesPlayCount, timeRelative);
+    }
+
+    public boolean test(SmartTrack track) {
+        for (Predicate<SmartTrack> condition : conditions) {
+            if (condition.test(track) != matchAll) {
+                return !matchAll;
+            }
+        }
+        return matchAll;
+    }
+
+    /**
+     * Whether the rules look at play counts, which then have to be looked up for every track
+     */
+    public boolean usesPlayCount() {
+        return usesPlayCount;
+    }
+
+    /**
+     * Whether membership can change by time passing alone, without the track changing
+     */
+    public boolean timeRelative() {
+        return timeRelative;
+    }
+
+    private static Predicate<SmartTrack> text(Function<SmartTrack, String> field, String op, JsonNode value) {
+        if (op.equals("in")) {
+            if (!value.isArray() || value.isEmpty()) {
+                throw new IllegalArgumentException("in needs a non-empty array");
+            }
+            Set<String> values = new HashSet<>();
+            value.forEach(item -> values.add(SmartTrack.normalize(item.asText())));
+            return track -> values.contains(field.apply(track));
+        }
+        if (!value.isTextual()) {
+            throw new IllegalArgumentException(op + " needs a string");
+        }
+        String text = SmartTrack.normalize(value.asText());
+        return switch (op) {
+            case "is" -> track -> field.apply(track).equals(text);
+            case "isNot" -> track -> !field.apply(track).equals(text);
+            case "contains" -> track -> field.apply(track).contains(text);
+            case "notContains" -> track -> !field.apply(track).contains(text);
+            case "startsWith" -> track -> field.apply(track).startsWith(text);
+            default -> throw new IllegalArgumentException("unknown text operator '" + op + "'");
+        };
+    }
+
+    private static Predicate<SmartTrack> number(ToIntFunction<SmartTrack> field, String op, JsonNode value) {
+        IntPredicate test;
+        if (op.equals("between")) {
+            if (!value.isArray() || value.size() != 2 || !isInt(value.get(0)) || !isInt(value.get(1))) {
+                throw new IllegalArgumentException("between needs two integers");
+            }
+            int low = value.get(0).asInt();
+            int high = value.get(1).asInt();
+            test = number -> number >= low && number <= high;
+        } else {
+            if (!isInt(value)) {
+                throw new IllegalArgumentException(op + " needs an integer");
+            }
+            int operand = value.asInt();
+            test = switch (op) {
+                case "is" -> number -> number == operand;
+                case "isNot" -> number -> number != operand;
+                case "lt" -> number -> number < operand;
+                case "lte" -> number -> number <= operand;
+                case "gt" -> number -> number > operand;
+                case "gte" -> number -> number >= operand;
+                default -> throw new IllegalArgumentException("unknown number operator '" + op + "'");
+            };
+        }
+        return track -> {
+            int number = field.applyAsInt(track);
+            return number != SmartTrack.UNKNOWN && test.test(number);
+        };
+    }
+
+    private static Predicate<SmartTrack> date(String op, JsonNode value) {
+        switch (op) {
+            case "before", "after" -> {
+                if (!value.isTextual()) {
+                    throw new IllegalArgumentException(op + " needs an ISO-8601 date");
+                }
+                long time = SmartTrack.parseTime(value.asText());
+                return op.equals("before") ? track -> track.addedAt() < time : track -> track.addedAt() > time;
+            }
+            case "inLast", "notInLast" -> {
+                if (!isInt(value) || value.asInt() <= 0) {
+                    throw new IllegalArgumentException(op + " needs a positive number of days");
+                }
+                long window = TimeUnit.DAYS.toMillis(value.asInt());
+                return op.equals("inLast")
+                        ? track -> track.addedAt() >= System.currentTimeMillis() - window
+                        : track -> track.addedAt() < System.currentTimeMillis() - window;
+            }
+            default -> throw new IllegalArgumentException("unknown date operator '" + op + "'");
+        }
+    }
+
+    private static boolean isInt(JsonNode value) {
+        return value != null && value.isIntegralNumber() && value.canConvertToInt();
+    }
+}
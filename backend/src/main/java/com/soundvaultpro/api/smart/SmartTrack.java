@@ -0,0 +1,87 @@
+package com.soundvaultpro.api.smart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+
+/**
+ * The fields of a tracks row that smart playlist rules look at, with text already lower-cased so
+ * that evaluating a rule allocates nothing
+ *
+ * @param year The release year, or {@link #UNKNOWN} when the row has none
+ * @param addedAt When the track was added, epoch millis
+ */
+public record SmartTrack(long id, String userId, String artist, String title, String album, String genre,
+                         int year, long addedAt, int playCount) {
+
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    /**
+     * Read a tracks row as returned by PostgREST or the replica
+     */
+    public static SmartTrack of(JsonNode row, int playCount) {
+        JsonNode year = row.path("year");
+        String createdAt = row.path("created_at").asText(null);
+        return new SmartTrack(
+                row.path("id").asLong(),
+                row.path("user_id").asText(),
+                normalize(row.path("artist").asText(null)),
+                normalize(row.path("title").asText(null)),
+                normalize(row.path("album").asText(null)),
+                normalize(row.path("genre").asText(null)),
+                parseYear(year),
+                createdAt != null ? parseTime(createdAt) : 0,
+                playCount);
+    }
+
+    /**
+     * year is an integer column in supabase_setup.sql but text in older schemas
+     */
+    private static int parseYear(JsonNode year) {
+        if (year.isNumber() && year.canConvertToInt()) {
+            return year.asInt();
+        }
+        if (year.isTextual()) {
+            String text = year.asText().trim();
+            // "1999" or a date such as "1999-05-01"
+            String digits = text.length() >= 4 ? text.substring(0, 4) : text;
+            if (digits.length() == 4 && digits.chars().allMatch(Character::isDigit)) {
+                return Integer.parseInt(digits);
+            }
+        }
+        return UNKNOWN;
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse an ISO-8601 date or date-time; times without an offset and plain dates are taken as UTC
+     *
+     * @return Epoch millis
+     * @throws IllegalArgumentException if the text is neither
+     */
+    static long parseTime(String text) {
+        try {
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(text, OffsetDateTime::from, LocalDateTime::from);
+            if (parsed instanceof OffsetDateTime offsetDateTime) {
+                return offsetDateTime.toInstant().toEpochMilli();
+            }
+            return ((LocalDateTime) parsed).toInstant(ZoneOffset.UTC).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            } catch (DateTimeParseException notADate) {
+                throw new IllegalArgumentException("Not an ISO-8601 date: " + text);
+            }
+        }
+    }
+}
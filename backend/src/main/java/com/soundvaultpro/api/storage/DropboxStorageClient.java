@@ -0,0 +1,72 @@
+package com.soundvaultpro.api.storage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.service.AsyncUpstreamClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Dropbox through its HTTP API. Dropbox has no batch endpoint for temporary links, so a batch is
+ * minted as concurrent get_temporary_link calls on the non-blocking client.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.provider", havingValue = "dropbox", matchIfMissing = true)
+public class DropboxStorageClient implements StorageClient {
+
+    private final AsyncUpstreamClient upstreamClient;
+    private final ObjectMapper objectMapper;
+
+    @Value("${storage.dropbox.app-key:}")
+    private String appKey;
+
+    @Value("${storage.dropbox.app-secret:}")
+    private String appSecret;
+
+    @Value("${storage.dropbox.token-url:https://api.dropbox.com/oauth2/token}")
+    private String tokenUrl;
+
+    @Value("${storage.dropbox.api-url:https://api.dropboxapi.com/2}")
+    private String apiUrl;
+
+    /** Dropbox does not say when a temporary link expires; it documents four hours */
+    @Value("${storage.dropbox.link-lifetime-seconds:14400}")
+    private long linkLifetimeSeconds;
+
+    public DropboxStorageClient(AsyncUpstreamClient upstreamClient, ObjectMapper objectMapper) {
+        this.upstreamClient = upstreamClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public CompletableFuture<AccessToken> refresh(String refreshToken) {
+        String basic = Base64.getEncoder().encodeToString((appKey + ":" + appSecret).getBytes(StandardCharsets.UTF_8));
+        long requestedAt = System.currentTimeMillis();
+        return upstreamClient.postForm(tokenUrl, Map.of(HttpHeaders.AUTHORIZATION, "Basic " + basic),
+                        Map.of("grant_type", "refresh_token", "refresh_token", refreshToken))
+                .thenApply(response -> new AccessToken(response.path("access_token").asText(),
+                        requestedAt + response.path("expires_in").asLong(14400) * 1000));
+    }
+
+    @Override
+    public CompletableFuture<StorageLink> mintLink(String accessToken, String path) {
+        long requestedAt = System.currentTimeMillis();
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(Map.of("path", path));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Error processing JSON", e));
+        }
+        return upstreamClient.postJson(apiUrl + "/files/get_temporary_link",
+                        Map.of(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken), body)
+                .thenApply(response -> new StorageLink(path, response.path("link").asText(),
+                        requestedAt + linkLifetimeSeconds * 1000));
+    }
+}
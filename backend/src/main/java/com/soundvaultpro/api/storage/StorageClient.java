@@ -0,0 +1,25 @@
+package com.soundvaultpro.api.storage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The storage provider holding users' audio files, called without blocking a thread
+ */
+public interface StorageClient {
+
+    /**
+     * A provider access token and when it stops being accepted, in epoch milliseconds
+     */
+    record AccessToken(String token, long expiresAt) {
+    }
+
+    /**
+     * Exchange a user's long-lived refresh token for a short-lived access token
+     */
+    CompletableFuture<AccessToken> refresh(String refreshToken);
+
+    /**
+     * Mint a temporary direct link to one file
+     */
+    CompletableFuture<StorageLink> mintLink(String accessToken, String path);
+}
@@ -0,0 +1,156 @@
+package com.soundvaultpro.api.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.soundvaultpro.api.cache.Invalidation;
+import com.soundvaultpro.api.cache.InvalidationBus;
+import com.soundvaultpro.api.service.SupabaseService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Users' storage refresh tokens, held by the server so clients never need provider credentials
+ * to play a track. Tokens are stored in the Supabase storage_credentials table, shared by every
+ * node, encrypted with AES-GCM under storage.credentials.encryption-key and bound to their user,
+ * so the table on its own reveals nothing. Each node caches decrypted tokens briefly; changes are
+ * broadcast on the invalidation bus so other nodes drop their copy and what they minted with it.
+ */
+@Component
+@Slf4j
+public class StorageCredentialStore {
+
+    static final String REGION = "storage-credentials";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SupabaseService supabaseService;
+    private final InvalidationBus bus;
+    private final SecretKeySpec key;
+    private final Cache<String, Optional<String>> cache;
+    private final String origin = UUID.randomUUID().toString();
+    private final SecureRandom random = new SecureRandom();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    public StorageCredentialStore(SupabaseService supabaseService, InvalidationBus bus,
+                                  @Value("${storage.credentials.encryption-key:}") String encryptionKey,
+                                  @Value("${storage.credentials.cache-ttl-seconds:60}") long cacheTtlSeconds,
+                                  @Value("${storage.links.max-cached:100000}") long maxCached) {
+        this.supabaseService = supabaseService;
+        this.bus = bus;
+        if (encryptionKey.isBlank()) {
+            log.warn("storage.credentials.encryption-key is not set; storage credentials cannot be stored or read");
+            this.key = null;
+        } else {
+            byte[] bytes = Base64.getDecoder().decode(encryptionKey);
+            if (bytes.length != 32) {
+                throw new IllegalArgumentException("storage.credentials.encryption-key must be 32 bytes, base64-encoded");
+            }
+            this.key = new SecretKeySpec(bytes, "AES");
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxCached)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+        bus.subscribe(this::onInvalidation);
+    }
+
+    public String refreshToken(String supabaseId) {
+        if (key == null) {
+            return null;
+        }
+        return cache.get(supabaseId, id -> Optional.ofNullable(supabaseService.findStorageCredential(id))
+                        .map(sealed -> open(id, sealed)))
+                .orElse(null);
+    }
+
+    /**
+     * Store a user's refresh token, replacing any earlier one
+     */
+    public void put(String supabaseId, String refreshToken) {
+        supabaseService.saveStorageCredential(supabaseId, seal(supabaseId, refreshToken));
+        changed(supabaseId);
+    }
+
+    /**
+     * Forget a user's refresh token
+     *
+     * @return Whether there was one
+     */
+    public boolean remove(String supabaseId) {
+        boolean removed = supabaseService.deleteStorageCredential(supabaseId);
+        changed(supabaseId);
+        return removed;
+    }
+
+    /**
+     * Call the listener with the user's Supabase ID whenever their credentials change on any node
+     */
+    public void onChange(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    private void changed(String supabaseId) {
+        cache.invalidate(supabaseId);
+        listeners.forEach(listener -> listener.accept(supabaseId));
+        bus.publish(new Invalidation(origin, REGION, supabaseId));
+    }
+
+    private void onInvalidation(Invalidation invalidation) {
+        if (!REGION.equals(invalidation.region()) || origin.equals(invalidation.origin())) {
+            return;
+        }
+        cache.invalidate(invalidation.key());
+        listeners.forEach(listener -> listener.accept(invalidation.key()));
+    }
+
+    private String seal(String supabaseId, String refreshToken) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+            byte[] sealed = cipher(Cipher.ENCRYPT_MODE, supabaseId, iv).doFinal(refreshToken.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(IV_BYTES + sealed.length).put(iv).put(sealed).array());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not encrypt storage credentials", e);
+        }
+    }
+
+    private String open(String supabaseId, String sealed) {
+        try {
+            byte[] bytes = Base64.getDecoder().decode(sealed);
+            Cipher cipher = cipher(Cipher.DECRYPT_MODE, supabaseId, Arrays.copyOf(bytes, IV_BYTES));
+            return new String(cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            // Another key, or a row copied from another user
+            log.warn("Could not decrypt storage credentials for {}: {}", supabaseId, e.getMessage());
+            return null;
+        }
+    }
+
+    private Cipher cipher(int mode, String supabaseId, byte[] iv) throws GeneralSecurityException {
+        if (key == null) {
+            throw new IllegalStateException("storage.credentials.encryption-key is not set");
+        }
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(mode, key, new GCMParameterSpec(TAG_BITS, iv));
+        // The user ID is authenticated with the token, so a ciphertext only opens for its own user
+        cipher.updateAAD(supabaseId.getBytes(StandardCharsets.UTF_8));
+        return cipher;
+    }
+}
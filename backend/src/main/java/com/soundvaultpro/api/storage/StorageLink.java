@@ -0,0 +1,9 @@
+package com.soundvaultpro.api.storage;
+
+/**
+ * A short-lived direct download link for a file in a user's storage
+ *
+ * @param expiresAt When the storage provider stops honouring the link, in epoch milliseconds
+ */
+public record StorageLink(String path, String url, long expiresAt) {
+}
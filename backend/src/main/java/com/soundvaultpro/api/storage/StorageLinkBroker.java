@@ -0,0 +1,236 @@
+package com.soundvaultpro.api.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.soundvaultpro.api.dto.PlayerEventDto;
+import com.soundvaultpro.api.dto.TrackRefDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mints direct download links to users' audio files with credentials held by the server.
+ *
+ * Links are cached until a margin before they expire, so a client that receives one always has
+ * that long to start playback. Concurrent requests for the same file share one mint, access
+ * tokens are refreshed only when they are about to expire, and player events mint links for the
+ * next queued tracks ahead of time, so starting a track usually takes one round-trip to this
+ * server and none to the storage provider.
+ */
+@Service
+@Slf4j
+public class StorageLinkBroker {
+
+    /** An access token this close to expiry is refreshed before use */
+    private static final long TOKEN_MARGIN_MS = 60_000;
+
+    private final StorageClient storageClient;
+    private final StorageCredentialStore credentialStore;
+    private final Cache<String, StorageLink> links;
+    private final Map<String, CompletableFuture<StorageLink>> minting = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<StorageClient.AccessToken>> tokens = new ConcurrentHashMap<>();
+    private final Counter cached;
+    private final Counter minted;
+    private final Counter failed;
+
+    @Value("${storage.links.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${storage.prefetch.enabled:true}")
+    private boolean prefetchEnabled;
+
+    @Value("${storage.prefetch.lookahead:3}")
+    private int lookahead;
+
+    public StorageLinkBroker(StorageClient storageClient, StorageCredentialStore credentialStore,
+                             MeterRegistry meterRegistry,
+                             @Value("${storage.links.refresh-margin-seconds:600}") long refreshMarginSeconds,
+                             @Value("${storage.links.max-cached:100000}") long maxCached) {
+        this.storageClient = storageClient;
+        this.credentialStore = credentialStore;
+        // Including changes made through other nodes
+        credentialStore.onChange(this::dropUser);
+        long marginMs = refreshMarginSeconds * 1000;
+        this.links = Caffeine.newBuilder()
+                .maximumSize(maxCached)
+                .expireAfter(new Expiry<String, StorageLink>() {
+                    @Override
+                    public long expireAfterCreate(String key, StorageLink link, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, link.expiresAt() - marginMs - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, StorageLink link, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, link, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, StorageLink link, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.cached = linkCounter(meterRegistry, "cached");
+        this.minted = linkCounter(meterRegistry, "minted");
+        this.failed = linkCounter(meterRegistry, "failed");
+        Gauge.builder("storage.links.cached", links, Cache::estimatedSize)
+                .description("Download links held until shortly before they expire")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hold a user's storage refresh token, dropping anything minted with an earlier one
+     */
+    public void connect(String supabaseId, String refreshToken) {
+        credentialStore.put(supabaseId, refreshToken);
+    }
+
+    /**
+     * Forget a user's storage credentials and the links minted with them
+     *
+     * @return Whether the user had credentials
+     */
+    public boolean disconnect(String supabaseId) {
+        return credentialStore.remove(supabaseId);
+    }
+
+    public boolean isConnected(String supabaseId) {
+        return credentialStore.refreshToken(supabaseId) != null;
+    }
+
+    /**
+     * Links for a batch of files, minting the ones not cached concurrently
+     *
+     * @return Links by path; paths that could not be minted are left out
+     * @throws IllegalArgumentException if the batch is larger than storage.links.max-batch-size
+     */
+    public CompletableFuture<Map<String, StorageLink>> links(String supabaseId, Collection<String> paths) {
+        if (paths.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " paths per request");
+        }
+        if (!isConnected(supabaseId)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("No storage credentials for this user"));
+        }
+        Map<String, CompletableFuture<StorageLink>> pending = new LinkedHashMap<>();
+        for (String path : new LinkedHashSet<>(paths)) {
+            pending.put(path, link(supabaseId, path).exceptionally(e -> null));
+        }
+        return CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new)).thenApply(done -> {
+            Map<String, StorageLink> result = new LinkedHashMap<>();
+            pending.forEach((path, link) -> {
+                if (link.join() != null) {
+                    result.put(path, link.join());
+                }
+            });
+            return result;
+        });
+    }
+
+    /**
+     * A link for one file, from the cache or shared with a mint already in progress when possible
+     */
+    public CompletableFuture<StorageLink> link(String supabaseId, String path) {
+        String key = supabaseId + '\n' + path;
+        StorageLink link = links.getIfPresent(key);
+        if (link != null) {
+            cached.increment();
+            return CompletableFuture.completedFuture(link);
+        }
+
+        CompletableFuture<StorageLink> created = new CompletableFuture<>();
+        CompletableFuture<StorageLink> existing = minting.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        accessToken(supabaseId)
+                .thenCompose(token -> storageClient.mintLink(token.token(), path))
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        links.put(key, result);
+                        minted.increment();
+                    } else {
+                        failed.increment();
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        if (cause instanceof RestClientResponseException response && response.getStatusCode().value() == 401) {
+                            // Revoked or expired early; the next call refreshes it
+                            tokens.remove(supabaseId);
+                        }
+                        log.debug("Could not mint a link to {} for {}: {}", path, supabaseId, cause.getMessage());
+                    }
+                    minting.remove(key, created);
+                    if (error == null) {
+                        created.complete(result);
+                    } else {
+                        created.completeExceptionally(error);
+                    }
+                });
+        return created;
+    }
+
+    /**
+     * Mint links for the playing track and the next queued ones, so they are cached when the
+     * client asks for them. The links are minted for the user authenticated for the request, never
+     * for the event's own supabaseId.
+     */
+    public void onPlayerEvent(String supabaseId, PlayerEventDto event) {
+        if (!prefetchEnabled || supabaseId == null || !isConnected(supabaseId)) {
+            return;
+        }
+        List<String> paths = new ArrayList<>();
+        if (event.getCurrent() != null && event.getCurrent().getPath() != null) {
+            paths.add(event.getCurrent().getPath());
+        }
+        if (event.getQueue() != null) {
+            for (TrackRefDto track : event.getQueue().subList(0, Math.min(lookahead, event.getQueue().size()))) {
+                if (track != null && track.getPath() != null) {
+                    paths.add(track.getPath());
+                }
+            }
+        }
+        if (!paths.isEmpty()) {
+            links(supabaseId, paths);
+        }
+    }
+
+    private CompletableFuture<StorageClient.AccessToken> accessToken(String supabaseId) {
+        return tokens.compute(supabaseId, (id, current) -> {
+            if (current != null && !current.isCompletedExceptionally()
+                    && (!current.isDone() || current.join().expiresAt() - TOKEN_MARGIN_MS > System.currentTimeMillis())) {
+                return current;
+            }
+            String refreshToken = credentialStore.refreshToken(id);
+            return refreshToken != null
+                    ? storageClient.refresh(refreshToken)
+                    : CompletableFuture.failedFuture(new IllegalStateException("No storage credentials for this user"));
+        });
+    }
+
+    private void dropUser(String supabaseId) {
+        tokens.remove(supabaseId);
+        links.asMap().keySet().removeIf(key -> key.startsWith(supabaseId + '\n'));
+    }
+
+    private static Counter linkCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("storage.links")
+                .description("Download link requests by whether they were served from cache")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
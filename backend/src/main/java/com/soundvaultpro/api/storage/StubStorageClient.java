@@ -0,0 +1,96 @@
+package com.soundvaultpro.api.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local storage for development and tests: files are read from a directory and served by
+ * /storage/stub/files, and links are signed with an HMAC so they expire like a provider's would.
+ * Any refresh token is accepted. An optional delay on every call stands in for provider latency.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.provider", havingValue = "stub")
+public class StubStorageClient implements StorageClient {
+
+    private final byte[] secret;
+    private final Path root;
+
+    @Value("${storage.stub.base-url:http://localhost:8080/api}")
+    private String baseUrl;
+
+    @Value("${storage.stub.link-lifetime-seconds:14400}")
+    private long linkLifetimeSeconds;
+
+    @Value("${storage.stub.token-lifetime-seconds:14400}")
+    private long tokenLifetimeSeconds;
+
+    @Value("${storage.stub.latency-ms:0}")
+    private long latencyMs;
+
+    public StubStorageClient(@Value("${storage.stub.dir:./data/storage}") String root,
+                             @Value("${storage.stub.secret:}") String secret) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        if (secret.isEmpty()) {
+            this.secret = new byte[32];
+            new SecureRandom().nextBytes(this.secret);
+        } else {
+            this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public CompletableFuture<AccessToken> refresh(String refreshToken) {
+        long expiresAt = System.currentTimeMillis() + tokenLifetimeSeconds * 1000;
+        return CompletableFuture.supplyAsync(() -> new AccessToken("stub-" + expiresAt, expiresAt), delayed());
+    }
+
+    @Override
+    public CompletableFuture<StorageLink> mintLink(String accessToken, String path) {
+        long expiresAt = System.currentTimeMillis() + linkLifetimeSeconds * 1000;
+        String url = baseUrl + "/storage/stub/files?path=" + URLEncoder.encode(path, StandardCharsets.UTF_8)
+                + "&expires=" + expiresAt + "&sig=" + sign(path, expiresAt);
+        return CompletableFuture.supplyAsync(() -> new StorageLink(path, url, expiresAt), delayed());
+    }
+
+    /**
+     * The file a link points to, or null if the link is forged, expired or leaves the storage directory
+     */
+    public Path resolve(String path, long expiresAt, String signature) {
+        if (expiresAt < System.currentTimeMillis() || signature == null
+                || !MessageDigest.isEqual(sign(path, expiresAt).getBytes(StandardCharsets.UTF_8),
+                        signature.getBytes(StandardCharsets.UTF_8))) {
+            return null;
+        }
+        Path file = root.resolve(path.startsWith("/") ? path.substring(1) : path).normalize();
+        return file.startsWith(root) ? file : null;
+    }
+
+    private String sign(String path, long expiresAt) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal((path + "\n" + expiresAt).getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+
+    private Executor delayed() {
+        return CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,39 @@
+package com.soundvaultpro.api.tracing;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Local exporter that writes each finished span as one DEBUG log line, for use without a collector
+ */
+@Slf4j
+public class LogSpanExporter implements SpanExporter {
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        if (log.isDebugEnabled()) {
+            for (SpanData span : spans) {
+                log.debug("span {} {} trace={} id={} parent={} duration={}ms status={}",
+                        span.getKind(), span.getName(), span.getTraceId(), span.getSpanId(), span.getParentSpanId(),
+                        String.format(Locale.ROOT, "%.3f", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0),
+                        span.getStatus().getStatusCode());
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+}
@@ -0,0 +1,61 @@
+package com.soundvaultpro.api.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stage durations of one traced request, rendered as a Server-Timing header. Stages with the
+ * same name (say, three calls to the same upstream) are summed into one metric.
+ */
+public class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+    public static final String ATTRIBUTE = ServerTiming.class.getName();
+
+    private static final int MAX_STAGES = 32;
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, long[]> stages = new LinkedHashMap<>();
+
+    synchronized void record(String stage, long nanos) {
+        long[] totals = stages.get(stage);
+        if (totals == null) {
+            if (stages.size() >= MAX_STAGES) {
+                return;
+            }
+            totals = new long[2];
+            stages.put(stage, totals);
+        }
+        totals[0] += nanos;
+        totals[1]++;
+    }
+
+    public synchronized String toHeader() {
+        StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, long[]> stage : stages.entrySet()) {
+            header.append(metricName(stage.getKey())).append(";dur=").append(millis(stage.getValue()[0]));
+            if (stage.getValue()[1] > 1) {
+                header.append(";desc=\"").append(stage.getValue()[1]).append(" calls\"");
+            }
+            header.append(", ");
+        }
+        return header.append("total;dur=").append(millis(System.nanoTime() - startNanos)).toString();
+    }
+
+    /**
+     * Server-Timing metric names are HTTP tokens, so spaces and separators become underscores
+     */
+    private static String metricName(String stage) {
+        StringBuilder name = new StringBuilder(stage.length());
+        for (int i = 0; i < stage.length(); i++) {
+            char c = stage.charAt(i);
+            name.append(Character.isLetterOrDigit(c) || "!#$%&'*+-.^_`|~".indexOf(c) >= 0 ? c : '_');
+        }
+        return name.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.soundvaultpro.api.tracing;
+
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feeds the duration of every ended stage span into the {@link ServerTiming} of the request
+ * whose trace it belongs to. Only sampled spans reach a span processor.
+ *
+ * Any caller can have a request sampled by sending a traceparent header, so by default stages
+ * are reported under coarse names only: auth, app for service methods and upstream for outbound
+ * calls. tracing.server-timing.detail reports each span by name (service methods, upstream hosts)
+ * for environments where the header is not visible to the public.
+ */
+@Component
+public class ServerTimingSpanProcessor implements SpanProcessor {
+
+    private final Map<String, ServerTiming> active = new ConcurrentHashMap<>();
+
+    @Value("${tracing.server-timing.detail:false}")
+    private boolean detail;
+
+    /**
+     * Start collecting stages for a trace, or null when another request already uses that trace id
+     */
+    public ServerTiming open(String traceId) {
+        ServerTiming timing = new ServerTiming();
+        return active.putIfAbsent(traceId, timing) == null ? timing : null;
+    }
+
+    public void close(String traceId, ServerTiming timing) {
+        active.remove(traceId, timing);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (span.getKind() == SpanKind.SERVER) {
+            return;
+        }
+        ServerTiming timing = active.get(span.getSpanContext().getTraceId());
+        if (timing != null) {
+            timing.record(detail ? span.getName() : stageOf(span), span.getLatencyNanos());
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    private static String stageOf(ReadableSpan span) {
+        if (span.getKind() == SpanKind.CLIENT) {
+            return "upstream";
+        }
+        return "auth".equals(span.getName()) ? "auth" : "app";
+    }
+}
@@ -0,0 +1,45 @@
+package com.soundvaultpro.api.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.Signature;
+import org.springframework.stereotype.Component;
+
+/**
+ * One span per public service method call, named Service.method
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceTracingAspect {
+
+    private final StageTracer stageTracer;
+
+    @Around("execution(public * com.soundvaultpro.api.service..*.*(..))"
+            + " && !within(com.soundvaultpro.api.service.UpstreamHealthTracker)"
+            + " && !within(com.soundvaultpro.api.service.AsyncUpstreamClient)")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!stageTracer.isSampling()) {
+            return joinPoint.proceed();
+        }
+
+        Signature signature = joinPoint.getSignature();
+        Span span = stageTracer.startStage(
+                signature.getDeclaringType().getSimpleName() + "." + signature.getName(), SpanKind.INTERNAL);
+        try (Scope ignored = span.makeCurrent()) {
+            return joinPoint.proceed();
+        } catch (Throwable t) {
+            span.recordException(t);
+            span.setStatus(StatusCode.ERROR);
+            throw t;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.soundvaultpro.api.tracing;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts spans for the stages of a traced request.
+ *
+ * Stages are only ever children of a sampled span, never roots of their own, so for requests
+ * that are not sampled (and for background jobs) the whole cost is one thread-local lookup.
+ */
+@Component
+public class StageTracer {
+
+    private final Tracer tracer;
+
+    public StageTracer(OpenTelemetry openTelemetry) {
+        this.tracer = openTelemetry.getTracer("com.soundvaultpro.api");
+    }
+
+    /**
+     * Whether the current thread is inside a sampled trace
+     */
+    public boolean isSampling() {
+        return Span.current().getSpanContext().isSampled();
+    }
+
+    /**
+     * Start a child of the current span, or return the no-op invalid span when not sampling
+     */
+    public Span startStage(String name, SpanKind kind) {
+        if (!isSampling()) {
+            return Span.getInvalid();
+        }
+        return tracer.spanBuilder(name).setSpanKind(kind).startSpan();
+    }
+}
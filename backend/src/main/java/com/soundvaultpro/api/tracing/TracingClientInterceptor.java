@@ -0,0 +1,53 @@
+package com.soundvaultpro.api.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * One client span per outbound RestTemplate call, named after the method and upstream host.
+ * The span ends when the response headers arrive; reading the body is part of the calling stage.
+ */
+@Component
+@RequiredArgsConstructor
+public class TracingClientInterceptor implements ClientHttpRequestInterceptor {
+
+    private final StageTracer stageTracer;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        if (!stageTracer.isSampling()) {
+            return execution.execute(request, body);
+        }
+
+        Span span = stageTracer.startStage(request.getMethod() + " " + request.getURI().getHost(), SpanKind.CLIENT);
+        span.setAttribute("http.request.method", request.getMethod().name());
+        span.setAttribute("server.address", request.getURI().getHost());
+        span.setAttribute("url.path", request.getURI().getPath());
+        try (Scope ignored = span.makeCurrent()) {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getStatusCode().value();
+            span.setAttribute("http.response.status_code", status);
+            if (status >= 500) {
+                span.setStatus(StatusCode.ERROR);
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
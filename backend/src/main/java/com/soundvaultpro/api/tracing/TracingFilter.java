@@ -0,0 +1,146 @@
+package com.soundvaultpro.api.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Opens the server span of each request, continuing the caller's trace when a sampled W3C
+ * traceparent header is sent, and collects the request's stages for the Server-Timing header.
+ *
+ * The header is normally added by {@link ServerTimingAdvice} just before the body is written;
+ * responses without a body get it here if they are not committed yet. Spans of async requests
+ * end when the async response completes.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    private static final TextMapGetter<HttpServletRequest> HEADERS = new TextMapGetter<>() {
+        @Override
+        public Iterable<String> keys(HttpServletRequest request) {
+            return Collections.list(request.getHeaderNames());
+        }
+
+        @Override
+        public String get(HttpServletRequest request, String key) {
+            return request == null ? null : request.getHeader(key);
+        }
+    };
+
+    private final Tracer tracer;
+    private final TextMapPropagator propagator;
+    private final ServerTimingSpanProcessor serverTiming;
+    private final List<String> excludePrefixes;
+
+    public TracingFilter(Tracer tracer, TextMapPropagator propagator, ServerTimingSpanProcessor serverTiming,
+                         List<String> excludePrefixes) {
+        this.tracer = tracer;
+        this.propagator = propagator;
+        this.serverTiming = serverTiming;
+        this.excludePrefixes = excludePrefixes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String prefix : excludePrefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Context parent = propagator.extract(Context.current(), request, HEADERS);
+        Span span = tracer.spanBuilder(request.getMethod())
+                .setParent(parent)
+                .setSpanKind(SpanKind.SERVER)
+                .startSpan();
+        if (!span.isRecording()) {
+            try (Scope ignored = span.makeCurrent()) {
+                filterChain.doFilter(request, response);
+            }
+            return;
+        }
+
+        span.setAttribute("http.request.method", request.getMethod());
+        span.setAttribute("url.path", request.getRequestURI());
+        String traceId = span.getSpanContext().getTraceId();
+        ServerTiming timing = serverTiming.open(traceId);
+        if (timing != null) {
+            request.setAttribute(ServerTiming.ATTRIBUTE, timing);
+        }
+
+        boolean async = false;
+        try (Scope ignored = span.makeCurrent()) {
+            filterChain.doFilter(request, response);
+            async = request.isAsyncStarted();
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR);
+            throw e;
+        } finally {
+            if (async) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        finish(request, (HttpServletResponse) event.getSuppliedResponse(), span, traceId, timing);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                finish(request, response, span, traceId, timing);
+            }
+        }
+    }
+
+    private void finish(HttpServletRequest request, HttpServletResponse response, Span span, String traceId,
+                        ServerTiming timing) {
+        // Name by route template rather than raw path, so span names stay low-cardinality
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route != null) {
+            span.updateName(request.getMethod() + " " + route);
+        }
+        span.setAttribute("http.response.status_code", response.getStatus());
+        if (response.getStatus() >= 500) {
+            span.setStatus(StatusCode.ERROR);
+        }
+        if (timing != null) {
+            if (!response.isCommitted() && !response.containsHeader(ServerTiming.HEADER)) {
+                response.setHeader(ServerTiming.HEADER, timing.toHeader());
+            }
+            serverTiming.close(traceId, timing);
+        }
+        span.end();
+    }
+}
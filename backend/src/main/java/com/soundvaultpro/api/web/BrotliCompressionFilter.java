@@ -0,0 +1,333 @@
+package com.soundvaultpro.api.web;
+
+import com.aayushatharva.brotli4j.encoder.BrotliOutputStream;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Brotli-compresses responses for clients that send "Accept-Encoding: br", with the same size
+ * threshold and MIME types as Tomcat's gzip compression. Tomcat only implements gzip and skips
+ * responses that already carry a Content-Encoding, so each response is encoded once.
+ *
+ * The body is buffered until it reaches the threshold; smaller bodies, other content types and
+ * partial or empty responses go out unchanged. Like {@link org.springframework.web.filter.ShallowEtagHeaderFilter},
+ * the wrapper is picked up again on async dispatch and finished only when the response is.
+ * A writer that switches to non-blocking I/O gets the container's stream with what was held
+ * back, uncompressed, since a compressed stream cannot report when it can take more.
+ */
+public class BrotliCompressionFilter extends OncePerRequestFilter {
+
+    private final int minSize;
+    private final List<MediaType> mimeTypes;
+    private final Encoder.Parameters parameters;
+
+    public BrotliCompressionFilter(int minSize, List<MediaType> mimeTypes, int quality) {
+        this.minSize = minSize;
+        this.mimeTypes = mimeTypes;
+        this.parameters = new Encoder.Parameters().setQuality(quality);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        BrotliResponse brotli = WebUtils.getNativeResponse(response, BrotliResponse.class);
+        if (brotli == null) {
+            if (!acceptsBrotli(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                chain.doFilter(request, response);
+                return;
+            }
+            brotli = new BrotliResponse(response);
+            response = brotli;
+        }
+        chain.doFilter(request, response);
+        if (!isAsyncStarted(request)) {
+            brotli.finish();
+        }
+    }
+
+    /**
+     * Whether an Accept-Encoding header lists br without q=0
+     */
+    static boolean acceptsBrotli(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("br")) {
+                for (int i = 1; i < parts.length; i++) {
+                    String param = parts[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(param.substring(2)) > 0;
+                        } catch (NumberFormatException e) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean compressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            return mimeTypes.stream().anyMatch(allowed -> allowed.includes(type));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Holds the body back until it is known whether it is worth compressing. Content-Length set
+     * by the application is held back too, and only passed on if the body goes out unchanged.
+     */
+    private final class BrotliResponse extends HttpServletResponseWrapper {
+
+        private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private OutputStream target;
+        private long contentLength = -1;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        BrotliResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            setContentLengthLong(len);
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            if (target == null) {
+                contentLength = len;
+            } else if (!(target instanceof BrotliOutputStream)) {
+                super.setContentLengthLong(len);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value != null ? Long.parseLong(value) : -1);
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(Long.parseLong(value));
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                setContentLengthLong(value);
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            if (outputStream == null) {
+                outputStream = new BrotliServletOutputStream();
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (outputStream != null && writer == null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            if (writer == null) {
+                String encoding = getCharacterEncoding();
+                Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+                outputStream = new BrotliServletOutputStream();
+                writer = new PrintWriter(new OutputStreamWriter(outputStream, charset));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            } else if (outputStream != null) {
+                outputStream.flush();
+            }
+            super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (target == null) {
+                pending.reset();
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            if (target == null) {
+                pending.reset();
+                contentLength = -1;
+            }
+            super.reset();
+        }
+
+        /**
+         * Decide now, with what has been written so far as the whole body if nothing follows
+         */
+        private void decide() throws IOException {
+            decide(true);
+        }
+
+        private void decide(boolean mayCompress) throws IOException {
+            int status = getStatus();
+            boolean compress = mayCompress
+                    && pending.size() >= minSize
+                    && status != HttpServletResponse.SC_PARTIAL_CONTENT
+                    && status != HttpServletResponse.SC_NO_CONTENT
+                    && status != HttpServletResponse.SC_NOT_MODIFIED
+                    && getHeader(HttpHeaders.CONTENT_ENCODING) == null
+                    && compressible(getContentType());
+            OutputStream raw = getResponse().getOutputStream();
+            if (compress) {
+                super.setHeader(HttpHeaders.CONTENT_ENCODING, "br");
+                super.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                String etag = getHeader(HttpHeaders.ETAG);
+                if (etag != null && !etag.startsWith("W/")) {
+                    // The encoded bytes differ from the identity representation the strong tag names
+                    super.setHeader(HttpHeaders.ETAG, "W/" + etag);
+                }
+                target = new BrotliOutputStream(raw, parameters);
+            } else {
+                if (contentLength >= 0) {
+                    super.setContentLengthLong(contentLength);
+                }
+                target = raw;
+            }
+            pending.writeTo(target);
+            pending = null;
+        }
+
+        private void write(byte[] b, int off, int len) throws IOException {
+            if (target == null) {
+                pending.write(b, off, len);
+                if (pending.size() >= minSize) {
+                    decide();
+                }
+            } else {
+                target.write(b, off, len);
+            }
+        }
+
+        private void flushTarget() throws IOException {
+            if (target == null) {
+                if (pending.size() == 0) {
+                    return;
+                }
+                decide();
+            }
+            target.flush();
+        }
+
+        void finish() throws IOException {
+            if (outputStream == null) {
+                // Nothing written through the wrapper, e.g. after sendError
+                if (contentLength >= 0) {
+                    super.setContentLengthLong(contentLength);
+                }
+                return;
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+            if (target == null) {
+                decide();
+            }
+            if (target instanceof BrotliOutputStream) {
+                target.close();
+            }
+        }
+
+        private final class BrotliServletOutputStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                BrotliResponse.this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                BrotliResponse.this.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                flushTarget();
+            }
+
+            @Override
+            public boolean isReady() {
+                return !(target instanceof ServletOutputStream raw) || raw.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                try {
+                    if (target == null) {
+                        decide(false);
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not write the buffered response", e);
+                }
+                if (!(target instanceof ServletOutputStream raw)) {
+                    throw new IllegalStateException("Non-blocking writes cannot follow compressed output");
+                }
+                raw.setWriteListener(listener);
+            }
+        }
+    }
+}
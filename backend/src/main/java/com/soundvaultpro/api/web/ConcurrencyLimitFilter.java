@@ -0,0 +1,163 @@
+package com.soundvaultpro.api.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.dto.ResponseDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sheds load per route group before a request reaches security or a controller.
+ *
+ * Requests are grouped by the first path segment (playlists, lyrics, genius, ...), each with its
+ * own {@link GradientConcurrencyLimit}, so a slow upstream only throttles the routes that call
+ * it. Groups are fixed at startup from the configured names; any other path shares the "other"
+ * group, so arbitrary URLs cannot create limiters or meters. Requests over the limit get an
+ * immediate 503 with Retry-After instead of a blocked Tomcat thread. Bypassed prefixes
+ * (health, auth, event streams) are never limited.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String OTHER = "other";
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final List<String> bypassPrefixes;
+    private final Settings settings;
+    private final Map<String, Group> groups;
+    private final Group other;
+
+    public record Settings(int initialLimit, int minLimit, int maxLimit, double smoothing,
+                           int shortWindow, int longWindow, int retryAfterSeconds) {
+    }
+
+    private record Group(GradientConcurrencyLimit limit, Counter rejected) {
+    }
+
+    public ConcurrencyLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                  List<String> bypassPrefixes, List<String> groupNames, Settings settings) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.bypassPrefixes = bypassPrefixes;
+        this.settings = settings;
+        Map<String, Group> groups = new HashMap<>();
+        for (String name : groupNames) {
+            groups.put(name, createGroup(name));
+        }
+        this.groups = Map.copyOf(groups);
+        this.other = createGroup(OTHER);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = pathOf(request);
+        for (String prefix : bypassPrefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Group group = groups.getOrDefault(groupOf(request), other);
+        if (!group.limit().tryAcquire()) {
+            group.rejected().increment();
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                // An async handler still holds its slot until the response is done
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(group.limit(), start));
+            } else {
+                group.limit().release(completed && response.getStatus() < 500 ? System.nanoTime() - start : -1);
+            }
+        }
+    }
+
+    /**
+     * Containers call onComplete after a timeout or error as well, so it is the one place to release
+     */
+    private record ReleaseOnCompletion(GradientConcurrencyLimit limit, long start) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            int status = ((HttpServletResponse) event.getSuppliedResponse()).getStatus();
+            limit.release(status < 500 ? System.nanoTime() - start : -1);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(settings.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ResponseDto.error("Server is busy, please retry"));
+    }
+
+    private Group createGroup(String name) {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(settings.initialLimit(), settings.minLimit(),
+                settings.maxLimit(), settings.smoothing(), settings.shortWindow(), settings.longWindow());
+        Gauge.builder("http.concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("group", name)
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.inflight", limit, GradientConcurrencyLimit::getInflight)
+                .description("Requests in progress")
+                .tag("group", name)
+                .register(meterRegistry);
+        Counter rejected = Counter.builder("http.concurrency.rejected")
+                .description("Requests shed with 503 by the concurrency limit")
+                .tag("group", name)
+                .register(meterRegistry);
+        return new Group(limit, rejected);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String groupOf(HttpServletRequest request) {
+        String path = pathOf(request);
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+}
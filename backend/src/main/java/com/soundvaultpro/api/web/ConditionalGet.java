@@ -0,0 +1,29 @@
+package com.soundvaultpro.api.web;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose successful responses carry an ETag and a Cache-Control policy.
+ * Repeated requests with a matching If-None-Match are answered with 304 before the handler runs,
+ * as long as the server still knows the ETag it last issued for that URL.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConditionalGet {
+
+    /**
+     * Cache-Control max-age in seconds. Zero means clients must revalidate on every use.
+     * Property placeholders such as "${http.cache.genius.max-age:86400}" are resolved.
+     */
+    String maxAge() default "0";
+
+    /**
+     * Whether shared caches (our CDN) may store the response, or only the user's own client
+     */
+    boolean shared() default false;
+}
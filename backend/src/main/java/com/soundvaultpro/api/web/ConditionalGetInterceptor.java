@@ -0,0 +1,109 @@
+package com.soundvaultpro.api.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers conditional GETs on {@link ConditionalGet} endpoints with 304 before the handler
+ * (and therefore any upstream call) runs, and hands the endpoint's cache policy to
+ * {@link ConditionalGetResponseAdvice} for the full response.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    static final String POLICY_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".policy";
+    static final String CACHE_KEY_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".cacheKey";
+    static final String OWNER_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".owner";
+
+    private final EntityTagRegistry entityTagRegistry;
+    private final Environment environment;
+
+    @Value("${http.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${http.cache.validator-ttl-seconds:60}")
+    private long validatorTtlSeconds;
+
+    private final Map<Method, Policy> policies = new ConcurrentHashMap<>();
+
+    record Policy(CacheControl cacheControl, Duration validatorTtl) {
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || !HttpMethod.GET.matches(request.getMethod()) || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        ConditionalGet conditionalGet = handlerMethod.getMethodAnnotation(ConditionalGet.class);
+        if (conditionalGet == null) {
+            return true;
+        }
+
+        Policy policy = policies.computeIfAbsent(handlerMethod.getMethod(), method -> resolvePolicy(conditionalGet));
+        String cacheKey = cacheKey(request);
+        request.setAttribute(POLICY_ATTRIBUTE, policy);
+        request.setAttribute(CACHE_KEY_ATTRIBUTE, cacheKey);
+        request.setAttribute(OWNER_ATTRIBUTE, owner(request));
+
+        String etag = entityTagRegistry.lookup(cacheKey);
+        if (etag != null && EntityTagRegistry.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, policy.cacheControl().getHeaderValue());
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            return false;
+        }
+        return true;
+    }
+
+    private Policy resolvePolicy(ConditionalGet conditionalGet) {
+        long maxAge = Long.parseLong(environment.resolveRequiredPlaceholders(conditionalGet.maxAge()));
+        CacheControl cacheControl = maxAge > 0
+                ? CacheControl.maxAge(maxAge, TimeUnit.SECONDS)
+                : CacheControl.noCache();
+        cacheControl = conditionalGet.shared() ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+        return new Policy(cacheControl, Duration.ofSeconds(Math.max(maxAge, validatorTtlSeconds)));
+    }
+
+    /**
+     * The URL plus the Accept header, which picks the representation (JSON or CBOR) the ETag
+     * was issued for. Requests with the same Accept always negotiate the same representation.
+     */
+    private static String cacheKey(HttpServletRequest request) {
+        String query = request.getQueryString();
+        String url = query == null ? request.getRequestURI() : request.getRequestURI() + "?" + query;
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return url + "\n" + (accept == null ? "" : accept);
+    }
+
+    /**
+     * The user a resource belongs to, by this API's convention of naming it "supabaseId"
+     * either in the path or in the query string
+     */
+    @SuppressWarnings("unchecked")
+    private static String owner(HttpServletRequest request) {
+        Map<String, String> pathVariables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (pathVariables != null && pathVariables.containsKey("supabaseId")) {
+            return pathVariables.get("supabaseId");
+        }
+        return request.getParameter("supabaseId");
+    }
+}
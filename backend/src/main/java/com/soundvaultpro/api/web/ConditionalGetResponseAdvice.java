@@ -0,0 +1,119 @@
+package com.soundvaultpro.api.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.soundvaultpro.api.dto.ResponseDto;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Derives an ETag from the negotiated representation of successful {@link ConditionalGet}
+ * responses, applies the endpoint's Cache-Control policy and records the ETag for later
+ * conditional GETs.
+ *
+ * The tag hashes the media type together with the body as the selected encoding writes it, so
+ * JSON and CBOR of the same resource never share a validator, and responses vary on Accept. It is
+ * weak because gzip and Brotli are applied later without changing it; Tomcat also refuses to
+ * compress responses that carry a strong ETag.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+@Slf4j
+public class ConditionalGetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    private final EntityTagRegistry entityTagRegistry;
+    private final ObjectMapper objectMapper;
+    private final CBORMapper cborObjectMapper;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return returnType.hasMethodAnnotation(ConditionalGet.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)
+                || !(response instanceof ServletServerHttpResponse servletResponse)) {
+            return body;
+        }
+        HttpServletRequest httpRequest = servletRequest.getServletRequest();
+        HttpServletResponse httpResponse = servletResponse.getServletResponse();
+        ConditionalGetInterceptor.Policy policy =
+                (ConditionalGetInterceptor.Policy) httpRequest.getAttribute(ConditionalGetInterceptor.POLICY_ATTRIBUTE);
+        if (policy == null || body == null || httpResponse.getStatus() != HttpStatus.OK.value()) {
+            return body;
+        }
+        if (body instanceof ResponseDto<?> responseDto && !responseDto.isSuccess()) {
+            return body;
+        }
+
+        String etag;
+        try {
+            etag = contentHash(body, selectedContentType);
+        } catch (IOException e) {
+            log.warn("Could not derive ETag for {}: {}", httpRequest.getRequestURI(), e.getMessage());
+            return body;
+        }
+
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(etag);
+        headers.setCacheControl(policy.cacheControl());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        entityTagRegistry.remember(
+                (String) httpRequest.getAttribute(ConditionalGetInterceptor.CACHE_KEY_ATTRIBUTE),
+                (String) httpRequest.getAttribute(ConditionalGetInterceptor.OWNER_ATTRIBUTE),
+                etag,
+                policy.validatorTtl());
+
+        if (EntityTagRegistry.matches(httpRequest.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return null;
+        }
+        return body;
+    }
+
+    /**
+     * SHA-256 of the media type and the body as written in it, streamed through the digest
+     * without buffering the body
+     */
+    private String contentHash(Object body, MediaType contentType) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        boolean cbor = contentType != null && CBOR.includes(contentType);
+        digest.update((cbor ? CBOR : MediaType.APPLICATION_JSON).toString().getBytes(StandardCharsets.UTF_8));
+        try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            (cbor ? cborObjectMapper : objectMapper).writeValue(out, body);
+        }
+        byte[] hash = digest.digest();
+        return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash) + "\"";
+    }
+}
@@ -0,0 +1,129 @@
+package com.soundvaultpro.api.web;
+
+import com.soundvaultpro.api.cache.Invalidation;
+import com.soundvaultpro.api.cache.InvalidationBus;
+import com.soundvaultpro.api.event.PlaylistChangedEvent;
+import com.soundvaultpro.api.event.UserProfileChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the last ETag issued per request URL and representation so conditional GETs can be answered
+ * without calling Supabase, Genius or Musixmatch.
+ *
+ * Entries are owned by the Supabase user named in the URL (if any) and are dropped as soon as
+ * that user's profile or playlists change on any node, through the invalidation bus. Every
+ * entry also expires after its validator TTL, which bounds staleness for changes made outside
+ * this API.
+ */
+@Component
+@Slf4j
+public class EntityTagRegistry {
+
+    @Value("${http.cache.max-entries:10000}")
+    private int maxEntries;
+
+    private static final String REGION = "etags";
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final InvalidationBus invalidationBus;
+    private final String origin = UUID.randomUUID().toString();
+
+    public EntityTagRegistry(InvalidationBus invalidationBus) {
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(invalidation -> {
+            if (REGION.equals(invalidation.region()) && !origin.equals(invalidation.origin())) {
+                evictOwner(invalidation.key());
+            }
+        });
+    }
+
+    private record Entry(String etag, String owner, long expiresAt) {
+    }
+
+    /**
+     * Get the ETag last issued for a URL and representation, or null if it is unknown or expired
+     */
+    public String lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.etag();
+    }
+
+    /**
+     * Record the ETag issued for a URL and representation
+     */
+    public void remember(String key, String owner, String etag, Duration ttl) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            purgeExpired();
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(key, new Entry(etag, owner, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    /**
+     * Forget every ETag issued for resources of the given user
+     */
+    public void evictOwner(String owner) {
+        entries.values().removeIf(entry -> Objects.equals(entry.owner(), owner));
+    }
+
+    @EventListener
+    public void onPlaylistChanged(PlaylistChangedEvent event) {
+        evictOwnerEverywhere(event.getSupabaseId());
+    }
+
+    @EventListener
+    public void onUserProfileChanged(UserProfileChangedEvent event) {
+        evictOwnerEverywhere(event.getSupabaseId());
+    }
+
+    private void evictOwnerEverywhere(String owner) {
+        evictOwner(owner);
+        invalidationBus.publish(new Invalidation(origin, REGION, owner));
+    }
+
+    /**
+     * Check an If-None-Match header against an ETag using the weak comparison RFC 9110 prescribes
+     * for GET, so ETags weakened by response compression still match
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String opaqueTag = stripWeakPrefix(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeakPrefix(trimmed).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAt() < now);
+        log.debug("ETag registry purged, {} entries remain", entries.size());
+    }
+}
@@ -0,0 +1,95 @@
+package com.soundvaultpro.api.web;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to latency, after the gradient algorithm of Netflix's
+ * concurrency-limits.
+ *
+ * A slow moving average of request latency serves as the baseline and a fast one as the current
+ * latency. While the two agree the limit grows by roughly its square root per sample; when
+ * current latency rises above the baseline the limit shrinks by their ratio, so requests queue
+ * upstream of the work instead of piling into blocked threads.
+ */
+public class GradientConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double shortAlpha;
+    private final double longAlpha;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double smoothing,
+                                    int shortWindow, int longWindow) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.shortAlpha = 2.0 / (shortWindow + 1);
+        this.longAlpha = 2.0 / (longWindow + 1);
+    }
+
+    /**
+     * Take a slot, returning false when the limit is reached
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back a slot. {@code rttNanos} is the request's latency, or a negative value when the
+     * request failed and its latency says nothing about load.
+     */
+    public void release(long rttNanos) {
+        int inflightAtEnd = inflight.getAndDecrement();
+        if (rttNanos >= 0) {
+            onSample(rttNanos, inflightAtEnd);
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inflightAtEnd) {
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += shortAlpha * (rttNanos - shortRttNanos);
+        longRttNanos += longAlpha * (rttNanos - longRttNanos);
+
+        // Let the baseline recover quickly once a slow period is over
+        if (longRttNanos > 2 * shortRttNanos) {
+            longRttNanos = 2 * shortRttNanos;
+        }
+
+        double current = limit;
+        // Only probe upwards when the limit is actually being used
+        if (inflightAtEnd < current / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, longRttNanos / shortRttNanos));
+        double target = current * gradient + Math.sqrt(current);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+}
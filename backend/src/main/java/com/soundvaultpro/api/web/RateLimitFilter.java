@@ -0,0 +1,124 @@
+package com.soundvaultpro.api.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.soundvaultpro.api.config.RateLimitProperties;
+import com.soundvaultpro.api.dto.ResponseDto;
+import com.soundvaultpro.api.security.AuthenticatedUser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Meters requests per client with token buckets from {@link TokenBucketStore}.
+ *
+ * Runs after the Spring Security chain, so signed-in users are metered by Supabase ID wherever they
+ * connect from and anonymous callers by remote address. Each response carries RateLimit-Limit,
+ * RateLimit-Remaining and RateLimit-Reset (seconds until the bucket is full again); a request
+ * with no token left gets 429 with Retry-After.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final TokenBucketStore store;
+    private final ObjectMapper objectMapper;
+    private final RateLimitProperties properties;
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(TokenBucketStore store, ObjectMapper objectMapper, RateLimitProperties properties,
+                           MeterRegistry meterRegistry) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("http.ratelimit.buckets", store, TokenBucketStore::size)
+                .description("Clients with a partly used rate limit bucket")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return matches(properties.getExclude(), pathOf(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RateLimitProperties.Tier tier = tierOf(pathOf(request));
+        if (tier == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        TokenBucketStore.Decision decision = store.tryConsume(clientOf(request), tier);
+        response.setHeader("RateLimit-Limit", String.valueOf(decision.limit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(decision.remaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(seconds(decision.resetMillis())));
+
+        if (!decision.allowed()) {
+            rejected.computeIfAbsent(tier.getName(), name -> Counter.builder("http.ratelimit.rejected")
+                    .description("Requests rejected with 429 by the rate limit")
+                    .tag("tier", name)
+                    .register(meterRegistry)).increment();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds(decision.retryAfterMillis())));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ResponseDto.error("Too many requests, please retry later"));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimitProperties.Tier tierOf(String path) {
+        for (RateLimitProperties.Tier tier : properties.getTiers()) {
+            if (matches(tier.getPaths(), path)) {
+                return tier;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The remote address is the client's own only behind proxies that server.forward-headers-strategy
+     * trusts; see application.properties
+     */
+    private static String clientOf(HttpServletRequest request) {
+        String supabaseId = AuthenticatedUser.supabaseId();
+        if (supabaseId != null) {
+            return "user:" + supabaseId;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static boolean matches(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (PATH_MATCHER.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long seconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
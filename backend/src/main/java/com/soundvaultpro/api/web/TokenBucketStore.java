@@ -0,0 +1,154 @@
+package com.soundvaultpro.api.web;
+
+import com.soundvaultpro.api.config.RateLimitProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets for many clients, one {@link AtomicLong} each.
+ *
+ * A bucket's whole state is packed into one long: the time of its last refill in the high 40
+ * bits (milliseconds since the store started) and its tokens in the low 24 bits, in 1/256ths of
+ * a token. Taking a token is a single compare-and-set, so there are no locks on the request
+ * path. A bucket that has been idle long enough to be full again behaves exactly like a new one,
+ * so a time wheel drops such buckets to keep the table small. Once the table holds max-keys
+ * buckets, clients without one share a single overflow bucket per tier until the wheel frees
+ * space, so a flood of new addresses is throttled together instead of let through.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class TokenBucketStore {
+
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long UNIT = 256;
+    private static final int WHEEL_SLOTS = 512;
+    private static final long TICK_MILLIS = 1000;
+    /** Client ids start with "user:" or "ip:", so this cannot name a real client */
+    private static final String OVERFLOW = "overflow";
+
+    public record Decision(boolean allowed, int limit, int remaining, long resetMillis, long retryAfterMillis) {
+    }
+
+    private record Expiry(String key, RateLimitProperties.Tier tier) {
+    }
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final long baseMillis = System.currentTimeMillis();
+    @SuppressWarnings("unchecked")
+    private final Queue<Expiry>[] wheel = new Queue[WHEEL_SLOTS];
+    private volatile long wheelTick;
+    private final int maxKeys;
+
+    public TokenBucketStore(RateLimitProperties properties) {
+        this.maxKeys = properties.getMaxKeys();
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        for (RateLimitProperties.Tier tier : properties.getTiers()) {
+            if ((long) tier.getCapacity() * UNIT > TOKEN_MASK || tier.getCapacity() < 1 || tier.getRefillPerMinute() < 1) {
+                throw new IllegalArgumentException("Rate limit tier " + tier.getName()
+                        + " needs a capacity between 1 and " + (TOKEN_MASK / UNIT) + " and a positive refill rate");
+            }
+        }
+    }
+
+    /**
+     * Take one token from the client's bucket for a tier
+     */
+    public Decision tryConsume(String client, RateLimitProperties.Tier tier) {
+        long now = System.currentTimeMillis() - baseMillis;
+        long capacityUnits = tier.getCapacity() * UNIT;
+        double unitsPerMilli = tier.getRefillPerMinute() * UNIT / 60_000.0;
+
+        String key = tier.getName() + '|' + client;
+        AtomicLong state = buckets.get(key);
+        if (state == null) {
+            if (buckets.size() >= maxKeys) {
+                key = tier.getName() + '|' + OVERFLOW;
+            }
+            state = buckets.computeIfAbsent(key, k -> {
+                schedule(new Expiry(k, tier), fullRefillMillis(tier));
+                return new AtomicLong(pack(now, capacityUnits));
+            });
+        }
+
+        while (true) {
+            long current = state.get();
+            long last = current >>> TOKEN_BITS;
+            long units = current & TOKEN_MASK;
+
+            long gained = (long) (Math.max(0, now - last) * unitsPerMilli);
+            long refilled = Math.min(capacityUnits, units + gained);
+            // Advance the refill time only by what was credited, so fractions of a token carry over
+            long refilledAt = refilled == capacityUnits ? now : last + (long) (gained / unitsPerMilli);
+
+            if (refilled < UNIT) {
+                long retryAfter = (long) Math.ceil((UNIT - refilled) / unitsPerMilli);
+                long reset = (long) Math.ceil((capacityUnits - refilled) / unitsPerMilli);
+                return new Decision(false, tier.getCapacity(), 0, reset, retryAfter);
+            }
+
+            long remaining = refilled - UNIT;
+            if (state.compareAndSet(current, pack(refilledAt, remaining))) {
+                long reset = (long) Math.ceil((capacityUnits - remaining) / unitsPerMilli);
+                return new Decision(true, tier.getCapacity(), (int) (remaining / UNIT), reset, 0);
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Visit the next wheel slot: drop buckets that are full again, reschedule the rest
+     */
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void advance() {
+        long tick = wheelTick;
+        Queue<Expiry> slot = wheel[(int) (tick % WHEEL_SLOTS)];
+        wheelTick = tick + 1;
+
+        long now = System.currentTimeMillis() - baseMillis;
+        Expiry expiry;
+        int due = slot.size();
+        for (int i = 0; i < due && (expiry = slot.poll()) != null; i++) {
+            AtomicLong state = buckets.get(expiry.key());
+            if (state == null) {
+                continue;
+            }
+            long current = state.get();
+            long last = current >>> TOKEN_BITS;
+            long missingUnits = expiry.tier().getCapacity() * UNIT - (current & TOKEN_MASK);
+            double unitsPerMilli = expiry.tier().getRefillPerMinute() * UNIT / 60_000.0;
+            long fullAt = last + (long) Math.ceil(missingUnits / unitsPerMilli);
+            if (fullAt <= now) {
+                // A token taken concurrently from the removed bucket is lost, which only favours the client
+                buckets.remove(expiry.key(), state);
+            } else {
+                schedule(expiry, fullAt - now);
+            }
+        }
+    }
+
+    private void schedule(Expiry expiry, long delayMillis) {
+        long ticks = Math.max(1, Math.min(WHEEL_SLOTS - 1, (delayMillis + TICK_MILLIS - 1) / TICK_MILLIS));
+        wheel[(int) ((wheelTick + ticks) % WHEEL_SLOTS)].add(expiry);
+    }
+
+    private static long fullRefillMillis(RateLimitProperties.Tier tier) {
+        return (long) Math.ceil(tier.getCapacity() * 60_000.0 / tier.getRefillPerMinute());
+    }
+
+    private static long pack(long millis, long units) {
+        return (millis << TOKEN_BITS) | units;
+    }
+}
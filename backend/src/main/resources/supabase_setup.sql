@@ -21,6 +21,9 @@ CREATE TABLE IF NOT EXISTS playlists (
   updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
 );
 
+-- Rules of smart playlists, maintained by the backend; null for static playlists
+ALTER TABLE playlists ADD COLUMN IF NOT EXISTS rules JSONB;
+
 -- Create tracks table
 CREATE TABLE IF NOT EXISTS tracks (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -36,6 +39,17 @@ CREATE TABLE IF NOT EXISTS tracks (
   updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
 );
 
+-- Loudness and ReplayGain 2.0 gains, written by the backend's ingest pipeline
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS loudness_lufs REAL;
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS replay_gain_track_db REAL;
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS replay_gain_album_db REAL;
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS sample_peak REAL;
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS album_peak REAL;
+
+-- Fields smart playlist rules can match on
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS genre TEXT;
+ALTER TABLE tracks ADD COLUMN IF NOT EXISTS year INTEGER;
+
 -- Create playlist_tracks junction table
 CREATE TABLE IF NOT EXISTS playlist_tracks (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -46,6 +60,13 @@ CREATE TABLE IF NOT EXISTS playlist_tracks (
   UNIQUE(playlist_id, track_id)
 );
 
+-- Storage refresh tokens held by the backend, AES-GCM encrypted with storage.credentials.encryption-key
+CREATE TABLE IF NOT EXISTS storage_credentials (
+  user_id TEXT PRIMARY KEY REFERENCES user_profiles(id) ON DELETE CASCADE,
+  refresh_token TEXT NOT NULL,
+  updated_at TIMESTAMP WITH TIME ZONE DEFAULT NOW()
+);
+
 -- Create RLS policies for user_profiles
 ALTER TABLE user_profiles ENABLE ROW LEVEL SECURITY;
 
@@ -125,3 +146,6 @@ CREATE POLICY "Users can delete tracks from their own playlists"
       AND playlists.user_id = auth.uid()
     )
   );
+
+-- No policies: only the backend's service role key can read or write storage credentials
+ALTER TABLE storage_credentials ENABLE ROW LEVEL SECURITY;
@@ -0,0 +1,137 @@
+package com.soundvaultpro.api.plays;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Claim, publish and drain, including slots published out of order and a full ring
+ */
+class PlayEventRingTest {
+
+    private final List<Long> trackIds = new ArrayList<>();
+    private final PlayEventRing.Handler collect = (user, timestamp, trackId, type, position, target) -> trackIds.add(trackId);
+
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        assertThatThrownBy(() -> new PlayEventRing(100)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void drainsPublishedEventsInSequenceOrder() {
+        PlayEventRing ring = new PlayEventRing(8);
+        long first = ring.claim(3);
+
+        publish(ring, first + 2, 3);
+        publish(ring, first + 1, 2);
+        // The consumer stops at the first slot that is claimed but not yet published
+        assertThat(ring.drain(collect, 10)).isZero();
+
+        publish(ring, first, 1);
+        assertThat(ring.drain(collect, 10)).isEqualTo(3);
+        assertThat(trackIds).containsExactly(1L, 2L, 3L);
+        assertThat(ring.size()).isZero();
+    }
+
+    @Test
+    void drainHandsOverAtMostMax() {
+        PlayEventRing ring = new PlayEventRing(8);
+        long first = ring.claim(5);
+        for (int i = 0; i < 5; i++) {
+            publish(ring, first + i, i);
+        }
+
+        assertThat(ring.drain(collect, 2)).isEqualTo(2);
+        assertThat(ring.size()).isEqualTo(3);
+        assertThat(ring.drain(collect, 10)).isEqualTo(3);
+        assertThat(trackIds).containsExactly(0L, 1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void fullRingRefusesClaimsUntilDrained() {
+        PlayEventRing ring = new PlayEventRing(4);
+        long first = ring.claim(3);
+        // A batch is claimed whole or not at all
+        assertThat(ring.claim(2)).isEqualTo(-1);
+        long last = ring.claim(1);
+        assertThat(ring.claim(1)).isEqualTo(-1);
+
+        for (long sequence = first; sequence <= last; sequence++) {
+            publish(ring, sequence, sequence);
+        }
+        ring.drain(collect, 2);
+
+        // The freed slots wrap around
+        long next = ring.claim(2);
+        assertThat(next).isEqualTo(4);
+        publish(ring, next, 4);
+        publish(ring, next + 1, 5);
+        assertThat(ring.drain(collect, 10)).isEqualTo(4);
+        assertThat(trackIds).containsExactly(0L, 1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void concurrentProducersLoseNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        PlayEventRing ring = new PlayEventRing(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> done = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String user = "user-" + p;
+            done.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; ) {
+                    int batch = Math.min(1 + i % 3, perProducer - i);
+                    long sequence = ring.claim(batch);
+                    if (sequence < 0) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    for (int j = 0; j < batch; j++) {
+                        ring.publish(sequence + j, user, 0, i + j, (byte) 0, 0, 0);
+                    }
+                    i += batch;
+                }
+                return null;
+            }));
+        }
+
+        // Each producer's events must come out complete and in the order it published them
+        Map<String, Long> nextByUser = new HashMap<>();
+        int[] total = new int[1];
+        start.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (total[0] < producers * perProducer && System.nanoTime() < deadline) {
+            ring.drain((user, timestamp, trackId, type, position, target) -> {
+                assertThat(trackId).isEqualTo(nextByUser.getOrDefault(user, 0L));
+                nextByUser.put(user, trackId + 1);
+                total[0]++;
+            }, 256);
+        }
+        for (Future<?> producer : done) {
+            producer.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(total[0]).isEqualTo(producers * perProducer);
+        assertThat(nextByUser).hasSize(producers).allSatisfy((user, next) -> assertThat(next).isEqualTo(perProducer));
+        assertThat(ring.size()).isZero();
+    }
+
+    private static void publish(PlayEventRing ring, long sequence, long trackId) {
+        ring.publish(sequence, "42", 0, trackId, (byte) 0, 0, 0);
+    }
+}
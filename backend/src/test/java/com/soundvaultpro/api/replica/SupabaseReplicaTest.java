@@ -0,0 +1,177 @@
+package com.soundvaultpro.api.replica;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.soundvaultpro.api.config.SupabaseConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Change feed, write-through and reconciliation against an in-memory store, with the feed and
+ * PostgREST stubbed so events can be interleaved with a reconciliation pass
+ */
+class SupabaseReplicaTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+    private final InMemoryReplicaStore store = new InMemoryReplicaStore();
+    private final StubChangeEventSource feed = new StubChangeEventSource();
+    private final List<Object> published = new ArrayList<>();
+    private SupabaseReplica replica;
+
+    @BeforeEach
+    void setUp() {
+        SupabaseConfig supabaseConfig = new SupabaseConfig();
+        ReflectionTestUtils.setField(supabaseConfig, "supabaseUrl", "http://supabase.test");
+        ReflectionTestUtils.setField(supabaseConfig, "supabaseKey", "key");
+        replica = new SupabaseReplica(store, feed, restTemplate, supabaseConfig, objectMapper,
+                published::add, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(replica, "pageSize", 1000);
+        // Not start(): it would reconcile in the background
+        feed.start(replica::apply, () -> { });
+    }
+
+    @Test
+    void appliesFeedEventsAndRepublishesThem() {
+        ChangeEvent insert = insert("playlists", playlist(1, "42", "Road trip"));
+        feed.publish(insert);
+        feed.publish(update("playlists", playlist(1, "42", "Road trip 2")));
+        feed.publish(insert("tracks", objectMapper.createObjectNode().put("id", 7).put("user_id", "42")));
+        feed.publish(delete("tracks", objectMapper.createObjectNode().put("id", 7)));
+        feed.publish(insert("storage_credentials", objectMapper.createObjectNode().put("user_id", "42")));
+
+        assertThat(replica.findPlaylist(1L)).get()
+                .extracting(row -> row.get("name").asText()).isEqualTo("Road trip 2");
+        assertThat(replica.findPlaylistsByUser("42")).hasSize(1);
+        assertThat(replica.findTrack(7L)).isEmpty();
+        assertThat(replica.findTracksByUser("42")).isEmpty();
+        // Tables outside the replica are neither stored nor re-published
+        assertThat(published).hasSize(4).first().isSameAs(insert);
+    }
+
+    @Test
+    void localWriteIsVisibleBeforeTheFeedAndReplacedByIt() {
+        feed.publish(insert("playlists", playlist(1, "42", "Road trip")));
+
+        replica.applyLocalWrite("playlists", objectMapper.createObjectNode().put("id", 1).put("name", "Renamed"));
+        JsonNode local = replica.findPlaylist(1L).orElseThrow();
+        assertThat(local.get("name").asText()).isEqualTo("Renamed");
+        // Only the written columns change
+        assertThat(local.get("user_id").asText()).isEqualTo("42");
+
+        // The feed's full row for the same write is at least as new
+        ObjectNode fromFeed = playlist(1, "42", "Renamed").put("updated_at", "2026-01-02T00:00:00Z");
+        feed.publish(update("playlists", fromFeed));
+        assertThat(replica.findPlaylist(1L)).contains(fromFeed);
+
+        replica.applyLocalDelete("playlists", objectMapper.createObjectNode().put("id", 1));
+        assertThat(replica.findPlaylist(1L)).isEmpty();
+        assertThat(replica.findPlaylistsByUser("42")).isEmpty();
+    }
+
+    @Test
+    void reconcileReplacesTablesAndMakesReplicaReady() {
+        feed.publish(insert("playlists", playlist(1, "42", "Deleted upstream while the feed was down")));
+        feed.publish(insert("playlists", playlist(2, "42", "Stale")));
+        assertThat(replica.isReady()).isFalse();
+
+        expectTable("user_profiles", "[{\"id\":\"42\",\"email\":\"a@example.com\"}]");
+        expectTable("playlists", "[" + playlist(2, "42", "Current") + "," + playlist(3, "42", "Missed") + "]");
+        expectTable("playlist_tracks", "[{\"playlist_id\":3,\"track_id\":7,\"position\":0}]");
+        expectTable("tracks", "[]");
+        replica.reconcile();
+
+        server.verify();
+        assertThat(replica.isReady()).isTrue();
+        assertThat(replica.findPlaylist(1L)).isEmpty();
+        assertThat(replica.findPlaylist(2L).orElseThrow().get("name").asText()).isEqualTo("Current");
+        assertThat(replica.findPlaylistsByUser("42")).hasSize(2);
+        assertThat(replica.findPlaylistTracks(3L)).hasSize(1);
+        assertThat(replica.findUserProfile("42")).isPresent();
+    }
+
+    @Test
+    void changesDuringReconcileWinOverTheSnapshot() {
+        feed.publish(insert("playlists", playlist(1, "42", "Old")));
+        feed.publish(insert("playlists", playlist(2, "42", "Kept")));
+
+        expectTable("user_profiles", "[]");
+        // The snapshot was read before the changes below, which arrive while it is in flight
+        server.expect(requestTo(tableUrl("playlists"))).andRespond(during(
+                withSuccess("[" + playlist(1, "42", "Old") + "," + playlist(2, "42", "Kept") + "]",
+                        MediaType.APPLICATION_JSON), () -> {
+                    feed.publish(update("playlists", playlist(1, "42", "New")));
+                    feed.publish(delete("playlists", objectMapper.createObjectNode().put("id", 2)));
+                    replica.applyLocalWrite("playlists", playlist(3, "42", "Created here"));
+                }));
+        expectTable("playlist_tracks", "[]");
+        expectTable("tracks", "[]");
+        replica.reconcile();
+
+        server.verify();
+        assertThat(replica.findPlaylist(1L).orElseThrow().get("name").asText()).isEqualTo("New");
+        assertThat(replica.findPlaylist(2L)).isEmpty();
+        assertThat(replica.findPlaylist(3L)).isPresent();
+        assertThat(replica.findPlaylistsByUser("42")).hasSize(2);
+    }
+
+    @Test
+    void failedReconcileLeavesReplicaNotReady() {
+        expectTable("user_profiles", "[]");
+        server.expect(requestTo(tableUrl("playlists"))).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        replica.reconcile();
+
+        server.verify();
+        assertThat(replica.isReady()).isFalse();
+    }
+
+    private void expectTable(String table, String rows) {
+        server.expect(requestTo(tableUrl(table))).andRespond(withSuccess(rows, MediaType.APPLICATION_JSON));
+    }
+
+    private static String tableUrl(String table) {
+        return "http://supabase.test/rest/v1/" + table + "?select=*&order=id.asc&limit=1000&offset=0";
+    }
+
+    private static ResponseCreator during(ResponseCreator response, Runnable action) {
+        return request -> {
+            action.run();
+            return response.createResponse(request);
+        };
+    }
+
+    private ObjectNode playlist(long id, String userId, String name) {
+        return objectMapper.createObjectNode().put("id", id).put("user_id", userId).put("name", name)
+                .put("created_at", "2026-01-01T00:00:0" + id + "Z");
+    }
+
+    private static ChangeEvent insert(String table, JsonNode row) {
+        return new ChangeEvent(table, ChangeEvent.Type.INSERT, row, null);
+    }
+
+    private static ChangeEvent update(String table, JsonNode row) {
+        return new ChangeEvent(table, ChangeEvent.Type.UPDATE, row, row);
+    }
+
+    private static ChangeEvent delete(String table, JsonNode keyRow) {
+        return new ChangeEvent(table, ChangeEvent.Type.DELETE, null, keyRow);
+    }
+}
@@ -0,0 +1,99 @@
+package com.soundvaultpro.api.repository;
+
+import com.soundvaultpro.api.dto.PlaylistDto;
+import com.soundvaultpro.api.model.Playlist;
+import com.soundvaultpro.api.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The playlist read queries must cost the same number of statements however many playlists a
+ * user has, i.e. never load owners one playlist at a time.
+ */
+@DataJpaTest(properties = {
+        // application.properties leaves JPA out unless the localstore profile is active
+        "spring.autoconfigure.exclude=",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class PlaylistRepositoryTest {
+
+    @Autowired
+    private PlaylistRepository playlistRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void listQueryStatementCountDoesNotGrowWithPlaylists() {
+        createUser("one", 1);
+        createUser("many", 25);
+
+        long single = statementsFor(() -> assertThat(playlistRepository.findListByUserSupabaseId("one")).hasSize(1));
+        long many = statementsFor(() -> {
+            List<PlaylistDto> playlists = playlistRepository.findListByUserSupabaseId("many");
+            assertThat(playlists).hasSize(25);
+            assertThat(playlists).allSatisfy(playlist -> assertThat(playlist.getUserName()).isEqualTo("many"));
+        });
+
+        assertThat(single).isEqualTo(1);
+        assertThat(many).isEqualTo(single);
+    }
+
+    @Test
+    void detailQueryReadsOwnerInTheSameStatement() {
+        createUser("owner", 3);
+
+        long statements = statementsFor(() -> assertThat(playlistRepository.findDetailByRemoteId("1"))
+                .hasValueSatisfying(playlist -> assertThat(playlist.getUserName()).isEqualTo("owner")));
+
+        assertThat(statements).isEqualTo(1);
+    }
+
+    /**
+     * Persist a user with the given number of playlists, leaving nothing in the persistence context
+     */
+    private void createUser(String supabaseId, int playlists) {
+        User user = new User();
+        user.setSupabaseId(supabaseId);
+        user.setName(supabaseId);
+        user.setEmail(supabaseId + "@example.com");
+        entityManager.persist(user);
+        long firstRemoteId = playlistRepository.count() + 1;
+        for (int i = 0; i < playlists; i++) {
+            Playlist playlist = new Playlist();
+            playlist.setRemoteId(String.valueOf(firstRemoteId + i));
+            playlist.setName("Playlist " + i);
+            playlist.setUser(user);
+            entityManager.persist(playlist);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long statementsFor(Runnable query) {
+        statistics.clear();
+        query.run();
+        entityManager.clear();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,60 @@
+package com.soundvaultpro.api.service;
+
+import com.soundvaultpro.api.cache.LocalInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two nodes sharing one bus: a profile written through one must not be skipped on the other
+ */
+class ProfileSnapshotStoreTest {
+
+    private final LocalInvalidationBus bus = new LocalInvalidationBus();
+    private ProfileSnapshotStore node1;
+    private ProfileSnapshotStore node2;
+
+    @BeforeEach
+    void setUp() {
+        node1 = store();
+        node2 = store();
+    }
+
+    @Test
+    void unchangedLoginIsSkipped() {
+        node1.record("1", "one@example.com", "One", null);
+
+        assertThat(node1.changedColumns("1", "one@example.com", "One", null)).isEmpty();
+        assertThat(node1.changedColumns("1", "one@example.com", "Renamed", null)).containsExactly("name");
+    }
+
+    @Test
+    void writeOnAnotherNodeDropsTheFingerprint() {
+        node1.record("1", "one@example.com", "One", null);
+        node2.record("1", "one@example.com", "One", null);
+
+        // The user renames themselves through node 2, then logs in again with the old name on node 1
+        node2.record("1", "one@example.com", "Renamed", null);
+
+        assertThat(node1.changedColumns("1", "one@example.com", "One", null)).isNull();
+        assertThat(node2.changedColumns("1", "one@example.com", "Renamed", null)).isEmpty();
+    }
+
+    @Test
+    void forgetOnAnotherNodeDropsTheFingerprint() {
+        node1.record("1", "one@example.com", "One", null);
+
+        node2.forget("1");
+
+        assertThat(node1.changedColumns("1", "one@example.com", "One", null)).isNull();
+    }
+
+    private ProfileSnapshotStore store() {
+        ProfileSnapshotStore store = new ProfileSnapshotStore(bus);
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "maxAgeHours", 24L);
+        return store;
+    }
+}
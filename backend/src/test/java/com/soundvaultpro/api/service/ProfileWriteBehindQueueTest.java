@@ -0,0 +1,190 @@
+package com.soundvaultpro.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.soundvaultpro.api.cache.LocalInvalidationBus;
+import com.soundvaultpro.api.config.SupabaseConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+
+/**
+ * Journal replay, and the rule that a profile fingerprint is only recorded for rows Supabase took
+ */
+class ProfileWriteBehindQueueTest {
+
+    private static final String UPSERT_URL = "http://supabase.test/rest/v1/user_profiles?on_conflict=id";
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+    private final List<ProfileWriteBehindQueue> queues = new ArrayList<>();
+    private SupabaseConfig supabaseConfig;
+    private ProfileSnapshotStore snapshots;
+
+    @BeforeEach
+    void setUp() {
+        supabaseConfig = new SupabaseConfig();
+        ReflectionTestUtils.setField(supabaseConfig, "supabaseUrl", "http://supabase.test");
+        ReflectionTestUtils.setField(supabaseConfig, "supabaseKey", "key");
+        snapshots = new ProfileSnapshotStore(new LocalInvalidationBus());
+        ReflectionTestUtils.setField(snapshots, "enabled", true);
+        ReflectionTestUtils.setField(snapshots, "maxAgeHours", 24L);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        // Not stop(): its final flush would send whatever a test left pending
+        for (ProfileWriteBehindQueue queue : queues) {
+            ((ExecutorService) ReflectionTestUtils.getField(queue, "flushExecutor")).shutdownNow();
+            ((FileChannel) ReflectionTestUtils.getField(queue, "journalChannel")).close();
+        }
+    }
+
+    @Test
+    void replaysJournalAfterRestart() throws IOException {
+        Path journal = dir.resolve("profile-writes.journal");
+        // A flush that never finished, older than the current journal
+        Files.writeString(dir.resolve("profile-writes.journal.flushing"),
+                "{\"id\":\"1\",\"email\":\"old@example.com\",\"name\":\"Old\"}\n");
+        Files.writeString(journal, "{\"id\":\"1\",\"name\":\"New\"}\n"
+                + "{\"id\":\"2\",\"email\":\"two@example.com\",\"name\":\"Two\"}\n"
+                + "{\"id\":\"3\",\"email\":\"torn");
+
+        ProfileWriteBehindQueue queue = start(journal, true);
+
+        assertThat(queue.pendingCount()).isEqualTo(2);
+        assertThat(queue.pendingRow("1").get("email").asText()).isEqualTo("old@example.com");
+        assertThat(queue.pendingRow("1").get("name").asText()).isEqualTo("New");
+        assertThat(Files.exists(dir.resolve("profile-writes.journal.flushing"))).isFalse();
+        assertThat(Files.readAllLines(journal)).hasSize(2);
+    }
+
+    @Test
+    void acknowledgedRowsSurviveACrash() throws IOException {
+        Path journal = dir.resolve("profile-writes.journal");
+        ProfileWriteBehindQueue crashed = start(journal, true);
+        assertThat(crashed.enqueue(row("1", "one@example.com", "One"))).isTrue();
+
+        ProfileWriteBehindQueue restarted = start(journal, true);
+
+        assertThat(restarted.pendingRow("1").get("email").asText()).isEqualTo("one@example.com");
+    }
+
+    @Test
+    void recordsFingerprintOnlyOnceWritten() throws IOException {
+        ProfileWriteBehindQueue queue = start(dir.resolve("profile-writes.journal"), false);
+        queue.enqueue(row("1", "one@example.com", "One"));
+        assertThat(snapshots.changedColumns("1", "one@example.com", "One", null)).isNull();
+
+        server.expect(requestTo(UPSERT_URL)).andExpect(method(HttpMethod.POST))
+                .andRespond(withStatus(HttpStatus.CREATED));
+        queue.flush();
+
+        server.verify();
+        assertThat(queue.pendingCount()).isZero();
+        assertThat(snapshots.changedColumns("1", "one@example.com", "One", null)).isEmpty();
+    }
+
+    @Test
+    void dropsRejectedRowsAndForgetsTheirFingerprint() throws IOException {
+        ProfileWriteBehindQueue queue = start(dir.resolve("profile-writes.journal"), false);
+        snapshots.record("2", "two@example.com", "Two", null);
+        queue.enqueue(row("1", "one@example.com", "One"));
+        queue.enqueue(row("2", "bad", "Two"));
+
+        server.expect(requestTo(UPSERT_URL)).andRespond(withStatus(HttpStatus.BAD_REQUEST));
+        server.expect(requestTo(UPSERT_URL)).andExpect(jsonPath("$[0].id").value("1"))
+                .andRespond(withStatus(HttpStatus.CREATED));
+        server.expect(requestTo(UPSERT_URL)).andExpect(jsonPath("$[0].id").value("2"))
+                .andRespond(withStatus(HttpStatus.BAD_REQUEST));
+        queue.flush();
+
+        server.verify();
+        assertThat(queue.pendingCount()).isZero();
+        assertThat(snapshots.changedColumns("1", "one@example.com", "One", null)).isEmpty();
+        assertThat(snapshots.changedColumns("2", "two@example.com", "Two", null)).isNull();
+    }
+
+    @Test
+    void changeDuringFlushIsQueuedBehindIt() throws IOException {
+        ProfileWriteBehindQueue queue = start(dir.resolve("profile-writes.journal"), false);
+        queue.enqueue(row("1", "one@example.com", "One"));
+        ObjectNode rename = objectMapper.createObjectNode().put("name", "Renamed");
+        boolean[] merged = new boolean[1];
+
+        server.expect(requestTo(UPSERT_URL)).andExpect(jsonPath("$[0].name").value("One"))
+                .andRespond(request -> {
+                    // The login arrives while the first upsert is on the wire
+                    merged[0] = queue.mergeIfPending("1", rename);
+                    return withStatus(HttpStatus.CREATED).createResponse(request);
+                });
+        server.expect(requestTo(UPSERT_URL))
+                .andExpect(jsonPath("$[0].email").value("one@example.com"))
+                .andExpect(jsonPath("$[0].name").value("Renamed"))
+                .andRespond(withStatus(HttpStatus.CREATED));
+        queue.flush();
+        assertThat(merged[0]).isTrue();
+        assertThat(queue.pendingRow("1").get("name").asText()).isEqualTo("Renamed");
+        queue.flush();
+
+        server.verify();
+        assertThat(snapshots.changedColumns("1", "one@example.com", "Renamed", null)).isEmpty();
+    }
+
+    @Test
+    void failedFlushKeepsRowsForRetry() throws IOException {
+        ProfileWriteBehindQueue queue = start(dir.resolve("profile-writes.journal"), false);
+        queue.enqueue(row("1", "one@example.com", "One"));
+
+        server.expect(requestTo(UPSERT_URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        queue.flush();
+
+        server.verify();
+        assertThat(queue.pendingRow("1").get("email").asText()).isEqualTo("one@example.com");
+        assertThat(snapshots.changedColumns("1", "one@example.com", "One", null)).isNull();
+    }
+
+    /**
+     * @param hold Whether to keep the queue from flushing, as replayed rows would otherwise be sent at once
+     */
+    private ProfileWriteBehindQueue start(Path journal, boolean hold) throws IOException {
+        ProfileWriteBehindQueue queue = new ProfileWriteBehindQueue(restTemplate, supabaseConfig, objectMapper, snapshots);
+        ReflectionTestUtils.setField(queue, "batchSize", 100);
+        ReflectionTestUtils.setField(queue, "maxPending", 1000);
+        ReflectionTestUtils.setField(queue, "journalPath", journal.toString());
+        ReflectionTestUtils.setField(queue, "retryInitialMs", 1000L);
+        ReflectionTestUtils.setField(queue, "retryMaxMs", 60000L);
+        ReflectionTestUtils.setField(queue, "retryAt", hold ? Long.MAX_VALUE : 0L);
+        queue.start();
+        queues.add(queue);
+        return queue;
+    }
+
+    private ObjectNode row(String id, String email, String name) {
+        return objectMapper.createObjectNode().put("id", id).put("email", email).put("name", name);
+    }
+}
@@ -0,0 +1,160 @@
+package com.soundvaultpro.api.storage;
+
+import com.soundvaultpro.api.cache.LocalInvalidationBus;
+import com.soundvaultpro.api.service.SupabaseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Link caching, expiry and token refresh, against the stub provider with its calls counted
+ */
+class StorageLinkBrokerTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+
+    /** Stands in for the storage_credentials table that every node shares */
+    private final Map<String, String> table = new ConcurrentHashMap<>();
+    private final LocalInvalidationBus bus = new LocalInvalidationBus();
+    private final AtomicInteger refreshes = new AtomicInteger();
+    private final AtomicInteger mints = new AtomicInteger();
+    private StubStorageClient provider;
+    private StorageCredentialStore credentials;
+
+    @BeforeEach
+    void setUp() {
+        provider = new StubStorageClient("target/storage", "secret");
+        ReflectionTestUtils.setField(provider, "baseUrl", "http://localhost/api");
+        ReflectionTestUtils.setField(provider, "linkLifetimeSeconds", 14400L);
+        ReflectionTestUtils.setField(provider, "tokenLifetimeSeconds", 14400L);
+        credentials = credentialStore();
+        credentials.put("42", "refresh-token");
+    }
+
+    @Test
+    void cachesLinksUntilTheRefreshMargin() {
+        StorageLinkBroker broker = broker();
+
+        StorageLink first = broker.link("42", "/a.mp3").join();
+        StorageLink second = broker.link("42", "/a.mp3").join();
+        broker.link("42", "/b.mp3").join();
+
+        assertThat(second).isSameAs(first);
+        assertThat(mints).hasValue(2);
+        assertThat(refreshes).hasValue(1);
+    }
+
+    @Test
+    void linksCloseToExpiryAreMintedAgain() {
+        // Links live 5 minutes, less than the 10 minute margin a client is promised
+        ReflectionTestUtils.setField(provider, "linkLifetimeSeconds", 300L);
+        StorageLinkBroker broker = broker();
+
+        broker.link("42", "/a.mp3").join();
+        broker.link("42", "/a.mp3").join();
+
+        assertThat(mints).hasValue(2);
+        assertThat(refreshes).hasValue(1);
+    }
+
+    @Test
+    void accessTokensCloseToExpiryAreRefreshed() {
+        ReflectionTestUtils.setField(provider, "tokenLifetimeSeconds", 30L);
+        StorageLinkBroker broker = broker();
+
+        broker.link("42", "/a.mp3").join();
+        broker.link("42", "/b.mp3").join();
+
+        assertThat(refreshes).hasValue(2);
+    }
+
+    @Test
+    void concurrentRequestsShareOneMint() {
+        ReflectionTestUtils.setField(provider, "latencyMs", 100L);
+        StorageLinkBroker broker = broker();
+
+        CompletableFuture<StorageLink> first = broker.link("42", "/a.mp3");
+        CompletableFuture<StorageLink> second = broker.link("42", "/a.mp3");
+        Map<String, StorageLink> batch = broker.links("42", List.of("/a.mp3", "/b.mp3", "/a.mp3")).join();
+
+        assertThat(second).isSameAs(first);
+        assertThat(batch).containsOnlyKeys("/a.mp3", "/b.mp3").containsEntry("/a.mp3", first.join());
+        assertThat(mints).hasValue(2);
+        assertThat(refreshes).hasValue(1);
+    }
+
+    @Test
+    void newCredentialsOnAnotherNodeDropLinksAndTokens() {
+        StorageLinkBroker broker = broker();
+        StorageLink before = broker.link("42", "/a.mp3").join();
+
+        credentialStore().put("42", "another-refresh-token");
+        StorageLink after = broker.link("42", "/a.mp3").join();
+
+        assertThat(table.get("42")).doesNotContain("another-refresh-token");
+        assertThat(after).isNotSameAs(before);
+        assertThat(mints).hasValue(2);
+        assertThat(refreshes).hasValue(2);
+    }
+
+    @Test
+    void disconnectedUsersGetNoLinks() {
+        StorageLinkBroker broker = broker();
+        broker.link("42", "/a.mp3").join();
+
+        assertThat(broker.disconnect("42")).isTrue();
+
+        assertThat(broker.isConnected("42")).isFalse();
+        assertThatThrownBy(() -> broker.link("42", "/a.mp3").join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(broker.links("42", List.of("/a.mp3"))).isCompletedExceptionally();
+    }
+
+    private StorageLinkBroker broker() {
+        StorageClient counting = new StorageClient() {
+            @Override
+            public CompletableFuture<AccessToken> refresh(String refreshToken) {
+                refreshes.incrementAndGet();
+                return provider.refresh(refreshToken);
+            }
+
+            @Override
+            public CompletableFuture<StorageLink> mintLink(String accessToken, String path) {
+                mints.incrementAndGet();
+                return provider.mintLink(accessToken, path);
+            }
+        };
+        StorageLinkBroker broker = new StorageLinkBroker(counting, credentials, new SimpleMeterRegistry(), 600, 1000);
+        ReflectionTestUtils.setField(broker, "maxBatchSize", 100);
+        return broker;
+    }
+
+    /**
+     * A node's credential store, backed by the shared table
+     */
+    private StorageCredentialStore credentialStore() {
+        SupabaseService supabase = mock(SupabaseService.class);
+        when(supabase.findStorageCredential(anyString())).thenAnswer(call -> table.get(call.<String>getArgument(0)));
+        doAnswer(call -> table.put(call.getArgument(0), call.getArgument(1)))
+                .when(supabase).saveStorageCredential(anyString(), anyString());
+        when(supabase.deleteStorageCredential(anyString())).thenAnswer(call -> table.remove(call.<String>getArgument(0)) != null);
+        return new StorageCredentialStore(supabase, bus, KEY, 60, 1000);
+    }
+}